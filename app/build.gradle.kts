@@ -37,6 +37,7 @@ android {
 
 dependencies {
 
+    implementation(project(":cliente"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -0,0 +1,143 @@
+package com.example.contentprovidergerador.cliente;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.Mensagem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercita a API do {@link ClienteMensagens} contra o provedor instalado. As mensagens do teste
+ * usam um autor único, e são excluídas ao final.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ClienteMensagensTest {
+
+    private static final int LINHAS = 25;
+
+    private Context contexto;
+    private ClienteMensagens cliente;
+    private String autor;
+
+    @Before
+    public void setUp() {
+        contexto = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        cliente = new ClienteMensagens(contexto);
+        autor = "Teste do cliente " + UUID.randomUUID();
+    }
+
+    @After
+    public void tearDown() {
+        cliente.close();
+        contexto.getContentResolver().delete(MensagemContract.MensagemEntry.CONTENT_URI,
+                MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?", new String[]{autor});
+    }
+
+    @Test
+    public void inserirLote_listarPaginasEBuscarPorId() throws Exception {
+        List<Mensagem> novas = new ArrayList<>();
+        for (int i = 0; i < LINHAS; i++) {
+            novas.add(new Mensagem(0, "Mensagem " + i, autor, false));
+        }
+        long antes = cliente.inserir(new Mensagem(0, "Marcador", autor, false)).get(5, TimeUnit.SECONDS);
+        assertEquals(LINHAS, (int) cliente.inserirLote(novas).get(5, TimeUnit.SECONDS));
+
+        // Percorre as páginas a partir do marcador: as mensagens do lote vêm em ordem de ID.
+        List<Mensagem> lidas = new ArrayList<>();
+        Pagina pagina = cliente.listarPagina(antes, 10).get(5, TimeUnit.SECONDS);
+        while (true) {
+            for (Mensagem mensagem : pagina.getMensagens()) {
+                if (autor.equals(mensagem.getAutor())) {
+                    lidas.add(mensagem);
+                }
+            }
+            if (!pagina.temMais()) break;
+            pagina = cliente.listarPagina(pagina.getUltimoId(), 10).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(LINHAS, lidas.size());
+        for (int i = 0; i < LINHAS; i++) {
+            assertEquals("Mensagem " + i, lidas.get(i).getTexto());
+        }
+
+        Mensagem primeira = cliente.buscarPorId(lidas.get(0).getId()).get(5, TimeUnit.SECONDS);
+        assertEquals(lidas.get(0).getId(), primeira.getId());
+        assertEquals(autor, primeira.getAutor());
+        assertNull(cliente.buscarPorId(Long.MAX_VALUE).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void alternarFavorita_eSortearFavoritas() throws Exception {
+        long id = cliente.inserir(new Mensagem(0, "Favorita do teste", autor, false)).get(5, TimeUnit.SECONDS);
+        Mensagem mensagem = cliente.buscarPorId(id).get(5, TimeUnit.SECONDS);
+
+        assertTrue(cliente.alternarFavorita(mensagem).get(5, TimeUnit.SECONDS));
+        assertTrue(cliente.buscarPorId(id).get(5, TimeUnit.SECONDS).isFavorita());
+        assertTrue(cliente.sortear(true).get(5, TimeUnit.SECONDS).isFavorita());
+
+        assertTrue(cliente.definirFavorita(id, false).get(5, TimeUnit.SECONDS));
+        assertFalse(cliente.buscarPorId(id).get(5, TimeUnit.SECONDS).isFavorita());
+        assertFalse(cliente.definirFavorita(Long.MAX_VALUE, true).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void definirFavoritas_alteraVariasEmUmaChamada() throws Exception {
+        List<Mensagem> novas = new ArrayList<>();
+        for (int i = 0; i < LINHAS; i++) {
+            novas.add(new Mensagem(0, "Favorita em lote " + i, autor, i % 5 == 0));
+        }
+        long antes = cliente.inserir(new Mensagem(0, "Marcador", autor, false)).get(5, TimeUnit.SECONDS);
+        cliente.inserirLote(novas).get(5, TimeUnit.SECONDS);
+        List<Mensagem> lidas = cliente.listarPagina(antes, LINHAS).get(5, TimeUnit.SECONDS).getMensagens();
+        long[] ids = new long[lidas.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = lidas.get(i).getId();
+        }
+
+        // Só as que ainda não eram favoritas mudam de estado.
+        assertEquals(LINHAS - LINHAS / 5, (int) cliente.definirFavoritas(ids, true).get(5, TimeUnit.SECONDS));
+        for (Mensagem mensagem : cliente.listarPagina(antes, LINHAS).get(5, TimeUnit.SECONDS).getMensagens()) {
+            assertTrue(mensagem.isFavorita());
+        }
+        assertEquals(LINHAS, (int) cliente.definirFavoritas(ids, false).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void listarPagina_trazOTextoCurto() throws Exception {
+        StringBuilder longo = new StringBuilder();
+        while (longo.length() <= MensagemContract.MensagemEntry.TAMANHO_TEXTO_PREVIEW) {
+            longo.append("Persista. ");
+        }
+        long id = cliente.inserir(new Mensagem(0, longo.toString(), autor, false)).get(5, TimeUnit.SECONDS);
+
+        Mensagem daPagina = cliente.listarPagina(id - 1, 1).get(5, TimeUnit.SECONDS).getMensagens().get(0);
+        assertEquals(id, daPagina.getId());
+        assertTrue(daPagina.getTexto().endsWith("…"));
+        assertEquals(longo.toString(), cliente.buscarPorId(id).get(5, TimeUnit.SECONDS).getTexto());
+    }
+
+    @Test
+    public void clienteEncerrado_falhaAsChamadas() throws Exception {
+        cliente.close();
+        try {
+            cliente.buscarPorId(1).get(5, TimeUnit.SECONDS);
+            fail("A chamada deveria falhar após o encerramento");
+        } catch (ExecutionException e) {
+            // Esperado: o pool já não aceita chamadas.
+        }
+    }
+}
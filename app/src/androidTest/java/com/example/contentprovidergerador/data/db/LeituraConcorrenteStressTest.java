@@ -0,0 +1,146 @@
+package com.example.contentprovidergerador.data.db;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Teste de estresse com N threads leitoras e 1 thread escritora sobre o {@link MensagemDbHelper}.
+ * Mede os percentis de latência das leituras com o journal de rollback (comportamento anterior)
+ * e com WAL, e registra os resultados no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LeituraConcorrenteStressTest {
+
+    private static final String TAG = "LeituraConcorrente";
+    private static final String NOME_BANCO = "stress-leitura.db";
+    private static final int LEITORES = 4;
+    private static final int LINHAS_INICIAIS = 20_000;
+    private static final long DURACAO_MS = 3_000;
+
+    private final Context alvo = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @After
+    public void tearDown() {
+        alvo.deleteDatabase(NOME_BANCO);
+    }
+
+    @Test
+    public void leiturasConcorrentesComEscritor_rollbackVersusWal() throws Exception {
+        long[] rollback = medir(false);
+        long[] wal = medir(true);
+
+        Log.i(TAG, "rollback: " + descrever(rollback));
+        Log.i(TAG, "WAL:      " + descrever(wal));
+        assertTrue(rollback.length > 0);
+        assertTrue(wal.length > 0);
+    }
+
+    /**
+     * Executa a carga de leitura/escrita e retorna as latências de leitura ordenadas, em microssegundos.
+     */
+    private long[] medir(boolean wal) throws Exception {
+        alvo.deleteDatabase(NOME_BANCO);
+        MensagemDbHelper helper = new MensagemDbHelper(new ContextWrapper(alvo) {
+            @Override
+            public File getDatabasePath(String name) {
+                return alvo.getDatabasePath(NOME_BANCO);
+            }
+        });
+        helper.setWriteAheadLoggingEnabled(wal);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        inserir(db, LINHAS_INICIAIS);
+
+        AtomicBoolean rodando = new AtomicBoolean(true);
+        List<List<Long>> latencias = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < LEITORES; i++) {
+            List<Long> minhas = new ArrayList<>();
+            latencias.add(minhas);
+            threads.add(new Thread(() -> {
+                while (rodando.get()) {
+                    long aposId = ThreadLocalRandom.current().nextLong(LINHAS_INICIAIS);
+                    long inicio = SystemClock.elapsedRealtimeNanos();
+                    try (Cursor c = db.query(MensagemDbHelper.VISAO_MENSAGENS, null,
+                            MensagemContract.MensagemEntry._ID + " > ?", new String[]{String.valueOf(aposId)},
+                            null, null, MensagemContract.MensagemEntry._ID, "50")) {
+                        while (c.moveToNext()) {
+                            c.getString(1);
+                        }
+                    }
+                    minhas.add((SystemClock.elapsedRealtimeNanos() - inicio) / 1_000);
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            while (rodando.get()) {
+                inserir(db, 500);
+            }
+        }));
+
+        for (Thread t : threads) t.start();
+        Thread.sleep(DURACAO_MS);
+        rodando.set(false);
+        for (Thread t : threads) t.join();
+        helper.close();
+
+        long[] todas = latencias.stream().flatMap(List::stream).mapToLong(Long::longValue).toArray();
+        Arrays.sort(todas);
+        return todas;
+    }
+
+    // Insere mensagens de exemplo (de 100 autores) em uma única transação.
+    private static void inserir(SQLiteDatabase db, int quantidade) {
+        db.beginTransaction();
+        try (SQLiteStatement autor = db.compileStatement("INSERT OR IGNORE INTO " + MensagemDbHelper.TABELA_AUTORES +
+                " (" + MensagemDbHelper.COLUNA_NOME + ") VALUES (?)");
+             SQLiteStatement insercao = db.compileStatement("INSERT INTO " + MensagemContract.MensagemEntry.TABLE_NAME +
+                " (" + MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " + MensagemDbHelper.COLUNA_AUTOR_ID + ") " +
+                "VALUES (?, (SELECT " + MensagemContract.MensagemEntry._ID + " FROM " + MensagemDbHelper.TABELA_AUTORES +
+                " WHERE " + MensagemDbHelper.COLUNA_NOME + " = ?))")) {
+            for (int i = 0; i < quantidade; i++) {
+                String nome = "Autor " + (i % 100);
+                autor.bindString(1, nome);
+                autor.executeInsert();
+                insercao.bindString(1, "Mensagem de estresse " + i);
+                insercao.bindString(2, nome);
+                insercao.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static String descrever(long[] ordenadas) {
+        return String.format("%d leituras | p50=%dus p95=%dus p99=%dus max=%dus",
+                ordenadas.length, percentil(ordenadas, 50), percentil(ordenadas, 95),
+                percentil(ordenadas, 99), ordenadas[ordenadas.length - 1]);
+    }
+
+    private static long percentil(long[] ordenadas, int p) {
+        int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)];
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.contentprovidergerador.data.db;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+import com.example.contentprovidergerador.data.model.MapeadorCursor;
+import com.example.contentprovidergerador.data.model.Mensagem;
+import com.example.contentprovidergerador.data.model.PoolTextos;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara, com 100 mil mensagens de 300 autores, o esquema anterior (nome do autor repetido em
+ * cada linha) com o esquema normalizado da versão 5 (tabela de autores e visão com a junção).
+ * Registra no Logcat o tamanho do arquivo do banco e a memória usada para manter todas as
+ * linhas carregadas: {@code List<Mensagem>} antes, {@link ListaMensagens} com autores do
+ * {@link PoolTextos} depois.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NormalizacaoAutoresBenchmarkTest {
+
+    private static final String TAG = "NormalizacaoAutores";
+    private static final String BANCO_ANTES = "normalizacao-antes.db";
+    private static final String BANCO_DEPOIS = "normalizacao-depois.db";
+    private static final int LINHAS = 100_000;
+    private static final int AUTORES = 300;
+
+    private final Context alvo = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @After
+    public void tearDown() {
+        alvo.deleteDatabase(BANCO_ANTES);
+        alvo.deleteDatabase(BANCO_DEPOIS);
+    }
+
+    @Test
+    public void autoresNormalizados_reduzemArquivoEMemoria() {
+        File arquivoAntes = alvo.getDatabasePath(BANCO_ANTES);
+        File arquivoDepois = alvo.getDatabasePath(BANCO_DEPOIS);
+        alvo.deleteDatabase(BANCO_ANTES);
+        alvo.deleteDatabase(BANCO_DEPOIS);
+        arquivoAntes.getParentFile().mkdirs();
+
+        long bytesAntes;
+        long heapAntes;
+        try (SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(arquivoAntes, null)) {
+            // Esquema anterior à versão 5: o nome do autor em cada linha.
+            db.execSQL("CREATE TABLE " + MensagemContract.MensagemEntry.TABLE_NAME + " (" +
+                    MensagemContract.MensagemEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    MensagemContract.MensagemEntry.COLUMN_TEXTO + " TEXT NOT NULL, " +
+                    MensagemContract.MensagemEntry.COLUMN_AUTOR + " TEXT NOT NULL, " +
+                    MensagemContract.MensagemEntry.COLUMN_FAVORITA + " BOOLEAN NOT NULL DEFAULT 0)");
+            popular(db, false);
+            db.execSQL("VACUUM");
+            bytesAntes = arquivoAntes.length();
+
+            long base = heapUsado();
+            List<Mensagem> mensagens = carregarComoObjetos(db);
+            heapAntes = heapUsado() - base;
+            assertEquals(LINHAS, mensagens.size());
+        }
+
+        long bytesDepois;
+        long heapDepois;
+        try (SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(arquivoDepois, null)) {
+            db.execSQL(MensagemDbHelper.SQL_CRIAR_TABELA_AUTORES);
+            db.execSQL(MensagemDbHelper.sqlCriarTabelaMensagens(MensagemContract.MensagemEntry.TABLE_NAME));
+            db.execSQL(MensagemDbHelper.SQL_CRIAR_INDICE_AUTOR);
+            db.execSQL(MensagemDbHelper.SQL_CRIAR_VISAO_MENSAGENS);
+            popular(db, true);
+            db.execSQL("VACUUM");
+            bytesDepois = arquivoDepois.length();
+
+            long base = heapUsado();
+            ListaMensagens mensagens = carregarEmColunas(db);
+            heapDepois = heapUsado() - base;
+            assertEquals(LINHAS, mensagens.tamanho());
+        }
+
+        Log.i(TAG, String.format("%d linhas, %d autores | arquivo: %d KiB -> %d KiB | heap: %d KiB -> %d KiB",
+                LINHAS, AUTORES, bytesAntes / 1024, bytesDepois / 1024, heapAntes / 1024, heapDepois / 1024));
+        assertTrue("O banco normalizado deveria ser menor", bytesDepois < bytesAntes);
+        assertTrue("A lista com autores compartilhados deveria ocupar menos memória", heapDepois < heapAntes);
+    }
+
+    // Insere as mensagens de exemplo, no esquema anterior ou no normalizado.
+    private static void popular(SQLiteDatabase db, boolean normalizado) {
+        db.beginTransaction();
+        try (SQLiteStatement autor = normalizado ? db.compileStatement("INSERT OR IGNORE INTO " +
+                MensagemDbHelper.TABELA_AUTORES + " (" + MensagemDbHelper.COLUNA_NOME + ") VALUES (?)") : null;
+             SQLiteStatement insercao = db.compileStatement(normalizado
+                     ? "INSERT INTO " + MensagemContract.MensagemEntry.TABLE_NAME + " (" +
+                       MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " + MensagemDbHelper.COLUNA_AUTOR_ID + ") " +
+                       "VALUES (?, (SELECT " + MensagemContract.MensagemEntry._ID + " FROM " + MensagemDbHelper.TABELA_AUTORES +
+                       " WHERE " + MensagemDbHelper.COLUNA_NOME + " = ?))"
+                     : "INSERT INTO " + MensagemContract.MensagemEntry.TABLE_NAME + " (" +
+                       MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " + MensagemContract.MensagemEntry.COLUMN_AUTOR + ") VALUES (?, ?)")) {
+            for (int i = 0; i < LINHAS; i++) {
+                String nome = "Autor de frases motivacionais nº " + (i % AUTORES);
+                if (autor != null) {
+                    autor.bindString(1, nome);
+                    autor.executeInsert();
+                }
+                insercao.bindString(1, "Acredite no seu potencial, dia " + i);
+                insercao.bindString(2, nome);
+                insercao.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Carrega todas as linhas como antes: um objeto Mensagem e uma String de autor por linha.
+    private static List<Mensagem> carregarComoObjetos(SQLiteDatabase db) {
+        List<Mensagem> lista = new ArrayList<>(LINHAS);
+        try (Cursor cursor = db.query(MensagemContract.MensagemEntry.TABLE_NAME, null, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                lista.add(new Mensagem(
+                        cursor.getLong(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry._ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_FAVORITA)) == 1));
+            }
+        }
+        return lista;
+    }
+
+    // Carrega todas as linhas pela visão, em colunas e com os autores compartilhados.
+    private static ListaMensagens carregarEmColunas(SQLiteDatabase db) {
+        try (Cursor cursor = db.query(MensagemDbHelper.VISAO_MENSAGENS, null, null, null, null, null, null)) {
+            MapeadorCursor mapeador = new MapeadorCursor(cursor, new PoolTextos());
+            ListaMensagens.Construtor lista = new ListaMensagens.Construtor(LINHAS);
+            while (cursor.moveToNext()) {
+                mapeador.lerLinha(lista);
+            }
+            return lista.construir();
+        }
+    }
+
+    // Retorna a memória usada no heap após forçar a coleta de lixo.
+    private static long heapUsado() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            runtime.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mede o tempo até a primeira consulta na inicialização, com e sem a abertura do banco em
+ * segundo plano. O trabalho do resto da inicialização (inflar a interface, etc.) é simulado por
+ * uma espera na thread do teste.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AquecimentoBancoTest {
+
+    private static final String TAG = "AquecimentoBanco";
+    private static final String NOME_BANCO = "teste-aquecimento.db";
+    /** Duração simulada do resto da inicialização do aplicativo. */
+    private static final long TRABALHO_INICIALIZACAO_MS = 150;
+    private static final int REPETICOES = 5;
+
+    @Test
+    public void aberturaEmSegundoPlano_encurtaAInicializacao() {
+        double msAntes = 0;
+        double msDepois = 0;
+        for (int i = 0; i < REPETICOES; i++) {
+            msAntes += inicializar(true);
+            msDepois += inicializar(false);
+        }
+        msAntes /= REPETICOES;
+        msDepois /= REPETICOES;
+
+        Log.i(TAG, String.format("Até a primeira consulta | abertura na chamada: %.1f ms | em segundo plano: %.1f ms",
+                msAntes, msDepois));
+        assertTrue("A abertura em segundo plano deveria encurtar a inicialização", msDepois < msAntes);
+    }
+
+    @Test
+    public void primeiraConsulta_esperaAAbertura() {
+        MensagemProvider provider = ProvedorIsolado.criar(NOME_BANCO);
+        try {
+            // Chega logo após o onCreate(), provavelmente antes do fim da abertura.
+            try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI, null, null, null, null)) {
+                assertEquals(0, c.getCount());
+            }
+            Bundle metricas = provider.call(MensagemContract.METODO_METRICAS, null, null);
+            assertTrue(metricas.getLong(MensagemContract.CHAVE_METRICAS_ABERTURA_BANCO_MS) >= 0);
+            assertTrue(metricas.getLong(MensagemContract.CHAVE_METRICAS_ESPERA_BANCO_MS) >= 0);
+        } finally {
+            ProvedorIsolado.destruir(provider, NOME_BANCO);
+        }
+    }
+
+    /**
+     * Simula uma inicialização: cria o provedor com um banco novo, executa o trabalho de
+     * inicialização e faz a primeira consulta.
+     * @param aberturaNaChamada Se true, a primeira consulta é feita antes do trabalho, como se o
+     *                          banco fosse aberto na thread principal; se false, depois dele, em
+     *                          paralelo com a abertura em segundo plano.
+     * @return O tempo da criação do provedor até o fim da primeira consulta, em milissegundos.
+     */
+    // Mede uma inicialização com banco novo.
+    private static double inicializar(boolean aberturaNaChamada) {
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        MensagemProvider provider = ProvedorIsolado.criar(NOME_BANCO);
+        try {
+            if (aberturaNaChamada) {
+                consultar(provider);
+                SystemClock.sleep(TRABALHO_INICIALIZACAO_MS);
+            } else {
+                SystemClock.sleep(TRABALHO_INICIALIZACAO_MS);
+                consultar(provider);
+            }
+            return (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6;
+        } finally {
+            ProvedorIsolado.destruir(provider, NOME_BANCO);
+        }
+    }
+
+    // Faz a primeira consulta da tela inicial.
+    private static void consultar(MensagemProvider provider) {
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI, null, null, null,
+                MensagemContract.MensagemEntry._ID)) {
+            c.getCount();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica o arquivamento das mensagens antigas: as consultas comuns veem apenas as recentes e
+ * as favoritas, o parâmetro de arquivo traz as demais, os totais não mudam e uma mensagem
+ * arquivada ainda pode ser atualizada e excluída. Também mede a leitura da tabela inteira com e
+ * sem o arquivo; o resultado é registrado no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArquivamentoTest {
+
+    private static final String TAG = "Arquivamento";
+    private static final String NOME_BANCO = "teste-arquivamento.db";
+    private static final int LINHAS = 20_000;
+    /** Uma em cada tantas mensagens é favorita. */
+    private static final int INTERVALO_FAVORITAS = 50;
+    private static final int QUENTES = 1_000;
+    private static final int REPETICOES = 10;
+
+    private static final Uri COM_ARQUIVO = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+            .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_INCLUIR_ARQUIVO, "true").build();
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        assertEquals(LINHAS, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI,
+                ProvedorIsolado.gerar("Mensagem ", 0, LINHAS, 20, INTERVALO_FAVORITAS)));
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void arquivamento_mantemRecentesEFavoritasENaoMudaOsTotais() {
+        int favoritas = LINHAS / INTERVALO_FAVORITAS;
+        int esperadas = LINHAS - favoritas - QUENTES;
+
+        assertEquals(esperadas, provider.arquivarAgora(QUENTES));
+        // Sem novas inserções, não há mais o que arquivar.
+        assertEquals(0, provider.arquivarAgora(QUENTES));
+
+        assertEquals(QUENTES + favoritas, contar(MensagemContract.MensagemEntry.CONTENT_URI, null));
+        assertEquals(favoritas, contar(MensagemContract.MensagemEntry.CONTENT_URI,
+                MensagemContract.MensagemEntry.COLUMN_FAVORITA + " = 1"));
+        assertEquals(LINHAS, contar(COM_ARQUIVO, null));
+
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals(LINHAS, c.getInt(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL)));
+            assertEquals(favoritas, c.getInt(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL_FAVORITAS)));
+        }
+
+        // A busca considera apenas as mensagens não arquivadas.
+        Uri busca = MensagemContract.MensagemEntry.CONTENT_URI_BUSCA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_TERMO, "Mensagem")
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, String.valueOf(LINHAS)).build();
+        try (Cursor c = provider.query(busca, null, null, null, null)) {
+            assertEquals(QUENTES + favoritas, c.getCount());
+        }
+    }
+
+    @Test
+    public void mensagemArquivada_soApareceComOParametro() {
+        provider.arquivarAgora(QUENTES);
+        long id = primeiraArquivada();
+        Uri linha = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
+        Uri linhaComArquivo = ContentUris.withAppendedId(COM_ARQUIVO, id);
+
+        try (Cursor c = provider.query(linha, null, null, null, null)) {
+            assertEquals(0, c.getCount());
+        }
+        try (Cursor c = provider.query(linhaComArquivo, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals("Mensagem 1", c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO)));
+        }
+
+        // A paginação por chave continua em ordem de _ID, passando do arquivo para as recentes.
+        Uri pagina = COM_ARQUIVO.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_APOS_ID, String.valueOf(id))
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, "100").build();
+        try (Cursor c = provider.query(pagina, new String[]{MensagemContract.MensagemEntry._ID}, null, null, null)) {
+            assertEquals(100, c.getCount());
+            long anterior = id;
+            while (c.moveToNext()) {
+                assertEquals(anterior + 1, c.getLong(0));
+                anterior = c.getLong(0);
+            }
+        }
+    }
+
+    @Test
+    public void atualizacaoComOParametro_devolveAMensagemParaAsRecentes() {
+        provider.arquivarAgora(QUENTES);
+        long id = primeiraArquivada();
+        Uri linha = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
+
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, "Editada");
+        // Sem o parâmetro, a mensagem arquivada não é encontrada.
+        assertEquals(0, provider.update(linha, values, null, null));
+        assertEquals(1, provider.update(ContentUris.withAppendedId(COM_ARQUIVO, id), values, null, null));
+
+        try (Cursor c = provider.query(linha, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals("Editada", c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO)));
+        }
+        assertEquals(LINHAS, contar(COM_ARQUIVO, null));
+    }
+
+    @Test
+    public void exclusaoComOParametro_apagaAsMensagensArquivadas() {
+        provider.arquivarAgora(QUENTES);
+        String filtro = MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?";
+        String[] args = {"Autor 3"};
+        int doAutor = contar(COM_ARQUIVO, filtro, args);
+        int recentesDoAutor = contar(MensagemContract.MensagemEntry.CONTENT_URI, filtro, args);
+        assertTrue(doAutor > recentesDoAutor);
+
+        // Sem o parâmetro, só as recentes são excluídas.
+        assertEquals(recentesDoAutor, provider.delete(MensagemContract.MensagemEntry.CONTENT_URI, filtro, args));
+        assertEquals(doAutor - recentesDoAutor, provider.delete(COM_ARQUIVO, filtro, args));
+        assertEquals(0, contar(COM_ARQUIVO, filtro, args));
+
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals(LINHAS - doAutor, c.getInt(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL)));
+        }
+    }
+
+    @Test
+    public void consultaSemFiltro_leApenasAsMensagensQuentes() {
+        double antes = medirLeitura(MensagemContract.MensagemEntry.CONTENT_URI);
+        provider.arquivarAgora(QUENTES);
+        double quentes = medirLeitura(MensagemContract.MensagemEntry.CONTENT_URI);
+        double comArquivo = medirLeitura(COM_ARQUIVO);
+
+        Log.i(TAG, String.format("Leitura da tabela (%d mensagens, %d quentes) | sem arquivo: %.2f ms | " +
+                        "só quentes: %.2f ms | quentes + arquivo: %.2f ms",
+                LINHAS, QUENTES, antes, quentes, comArquivo));
+        assertTrue("Ler só as mensagens quentes deveria ser mais rápido", quentes < antes);
+    }
+
+    /**
+     * Lê todas as linhas da URI, sem o cache de consultas.
+     * @return A mediana das repetições, em milissegundos.
+     */
+    // Mede a consulta sem filtro da URI.
+    private double medirLeitura(Uri uri) {
+        long[] amostras = new long[REPETICOES];
+        for (int i = 0; i < REPETICOES; i++) {
+            provider.descartarCacheConsultas();
+            long inicio = SystemClock.elapsedRealtimeNanos();
+            try (Cursor c = provider.query(uri, null, null, null, null)) {
+                while (c.moveToNext()) {
+                    c.getString(1);
+                }
+            }
+            amostras[i] = SystemClock.elapsedRealtimeNanos() - inicio;
+        }
+        Arrays.sort(amostras);
+        return amostras[REPETICOES / 2] / 1e6;
+    }
+
+    // Retorna o _ID da mensagem arquivada mais antiga: a primeira que não é favorita.
+    private long primeiraArquivada() {
+        try (Cursor c = provider.query(COM_ARQUIVO, new String[]{MensagemContract.MensagemEntry._ID},
+                MensagemContract.MensagemEntry.COLUMN_FAVORITA + " = 0", null, MensagemContract.MensagemEntry._ID + " ASC")) {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        }
+    }
+
+    // Conta as mensagens da URI que atendem ao filtro.
+    private int contar(Uri uri, String selection, String... selectionArgs) {
+        try (Cursor c = provider.query(uri, new String[]{MensagemContract.MensagemEntry._ID}, selection,
+                selectionArgs.length == 0 ? null : selectionArgs, null)) {
+            return c.getCount();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara a busca textual (FTS) com o filtro {@code LIKE '%termo%'} em 100 mil mensagens.
+ * O termo buscado é raro (1 a cada 1000 mensagens), o que obriga o LIKE a varrer a tabela.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BuscaTextualBenchmarkTest {
+
+    private static final String TAG = "BuscaTextualBenchmark";
+    private static final String NOME_BANCO = "benchmark-busca.db";
+    private static final int LINHAS = 100_000;
+    private static final int REPETICOES = 20;
+    private static final String TERMO = "perseverança";
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, ProvedorIsolado.gerar(
+                i -> "A " + (i % 1000 == 0 ? TERMO : "persistência") + " é o caminho do êxito, dia " + i,
+                0, LINHAS, 300, 0));
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void buscaFts_eMaisRapidaQueLike() {
+        Uri uriLike = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, "50").build();
+        Uri uriFts = MensagemContract.MensagemEntry.CONTENT_URI_BUSCA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_TERMO, TERMO)
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, "50").build();
+        String selecaoLike = MensagemContract.MensagemEntry.COLUMN_TEXTO + " LIKE ? OR " +
+                MensagemContract.MensagemEntry.COLUMN_AUTOR + " LIKE ?";
+        String[] argumentosLike = {"%" + TERMO + "%", "%" + TERMO + "%"};
+
+        int linhasLike = 0;
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < REPETICOES; i++) {
+            // Sem o cache de resultados, cada repetição executa a consulta no banco.
+            provider.descartarCacheConsultas();
+            linhasLike = percorrer(provider.query(uriLike, null, selecaoLike, argumentosLike, null));
+        }
+        double msLike = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6 / REPETICOES;
+
+        int linhasFts = 0;
+        inicio = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < REPETICOES; i++) {
+            provider.descartarCacheConsultas();
+            linhasFts = percorrer(provider.query(uriFts, null, null, null, null));
+        }
+        double msFts = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6 / REPETICOES;
+
+        Log.i(TAG, String.format("%d linhas | LIKE: %.2f ms (%d resultados) | FTS: %.2f ms (%d resultados)",
+                LINHAS, msLike, linhasLike, msFts, linhasFts));
+        assertEquals(linhasLike, linhasFts);
+        assertTrue("A busca FTS deveria ser mais rápida que o LIKE", msFts < msLike);
+    }
+
+    // Lê todas as linhas do cursor e o fecha, retornando quantas linhas havia.
+    private static int percorrer(Cursor cursor) {
+        try (Cursor c = cursor) {
+            int linhas = 0;
+            while (c.moveToNext()) {
+                c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO));
+                linhas++;
+            }
+            return linhas;
+        }
+    }
+}
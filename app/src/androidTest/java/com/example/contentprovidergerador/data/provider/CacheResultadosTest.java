@@ -0,0 +1,153 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica o cache de resultados de consultas: consultas repetidas são servidas do cache,
+ * consultas com o mesmo formato normalizado compartilham a entrada e qualquer escrita a invalida.
+ * Consultas sem limite de linhas, ou cujo resultado passa do tamanho máximo, não são guardadas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CacheResultadosTest {
+
+    private static final String NOME_BANCO = "teste-cache-resultados.db";
+    private static final String FILTRO = MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?";
+    private static final Uri COM_LIMITE = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+            .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE,
+                    String.valueOf(CacheConsultas.MAXIMO_LINHAS_POR_RESULTADO)).build();
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        for (int i = 0; i < 10; i++) {
+            inserir("Mensagem " + i, i % 2 == 0 ? "Par" : "Ímpar");
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void consultaRepetida_eServidaDoCache() {
+        assertEquals(5, contar(FILTRO, "Par"));
+        Bundle antes = estatisticas();
+
+        assertEquals(5, contar(FILTRO, "Par"));
+        // Mesmo formato, com espaços diferentes: mesma entrada.
+        assertEquals(5, contar("  " + MensagemContract.MensagemEntry.COLUMN_AUTOR + "   =  ? ", "Par"));
+        Bundle depois = estatisticas();
+
+        assertEquals(2, acertos(depois) - acertos(antes));
+        assertEquals(0, falhas(depois) - falhas(antes));
+        assertTrue(depois.getInt(MensagemContract.CHAVE_CACHE_CONSULTAS_BYTES) > 0);
+        assertTrue(depois.getDouble(MensagemContract.CHAVE_CACHE_CONSULTAS_TAXA_ACERTOS) > 0);
+    }
+
+    @Test
+    public void argumentosDiferentes_naoCompartilhamEntrada() {
+        assertEquals(5, contar(FILTRO, "Par"));
+        Bundle antes = estatisticas();
+
+        assertEquals(5, contar(FILTRO, "Ímpar"));
+
+        assertEquals(0, acertos(estatisticas()) - acertos(antes));
+    }
+
+    @Test
+    public void escrita_invalidaOResultado() {
+        assertEquals(5, contar(FILTRO, "Par"));
+        inserir("Mensagem nova", "Par");
+        Bundle antes = estatisticas();
+
+        assertEquals(6, contar(FILTRO, "Par"));
+
+        assertEquals(1, falhas(estatisticas()) - falhas(antes));
+    }
+
+    @Test
+    public void consultaSemLimite_naoPassaPeloCache() {
+        Bundle antes = estatisticas();
+
+        assertEquals(5, contar(MensagemContract.MensagemEntry.CONTENT_URI, FILTRO, "Par"));
+        assertEquals(5, contar(MensagemContract.MensagemEntry.CONTENT_URI, FILTRO, "Par"));
+
+        Bundle depois = estatisticas();
+        assertEquals(0, acertos(depois) - acertos(antes));
+        assertEquals(0, falhas(depois) - falhas(antes));
+    }
+
+    @Test
+    public void resultadoAlemDoTamanhoMaximo_naoEGuardado() {
+        // Textos que, juntos, passam do tamanho máximo de um resultado guardado.
+        StringBuilder longo = new StringBuilder();
+        while (longo.length() < CacheConsultas.MAXIMO_BYTES_POR_RESULTADO / 8) {
+            longo.append("Persista sempre. ");
+        }
+        for (int i = 0; i < 8; i++) {
+            inserir(i + " " + longo, "Longo");
+        }
+        Bundle antes = estatisticas();
+
+        // O Cursor do banco é devolvido inteiro, de volta ao início.
+        assertEquals(8, contar(FILTRO, "Longo"));
+        assertEquals(8, contar(FILTRO, "Longo"));
+
+        Bundle depois = estatisticas();
+        assertEquals(0, acertos(depois) - acertos(antes));
+        assertEquals(2, falhas(depois) - falhas(antes));
+    }
+
+    // Consulta as mensagens do autor, com limite, e retorna quantas vieram.
+    private int contar(String filtro, String autor) {
+        return contar(COM_LIMITE, filtro, autor);
+    }
+
+    // Consulta as mensagens do autor na URI informada e retorna quantas vieram.
+    private int contar(Uri uri, String filtro, String autor) {
+        try (Cursor c = provider.query(uri, null, filtro, new String[]{autor}, null)) {
+            int linhas = 0;
+            while (c.moveToNext()) {
+                assertNotNull(c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO)));
+                linhas++;
+            }
+            return linhas;
+        }
+    }
+
+    // Insere uma mensagem pelo provedor.
+    private void inserir(String texto, String autor) {
+        assertNotNull(provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, ProvedorIsolado.linha(texto, autor, false)));
+    }
+
+    // Lê as estatísticas dos caches do provedor.
+    private Bundle estatisticas() {
+        return provider.call(MensagemContract.METODO_ESTATISTICAS_CACHE, null, null);
+    }
+
+    // Acertos do cache de resultados.
+    private static long acertos(Bundle estatisticas) {
+        return estatisticas.getLong(MensagemContract.CHAVE_CACHE_CONSULTAS_ACERTOS);
+    }
+
+    // Falhas do cache de resultados.
+    private static long falhas(Bundle estatisticas) {
+        return estatisticas.getLong(MensagemContract.CHAVE_CACHE_CONSULTAS_FALHAS);
+    }
+}
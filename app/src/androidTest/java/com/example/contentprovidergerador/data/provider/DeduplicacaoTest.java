@@ -0,0 +1,167 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteConstraintException;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica a recusa das mensagens repetidas pelo índice único do hash de conteúdo: o
+ * {@code bulkInsert} conta só as novas, o {@code insert} devolve a URI da que já existia (mesmo
+ * arquivada), e as repetidas aparecem nas métricas. Também mede o reenvio de um lote inteiro
+ * de repetidas; o resultado é registrado no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DeduplicacaoTest {
+
+    private static final String TAG = "Deduplicacao";
+    private static final String NOME_BANCO = "teste-deduplicacao.db";
+    private static final int LINHAS = 5_000;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void bulkInsert_ignoraAsRepetidasEAsConta() {
+        ContentValues[] linhas = {
+                linha("A persistência vence.", "Autor"),
+                linha("Outra mensagem", "Autor"),
+                // Só muda em maiúsculas e espaços: é a mesma mensagem.
+                linha("  a PERSISTÊNCIA   vence. ", "autor"),
+                // Mesmo texto de outro autor: é outra mensagem.
+                linha("A persistência vence.", "Outro autor"),
+        };
+        provider.call(MensagemContract.METODO_METRICAS, MensagemContract.ARG_ZERAR_METRICAS, null);
+
+        assertEquals(3, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas));
+        assertEquals(0, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas));
+
+        assertEquals(3, contar());
+        assertEquals(5, duplicadas());
+    }
+
+    @Test
+    public void insert_devolveAMensagemQueJaExistia() {
+        Uri original = provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Siga em frente", "Autor"));
+        Uri repetida = provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("siga  em frente ", "Autor"));
+
+        assertEquals(original, repetida);
+        assertEquals(1, contar());
+        assertEquals(1, duplicadas());
+    }
+
+    @Test
+    public void mensagemArquivada_tambemEhRepetida() {
+        ContentValues[] linhas = new ContentValues[10];
+        for (int i = 0; i < linhas.length; i++) {
+            linhas[i] = linha("Mensagem " + i, "Autor");
+        }
+        provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas);
+        assertTrue(provider.arquivarAgora(1) > 0);
+
+        Uri repetida = provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Mensagem 0", "Autor"));
+        Uri comArquivo = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_INCLUIR_ARQUIVO, "true").build(),
+                ContentUris.parseId(repetida));
+        try (Cursor c = provider.query(comArquivo, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            assertEquals("Mensagem 0", c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO)));
+        }
+        assertEquals(0, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas));
+
+        // A mensagem volta do arquivo ao ser editada, sem ser confundida com uma repetida.
+        ContentValues favorita = new ContentValues();
+        favorita.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, true);
+        assertEquals(1, provider.update(comArquivo, favorita, null, null));
+    }
+
+    @Test
+    public void mensagemExcluida_podeSerInseridaDeNovo() {
+        Uri original = provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Recomece", "Autor"));
+        assertEquals(1, provider.delete(original, null, null));
+
+        Uri nova = provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Recomece", "Autor"));
+        assertNotEquals(original, nova);
+        assertEquals(1, contar());
+    }
+
+    @Test
+    public void atualizacao_naoPodeRepetirOutraMensagem() {
+        provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Primeira", "Autor"));
+        Uri segunda = provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Segunda", "Autor"));
+
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, "PRIMEIRA");
+        try {
+            provider.update(segunda, values, null, null);
+            fail("A atualização deveria ser recusada");
+        } catch (SQLiteConstraintException esperada) {
+            // O índice único recusou a mensagem repetida.
+        }
+
+        // Só o autor muda: o hash é recalculado com o texto gravado.
+        values.clear();
+        values.put(MensagemContract.MensagemEntry.COLUMN_AUTOR, "Outro autor");
+        assertEquals(1, provider.update(segunda, values, null, null));
+        assertEquals(segunda, provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha("Segunda", "Outro autor")));
+    }
+
+    @Test
+    public void reenvioDeUmLote_naoGravaNada() {
+        ContentValues[] linhas = ProvedorIsolado.gerar("Mensagem importada ", 0, LINHAS, 20, 0);
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        assertEquals(LINHAS, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas));
+        double novas = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6;
+
+        inicio = SystemClock.elapsedRealtimeNanos();
+        assertEquals(0, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas));
+        double repetidas = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6;
+
+        Log.i(TAG, String.format("%d linhas | novas: %.1f ms | repetidas: %.1f ms", LINHAS, novas, repetidas));
+        assertEquals(LINHAS, contar());
+        assertEquals(LINHAS, duplicadas());
+    }
+
+    // Gera uma linha não favorita com o texto e o autor informados.
+    private static ContentValues linha(String texto, String autor) {
+        return ProvedorIsolado.linha(texto, autor, false);
+    }
+
+    // Lê o total de mensagens.
+    private int contar() {
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            return c.getInt(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL));
+        }
+    }
+
+    // Lê o contador de mensagens repetidas das métricas.
+    private long duplicadas() {
+        Bundle metricas = provider.call(MensagemContract.METODO_METRICAS, null, null);
+        return metricas.getLong(MensagemContract.CHAVE_METRICAS_DUPLICADAS);
+    }
+}
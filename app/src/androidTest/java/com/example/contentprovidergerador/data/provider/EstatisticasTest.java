@@ -0,0 +1,152 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica que os totais de {@code mensagens/stats} acompanham as inserções, as mudanças de
+ * favorita e de autor e as exclusões, e compara o custo de lê-los com o de contar as linhas.
+ */
+@RunWith(AndroidJUnit4.class)
+public class EstatisticasTest {
+
+    private static final String TAG = "Estatisticas";
+    private static final String NOME_BANCO = "teste-estatisticas.db";
+    private static final int LINHAS = 10_000;
+    private static final int AUTORES = 50;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        assertEquals(LINHAS, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI,
+                ProvedorIsolado.gerar("Mensagem ", 0, LINHAS, AUTORES, 4)));
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void totais_acompanhamAsEscritas() {
+        assertTotaisIguaisAContagem();
+
+        ContentValues mudanca = new ContentValues();
+        mudanca.put(MensagemContract.MensagemEntry.COLUMN_AUTOR, "Autor novo");
+        mudanca.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, true);
+        for (long id = 1; id <= 20; id++) {
+            provider.update(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id), mudanca, null, null);
+        }
+        assertTotaisIguaisAContagem();
+
+        provider.delete(MensagemContract.MensagemEntry.CONTENT_URI,
+                MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?", new String[]{"Autor 7"});
+        provider.delete(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, 5), null, null);
+        assertTotaisIguaisAContagem();
+
+        // A compactação apaga as lápides sem mudar os totais.
+        provider.compactarAgora();
+        assertTotaisIguaisAContagem();
+
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS_AUTORES, null,
+                MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?", new String[]{"Autor 7"}, null)) {
+            assertEquals("Autor sem mensagens não deveria aparecer", 0, c.getCount());
+        }
+    }
+
+    @Test
+    public void lerTotais_naoDependeDoTamanhoDaTabela() {
+        int repeticoes = 200;
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < repeticoes; i++) {
+            lerTotais();
+        }
+        double msTotais = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6 / repeticoes;
+
+        repeticoes = 10;
+        inicio = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < repeticoes; i++) {
+            provider.descartarCacheConsultas();
+            contarLinhas();
+        }
+        double msContagem = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6 / repeticoes;
+
+        Log.i(TAG, String.format("%d linhas | mensagens/stats: %.3f ms | contagem pelas linhas: %.2f ms",
+                LINHAS, msTotais, msContagem));
+        assertTrue("Ler os totais deveria ser mais rápido que contar as linhas", msTotais < msContagem);
+    }
+
+    // Compara os totais gerais e por autor com a contagem feita sobre as próprias linhas.
+    private void assertTotaisIguaisAContagem() {
+        Map<String, long[]> esperado = contarLinhas();
+        long total = 0;
+        long favoritas = 0;
+        for (long[] autor : esperado.values()) {
+            total += autor[0];
+            favoritas += autor[1];
+        }
+        long[] totais = lerTotais();
+        assertEquals(total, totais[0]);
+        assertEquals(favoritas, totais[1]);
+
+        Map<String, long[]> porAutor = new HashMap<>();
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS_AUTORES, null, null, null, null)) {
+            int autor = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+            int totalAutor = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL);
+            int favoritasAutor = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL_FAVORITAS);
+            while (c.moveToNext()) {
+                porAutor.put(c.getString(autor), new long[]{c.getLong(totalAutor), c.getLong(favoritasAutor)});
+            }
+        }
+        assertEquals(esperado.keySet(), porAutor.keySet());
+        for (Map.Entry<String, long[]> autor : esperado.entrySet()) {
+            assertArrayEquals(autor.getKey(), autor.getValue(), porAutor.get(autor.getKey()));
+        }
+    }
+
+    // Lê a linha de mensagens/stats: {total, favoritas}.
+    private long[] lerTotais() {
+        Uri uri = MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS;
+        try (Cursor c = provider.query(uri, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            return new long[]{
+                    c.getLong(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL)),
+                    c.getLong(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL_FAVORITAS))};
+        }
+    }
+
+    // Conta as mensagens e as favoritas de cada autor percorrendo todas as linhas.
+    private Map<String, long[]> contarLinhas() {
+        Map<String, long[]> porAutor = new HashMap<>();
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI, null, null, null, null)) {
+            int autor = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+            int favorita = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_FAVORITA);
+            while (c.moveToNext()) {
+                long[] contagem = porAutor.computeIfAbsent(c.getString(autor), chave -> new long[2]);
+                contagem[0]++;
+                contagem[1] += c.getInt(favorita);
+            }
+        }
+        return porAutor;
+    }
+}
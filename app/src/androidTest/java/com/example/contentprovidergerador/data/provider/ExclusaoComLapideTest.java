@@ -0,0 +1,126 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica a exclusão por lápide: as mensagens excluídas somem imediatamente das consultas, da
+ * busca e do sorteio, e a compactação as apaga de fato e devolve as páginas livres.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExclusaoComLapideTest {
+
+    private static final String NOME_BANCO = "teste-exclusao.db";
+    private static final int LINHAS = 2_000;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        // Metade das mensagens (as favoritas) menciona "descartável", para serem excluídas por filtro.
+        assertEquals(LINHAS, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, ProvedorIsolado.gerar(
+                i -> (i % 2 == 0 ? "Mensagem descartável " : "Mensagem mantida ") + i, 0, LINHAS, 20, 2)));
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void exclusaoPorFiltro_someDasConsultasDaBuscaEDoSorteio() {
+        int excluidas = provider.delete(MensagemContract.MensagemEntry.CONTENT_URI,
+                MensagemContract.MensagemEntry.COLUMN_TEXTO + " LIKE ?", new String[]{"%descartável%"});
+
+        assertEquals(LINHAS / 2, excluidas);
+        assertEquals(LINHAS / 2, contar(null));
+        assertEquals(0, contar(MensagemContract.MensagemEntry.COLUMN_FAVORITA + " = 1"));
+
+        Uri busca = MensagemContract.MensagemEntry.CONTENT_URI_BUSCA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_TERMO, "descartável").build();
+        try (Cursor c = provider.query(busca, null, null, null, null)) {
+            assertEquals(0, c.getCount());
+        }
+
+        // Só restam mensagens mantidas para o sorteio; e nenhuma favorita.
+        for (int i = 0; i < 50; i++) {
+            try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ALEATORIA, null, null, null, null)) {
+                assertTrue(c.moveToFirst());
+                assertTrue(c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO))
+                        .startsWith("Mensagem mantida"));
+            }
+        }
+        Uri favoritas = MensagemContract.MensagemEntry.CONTENT_URI_ALEATORIA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_APENAS_FAVORITAS, "true").build();
+        try (Cursor c = provider.query(favoritas, null, null, null, null)) {
+            assertEquals(0, c.getCount());
+        }
+
+        // Excluir de novo não encontra nada: as lápides já não fazem parte das mensagens.
+        assertEquals(0, provider.delete(MensagemContract.MensagemEntry.CONTENT_URI,
+                MensagemContract.MensagemEntry.COLUMN_TEXTO + " LIKE ?", new String[]{"%descartável%"}));
+    }
+
+    @Test
+    public void exclusaoPorId_naoPermiteMaisAtualizarALinha() {
+        long id;
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI,
+                new String[]{MensagemContract.MensagemEntry._ID}, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            id = c.getLong(0);
+        }
+        Uri linha = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
+
+        assertEquals(1, provider.delete(linha, null, null));
+        try (Cursor c = provider.query(linha, null, null, null, null)) {
+            assertEquals(0, c.getCount());
+        }
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, "Ressuscitada");
+        assertEquals(0, provider.update(linha, values, null, null));
+        assertEquals(LINHAS - 1, contar(null));
+    }
+
+    @Test
+    public void compactacao_apagaAsLapidesEDevolveAsPaginas() {
+        assertEquals(LINHAS / 2, provider.delete(MensagemContract.MensagemEntry.CONTENT_URI,
+                MensagemContract.MensagemEntry.COLUMN_TEXTO + " LIKE ?", new String[]{"%descartável%"}));
+        provider.compactarAgora();
+
+        String caminho = InstrumentationRegistry.getInstrumentation().getTargetContext()
+                .getDatabasePath(NOME_BANCO).getPath();
+        try (SQLiteDatabase db = SQLiteDatabase.openDatabase(caminho, null, SQLiteDatabase.OPEN_READONLY)) {
+            assertEquals(LINHAS / 2, DatabaseUtils.queryNumEntries(db, MensagemContract.MensagemEntry.TABLE_NAME));
+            assertEquals(0, DatabaseUtils.queryNumEntries(db, MensagemContract.MensagemEntry.TABLE_NAME,
+                    MensagemDbHelper.COLUNA_EXCLUIDA + " = 1"));
+            assertEquals(0, DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null));
+        }
+        assertEquals(LINHAS / 2, contar(null));
+    }
+
+    // Conta as mensagens visíveis que atendem ao filtro.
+    private int contar(String selection) {
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI,
+                new String[]{MensagemContract.MensagemEntry._ID}, selection, null, null)) {
+            return c.getCount();
+        }
+    }
+}
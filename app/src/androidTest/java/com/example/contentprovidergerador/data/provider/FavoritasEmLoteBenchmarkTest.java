@@ -0,0 +1,143 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara a troca do estado de favorita de 10 mil mensagens feita em uma única chamada de
+ * {@link MensagemContract#METODO_DEFINIR_FAVORITAS} com a troca feita por um update() por linha.
+ * A chamada em lote deve gerar uma única notificação de mudança.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavoritasEmLoteBenchmarkTest {
+
+    private static final String TAG = "FavoritasEmLote";
+    private static final String NOME_BANCO = "benchmark-favoritas.db";
+    private static final int LINHAS = 10_000;
+    /** As atualizações individuais são medidas em uma amostra menor e extrapoladas. */
+    private static final int AMOSTRA_INDIVIDUAL = 1_000;
+
+    private MensagemProvider provider;
+    private HandlerThread threadObservador;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        // Uma favorita a cada dez: a primeira chamada altera apenas as outras 9 mil.
+        assertEquals(LINHAS, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI,
+                ProvedorIsolado.gerar("Mensagem motivacional ", 0, LINHAS, 300, 10)));
+        threadObservador = new HandlerThread(TAG);
+        threadObservador.start();
+    }
+
+    @After
+    public void tearDown() {
+        threadObservador.quitSafely();
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void dezMilTrocas_emUmaChamadaEUmaNotificacao() throws Exception {
+        long[] ids = new long[LINHAS];
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI,
+                new String[]{MensagemContract.MensagemEntry._ID}, null, null, null)) {
+            for (int i = 0; c.moveToNext(); i++) {
+                ids[i] = c.getLong(0);
+            }
+        }
+
+        AtomicInteger notificacoes = new AtomicInteger();
+        CountDownLatch notificado = new CountDownLatch(1);
+        ContentObserver observador = new ContentObserver(new Handler(threadObservador.getLooper())) {
+            @Override
+            public void onChange(boolean selfChange, @NonNull Collection<Uri> uris, int flags) {
+                notificacoes.incrementAndGet();
+                notificado.countDown();
+            }
+        };
+        provider.getContext().getContentResolver()
+                .registerContentObserver(MensagemContract.MensagemEntry.CONTENT_URI, true, observador);
+        try {
+            long inicio = SystemClock.elapsedRealtimeNanos();
+            int alteradas = definirFavoritas(ids, true);
+            double msLote = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6;
+
+            assertEquals(LINHAS - LINHAS / 10, alteradas);
+            assertTrue(notificado.await(5, TimeUnit.SECONDS));
+            // Dá tempo para uma eventual segunda notificação chegar antes de contar.
+            SystemClock.sleep(500);
+            assertEquals(1, notificacoes.get());
+            assertEquals(LINHAS, contarFavoritas());
+
+            // Repetir o mesmo estado não altera nada.
+            assertEquals(0, definirFavoritas(ids, true));
+
+            inicio = SystemClock.elapsedRealtimeNanos();
+            ContentValues desmarcar = new ContentValues();
+            desmarcar.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, false);
+            for (int i = 0; i < AMOSTRA_INDIVIDUAL; i++) {
+                provider.update(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, ids[i]),
+                        desmarcar, null, null);
+            }
+            double msIndividual = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e6 * LINHAS / AMOSTRA_INDIVIDUAL;
+
+            Log.i(TAG, String.format("%d trocas | 1 chamada: %.1f ms | update() por linha (estimado): %.1f ms | %.0fx",
+                    LINHAS, msLote, msIndividual, msIndividual / msLote));
+            assertEquals(LINHAS - AMOSTRA_INDIVIDUAL, definirFavoritas(ids, false));
+            assertEquals(0, contarFavoritas());
+        } finally {
+            provider.getContext().getContentResolver().unregisterContentObserver(observador);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void semIds_lancaExcecao() {
+        Bundle extras = new Bundle();
+        extras.putBoolean(MensagemContract.CHAVE_FAVORITA, true);
+        provider.call(MensagemContract.METODO_DEFINIR_FAVORITAS, null, extras);
+    }
+
+    // Faz uma única chamada ao provedor com todos os IDs.
+    private int definirFavoritas(long[] ids, boolean favorita) {
+        Bundle extras = new Bundle();
+        extras.putLongArray(MensagemContract.CHAVE_IDS, ids);
+        extras.putBoolean(MensagemContract.CHAVE_FAVORITA, favorita);
+        Bundle resultado = provider.call(MensagemContract.METODO_DEFINIR_FAVORITAS, null, extras);
+        return resultado.getInt(MensagemContract.CHAVE_LINHAS_ALTERADAS);
+    }
+
+    // Conta as mensagens marcadas como favoritas.
+    private int contarFavoritas() {
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI,
+                new String[]{MensagemContract.MensagemEntry._ID},
+                MensagemContract.MensagemEntry.COLUMN_FAVORITA + " = 1", null, null)) {
+            return c.getCount();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara a vazão de inserções avulsas feitas por vários clientes ao mesmo tempo com e sem a
+ * {@link FilaEscrita}: pela fila ({@code insert()}), as inserções concorrentes são confirmadas
+ * em grupo; com um {@code applyBatch} de uma operação, cada uma tem a sua transação.
+ * Também verifica que um escritor sozinho não paga a janela de agrupamento da fila.
+ * Os resultados são registrados no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FilaEscritaBenchmarkTest {
+
+    private static final String TAG = "FilaEscritaBenchmark";
+    private static final String NOME_BANCO = "benchmark-fila-escrita.db";
+    /** Clientes inserindo ao mesmo tempo, cada um em sua thread (como as threads de Binder). */
+    private static final int CLIENTES = 8;
+    private static final int LINHAS_POR_CLIENTE = 250;
+    /** Inserções medidas do escritor sozinho, por caminho. */
+    private static final int LINHAS_ESCRITOR_SOZINHO = 500;
+    /** Inserções descartadas antes das medidas (aquecimento do banco e do JIT). */
+    private static final int AQUECIMENTO = 50;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void insercoesConcorrentes_saoConfirmadasEmGrupo() throws Exception {
+        double semFila = inserirConcorrentemente(false);
+        provider.call(MensagemContract.METODO_METRICAS, MensagemContract.ARG_ZERAR_METRICAS, null);
+
+        double comFila = inserirConcorrentemente(true);
+        Bundle metricas = provider.call(MensagemContract.METODO_METRICAS, null, null);
+        double mediaPorTransacao = metricas.getDouble(MensagemContract.CHAVE_METRICAS_FILA_MEDIA_POR_TRANSACAO);
+
+        Log.i(TAG, String.format("%d clientes | uma transação por linha: %.0f linhas/s | fila: %.0f linhas/s " +
+                        "(%.1f linhas por transação, %.0f transações/s) | ganho: %.1fx",
+                CLIENTES, semFila, comFila, mediaPorTransacao,
+                metricas.getDouble(MensagemContract.CHAVE_METRICAS_FILA_TRANSACOES_POR_SEGUNDO), comFila / semFila));
+        assertEquals(CLIENTES * LINHAS_POR_CLIENTE, metricas.getLong(MensagemContract.CHAVE_METRICAS_FILA_LINHAS));
+        assertTrue("As inserções concorrentes deveriam ser agrupadas", mediaPorTransacao > 1);
+        assertTrue("A fila deveria aumentar a vazão", comFila > semFila);
+        assertEquals(2 * CLIENTES * LINHAS_POR_CLIENTE, contarLinhas());
+    }
+
+    @Test
+    public void escritorSozinho_naoEsperaAJanela() throws Exception {
+        long[] pelaFila = new long[LINHAS_ESCRITOR_SOZINHO];
+        long[] direto = new long[LINHAS_ESCRITOR_SOZINHO];
+        // Os dois caminhos se alternam, para que ambos encontrem a tabela do mesmo tamanho.
+        for (int i = -AQUECIMENTO; i < LINHAS_ESCRITOR_SOZINHO; i++) {
+            long inicio = SystemClock.elapsedRealtimeNanos();
+            provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha(2 * (i + AQUECIMENTO)));
+            long meio = SystemClock.elapsedRealtimeNanos();
+            provider.applyBatch(new ArrayList<>(Collections.singletonList(
+                    ContentProviderOperation.newInsert(MensagemContract.MensagemEntry.CONTENT_URI)
+                            .withValues(linha(2 * (i + AQUECIMENTO) + 1)).build())));
+            long fim = SystemClock.elapsedRealtimeNanos();
+            if (i >= 0) {
+                pelaFila[i] = meio - inicio;
+                direto[i] = fim - meio;
+            }
+        }
+
+        double p99Fila = percentil99(pelaFila);
+        double p99Direto = percentil99(direto);
+        double janela = FilaEscrita.JANELA_NANOS / 1e6;
+        Log.i(TAG, String.format("Escritor sozinho | p99 pela fila: %.2f ms | p99 em transação própria: %.2f ms | janela: %.1f ms",
+                p99Fila, p99Direto, janela));
+        assertTrue("Um escritor sozinho não deveria esperar a janela de agrupamento",
+                p99Fila < p99Direto + janela);
+    }
+
+    @Test
+    public void insercaoInvalida_naoAfetaAsDoMesmoGrupo() throws Exception {
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        try {
+            List<Future<Uri>> resultados = new ArrayList<>();
+            for (int i = 0; i < CLIENTES * 4; i++) {
+                ContentValues valores = linha(i);
+                if (i % 7 == 3) {
+                    // Sem texto: só esta inserção deve falhar.
+                    valores.remove(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+                }
+                resultados.add(clientes.submit(() -> provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, valores)));
+            }
+
+            Set<Uri> inseridas = new HashSet<>();
+            int falhas = 0;
+            for (int i = 0; i < resultados.size(); i++) {
+                try {
+                    inseridas.add(resultados.get(i).get());
+                    assertNotEquals(3, i % 7);
+                } catch (ExecutionException e) {
+                    assertEquals(3, i % 7);
+                    assertTrue(e.getCause() instanceof IllegalArgumentException);
+                    falhas++;
+                }
+            }
+            assertEquals(resultados.size() - falhas, inseridas.size());
+            assertEquals(inseridas.size(), contarLinhas());
+        } finally {
+            clientes.shutdown();
+        }
+    }
+
+    /**
+     * Insere {@link #LINHAS_POR_CLIENTE} linhas em cada um dos {@link #CLIENTES}, ao mesmo tempo.
+     * @param pelaFila Se true, usa {@code insert()}; se false, um {@code applyBatch} de uma
+     *                 operação por linha, que grava cada linha em sua própria transação.
+     * @return A vazão total, em linhas por segundo.
+     */
+    // Dispara os clientes e mede o tempo até o último terminar.
+    private double inserirConcorrentemente(boolean pelaFila) throws Exception {
+        ExecutorService clientes = Executors.newFixedThreadPool(CLIENTES);
+        try {
+            List<Callable<Set<Uri>>> tarefas = new ArrayList<>();
+            for (int c = 0; c < CLIENTES; c++) {
+                int cliente = c;
+                tarefas.add(() -> {
+                    Set<Uri> uris = new HashSet<>();
+                    for (int i = 0; i < LINHAS_POR_CLIENTE; i++) {
+                        ContentValues valores = linha(cliente * LINHAS_POR_CLIENTE + i);
+                        if (pelaFila) {
+                            uris.add(provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, valores));
+                        } else {
+                            ArrayList<ContentProviderOperation> operacao = new ArrayList<>(Collections.singletonList(
+                                    ContentProviderOperation.newInsert(MensagemContract.MensagemEntry.CONTENT_URI)
+                                            .withValues(valores).build()));
+                            uris.add(provider.applyBatch(operacao)[0].uri);
+                        }
+                    }
+                    return uris;
+                });
+            }
+
+            long inicio = SystemClock.elapsedRealtimeNanos();
+            Set<Uri> todas = new HashSet<>();
+            for (Future<Set<Uri>> resultado : clientes.invokeAll(tarefas)) {
+                todas.addAll(resultado.get());
+            }
+            long duracao = SystemClock.elapsedRealtimeNanos() - inicio;
+
+            assertEquals("Cada inserção deveria receber a sua própria URI", CLIENTES * LINHAS_POR_CLIENTE, todas.size());
+            return CLIENTES * LINHAS_POR_CLIENTE * 1_000_000_000.0 / duracao;
+        } finally {
+            clientes.shutdown();
+        }
+    }
+
+    // Retorna o percentil 99 das amostras, em milissegundos.
+    private static double percentil99(long[] amostras) {
+        long[] ordenadas = amostras.clone();
+        Arrays.sort(ordenadas);
+        return ordenadas[(int) Math.ceil(ordenadas.length * 0.99) - 1] / 1e6;
+    }
+
+    // Conta as mensagens visíveis.
+    private int contarLinhas() {
+        try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI_ESTATISTICAS, null, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            return c.getInt(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TOTAL));
+        }
+    }
+
+    // Gera uma linha de exemplo.
+    private static ContentValues linha(int i) {
+        return ProvedorIsolado.gerar("Mensagem concorrente ", i, 1, 20, 10)[0];
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentValues;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara a vazão (linhas por segundo) da inserção linha a linha com o {@code bulkInsert}
+ * transacional do {@link MensagemProvider}. Os resultados são registrados no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InsercaoEmLoteBenchmarkTest {
+
+    private static final String TAG = "InsercaoEmLoteBenchmark";
+    private static final String NOME_BANCO = "benchmark-insercao.db";
+    private static final int LINHAS = 5_000;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void bulkInsert_eMaisRapidoQueInsercaoLinhaALinha() {
+        // Linhas diferentes em cada medição: as repetidas seriam ignoradas pelo índice único.
+        ContentValues[] avulsas = criarLinhas(0, LINHAS);
+        ContentValues[] linhas = criarLinhas(LINHAS, LINHAS);
+
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        for (ContentValues linha : avulsas) {
+            provider.insert(MensagemContract.MensagemEntry.CONTENT_URI, linha);
+        }
+        double porLinha = linhasPorSegundo(LINHAS, SystemClock.elapsedRealtimeNanos() - inicio);
+
+        inicio = SystemClock.elapsedRealtimeNanos();
+        int inseridas = provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas);
+        double emLote = linhasPorSegundo(LINHAS, SystemClock.elapsedRealtimeNanos() - inicio);
+
+        Log.i(TAG, String.format("insert(): %.0f linhas/s | bulkInsert(): %.0f linhas/s | ganho: %.1fx",
+                porLinha, emLote, emLote / porLinha));
+        assertEquals(LINHAS, inseridas);
+        assertTrue("bulkInsert deveria ser mais rápido", emLote > porLinha);
+    }
+
+    // Gera linhas de exemplo para a inserção.
+    private static ContentValues[] criarLinhas(int inicio, int quantidade) {
+        return ProvedorIsolado.gerar("Mensagem motivacional número ", inicio, quantidade, 200, 10);
+    }
+
+    private static double linhasPorSegundo(int linhas, long nanos) {
+        return linhas * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import java.io.File;
+import java.util.function.IntFunction;
+
+/**
+ * Cria instâncias de {@link MensagemProvider} que gravam em um banco de dados próprio do teste,
+ * sem tocar no banco de dados real do aplicativo.
+ * As chamadas são feitas diretamente no provedor (sem Binder), o que isola o custo do banco de dados.
+ * Também gera as linhas de exemplo usadas pelos testes, todas no mesmo formato.
+ */
+final class ProvedorIsolado {
+
+    private ProvedorIsolado() {}
+
+    /**
+     * Cria um provedor com um banco de dados vazio.
+     * @param nomeBanco O nome do arquivo do banco de dados de teste.
+     * O arquivamento automático fica desligado; os testes do arquivamento o executam diretamente.
+     * @return O provedor já inicializado. Deve ser encerrado com {@link MensagemProvider#shutdown()}.
+     */
+    // Cria um provedor apontando para um banco de dados exclusivo do teste.
+    static MensagemProvider criar(String nomeBanco) {
+        Context alvo = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        alvo.deleteDatabase(nomeBanco);
+        Context contexto = new ContextWrapper(alvo) {
+            @Override
+            public File getDatabasePath(String name) {
+                // O SQLiteOpenHelper resolve o arquivo do banco através deste método.
+                return alvo.getDatabasePath(nomeBanco);
+            }
+        };
+
+        MensagemProvider provider = new MensagemProvider();
+        provider.attachInfo(contexto, null);
+        provider.desligarArquivamentoAutomatico();
+        return provider;
+    }
+
+    /**
+     * Encerra o provedor e apaga o banco de dados de teste.
+     * @param provider O provedor criado por {@link #criar(String)}.
+     * @param nomeBanco O nome do arquivo do banco de dados de teste.
+     */
+    // Libera o provedor e remove o arquivo do banco.
+    static void destruir(MensagemProvider provider, String nomeBanco) {
+        provider.shutdown();
+        InstrumentationRegistry.getInstrumentation().getTargetContext().deleteDatabase(nomeBanco);
+    }
+
+    /**
+     * Monta os valores de uma mensagem, no formato aceito por {@code insert} e {@code bulkInsert}.
+     * @param texto O texto da mensagem.
+     * @param autor O nome do autor.
+     * @param favorita Se a mensagem é favorita.
+     * @return Os valores da nova linha.
+     */
+    // Monta uma linha de exemplo.
+    static ContentValues linha(String texto, String autor, boolean favorita) {
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, texto);
+        values.put(MensagemContract.MensagemEntry.COLUMN_AUTOR, autor);
+        values.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, favorita);
+        return values;
+    }
+
+    /**
+     * Gera as linhas numeradas de {@code inicio} a {@code inicio + quantidade - 1}. A linha de
+     * número n tem o texto {@code prefixo + n}, o autor "Autor (n % autores)" e é favorita
+     * se n for múltiplo de {@code intervaloFavoritas}.
+     * @param intervaloFavoritas Uma em cada tantas linhas é favorita, ou 0 para nenhuma.
+     * @return Os valores das linhas, prontos para o {@code bulkInsert}.
+     */
+    // Gera linhas numeradas com o texto prefixado.
+    static ContentValues[] gerar(String prefixo, int inicio, int quantidade, int autores, int intervaloFavoritas) {
+        return gerar(n -> prefixo + n, inicio, quantidade, autores, intervaloFavoritas);
+    }
+
+    /**
+     * Gera as linhas numeradas de {@code inicio} a {@code inicio + quantidade - 1}, com o texto
+     * da linha de número n dado por {@code texto}; o autor e as favoritas seguem
+     * {@link #gerar(String, int, int, int, int)}.
+     * @return Os valores das linhas, prontos para o {@code bulkInsert}.
+     */
+    // Gera linhas numeradas com o texto calculado pelo teste.
+    static ContentValues[] gerar(IntFunction<String> texto, int inicio, int quantidade, int autores, int intervaloFavoritas) {
+        ContentValues[] linhas = new ContentValues[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            int n = inicio + i;
+            linhas[i] = linha(texto.apply(n), "Autor " + (n % autores), intervaloFavoritas > 0 && n % intervaloFavoritas == 0);
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mede a latência do sorteio ({@code mensagens/random}) com 1 mil, 10 mil, 100 mil e 1 milhão
+ * de mensagens. Como o sorteio lê uma única posição do índice denso, a latência deve
+ * permanecer praticamente a mesma em todos os tamanhos.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SorteioBenchmarkTest {
+
+    private static final String TAG = "SorteioBenchmark";
+    private static final String NOME_BANCO = "benchmark-sorteio.db";
+    private static final int[] TAMANHOS = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int SORTEIOS = 200;
+    private static final int LOTE = 10_000;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void sorteio_latenciaIndependeDoTamanhoDaTabela() {
+        Uri uri = MensagemContract.MensagemEntry.CONTENT_URI_ALEATORIA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_PESO_FAVORITAS, "3").build();
+        double[] latencias = new double[TAMANHOS.length];
+        int linhas = 0;
+
+        for (int t = 0; t < TAMANHOS.length; t++) {
+            // A tabela cresce de forma cumulativa até o próximo tamanho medido.
+            while (linhas < TAMANHOS[t]) {
+                int quantidade = Math.min(LOTE, TAMANHOS[t] - linhas);
+                provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, gerar(linhas, quantidade));
+                linhas += quantidade;
+            }
+
+            sortear(uri, 20); // Aquecimento.
+            long inicio = SystemClock.elapsedRealtimeNanos();
+            sortear(uri, SORTEIOS);
+            latencias[t] = (SystemClock.elapsedRealtimeNanos() - inicio) / 1e3 / SORTEIOS;
+            Log.i(TAG, String.format("%d linhas | %.1f us por sorteio", linhas, latencias[t]));
+        }
+
+        double razao = latencias[TAMANHOS.length - 1] / latencias[0];
+        assertTrue(String.format("O sorteio ficou %.1fx mais lento com 1 milhão de linhas", razao), razao < 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pesoAcimaDoMaximo_lancaExcecao() {
+        provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, gerar(0, 10));
+        Uri uri = MensagemContract.MensagemEntry.CONTENT_URI_ALEATORIA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_PESO_FAVORITAS,
+                        String.valueOf(Long.MAX_VALUE / 2)).build();
+        provider.query(uri, null, null, null, null);
+    }
+
+    // Executa sorteios e verifica que cada um retornou exatamente uma mensagem.
+    private void sortear(Uri uri, int vezes) {
+        for (int i = 0; i < vezes; i++) {
+            try (Cursor c = provider.query(uri, null, null, null, null)) {
+                assertEquals(1, c.getCount());
+                c.moveToFirst();
+                c.getString(c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO));
+            }
+        }
+    }
+
+    // Gera mensagens de exemplo, com uma favorita a cada dez.
+    private static ContentValues[] gerar(int inicio, int quantidade) {
+        return ProvedorIsolado.gerar("Mensagem motivacional ", inicio, quantidade, 300, 10);
+    }
+}
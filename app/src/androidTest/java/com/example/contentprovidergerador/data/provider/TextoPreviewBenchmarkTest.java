@@ -0,0 +1,131 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.database.CrossProcessCursor;
+import android.database.Cursor;
+import android.database.CursorWindow;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compara a listagem de mensagens longas com o texto completo e com o texto curto
+ * ({@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}). A leitura é feita como a de um
+ * cliente em outro processo: o Cursor do provedor preenche uma {@link CursorWindow} de cada vez
+ * ({@link CrossProcessCursor#fillWindow}), e cada janela é uma nova execução da consulta e uma
+ * chamada de Binder. Os resultados são registrados no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TextoPreviewBenchmarkTest {
+
+    private static final String TAG = "TextoPreviewBenchmark";
+    private static final String NOME_BANCO = "benchmark-texto-preview.db";
+    private static final int LINHAS = 10_000;
+    private static final int TAMANHO_TEXTO = 8 * 1024;
+    private static final int LOTE = 500;
+
+    private MensagemProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = ProvedorIsolado.criar(NOME_BANCO);
+        char[] enchimento = new char[TAMANHO_TEXTO];
+        Arrays.fill(enchimento, 'x');
+        String corpo = new String(enchimento);
+        for (int de = 0; de < LINHAS; de += LOTE) {
+            assertEquals(LOTE, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI,
+                    ProvedorIsolado.gerar(n -> "Mensagem longa " + n + " " + corpo, de, LOTE, 20, 10)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(provider, NOME_BANCO);
+    }
+
+    @Test
+    public void textoCurto_precisaDeMenosJanelas() {
+        long[] completo = lerEmJanelas(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+        long[] curto = lerEmJanelas(MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW);
+
+        Log.i(TAG, String.format("%d mensagens de %d KB | texto completo: %d janelas, %.1f ms | " +
+                        "texto curto: %d janelas, %.1f ms",
+                LINHAS, TAMANHO_TEXTO / 1024, completo[0], completo[1] / 1e6, curto[0], curto[1] / 1e6));
+        assertTrue("O texto curto deveria caber em menos janelas", curto[0] < completo[0]);
+    }
+
+    @Test
+    public void textoCurto_eCortadoEOCompletoEhLidoPeloId() {
+        Uri pagina = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, "1").build();
+        long id;
+        String curto;
+        try (Cursor c = provider.query(pagina, new String[]{MensagemContract.MensagemEntry._ID,
+                MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW}, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            id = c.getLong(0);
+            curto = c.getString(1);
+        }
+        assertEquals(MensagemContract.MensagemEntry.TAMANHO_TEXTO_PREVIEW + 1, curto.length());
+        assertTrue(curto.endsWith("…"));
+
+        // A consulta por ID (servida pelo cache de linhas) corta o texto da mesma forma.
+        Uri linha = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
+        for (int i = 0; i < 2; i++) {
+            try (Cursor c = provider.query(linha, new String[]{MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW,
+                    MensagemContract.MensagemEntry.COLUMN_TEXTO}, null, null, null)) {
+                assertTrue(c.moveToFirst());
+                assertEquals(curto, c.getString(0));
+                assertTrue(c.getString(1).length() > TAMANHO_TEXTO);
+                assertTrue(c.getString(1).startsWith(curto.substring(0, curto.length() - 1)));
+            }
+        }
+    }
+
+    /**
+     * Lê todas as mensagens com a coluna de texto informada, uma janela por vez.
+     * @param colunaTexto {@link MensagemContract.MensagemEntry#COLUMN_TEXTO} ou
+     *                    {@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}.
+     * @return {número de janelas preenchidas, duração em nanossegundos}.
+     */
+    // Percorre o Cursor do provedor como o adaptador de Cursor entre processos.
+    private long[] lerEmJanelas(String colunaTexto) {
+        provider.descartarCacheConsultas();
+        String[] projecao = {MensagemContract.MensagemEntry._ID, colunaTexto,
+                MensagemContract.MensagemEntry.COLUMN_AUTOR, MensagemContract.MensagemEntry.COLUMN_FAVORITA};
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        long janelas = 0;
+        try (Cursor cursor = provider.query(MensagemContract.MensagemEntry.CONTENT_URI, projecao, null, null, null)) {
+            CrossProcessCursor entreProcessos = (CrossProcessCursor) cursor;
+            int total = cursor.getCount();
+            assertEquals(LINHAS, total);
+            CursorWindow janela = new CursorWindow(TAG);
+            try {
+                int posicao = 0;
+                while (posicao < total) {
+                    janela.clear();
+                    entreProcessos.fillWindow(posicao, janela);
+                    assertTrue(janela.getNumRows() > 0);
+                    janelas++;
+                    posicao = janela.getStartPosition() + janela.getNumRows();
+                }
+            } finally {
+                janela.close();
+            }
+        }
+        return new long[]{janelas, SystemClock.elapsedRealtimeNanos() - inicio};
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mede a vazão da exportação e da importação por pipe ({@code mensagens/export} e
+ * {@code mensagens/import}) com 100 mil mensagens, nos formatos NDJSON e CSV.
+ * Os textos têm vírgulas e aspas para exercitar o escape dos dois formatos.
+ * Os resultados (MB/s e linhas/s) são registrados no Logcat.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TransferenciaBenchmarkTest {
+
+    private static final String TAG = "TransferenciaBenchmark";
+    private static final String BANCO_ORIGEM = "benchmark-transferencia-origem.db";
+    private static final String BANCO_DESTINO = "benchmark-transferencia-destino.db";
+    private static final int LINHAS = 100_000;
+    private static final int LOTE = 10_000;
+    private static final long ESPERA_MAXIMA_MS = 120_000;
+
+    private MensagemProvider origem;
+
+    @Before
+    public void setUp() {
+        origem = ProvedorIsolado.criar(BANCO_ORIGEM);
+        for (int inicio = 0; inicio < LINHAS; inicio += LOTE) {
+            origem.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, gerar(inicio, LOTE));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ProvedorIsolado.destruir(origem, BANCO_ORIGEM);
+    }
+
+    @Test
+    public void ndjson_exportaEImportaTodasAsLinhas() throws Exception {
+        medirIdaEVolta(MensagemContract.FORMATO_NDJSON);
+    }
+
+    @Test
+    public void csv_exportaEImportaTodasAsLinhas() throws Exception {
+        medirIdaEVolta(MensagemContract.FORMATO_CSV);
+    }
+
+    // Exporta da origem, importa em um provedor vazio e confere o número de linhas.
+    private void medirIdaEVolta(String formato) throws Exception {
+        Uri exportar = MensagemContract.MensagemEntry.CONTENT_URI_EXPORTAR.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_FORMATO, formato).build();
+        Uri importar = MensagemContract.MensagemEntry.CONTENT_URI_IMPORTAR.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_FORMATO, formato).build();
+
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        byte[] dados = ler(origem.openFile(exportar, "r"));
+        long nanosExportacao = SystemClock.elapsedRealtimeNanos() - inicio;
+        int linhasExportadas = contarQuebras(dados);
+        // O CSV tem uma linha de cabeçalho a mais.
+        int esperadas = MensagemContract.FORMATO_CSV.equals(formato) ? LINHAS + 1 : LINHAS;
+        assertEquals(esperadas, linhasExportadas);
+        registrar("Exportação " + formato, dados.length, LINHAS, nanosExportacao);
+
+        MensagemProvider destino = ProvedorIsolado.criar(BANCO_DESTINO);
+        try {
+            inicio = SystemClock.elapsedRealtimeNanos();
+            try (OutputStream saida = new ParcelFileDescriptor.AutoCloseOutputStream(destino.openFile(importar, "w"))) {
+                saida.write(dados);
+            }
+            // A escrita termina antes de o provedor gravar o último lote: espera a contagem fechar.
+            aguardarLinhas(destino, LINHAS);
+            long nanosImportacao = SystemClock.elapsedRealtimeNanos() - inicio;
+            registrar("Importação " + formato, dados.length, LINHAS, nanosImportacao);
+        } finally {
+            ProvedorIsolado.destruir(destino, BANCO_DESTINO);
+        }
+    }
+
+    // Lê toda a ponta de leitura do pipe.
+    private static byte[] ler(ParcelFileDescriptor leitura) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024 * 1024);
+        try (InputStream entrada = new ParcelFileDescriptor.AutoCloseInputStream(leitura)) {
+            byte[] buffer = new byte[64 * 1024];
+            int lidos;
+            while ((lidos = entrada.read(buffer)) != -1) {
+                bytes.write(buffer, 0, lidos);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    // Conta as quebras de linha do arquivo (uma por registro, pois os textos não têm quebras).
+    private static int contarQuebras(byte[] dados) {
+        int quebras = 0;
+        for (byte b : dados) {
+            if (b == '\n') quebras++;
+        }
+        return quebras;
+    }
+
+    // Consulta o número de linhas até chegar ao esperado ou estourar o tempo.
+    private static void aguardarLinhas(MensagemProvider provider, int esperadas) throws InterruptedException {
+        long limite = SystemClock.elapsedRealtime() + ESPERA_MAXIMA_MS;
+        int linhas = 0;
+        while (SystemClock.elapsedRealtime() < limite) {
+            try (Cursor c = provider.query(MensagemContract.MensagemEntry.CONTENT_URI,
+                    new String[]{MensagemContract.MensagemEntry._ID}, null, null, null)) {
+                linhas = c.getCount();
+            }
+            if (linhas == esperadas) return;
+            Thread.sleep(20);
+        }
+        fail("A importação gravou " + linhas + " de " + esperadas + " linhas");
+    }
+
+    // Registra a vazão de uma transferência no Logcat.
+    private static void registrar(String operacao, long bytes, int linhas, long nanos) {
+        double segundos = nanos / 1e9;
+        Log.i(TAG, String.format("%s: %d linhas, %d KiB em %.0f ms | %.1f MB/s | %.0f linhas/s",
+                operacao, linhas, bytes / 1024, segundos * 1e3, bytes / 1e6 / segundos, linhas / segundos));
+    }
+
+    // Gera mensagens de exemplo, com vírgulas e aspas no texto e uma favorita a cada dez.
+    private static ContentValues[] gerar(int inicio, int quantidade) {
+        return ProvedorIsolado.gerar("Persista, \"sempre\": mensagem ", inicio, quantidade, 300, 10);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.contentprovidergerador.ui.viewmodel;
+
+import android.app.Application;
+import android.content.ContentProviderClient;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStore;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+import com.example.contentprovidergerador.data.provider.MensagemProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica como a janela do {@link MensagemViewModel} lida com as mensagens que o provedor
+ * instalado move para o arquivo: a lista começa pela tabela de mensagens, alcança o arquivo ao
+ * rolar para o início, e não perde as linhas que são arquivadas enquanto estão na janela. As
+ * mensagens do teste usam um autor único, e são excluídas (também do arquivo) ao final.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MensagemViewModelTest {
+
+    /** Mensagens não favoritas mantidas fora do arquivo (o mesmo valor do arquivamento agendado). */
+    private static final int QUENTES = 5_000;
+    /** Mensagens inseridas além das quentes: pelo menos estas vão para o arquivo. */
+    private static final int EXCEDENTES = 100;
+    /** Mensagens arquivadas a mais com a janela já carregada: todas estão no começo dela. */
+    private static final int ARQUIVADAS_COM_A_JANELA = 20;
+    /** Tamanho da página do ViewModel. */
+    private static final int TAMANHO_PAGINA = 50;
+    private static final int LINHAS_POR_LOTE = 500;
+    private static final long ESPERA_MS = 10_000;
+
+    private static final Uri COM_ARQUIVO = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+            .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_INCLUIR_ARQUIVO, "true").build();
+
+    private Application aplicacao;
+    private ContentProviderClient cliente;
+    private MensagemProvider provider;
+    private ViewModelStore store;
+    private String autor;
+
+    @Before
+    public void setUp() {
+        aplicacao = (Application) InstrumentationRegistry.getInstrumentation().getTargetContext().getApplicationContext();
+        cliente = aplicacao.getContentResolver().acquireContentProviderClient(MensagemContract.AUTHORITY);
+        assertNotNull(cliente);
+        // O teste roda no processo do aplicativo, então o provedor é local.
+        provider = (MensagemProvider) cliente.getLocalContentProvider();
+        store = new ViewModelStore();
+        autor = "Teste do ViewModel " + UUID.randomUUID();
+    }
+
+    @After
+    public void tearDown() {
+        store.clear();
+        provider.delete(COM_ARQUIVO, MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?", new String[]{autor});
+        cliente.close();
+    }
+
+    @Test
+    public void janela_comecaNaTabelaDeMensagensEAlcancaOArquivoAoRolar() {
+        long primeiraDoTeste = inserir(QUENTES + EXCEDENTES);
+        assertTrue(provider.arquivarAgora(QUENTES) >= EXCEDENTES);
+
+        // A primeira mensagem do teste foi para o arquivo: sem o parâmetro, não é encontrada.
+        try (Cursor c = provider.query(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, primeiraDoTeste),
+                null, null, null, null)) {
+            assertEquals(0, c.getCount());
+        }
+
+        MensagemViewModel viewModel = criarViewModel();
+        ListaMensagens janela = aguardarJanela(viewModel, null);
+        // A primeira carga lê só a tabela de mensagens.
+        long inicioQuente = menorId(MensagemContract.MensagemEntry.CONTENT_URI);
+        assertEquals(inicioQuente, janela.getId(0));
+
+        // Ao rolar para o início, a página anterior vem do arquivo.
+        viewModel.carregarAnteriores();
+        janela = aguardarJanela(viewModel, janela);
+        assertEquals(anteriorNoArquivo(inicioQuente), janela.getId(0));
+        assertTrue(janela.getId(0) < inicioQuente);
+    }
+
+    @Test
+    public void arquivamento_mantemAsLinhasDaJanela() {
+        inserir(QUENTES + EXCEDENTES);
+        provider.arquivarAgora(QUENTES);
+
+        MensagemViewModel viewModel = criarViewModel();
+        ListaMensagens antes = aguardarJanela(viewModel, null);
+
+        // Arquiva as mensagens mais antigas que ainda estavam na tabela, que são as do começo da janela.
+        assertEquals(ARQUIVADAS_COM_A_JANELA, provider.arquivarAgora(QUENTES - ARQUIVADAS_COM_A_JANELA));
+        ListaMensagens depois = aguardarJanela(viewModel, antes);
+
+        assertEquals(antes.tamanho(), depois.tamanho());
+        for (int i = 0; i < antes.tamanho(); i++) {
+            assertEquals(antes.getId(i), depois.getId(i));
+        }
+    }
+
+    // Cria o ViewModel, que carrega a primeira janela.
+    private MensagemViewModel criarViewModel() {
+        return new ViewModelProvider(store,
+                ViewModelProvider.AndroidViewModelFactory.getInstance(aplicacao)).get(MensagemViewModel.class);
+    }
+
+    /**
+     * Insere as mensagens do teste em lotes.
+     * @return O ID da primeira mensagem inserida.
+     */
+    // Grava as mensagens com o autor do teste.
+    private long inserir(int quantidade) {
+        for (int inicio = 0; inicio < quantidade; inicio += LINHAS_POR_LOTE) {
+            ContentValues[] linhas = new ContentValues[Math.min(LINHAS_POR_LOTE, quantidade - inicio)];
+            for (int i = 0; i < linhas.length; i++) {
+                linhas[i] = new ContentValues();
+                linhas[i].put(MensagemContract.MensagemEntry.COLUMN_TEXTO, "Mensagem " + (inicio + i));
+                linhas[i].put(MensagemContract.MensagemEntry.COLUMN_AUTOR, autor);
+                linhas[i].put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, false);
+            }
+            assertEquals(linhas.length, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, linhas));
+        }
+        try (Cursor c = provider.query(COM_ARQUIVO, new String[]{MensagemContract.MensagemEntry._ID},
+                MensagemContract.MensagemEntry.COLUMN_AUTOR + " = ?", new String[]{autor},
+                MensagemContract.MensagemEntry._ID + " ASC")) {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        }
+    }
+
+    // Retorna o menor _ID da URI, com ou sem o arquivo.
+    private long menorId(Uri base) {
+        Uri primeira = base.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, "1").build();
+        try (Cursor c = provider.query(primeira, new String[]{MensagemContract.MensagemEntry._ID}, null, null, null)) {
+            assertTrue(c.moveToFirst());
+            return c.getLong(0);
+        }
+    }
+
+    // Retorna o primeiro _ID da página anterior ao ID informado, contando o arquivo.
+    private long anteriorNoArquivo(long id) {
+        Uri pagina = COM_ARQUIVO.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, String.valueOf(TAMANHO_PAGINA))
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_ANTES_ID, String.valueOf(id)).build();
+        try (Cursor c = provider.query(pagina, new String[]{MensagemContract.MensagemEntry._ID}, null, null, null)) {
+            // A página "antes_id" vem em ordem decrescente.
+            assertTrue(c.moveToLast());
+            return c.getLong(0);
+        }
+    }
+
+    // Espera uma janela publicada pelo ViewModel depois da anterior (ou a primeira, se ela for null).
+    private static ListaMensagens aguardarJanela(MensagemViewModel viewModel, ListaMensagens anterior) {
+        long limite = SystemClock.elapsedRealtime() + ESPERA_MS;
+        while (SystemClock.elapsedRealtime() < limite) {
+            ListaMensagens janela = viewModel.getMensagens().getValue();
+            if (janela != null && janela != anterior && !janela.isVazia()) {
+                return janela;
+            }
+            SystemClock.sleep(50);
+        }
+        throw new AssertionError("O ViewModel não publicou a janela em " + ESPERA_MS + " ms");
+    }
+}
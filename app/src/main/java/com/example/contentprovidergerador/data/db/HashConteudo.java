@@ -0,0 +1,67 @@
+package com.example.contentprovidergerador.data.db;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Hash do conteúdo de uma mensagem (texto e autor), gravado em
+ * {@link MensagemDbHelper#COLUNA_HASH_CONTEUDO} e protegido por um índice único: uma mensagem
+ * repetida é recusada pelo próprio índice, ao custo de uma busca nele.
+ * <p>
+ * Antes do hash, o texto e o autor são normalizados, para que variações que o leitor não percebe
+ * contem como a mesma mensagem: forma Unicode NFC, sem espaços nas pontas, cada sequência de
+ * espaços reduzida a um só e tudo em minúsculas. O hash são os primeiros 64 bits do SHA-256,
+ * guardados em uma coluna INTEGER.
+ */
+public final class HashConteudo {
+
+    /** Separa o texto do autor, para que ("a b", "c") e ("a", "b c") tenham hashes diferentes. */
+    private static final char SEPARADOR = '\u0000';
+
+    /** Sequências de espaços, inclusive os do Unicode (como o espaço não separável). */
+    private static final Pattern ESPACOS = Pattern.compile("\\s+", Pattern.UNICODE_CHARACTER_CLASS);
+
+    /** Um MessageDigest por thread: a criação é cara, e as instâncias não são thread-safe. */
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    });
+
+    private HashConteudo() {
+    }
+
+    /**
+     * Calcula o hash do conteúdo de uma mensagem.
+     * @param texto O texto da mensagem.
+     * @param autor O nome do autor.
+     * @return O hash, igual para mensagens que só diferem nos detalhes ignorados pela normalização.
+     */
+    // Normaliza o texto e o autor e resume os dois em 64 bits.
+    public static long calcular(String texto, String autor) {
+        String conteudo = normalizar(texto) + SEPARADOR + normalizar(autor);
+        byte[] resumo = SHA_256.get().digest(conteudo.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (resumo[i] & 0xFF);
+        }
+        return hash;
+    }
+
+    /**
+     * Normaliza um texto para o hash.
+     * @param texto O texto original.
+     * @return O texto em NFC, sem espaços nas pontas, com os espaços internos reduzidos e em minúsculas.
+     */
+    // Reduz as variações de forma, espaços e maiúsculas.
+    static String normalizar(String texto) {
+        String nfc = Normalizer.normalize(texto, Normalizer.Form.NFC);
+        return ESPACOS.matcher(nfc).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+}
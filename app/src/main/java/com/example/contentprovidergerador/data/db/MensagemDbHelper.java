@@ -1,13 +1,23 @@
 package com.example.contentprovidergerador.data.db;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Classe auxiliar para gerenciar a criação e atualização do banco de dados SQLite.
  * Esta classe estende {@link SQLiteOpenHelper}, que abstrai a lógica complexa
  * de criação e versionamento do banco de dados.
+ * <p>
+ * O banco é aberto em modo WAL (write-ahead logging): as escritas vão para um arquivo de log
+ * separado, então leitores nas threads de Binder do provedor não ficam bloqueados por uma
+ * escrita em andamento. Nesse modo o Android mantém um pool com várias conexões de leitura.
  */
 public class MensagemDbHelper extends SQLiteOpenHelper {
 
@@ -18,19 +28,166 @@ public class MensagemDbHelper extends SQLiteOpenHelper {
      * A versão do banco de dados. Se este número for alterado, o método onUpgrade()
      * será chamado para atualizar o esquema do banco de dados.
      */
-    public static final int DATABASE_VERSION = 2;
+    public static final int DATABASE_VERSION = 9;
+
+    /**
+     * Tabela virtual FTS4 (full-text search) com uma cópia do texto e do autor de cada mensagem,
+     * indexada por palavra. O {@code docid} de cada linha é o {@code _ID} da mensagem, e a tabela
+     * é mantida em sincronia com a tabela de mensagens por triggers.
+     */
+    public static final String TABELA_BUSCA = "mensagens_fts";
+
+    /**
+     * Índice denso para o sorteio de mensagens: associa cada posição de 0 a N-1 ao ID de uma
+     * mensagem. Como as posições não têm buracos (mesmo após exclusões), sortear uma mensagem é
+     * sortear um número entre 0 e N-1 e ler uma única linha pela chave primária.
+     */
+    public static final String TABELA_SORTEIO = "mensagens_sorteio";
+
+    /** Índice denso para o sorteio, como {@link #TABELA_SORTEIO}, contendo apenas as mensagens favoritas. */
+    public static final String TABELA_SORTEIO_FAVORITAS = "favoritas_sorteio";
+
+    /** Coluna dos índices de sorteio com a posição densa (0 a N-1). Tipo: INTEGER PRIMARY KEY */
+    public static final String COLUNA_POSICAO = "posicao";
+
+    /** Coluna dos índices de sorteio com o ID da mensagem. Tipo: INTEGER */
+    public static final String COLUNA_MENSAGEM_ID = "mensagem_id";
+
+    /**
+     * Tabela de autores. Cada nome é gravado uma única vez, e as mensagens guardam apenas
+     * o ID do autor ({@link #COLUNA_AUTOR_ID}) em vez de repetir o nome em todas as linhas.
+     */
+    public static final String TABELA_AUTORES = "autores";
+
+    /** Coluna da tabela de autores com o nome do autor. Tipo: TEXT NOT NULL UNIQUE */
+    public static final String COLUNA_NOME = "nome";
+
+    /** Coluna da tabela de mensagens com o ID do autor na tabela de autores. Tipo: INTEGER NOT NULL */
+    public static final String COLUNA_AUTOR_ID = "autor_id";
+
+    /**
+     * Visão com as colunas públicas do contrato ({@code _id}, {@code texto}, {@code autor},
+     * {@code favorita}), que junta cada mensagem ao nome do seu autor. As leituras do provedor
+     * usam esta visão, de modo que a projeção e os filtros dos clientes continuam os mesmos.
+     */
+    public static final String VISAO_MENSAGENS = "mensagens_completas";
+
+    /**
+     * Coluna da tabela de mensagens que marca uma mensagem excluída ("lápide"). A exclusão apenas
+     * marca a linha, que some da visão, da busca e do sorteio imediatamente; a linha é apagada de
+     * fato depois, em lotes, pela compactação em segundo plano. Tipo: INTEGER NOT NULL DEFAULT 0
+     */
+    public static final String COLUNA_EXCLUIDA = "excluida";
+
+    /**
+     * Índice parcial com apenas as mensagens excluídas e ainda não compactadas. Como contém só as
+     * lápides, é pequeno, e a compactação encontra as linhas a apagar sem percorrer a tabela.
+     */
+    public static final String INDICE_EXCLUIDAS = "mensagens_excluidas";
+
+    /**
+     * Tabela de uma única linha com o total de mensagens e de favoritas (sem contar as lápides),
+     * mantida por triggers a cada escrita. Ler os totais custa uma leitura pela chave primária,
+     * qualquer que seja o tamanho da tabela de mensagens.
+     */
+    public static final String TABELA_ESTATISTICAS = "estatisticas";
+
+    /**
+     * Tabela com o total de mensagens e de favoritas de cada autor, mantida por triggers como a
+     * {@link #TABELA_ESTATISTICAS}. Autores sem nenhuma mensagem não têm linha.
+     */
+    public static final String TABELA_ESTATISTICAS_AUTORES = "estatisticas_autores";
+
+    /** Visão da {@link #TABELA_ESTATISTICAS_AUTORES} com o nome do autor no lugar do ID. */
+    public static final String VISAO_ESTATISTICAS_AUTORES = "estatisticas_por_autor";
+
+    /**
+     * Tabela de arquivo, com as mensagens antigas que raramente são lidas. As mensagens são
+     * movidas para cá pelo arquivamento em segundo plano, de modo que a tabela de mensagens (e os
+     * seus índices, a busca e o sorteio) contém apenas as recentes e as favoritas. As linhas
+     * arquivadas mantêm o seu ID e continuam contadas nos totais.
+     */
+    public static final String TABELA_ARQUIVO = "mensagens_arquivo";
+
+    /** Visão da {@link #TABELA_ARQUIVO} com as colunas públicas do contrato, como a {@link #VISAO_MENSAGENS}. */
+    public static final String VISAO_ARQUIVO = "mensagens_arquivadas";
+
+    /** Visão com as mensagens da {@link #VISAO_MENSAGENS} e as da {@link #VISAO_ARQUIVO} (UNION ALL). */
+    public static final String VISAO_MENSAGENS_COM_ARQUIVO = "mensagens_com_arquivo";
+
+    /**
+     * Coluna da tabela de mensagens e da de arquivo com o {@link HashConteudo} do texto e do autor.
+     * Um índice único parcial em cada tabela (e um trigger entre as duas) recusa as mensagens
+     * repetidas; as lápides ficam sem hash, para que a mesma mensagem possa ser inserida de novo
+     * depois de excluída. Tipo: INTEGER
+     */
+    public static final String COLUNA_HASH_CONTEUDO = "hash_conteudo";
+
+    /** Comando que cria a tabela de autores. */
+    static final String SQL_CRIAR_TABELA_AUTORES = "CREATE TABLE " + TABELA_AUTORES + " (" +
+            MensagemContract.MensagemEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            COLUNA_NOME + " TEXT NOT NULL UNIQUE)";
+
+    /** Comando que cria o índice das mensagens por autor. */
+    static final String SQL_CRIAR_INDICE_AUTOR = "CREATE INDEX " + MensagemContract.MensagemEntry.TABLE_NAME + "_autor ON " +
+            MensagemContract.MensagemEntry.TABLE_NAME + " (" + COLUNA_AUTOR_ID + ")";
+
+    /** Comando que cria a visão {@link #VISAO_MENSAGENS}. */
+    static final String SQL_CRIAR_VISAO_MENSAGENS = "CREATE VIEW " + VISAO_MENSAGENS + " AS SELECT " +
+            "m." + MensagemContract.MensagemEntry._ID + " AS " + MensagemContract.MensagemEntry._ID + ", " +
+            "m." + MensagemContract.MensagemEntry.COLUMN_TEXTO + " AS " + MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " +
+            "a." + COLUNA_NOME + " AS " + MensagemContract.MensagemEntry.COLUMN_AUTOR + ", " +
+            "m." + MensagemContract.MensagemEntry.COLUMN_FAVORITA + " AS " + MensagemContract.MensagemEntry.COLUMN_FAVORITA + " " +
+            "FROM " + MensagemContract.MensagemEntry.TABLE_NAME + " m " +
+            "JOIN " + TABELA_AUTORES + " a ON a." + MensagemContract.MensagemEntry._ID + " = m." + COLUNA_AUTOR_ID;
+
+    /**
+     * Tamanho do cache de páginas de cada conexão, em KiB.
+     * Cada conexão do pool tem o seu próprio cache, então o valor é mantido moderado.
+     */
+    private static final int TAMANHO_CACHE_KIB = 4096;
+
+    /** Valor retornado por {@code PRAGMA auto_vacuum} quando o modo incremental está ativo. */
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
 
     /**
      * Construtor da classe.
+     * Habilita o modo WAL, que permite leituras concorrentes (em um pool de conexões) enquanto
+     * uma escrita está em andamento. Com WAL, o modo síncrono NORMAL é seguro contra corrupção
+     * e evita um fsync a cada transação; o log é sincronizado nos checkpoints.
      * @param context O contexto da aplicação.
      */
     public MensagemDbHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        super(context, DATABASE_NAME, DATABASE_VERSION, new SQLiteDatabase.OpenParams.Builder()
+                .setSynchronousMode("NORMAL")
+                .build());
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Chamado ao abrir cada conexão, antes de onCreate/onUpgrade.
+     * Configura o cache de páginas em todas as conexões do pool, não apenas na principal.
+     * Pede também o auto_vacuum incremental, que só vale de imediato para um banco ainda sem
+     * tabelas: um banco novo já é criado nesse modo, e um banco antigo é convertido depois, em
+     * segundo plano, por {@link #ativarVacuoIncremental(SQLiteDatabase)}.
+     * @param db O banco de dados.
+     */
+    // Ajusta os parâmetros (pragmas) de cada conexão.
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Valores negativos de cache_size são interpretados pelo SQLite como KiB, não como páginas.
+        db.execPerConnectionSQL("PRAGMA cache_size = -" + TAMANHO_CACHE_KIB, null);
+        if (!db.isReadOnly()) {
+            db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        }
     }
 
     /**
      * Chamado quando o banco de dados é criado pela primeira vez.
      * Este método é responsável por criar as tabelas e popular os dados iniciais, se necessário.
+     * Cria o esquema da versão 2 e aplica as migrações até a versão atual, para que um banco
+     * novo e um banco atualizado tenham exatamente o mesmo esquema.
      * @param db O banco de dados.
      */
     // Cria a tabela do banco de dados.
@@ -47,11 +204,15 @@ public class MensagemDbHelper extends SQLiteOpenHelper {
 
         // Executa o comando SQL.
         db.execSQL(SQL_CREATE_MENSAGENS_TABLE);
+
+        // Aplica as migrações posteriores à versão 2.
+        onUpgrade(db, 2, DATABASE_VERSION);
     }
 
     /**
      * Chamado quando a versão do banco de dados (DATABASE_VERSION) é incrementada.
      * Este método define como o esquema do banco de dados deve ser atualizado.
+     * A partir da versão 2, cada versão tem a sua migração, que preserva os dados existentes.
      * @param db O banco de dados.
      * @param oldVersion A versão antiga do banco de dados.
      * @param newVersion A nova versão do banco de dados.
@@ -59,10 +220,491 @@ public class MensagemDbHelper extends SQLiteOpenHelper {
     // Atualiza o banco de dados quando a versão muda.
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // A estratégia de atualização aqui é simples: apagar a tabela existente e criá-la novamente.
-        // ATENÇÃO: Em uma aplicação real, isso apagaria todos os dados do usuário.
-        // O ideal seria implementar uma migração de dados (ex: usando ALTER TABLE).
-        db.execSQL("DROP TABLE IF EXISTS " + MensagemContract.MensagemEntry.TABLE_NAME);
-        onCreate(db);
+        if (oldVersion < 2) {
+            // A versão 1 não tem migração: apaga a tabela existente e a cria novamente.
+            db.execSQL("DROP TABLE IF EXISTS " + MensagemContract.MensagemEntry.TABLE_NAME);
+            onCreate(db);
+            return;
+        }
+        if (oldVersion < 3) {
+            migrarParaVersao3(db);
+        }
+        if (oldVersion < 4) {
+            migrarParaVersao4(db);
+        }
+        if (oldVersion < 5) {
+            migrarParaVersao5(db);
+        }
+        if (oldVersion < 6) {
+            migrarParaVersao6(db);
+        }
+        if (oldVersion < 7) {
+            migrarParaVersao7(db);
+        }
+        if (oldVersion < 8) {
+            migrarParaVersao8(db);
+        }
+        if (oldVersion < 9) {
+            migrarParaVersao9(db);
+        }
+    }
+
+    /**
+     * Indica se o banco já está em auto_vacuum incremental, que permite devolver ao sistema as
+     * páginas liberadas pela compactação em pequenos passos ({@code PRAGMA incremental_vacuum}).
+     * @param db O banco de dados.
+     * @return true se o modo incremental está ativo.
+     */
+    // Lê o modo de auto_vacuum do banco.
+    public static boolean vacuoIncrementalAtivo(SQLiteDatabase db) {
+        return DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) == AUTO_VACUUM_INCREMENTAL;
+    }
+
+    /**
+     * Converte para auto_vacuum incremental um banco criado antes desse modo. Mudar o modo de
+     * um banco que já tem tabelas exige um VACUUM, que reescreve o arquivo inteiro: as outras
+     * escritas esperam até o fim, e as leituras, em modo WAL, continuam. Deve ser chamado fora
+     * de transação e fora da thread principal; é feito uma única vez por banco.
+     * @param db O banco de dados, aberto para escrita.
+     */
+    // Ativa o modo incremental e reescreve o banco com um VACUUM.
+    public static void ativarVacuoIncremental(SQLiteDatabase db) {
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        db.execSQL("VACUUM");
+    }
+
+    /**
+     * Versão 3: cria o índice de busca textual (FTS4) sobre o texto e o autor, os triggers
+     * que o mantêm sincronizado com a tabela de mensagens, e o popula com as linhas existentes.
+     * @param db O banco de dados.
+     */
+    // Cria e popula a tabela de busca textual.
+    private static void migrarParaVersao3(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String texto = MensagemContract.MensagemEntry.COLUMN_TEXTO;
+        final String autor = MensagemContract.MensagemEntry.COLUMN_AUTOR;
+
+        // O tokenizador unicode61 ignora maiúsculas/minúsculas e acentos ("coração" = "coracao").
+        db.execSQL("CREATE VIRTUAL TABLE " + TABELA_BUSCA + " USING fts4(" +
+                texto + ", " + autor + ", tokenize=unicode61 \"remove_diacritics=1\")");
+
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_ai AFTER INSERT ON " + tabela + " BEGIN " +
+                "INSERT INTO " + TABELA_BUSCA + " (docid, " + texto + ", " + autor + ") " +
+                "VALUES (new." + id + ", new." + texto + ", new." + autor + "); END");
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_au AFTER UPDATE OF " + texto + ", " + autor + " ON " + tabela + " BEGIN " +
+                "UPDATE " + TABELA_BUSCA + " SET " + texto + " = new." + texto + ", " + autor + " = new." + autor +
+                " WHERE docid = old." + id + "; END");
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_ad AFTER DELETE ON " + tabela + " BEGIN " +
+                "DELETE FROM " + TABELA_BUSCA + " WHERE docid = old." + id + "; END");
+
+        db.execSQL("INSERT INTO " + TABELA_BUSCA + " (docid, " + texto + ", " + autor + ") " +
+                "SELECT " + id + ", " + texto + ", " + autor + " FROM " + tabela);
+    }
+
+    /**
+     * Versão 4: cria os índices densos de sorteio (todas as mensagens e apenas as favoritas),
+     * os triggers que os mantêm e os popula com as linhas existentes.
+     * @param db O banco de dados.
+     */
+    // Cria e popula os índices de sorteio.
+    private static void migrarParaVersao4(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+
+        for (String indice : new String[]{TABELA_SORTEIO, TABELA_SORTEIO_FAVORITAS}) {
+            db.execSQL("CREATE TABLE " + indice + " (" +
+                    COLUNA_POSICAO + " INTEGER PRIMARY KEY, " +
+                    COLUNA_MENSAGEM_ID + " INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX " + indice + "_mensagem ON " + indice + " (" + COLUNA_MENSAGEM_ID + ")");
+        }
+        criarTriggersSorteio(db);
+
+        db.execSQL("INSERT INTO " + TABELA_SORTEIO + " (" + COLUNA_POSICAO + ", " + COLUNA_MENSAGEM_ID + ") " +
+                "SELECT ROW_NUMBER() OVER (ORDER BY " + id + ") - 1, " + id + " FROM " + tabela);
+        db.execSQL("INSERT INTO " + TABELA_SORTEIO_FAVORITAS + " (" + COLUNA_POSICAO + ", " + COLUNA_MENSAGEM_ID + ") " +
+                "SELECT ROW_NUMBER() OVER (ORDER BY " + id + ") - 1, " + id + " FROM " + tabela +
+                " WHERE " + favorita + " = 1");
+    }
+
+    /**
+     * Cria os triggers que mantêm os índices de sorteio densos a cada inserção, exclusão
+     * ou mudança do status de favorita na tabela de mensagens.
+     * @param db O banco de dados.
+     */
+    // Cria os triggers dos índices de sorteio.
+    private static void criarTriggersSorteio(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+
+        // Todas as mensagens entram no índice geral; as favoritas também no índice de favoritas.
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO + "_ai AFTER INSERT ON " + tabela + " BEGIN " +
+                sqlAdicionarAoSorteio(TABELA_SORTEIO, "new." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO + "_ad AFTER DELETE ON " + tabela + " BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO, "old." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_ai AFTER INSERT ON " + tabela +
+                " WHEN new." + favorita + " = 1 BEGIN " +
+                sqlAdicionarAoSorteio(TABELA_SORTEIO_FAVORITAS, "new." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_ad AFTER DELETE ON " + tabela +
+                " WHEN old." + favorita + " = 1 BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO_FAVORITAS, "old." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_marcada AFTER UPDATE OF " + favorita + " ON " + tabela +
+                " WHEN old." + favorita + " = 0 AND new." + favorita + " = 1 BEGIN " +
+                sqlAdicionarAoSorteio(TABELA_SORTEIO_FAVORITAS, "new." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_desmarcada AFTER UPDATE OF " + favorita + " ON " + tabela +
+                " WHEN old." + favorita + " = 1 AND new." + favorita + " = 0 BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO_FAVORITAS, "old." + id) + " END");
+    }
+
+    /**
+     * Versão 5: move os nomes de autor para a {@link #TABELA_AUTORES} e troca a coluna de texto
+     * {@code autor} da tabela de mensagens pela chave {@link #COLUNA_AUTOR_ID}. A tabela de mensagens
+     * é recriada (mantendo os IDs e a sequência do AUTOINCREMENT), os triggers de busca e de sorteio
+     * são refeitos sobre ela, e a {@link #VISAO_MENSAGENS} expõe novamente a coluna {@code autor}.
+     * @param db O banco de dados.
+     */
+    // Normaliza os autores em uma tabela própria.
+    private static void migrarParaVersao5(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String antiga = tabela + "_v4";
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String texto = MensagemContract.MensagemEntry.COLUMN_TEXTO;
+        final String autor = MensagemContract.MensagemEntry.COLUMN_AUTOR;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+
+        db.execSQL(SQL_CRIAR_TABELA_AUTORES);
+        db.execSQL("INSERT INTO " + TABELA_AUTORES + " (" + COLUNA_NOME + ") " +
+                "SELECT DISTINCT " + autor + " FROM " + tabela + " ORDER BY " + autor);
+
+        // Recria a tabela de mensagens com a chave do autor no lugar do nome.
+        db.execSQL("ALTER TABLE " + tabela + " RENAME TO " + antiga);
+        db.execSQL(sqlCriarTabelaMensagens(tabela));
+        db.execSQL("INSERT INTO " + tabela + " (" + id + ", " + texto + ", " + COLUNA_AUTOR_ID + ", " + favorita + ") " +
+                "SELECT m." + id + ", m." + texto + ", a." + id + ", m." + favorita + " FROM " + antiga + " m " +
+                "JOIN " + TABELA_AUTORES + " a ON a." + COLUNA_NOME + " = m." + autor);
+        // Mantém a sequência do AUTOINCREMENT, para que IDs de mensagens excluídas não sejam reutilizados.
+        db.execSQL("DELETE FROM sqlite_sequence WHERE name = '" + tabela + "'");
+        db.execSQL("UPDATE sqlite_sequence SET name = '" + tabela + "' WHERE name = '" + antiga + "'");
+        // Apaga a tabela antiga junto com os seus triggers; os índices de busca e de sorteio são mantidos.
+        db.execSQL("DROP TABLE " + antiga);
+        db.execSQL(SQL_CRIAR_INDICE_AUTOR);
+
+        // O índice de busca guarda o nome do autor, obtido da tabela de autores.
+        String nomeDoAutor = "(SELECT " + COLUNA_NOME + " FROM " + TABELA_AUTORES + " WHERE " + id + " = new." + COLUNA_AUTOR_ID + ")";
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_ai AFTER INSERT ON " + tabela + " BEGIN " +
+                "INSERT INTO " + TABELA_BUSCA + " (docid, " + texto + ", " + autor + ") " +
+                "VALUES (new." + id + ", new." + texto + ", " + nomeDoAutor + "); END");
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_au AFTER UPDATE OF " + texto + ", " + COLUNA_AUTOR_ID + " ON " + tabela + " BEGIN " +
+                "UPDATE " + TABELA_BUSCA + " SET " + texto + " = new." + texto + ", " + autor + " = " + nomeDoAutor +
+                " WHERE docid = old." + id + "; END");
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_ad AFTER DELETE ON " + tabela + " BEGIN " +
+                "DELETE FROM " + TABELA_BUSCA + " WHERE docid = old." + id + "; END");
+        // Se um autor for renomeado, atualiza o nome em todas as suas mensagens no índice de busca.
+        db.execSQL("CREATE TRIGGER " + TABELA_BUSCA + "_autor_au AFTER UPDATE OF " + COLUNA_NOME + " ON " + TABELA_AUTORES + " BEGIN " +
+                "UPDATE " + TABELA_BUSCA + " SET " + autor + " = new." + COLUNA_NOME + " WHERE docid IN " +
+                "(SELECT " + id + " FROM " + tabela + " WHERE " + COLUNA_AUTOR_ID + " = new." + id + "); END");
+        criarTriggersSorteio(db);
+
+        db.execSQL(SQL_CRIAR_VISAO_MENSAGENS);
+    }
+
+    /**
+     * Versão 6: exclusão por lápide. Acrescenta a coluna {@link #COLUNA_EXCLUIDA} e o
+     * {@link #INDICE_EXCLUIDAS}, filtra as lápides na {@link #VISAO_MENSAGENS} e cria os triggers
+     * que tiram uma mensagem da busca e dos índices de sorteio no momento em que ela é marcada.
+     * Os triggers de exclusão física passam a ignorar as lápides, que já saíram desses índices.
+     * @param db O banco de dados.
+     */
+    // Adiciona a exclusão por lápide.
+    private static void migrarParaVersao6(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+
+        // Uma coluna nova com valor padrão constante não reescreve as linhas existentes.
+        db.execSQL("ALTER TABLE " + tabela + " ADD COLUMN " + COLUNA_EXCLUIDA + " INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("CREATE INDEX " + INDICE_EXCLUIDAS + " ON " + tabela + " (" + id + ") WHERE " + COLUNA_EXCLUIDA + " = 1");
+
+        db.execSQL("DROP VIEW " + VISAO_MENSAGENS);
+        db.execSQL(SQL_CRIAR_VISAO_MENSAGENS + " WHERE m." + COLUNA_EXCLUIDA + " = 0");
+
+        // Ao marcar a lápide, a mensagem sai da busca e dos índices de sorteio.
+        db.execSQL("CREATE TRIGGER " + tabela + "_excluida AFTER UPDATE OF " + COLUNA_EXCLUIDA + " ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 AND new." + COLUNA_EXCLUIDA + " = 1 BEGIN " +
+                "DELETE FROM " + TABELA_BUSCA + " WHERE docid = old." + id + "; " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO, "old." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_excluida AFTER UPDATE OF " + COLUNA_EXCLUIDA + " ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 AND new." + COLUNA_EXCLUIDA + " = 1 AND old." + favorita + " = 1 BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO_FAVORITAS, "old." + id) + " END");
+
+        // A exclusão física (compactação) de uma lápide não pode mexer de novo nos índices de sorteio,
+        // e mudar a favorita de uma lápide não pode recolocá-la no sorteio.
+        for (String trigger : new String[]{TABELA_SORTEIO + "_ad", TABELA_SORTEIO_FAVORITAS + "_ad",
+                TABELA_SORTEIO_FAVORITAS + "_marcada", TABELA_SORTEIO_FAVORITAS + "_desmarcada"}) {
+            db.execSQL("DROP TRIGGER " + trigger);
+        }
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO + "_ad AFTER DELETE ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO, "old." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_ad AFTER DELETE ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 AND old." + favorita + " = 1 BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO_FAVORITAS, "old." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_marcada AFTER UPDATE OF " + favorita + " ON " + tabela +
+                " WHEN new." + COLUNA_EXCLUIDA + " = 0 AND old." + favorita + " = 0 AND new." + favorita + " = 1 BEGIN " +
+                sqlAdicionarAoSorteio(TABELA_SORTEIO_FAVORITAS, "new." + id) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_SORTEIO_FAVORITAS + "_desmarcada AFTER UPDATE OF " + favorita + " ON " + tabela +
+                " WHEN new." + COLUNA_EXCLUIDA + " = 0 AND old." + favorita + " = 1 AND new." + favorita + " = 0 BEGIN " +
+                sqlRemoverDoSorteio(TABELA_SORTEIO_FAVORITAS, "old." + id) + " END");
+    }
+
+    /**
+     * Versão 7: totais mantidos incrementalmente. Cria a {@link #TABELA_ESTATISTICAS}, a
+     * {@link #TABELA_ESTATISTICAS_AUTORES} e a {@link #VISAO_ESTATISTICAS_AUTORES}, os triggers
+     * que ajustam os totais a cada inserção, exclusão (lápide ou física) e mudança de favorita ou
+     * de autor, e calcula os totais das mensagens existentes. As lápides não são contadas.
+     * @param db O banco de dados.
+     */
+    // Cria e popula as tabelas de totais.
+    private static void migrarParaVersao7(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+        final String total = MensagemContract.MensagemEntry.COLUMN_TOTAL;
+        final String favoritas = MensagemContract.MensagemEntry.COLUMN_TOTAL_FAVORITAS;
+
+        db.execSQL("CREATE TABLE " + TABELA_ESTATISTICAS + " (" +
+                id + " INTEGER PRIMARY KEY CHECK (" + id + " = 1), " +
+                total + " INTEGER NOT NULL, " +
+                favoritas + " INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABELA_ESTATISTICAS_AUTORES + " (" +
+                COLUNA_AUTOR_ID + " INTEGER PRIMARY KEY REFERENCES " + TABELA_AUTORES + "(" + id + "), " +
+                total + " INTEGER NOT NULL, " +
+                favoritas + " INTEGER NOT NULL)");
+        db.execSQL("CREATE VIEW " + VISAO_ESTATISTICAS_AUTORES + " AS SELECT " +
+                "a." + COLUNA_NOME + " AS " + MensagemContract.MensagemEntry.COLUMN_AUTOR + ", " +
+                "e." + total + " AS " + total + ", " +
+                "e." + favoritas + " AS " + favoritas + " " +
+                "FROM " + TABELA_ESTATISTICAS_AUTORES + " e " +
+                "JOIN " + TABELA_AUTORES + " a ON a." + id + " = e." + COLUNA_AUTOR_ID);
+
+        String eraFavorita = "(old." + favorita + " = 1)";
+        String ehFavorita = "(new." + favorita + " = 1)";
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_ai AFTER INSERT ON " + tabela +
+                " WHEN new." + COLUNA_EXCLUIDA + " = 0 BEGIN " +
+                sqlSomarAosTotais("new." + COLUNA_AUTOR_ID, "1", ehFavorita) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_excluida AFTER UPDATE OF " + COLUNA_EXCLUIDA + " ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 AND new." + COLUNA_EXCLUIDA + " = 1 BEGIN " +
+                sqlSomarAosTotais("old." + COLUNA_AUTOR_ID, "-1", "-" + eraFavorita) + " END");
+        // A exclusão física de uma lápide não muda os totais: ela já foi descontada ao ser marcada.
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_ad AFTER DELETE ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 BEGIN " +
+                sqlSomarAosTotais("old." + COLUNA_AUTOR_ID, "-1", "-" + eraFavorita) + " END");
+        // Uma mudança de favorita, de autor ou das duas: desconta a linha antiga e soma a nova.
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_au AFTER UPDATE OF " + favorita + ", " + COLUNA_AUTOR_ID + " ON " + tabela +
+                " WHEN old." + COLUNA_EXCLUIDA + " = 0 AND new." + COLUNA_EXCLUIDA + " = 0 AND " +
+                "(" + eraFavorita + " != " + ehFavorita + " OR old." + COLUNA_AUTOR_ID + " != new." + COLUNA_AUTOR_ID + ") BEGIN " +
+                sqlSomarAosTotais("old." + COLUNA_AUTOR_ID, "-1", "-" + eraFavorita) + " " +
+                sqlSomarAosTotais("new." + COLUNA_AUTOR_ID, "1", ehFavorita) + " END");
+
+        db.execSQL("INSERT INTO " + TABELA_ESTATISTICAS + " (" + id + ", " + total + ", " + favoritas + ") " +
+                "SELECT 1, COUNT(*), IFNULL(SUM(" + favorita + " = 1), 0) FROM " + tabela +
+                " WHERE " + COLUNA_EXCLUIDA + " = 0");
+        db.execSQL("INSERT INTO " + TABELA_ESTATISTICAS_AUTORES + " (" + COLUNA_AUTOR_ID + ", " + total + ", " + favoritas + ") " +
+                "SELECT " + COLUNA_AUTOR_ID + ", COUNT(*), SUM(" + favorita + " = 1) FROM " + tabela +
+                " WHERE " + COLUNA_EXCLUIDA + " = 0 GROUP BY " + COLUNA_AUTOR_ID);
+    }
+
+    /**
+     * Migração da versão 7 para a 8: cria a tabela de arquivo, as suas visões e os triggers que
+     * a incluem nos totais. Arquivar uma mensagem é inseri-la no arquivo (que soma aos totais) e
+     * apagá-la da tabela de mensagens (que desconta), então os totais não mudam. Nenhuma linha é
+     * movida aqui; isso fica para o arquivamento em segundo plano.
+     * @param db O banco de dados.
+     */
+    // Cria a tabela de arquivo.
+    private static void migrarParaVersao8(SQLiteDatabase db) {
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String texto = MensagemContract.MensagemEntry.COLUMN_TEXTO;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+
+        // Sem AUTOINCREMENT: os IDs vêm da tabela de mensagens.
+        db.execSQL("CREATE TABLE " + TABELA_ARQUIVO + " (" +
+                id + " INTEGER PRIMARY KEY, " +
+                texto + " TEXT NOT NULL, " +
+                COLUNA_AUTOR_ID + " INTEGER NOT NULL REFERENCES " + TABELA_AUTORES + "(" + id + "), " +
+                favorita + " BOOLEAN NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE INDEX " + TABELA_ARQUIVO + "_autor ON " + TABELA_ARQUIVO + " (" + COLUNA_AUTOR_ID + ")");
+
+        db.execSQL("CREATE VIEW " + VISAO_ARQUIVO + " AS SELECT " +
+                "m." + id + " AS " + id + ", " +
+                "m." + texto + " AS " + texto + ", " +
+                "a." + COLUNA_NOME + " AS " + MensagemContract.MensagemEntry.COLUMN_AUTOR + ", " +
+                "m." + favorita + " AS " + favorita + " " +
+                "FROM " + TABELA_ARQUIVO + " m " +
+                "JOIN " + TABELA_AUTORES + " a ON a." + id + " = m." + COLUNA_AUTOR_ID);
+        // UNION ALL: os IDs das duas tabelas nunca se repetem, e os filtros são aplicados em cada lado.
+        db.execSQL("CREATE VIEW " + VISAO_MENSAGENS_COM_ARQUIVO + " AS " +
+                "SELECT * FROM " + VISAO_MENSAGENS + " UNION ALL SELECT * FROM " + VISAO_ARQUIVO);
+
+        String ehFavorita = "(new." + favorita + " = 1)";
+        String eraFavorita = "(old." + favorita + " = 1)";
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_arquivo_ai AFTER INSERT ON " + TABELA_ARQUIVO + " BEGIN " +
+                sqlSomarAosTotais("new." + COLUNA_AUTOR_ID, "1", ehFavorita) + " END");
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_arquivo_ad AFTER DELETE ON " + TABELA_ARQUIVO + " BEGIN " +
+                sqlSomarAosTotais("old." + COLUNA_AUTOR_ID, "-1", "-" + eraFavorita) + " END");
+    }
+
+    /**
+     * Migração da versão 8 para a 9: cria a {@link #COLUNA_HASH_CONTEUDO} nas duas tabelas, os
+     * seus índices únicos e os triggers que impedem que uma mensagem da tabela de mensagens
+     * repita uma do arquivo. O hash é calculado em Java, pois o SQLite não tem uma função de hash.
+     * <p>
+     * As mensagens repetidas que já existiam são eliminadas, mantendo a de menor ID (o arquivo
+     * primeiro, pois tem as mais antigas); se alguma das cópias era favorita, a que fica também
+     * passa a ser. As cópias do arquivo são apagadas e as da tabela de mensagens viram lápides,
+     * como em uma exclusão, e os triggers ajustam a busca, o sorteio e os totais (o arquivo ganha
+     * um trigger para a mudança de favorita, que antes não acontecia lá).
+     * @param db O banco de dados.
+     */
+    // Cria a coluna de hash, calcula-a para as mensagens existentes e elimina as repetidas.
+    private static void migrarParaVersao9(SQLiteDatabase db) {
+        final String tabela = MensagemContract.MensagemEntry.TABLE_NAME;
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+        final String ignorarSeNoArquivo = "new." + COLUNA_HASH_CONTEUDO + " IS NOT NULL AND EXISTS (SELECT 1 FROM " +
+                TABELA_ARQUIVO + " WHERE " + COLUNA_HASH_CONTEUDO + " = new." + COLUNA_HASH_CONTEUDO +
+                " AND " + id + " IS NOT new." + id + ")";
+
+        db.execSQL("ALTER TABLE " + tabela + " ADD COLUMN " + COLUNA_HASH_CONTEUDO + " INTEGER");
+        db.execSQL("ALTER TABLE " + TABELA_ARQUIVO + " ADD COLUMN " + COLUNA_HASH_CONTEUDO + " INTEGER");
+        // Parciais: as lápides (sem hash) não ocupam os índices.
+        db.execSQL("CREATE UNIQUE INDEX " + tabela + "_" + COLUNA_HASH_CONTEUDO + " ON " + tabela +
+                " (" + COLUNA_HASH_CONTEUDO + ") WHERE " + COLUNA_HASH_CONTEUDO + " IS NOT NULL");
+        db.execSQL("CREATE UNIQUE INDEX " + TABELA_ARQUIVO + "_" + COLUNA_HASH_CONTEUDO + " ON " + TABELA_ARQUIVO +
+                " (" + COLUNA_HASH_CONTEUDO + ") WHERE " + COLUNA_HASH_CONTEUDO + " IS NOT NULL");
+        // Uma inserção repetida de uma mensagem arquivada é ignorada, como no índice único da própria
+        // tabela com INSERT OR IGNORE. A mesma linha voltando do arquivo (mesmo ID) passa.
+        db.execSQL("CREATE TRIGGER " + tabela + "_" + COLUNA_HASH_CONTEUDO + "_bi BEFORE INSERT ON " + tabela +
+                " WHEN " + ignorarSeNoArquivo + " BEGIN SELECT RAISE(IGNORE); END");
+        db.execSQL("CREATE TRIGGER " + tabela + "_" + COLUNA_HASH_CONTEUDO + "_bu BEFORE UPDATE OF " + COLUNA_HASH_CONTEUDO +
+                " ON " + tabela + " WHEN " + ignorarSeNoArquivo + " BEGIN " +
+                "SELECT RAISE(ABORT, 'UNIQUE constraint failed: " + tabela + "." + COLUNA_HASH_CONTEUDO + "'); END");
+
+        // O arquivo não tinha trigger de mudança: a favorita de uma cópia eliminada pode passar
+        // para a que fica no arquivo.
+        String ehFavorita = "(new." + favorita + " = 1)";
+        String eraFavorita = "(old." + favorita + " = 1)";
+        db.execSQL("CREATE TRIGGER " + TABELA_ESTATISTICAS + "_arquivo_au AFTER UPDATE OF " + favorita + ", " +
+                COLUNA_AUTOR_ID + " ON " + TABELA_ARQUIVO + " WHEN " + eraFavorita + " != " + ehFavorita +
+                " OR old." + COLUNA_AUTOR_ID + " != new." + COLUNA_AUTOR_ID + " BEGIN " +
+                sqlSomarAosTotais("old." + COLUNA_AUTOR_ID, "-1", "-" + eraFavorita) + " " +
+                sqlSomarAosTotais("new." + COLUNA_AUTOR_ID, "1", ehFavorita) + " END");
+
+        preencherHashes(db, TABELA_ARQUIVO, "1",
+                "DELETE FROM " + TABELA_ARQUIVO + " WHERE " + id + " = ?");
+        preencherHashes(db, tabela, COLUNA_EXCLUIDA + " = 0",
+                "UPDATE " + tabela + " SET " + COLUNA_EXCLUIDA + " = 1 WHERE " + id + " = ?");
+    }
+
+    /**
+     * Calcula o hash das linhas de uma tabela, em ordem de ID, e elimina as que repetem uma
+     * linha anterior (desta tabela ou do arquivo, que já foi preenchido).
+     * @param db O banco de dados.
+     * @param tabela A tabela de mensagens ou a de arquivo.
+     * @param filtro As linhas que recebem o hash.
+     * @param sqlEliminar O comando que elimina uma linha repetida pelo ID.
+     */
+    // Grava o hash de cada linha e elimina as repetidas.
+    private static void preencherHashes(SQLiteDatabase db, String tabela, String filtro, String sqlEliminar) {
+        final String id = MensagemContract.MensagemEntry._ID;
+        final String favorita = MensagemContract.MensagemEntry.COLUMN_FAVORITA;
+        List<long[]> repetidas = new ArrayList<>();
+        // Uma linha repetida fica sem hash e é eliminada abaixo: OR IGNORE para as repetidas na
+        // própria tabela, e a subconsulta para as do arquivo (antes que o trigger aborte a migração).
+        try (SQLiteStatement gravar = db.compileStatement("UPDATE OR IGNORE " + tabela + " SET " +
+                COLUNA_HASH_CONTEUDO + " = ?1 WHERE " + id + " = ?2 AND NOT EXISTS (SELECT 1 FROM " +
+                TABELA_ARQUIVO + " WHERE " + COLUNA_HASH_CONTEUDO + " = ?1)");
+             Cursor cursor = db.rawQuery("SELECT m." + id + ", m." + MensagemContract.MensagemEntry.COLUMN_TEXTO +
+                     ", a." + COLUNA_NOME + ", m." + favorita + " FROM " + tabela + " m JOIN " + TABELA_AUTORES +
+                     " a ON a." + id + " = m." + COLUNA_AUTOR_ID + " WHERE " + filtro + " ORDER BY m." + id, null)) {
+            while (cursor.moveToNext()) {
+                long hash = HashConteudo.calcular(cursor.getString(1), cursor.getString(2));
+                gravar.bindLong(1, hash);
+                gravar.bindLong(2, cursor.getLong(0));
+                if (gravar.executeUpdateDelete() == 0) {
+                    repetidas.add(new long[]{cursor.getLong(0), hash, cursor.getLong(3)});
+                }
+            }
+        }
+        for (long[] repetida : repetidas) {
+            db.execSQL(sqlEliminar, new Object[]{repetida[0]});
+            if (repetida[2] == 1) {
+                // A favorita vale para a cópia que fica, em qualquer das duas tabelas.
+                for (String destino : new String[]{tabela, TABELA_ARQUIVO}) {
+                    db.execSQL("UPDATE " + destino + " SET " + favorita + " = 1 WHERE " +
+                            COLUNA_HASH_CONTEUDO + " = ?", new Object[]{repetida[1]});
+                }
+            }
+        }
+    }
+
+    /**
+     * Gera o comando que cria a tabela de mensagens no esquema normalizado (versão 5).
+     * @param nome O nome da tabela.
+     */
+    static String sqlCriarTabelaMensagens(String nome) {
+        return "CREATE TABLE " + nome + " (" +
+                MensagemContract.MensagemEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                MensagemContract.MensagemEntry.COLUMN_TEXTO + " TEXT NOT NULL, " +
+                COLUNA_AUTOR_ID + " INTEGER NOT NULL REFERENCES " + TABELA_AUTORES + "(" + MensagemContract.MensagemEntry._ID + "), " +
+                MensagemContract.MensagemEntry.COLUMN_FAVORITA + " BOOLEAN NOT NULL DEFAULT 0)";
+    }
+
+    /**
+     * Gera o SQL (para uso dentro de um trigger) que adiciona uma mensagem ao fim de um índice de sorteio.
+     * @param indice A tabela do índice.
+     * @param mensagemId A expressão com o ID da mensagem (ex: {@code new._id}).
+     */
+    private static String sqlAdicionarAoSorteio(String indice, String mensagemId) {
+        return "INSERT INTO " + indice + " (" + COLUNA_POSICAO + ", " + COLUNA_MENSAGEM_ID + ") " +
+                "VALUES ((SELECT IFNULL(MAX(" + COLUNA_POSICAO + "), -1) + 1 FROM " + indice + "), " + mensagemId + ");";
+    }
+
+    /**
+     * Gera o SQL (para uso dentro de um trigger) que soma uma mensagem aos totais gerais e aos
+     * totais do seu autor (ou a desconta, com valores negativos). A linha do autor é criada na
+     * primeira mensagem e apagada quando o total dele volta a zero.
+     * @param autorId A expressão com o ID do autor (ex: {@code new.autor_id}).
+     * @param mensagens A variação do total de mensagens (1 ou -1).
+     * @param favoritas A expressão com a variação do total de favoritas.
+     */
+    private static String sqlSomarAosTotais(String autorId, String mensagens, String favoritas) {
+        final String total = MensagemContract.MensagemEntry.COLUMN_TOTAL;
+        final String totalFavoritas = MensagemContract.MensagemEntry.COLUMN_TOTAL_FAVORITAS;
+        String soma = " SET " + total + " = " + total + " + " + mensagens + ", " +
+                totalFavoritas + " = " + totalFavoritas + " + " + favoritas;
+        return "UPDATE " + TABELA_ESTATISTICAS + soma + "; " +
+                "INSERT OR IGNORE INTO " + TABELA_ESTATISTICAS_AUTORES + " (" + COLUNA_AUTOR_ID + ", " + total + ", " + totalFavoritas + ") " +
+                "VALUES (" + autorId + ", 0, 0); " +
+                "UPDATE " + TABELA_ESTATISTICAS_AUTORES + soma + " WHERE " + COLUNA_AUTOR_ID + " = " + autorId + "; " +
+                "DELETE FROM " + TABELA_ESTATISTICAS_AUTORES + " WHERE " + COLUNA_AUTOR_ID + " = " + autorId +
+                " AND " + total + " = 0;";
+    }
+
+    /**
+     * Gera o SQL (para uso dentro de um trigger) que remove uma mensagem de um índice de sorteio
+     * sem deixar buracos: a mensagem da última posição é movida para a posição liberada, e a última
+     * posição é apagada. A mensagem precisa estar no índice.
+     * @param indice A tabela do índice.
+     * @param mensagemId A expressão com o ID da mensagem (ex: {@code old._id}).
+     */
+    private static String sqlRemoverDoSorteio(String indice, String mensagemId) {
+        String ultimaPosicao = "(SELECT MAX(" + COLUNA_POSICAO + ") FROM " + indice + ")";
+        return "UPDATE " + indice + " SET " + COLUNA_MENSAGEM_ID + " = " +
+                "(SELECT " + COLUNA_MENSAGEM_ID + " FROM " + indice + " WHERE " + COLUNA_POSICAO + " = " + ultimaPosicao + ") " +
+                "WHERE " + COLUNA_MENSAGEM_ID + " = " + mensagemId + "; " +
+                "DELETE FROM " + indice + " WHERE " + COLUNA_POSICAO + " = " + ultimaPosicao + ";";
     }
 }
@@ -0,0 +1,225 @@
+package com.example.contentprovidergerador.data.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Lista imutável de mensagens armazenada em colunas (struct-of-arrays): um {@code long[]} com os
+ * IDs, um vetor para cada coluna de texto e um {@link BitSet} para o status de favorita.
+ * <p>
+ * Diferente de uma {@code List<Mensagem>}, não há um objeto {@link Mensagem} nem um ID "boxed"
+ * por linha: o Adapter lê os campos diretamente pela posição. Os autores costumam ser preenchidos
+ * a partir de um {@link PoolTextos}, de modo que linhas do mesmo autor compartilham a mesma String.
+ * <p>
+ * As linhas ficam na ordem em que foram adicionadas; o ViewModel as mantém em ordem crescente
+ * de {@code _ID}, o que permite a busca binária de {@link #buscarPosicao(long)}.
+ */
+public final class ListaMensagens {
+
+    /** A lista sem nenhuma mensagem. */
+    public static final ListaMensagens VAZIA = new ListaMensagens(new long[0], new String[0], new String[0], new BitSet(), 0);
+
+    private final long[] ids;
+    private final String[] textos;
+    private final String[] autores;
+    private final BitSet favoritas;
+    private final int tamanho;
+
+    // Construtor privado: as listas são criadas pelo Construtor ou pelas operações desta classe.
+    private ListaMensagens(long[] ids, String[] textos, String[] autores, BitSet favoritas, int tamanho) {
+        this.ids = ids;
+        this.textos = textos;
+        this.autores = autores;
+        this.favoritas = favoritas;
+        this.tamanho = tamanho;
+    }
+
+    /** @return O número de mensagens da lista. */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /** @return true se a lista não tem mensagens. */
+    public boolean isVazia() {
+        return tamanho == 0;
+    }
+
+    /** @return O ID da mensagem na posição informada. */
+    public long getId(int posicao) {
+        verificarPosicao(posicao);
+        return ids[posicao];
+    }
+
+    /** @return O texto da mensagem na posição informada. */
+    public String getTexto(int posicao) {
+        verificarPosicao(posicao);
+        return textos[posicao];
+    }
+
+    /** @return O autor da mensagem na posição informada. */
+    public String getAutor(int posicao) {
+        verificarPosicao(posicao);
+        return autores[posicao];
+    }
+
+    /** @return true se a mensagem na posição informada é favorita. */
+    public boolean isFavorita(int posicao) {
+        verificarPosicao(posicao);
+        return favoritas.get(posicao);
+    }
+
+    /**
+     * Cria um objeto {@link Mensagem} com os dados da posição informada.
+     * Aloca um objeto novo a cada chamada; para exibir a lista, prefira os getters por posição.
+     * @param posicao A posição da mensagem.
+     * @return Uma nova Mensagem com os dados da linha.
+     */
+    // Materializa uma linha como objeto, para quem precisa do modelo completo.
+    public Mensagem getMensagem(int posicao) {
+        return new Mensagem(getId(posicao), getTexto(posicao), getAutor(posicao), isFavorita(posicao));
+    }
+
+    /**
+     * Busca binária pelo ID. A lista deve estar em ordem crescente de ID.
+     * @param id O ID procurado.
+     * @return A posição do ID, ou {@code -(ponto de inserção) - 1} se ele não estiver na lista.
+     */
+    // Localiza um ID na lista ordenada.
+    public int buscarPosicao(long id) {
+        return Arrays.binarySearch(ids, 0, tamanho, id);
+    }
+
+    /**
+     * Retorna as mensagens do intervalo {@code [inicio, fim)} em uma nova lista.
+     * @param inicio A primeira posição (inclusiva).
+     * @param fim A última posição (exclusiva).
+     * @return A lista com as mensagens do intervalo.
+     */
+    // Copia um trecho contíguo da lista.
+    public ListaMensagens fatia(int inicio, int fim) {
+        if (inicio < 0 || fim > tamanho || inicio > fim) {
+            throw new IndexOutOfBoundsException("Intervalo inválido: [" + inicio + ", " + fim + ") de " + tamanho);
+        }
+        if (inicio == 0 && fim == tamanho) return this;
+        return new ListaMensagens(Arrays.copyOfRange(ids, inicio, fim), Arrays.copyOfRange(textos, inicio, fim),
+                Arrays.copyOfRange(autores, inicio, fim), favoritas.get(inicio, fim), fim - inicio);
+    }
+
+    /**
+     * Retorna uma nova lista com as mensagens desta seguidas pelas da outra.
+     * @param outra A lista a ser acrescentada no fim.
+     * @return A lista concatenada.
+     */
+    // Junta duas listas em uma só.
+    public ListaMensagens concatenar(ListaMensagens outra) {
+        if (outra.tamanho == 0) return this;
+        if (tamanho == 0) return outra;
+        return new Construtor(tamanho + outra.tamanho).adicionarTodas(this).adicionarTodas(outra).construir();
+    }
+
+    /**
+     * Retorna uma nova lista com as mensagens em ordem inversa.
+     * @return A lista invertida.
+     */
+    // Inverte a ordem das mensagens (ex: páginas "antes_id", que chegam em ordem decrescente).
+    public ListaMensagens invertida() {
+        Construtor construtor = new Construtor(tamanho);
+        for (int i = tamanho - 1; i >= 0; i--) {
+            construtor.adicionarDe(this, i);
+        }
+        return construtor.construir();
+    }
+
+    // Garante que a posição está dentro da lista, já que os vetores podem ter folga no fim.
+    private void verificarPosicao(int posicao) {
+        if (posicao < 0 || posicao >= tamanho) {
+            throw new IndexOutOfBoundsException("Posição " + posicao + " fora da lista de tamanho " + tamanho);
+        }
+    }
+
+    /**
+     * Monta uma {@link ListaMensagens} linha a linha. Os vetores crescem conforme necessário;
+     * informar a capacidade esperada evita as cópias de crescimento.
+     * Não é thread-safe, e não deve ser reutilizado depois de {@link #construir()}.
+     */
+    public static final class Construtor {
+        private long[] ids;
+        private String[] textos;
+        private String[] autores;
+        private final BitSet favoritas = new BitSet();
+        private int tamanho;
+
+        /**
+         * Construtor com a capacidade inicial dos vetores.
+         * @param capacidade O número de linhas esperado.
+         */
+        public Construtor(int capacidade) {
+            int inicial = Math.max(capacidade, 1);
+            ids = new long[inicial];
+            textos = new String[inicial];
+            autores = new String[inicial];
+        }
+
+        /**
+         * Acrescenta uma mensagem no fim da lista.
+         * @return Este construtor, para encadear chamadas.
+         */
+        // Adiciona uma linha a partir dos valores de cada coluna.
+        public Construtor adicionar(long id, String texto, String autor, boolean favorita) {
+            if (tamanho == ids.length) {
+                crescer();
+            }
+            ids[tamanho] = id;
+            textos[tamanho] = texto;
+            autores[tamanho] = autor;
+            if (favorita) {
+                favoritas.set(tamanho);
+            }
+            tamanho++;
+            return this;
+        }
+
+        /**
+         * Acrescenta a mensagem de uma posição de outra lista.
+         * @return Este construtor, para encadear chamadas.
+         */
+        // Copia uma linha de outra lista, sem criar objetos intermediários.
+        public Construtor adicionarDe(ListaMensagens origem, int posicao) {
+            return adicionar(origem.getId(posicao), origem.getTexto(posicao), origem.getAutor(posicao), origem.isFavorita(posicao));
+        }
+
+        /**
+         * Acrescenta todas as mensagens de outra lista.
+         * @return Este construtor, para encadear chamadas.
+         */
+        // Copia todas as linhas de outra lista.
+        public Construtor adicionarTodas(ListaMensagens origem) {
+            for (int i = 0; i < origem.tamanho; i++) {
+                adicionarDe(origem, i);
+            }
+            return this;
+        }
+
+        /** @return O número de linhas adicionadas até agora. */
+        public int tamanho() {
+            return tamanho;
+        }
+
+        /**
+         * Cria a lista imutável com as linhas adicionadas.
+         * @return A nova lista.
+         */
+        public ListaMensagens construir() {
+            if (tamanho == 0) return VAZIA;
+            return new ListaMensagens(ids, textos, autores, favoritas, tamanho);
+        }
+
+        // Dobra a capacidade dos vetores.
+        private void crescer() {
+            int capacidade = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacidade);
+            textos = Arrays.copyOf(textos, capacidade);
+            autores = Arrays.copyOf(autores, capacidade);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.contentprovidergerador.data.model;
+
+import android.database.CharArrayBuffer;
+import android.database.Cursor;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+/**
+ * Converte as linhas de um Cursor de mensagens em uma {@link ListaMensagens}.
+ * <p>
+ * Os índices das colunas são resolvidos uma única vez, no construtor, em vez de chamar
+ * {@code getColumnIndexOrThrow} a cada linha. O autor é copiado para um buffer reutilizado
+ * ({@link Cursor#copyStringToBuffer}) e trocado pela instância do {@link PoolTextos}, de modo que
+ * autores repetidos não geram uma String nova por linha.
+ * <p>
+ * O texto é lido de {@link MensagemContract.MensagemEntry#COLUMN_TEXTO} ou, se o Cursor não tiver
+ * essa coluna, do texto curto {@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}.
+ */
+public class MapeadorCursor {
+
+    private final Cursor cursor;
+    private final PoolTextos poolAutores;
+    /** Buffer reutilizado para ler o autor sem criar uma String; cresce conforme necessário. */
+    private final CharArrayBuffer bufferAutor = new CharArrayBuffer(64);
+
+    private final int indiceId;
+    private final int indiceTexto;
+    private final int indiceAutor;
+    private final int indiceFavorita;
+
+    /**
+     * Construtor do mapeador.
+     * @param cursor O Cursor com as colunas de {@link MensagemContract.MensagemEntry} (o texto
+     *               completo ou o texto curto).
+     * @param poolAutores O pool onde os autores são compartilhados entre as linhas.
+     * @throws IllegalArgumentException se alguma coluna da mensagem não estiver no Cursor.
+     */
+    public MapeadorCursor(Cursor cursor, PoolTextos poolAutores) {
+        this.cursor = cursor;
+        this.poolAutores = poolAutores;
+        indiceId = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry._ID);
+        int texto = cursor.getColumnIndex(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+        indiceTexto = texto >= 0 ? texto : cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW);
+        indiceAutor = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        indiceFavorita = cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_FAVORITA);
+    }
+
+    /**
+     * Adiciona a linha atual do Cursor ao construtor da lista.
+     * @param destino O construtor que recebe a linha.
+     */
+    // Lê as colunas da linha atual pelos índices já resolvidos.
+    public void lerLinha(ListaMensagens.Construtor destino) {
+        String autor = null;
+        if (!cursor.isNull(indiceAutor)) {
+            cursor.copyStringToBuffer(indiceAutor, bufferAutor);
+            autor = poolAutores.obter(bufferAutor.data, bufferAutor.sizeCopied);
+        }
+        destino.adicionar(
+                cursor.getLong(indiceId),
+                cursor.getString(indiceTexto),
+                autor,
+                cursor.getInt(indiceFavorita) == 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.contentprovidergerador.data.model;
+
+import java.util.Arrays;
+
+/**
+ * Pool de textos repetidos (ex: os nomes de autor), que devolve sempre a mesma instância de
+ * {@link String} para o mesmo conteúdo.
+ * <p>
+ * A busca é feita diretamente sobre os caracteres copiados do Cursor, de modo que um texto já
+ * conhecido não gera nenhuma alocação: uma nova String só é criada na primeira vez em que o
+ * conteúdo aparece. Quando o pool atinge {@link #MAX_TEXTOS} entradas, ele é esvaziado, o que
+ * limita a memória retida mesmo com muitos textos distintos.
+ * <p>
+ * Não é thread-safe: deve ser usado por uma única thread (ex: a thread de fundo do ViewModel).
+ */
+public class PoolTextos {
+
+    /** Número máximo de textos mantidos no pool antes de esvaziá-lo. */
+    static final int MAX_TEXTOS = 1024;
+
+    /** Tabela de espalhamento com endereçamento aberto; o tamanho é uma potência de 2. */
+    private final String[] tabela = new String[MAX_TEXTOS * 2];
+    /** Número de textos armazenados na tabela. */
+    private int quantidade;
+
+    /**
+     * Retorna a instância compartilhada do texto formado pelos caracteres informados.
+     * @param caracteres O vetor com os caracteres do texto.
+     * @param tamanho O número de caracteres válidos no início do vetor.
+     * @return Uma String com o mesmo conteúdo, reutilizada se o texto já estiver no pool.
+     */
+    // Procura o texto pelo conteúdo e só cria uma String nova se ele ainda não estiver no pool.
+    public String obter(char[] caracteres, int tamanho) {
+        int hash = 0;
+        for (int i = 0; i < tamanho; i++) {
+            hash = 31 * hash + caracteres[i]; // Mesmo cálculo de String.hashCode().
+        }
+
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(hash) & mascara;
+        String existente;
+        while ((existente = tabela[posicao]) != null) {
+            if (existente.hashCode() == hash && igual(existente, caracteres, tamanho)) {
+                return existente;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+
+        String novo = new String(caracteres, 0, tamanho);
+        if (quantidade >= MAX_TEXTOS) {
+            // O pool está cheio: recomeça do zero em vez de crescer indefinidamente.
+            Arrays.fill(tabela, null);
+            quantidade = 0;
+            posicao = espalhar(hash) & mascara;
+        }
+        tabela[posicao] = novo;
+        quantidade++;
+        return novo;
+    }
+
+    /** @return O número de textos distintos atualmente no pool. */
+    public int tamanho() {
+        return quantidade;
+    }
+
+    // Mistura os bits altos do hash nos baixos, pois a tabela usa apenas os bits baixos.
+    private static int espalhar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // Compara o conteúdo de uma String com os caracteres informados, sem alocar.
+    private static boolean igual(String texto, char[] caracteres, int tamanho) {
+        if (texto.length() != tamanho) return false;
+        for (int i = 0; i < tamanho; i++) {
+            if (texto.charAt(i) != caracteres[i]) return false;
+        }
+        return true;
+    }
+}
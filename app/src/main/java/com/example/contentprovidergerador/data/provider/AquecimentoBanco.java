@@ -0,0 +1,169 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Abertura do banco de dados em segundo plano, iniciada pelo {@code onCreate()} do provedor.
+ * <p>
+ * O {@code onCreate()} roda na thread principal durante a inicialização do processo, e abrir o
+ * banco ali (criar ou migrar o esquema, configurar o WAL) atrasaria o primeiro quadro. Aqui a
+ * abertura roda em uma thread própria; quem precisar do banco antes de ela terminar espera em
+ * {@link #aguardar()}, e quem chegar depois não espera nada.
+ * <p>
+ * Depois de liberar a espera, a mesma thread compila os comandos de escrita mais usados e lê a
+ * primeira página de mensagens, os totais e os índices de sorteio, trazendo essas páginas para o
+ * cache do SQLite e do sistema. Essa segunda etapa é só uma otimização: se falhar, nada muda.
+ */
+final class AquecimentoBanco {
+
+    private static final String TAG = "AquecimentoBanco";
+
+    /** Linhas lidas da visão de mensagens para aquecer as páginas da primeira tela. */
+    private static final int LINHAS_PRIMEIRA_PAGINA = 50;
+
+    private final MensagemDbHelper mDbHelper;
+    /** Comandos compilados uma vez na conexão principal, para já estarem no cache de comandos. */
+    private final String[] mComandos;
+    /** Liberado quando a abertura termina, com sucesso ou não. */
+    private final CountDownLatch mAberto = new CountDownLatch(1);
+
+    /** Duração da abertura do banco, em nanossegundos, ou -1 enquanto ela não terminou. */
+    private volatile long mAberturaNanos = -1;
+    /** Tempo total que as chamadas passaram esperando a abertura, em nanossegundos. */
+    private final AtomicLong mEsperaNanos = new AtomicLong();
+    /** Número de chamadas que chegaram antes do fim da abertura e precisaram esperar. */
+    private final AtomicLong mEsperas = new AtomicLong();
+
+    AquecimentoBanco(MensagemDbHelper dbHelper, String... comandos) {
+        mDbHelper = dbHelper;
+        mComandos = comandos;
+    }
+
+    /**
+     * Inicia a abertura do banco em uma thread de segundo plano. Deve ser chamado uma única vez.
+     */
+    // Cria e inicia a thread de abertura.
+    void iniciar() {
+        Thread thread = new Thread(this::executar, TAG);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Bloqueia até o fim da abertura do banco. Retorna imediatamente se ela já terminou, que é o
+     * caso de todas as chamadas depois das primeiras.
+     */
+    // Espera a abertura, sem ser interrompida, e contabiliza o tempo de espera.
+    void aguardar() {
+        if (mAberto.getCount() == 0) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        boolean interrompida = false;
+        while (true) {
+            try {
+                mAberto.await();
+                break;
+            } catch (InterruptedException e) {
+                // A chamada precisa do banco de qualquer forma; a interrupção é restaurada no fim.
+                interrompida = true;
+            }
+        }
+        mEsperaNanos.addAndGet(System.nanoTime() - inicio);
+        mEsperas.incrementAndGet();
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retorna a duração da abertura do banco.
+     * @return A duração em milissegundos, ou -1 se a abertura ainda não terminou.
+     */
+    long aberturaMs() {
+        long nanos = mAberturaNanos;
+        return nanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Retorna o tempo total que as chamadas ao provedor passaram esperando a abertura.
+     * @return O tempo em milissegundos.
+     */
+    long esperaMs() {
+        return TimeUnit.NANOSECONDS.toMillis(mEsperaNanos.get());
+    }
+
+    /**
+     * Retorna quantas chamadas chegaram antes do fim da abertura.
+     * @return O número de chamadas que esperaram.
+     */
+    long esperas() {
+        return mEsperas.get();
+    }
+
+    /**
+     * Abre o banco, libera quem estiver esperando e então aquece os caches.
+     */
+    // Corpo da thread de abertura.
+    private void executar() {
+        long inicio = System.nanoTime();
+        SQLiteDatabase db = null;
+        try {
+            // Cria ou migra o esquema e configura a conexão (WAL, chaves estrangeiras).
+            db = mDbHelper.getWritableDatabase();
+        } catch (RuntimeException e) {
+            // A primeira chamada ao provedor tentará abrir de novo e receberá o erro.
+            Log.e(TAG, "Falha ao abrir o banco de dados", e);
+        } finally {
+            mAberturaNanos = System.nanoTime() - inicio;
+            mAberto.countDown();
+        }
+        if (db == null) {
+            return;
+        }
+
+        long inicioAquecimento = System.nanoTime();
+        try {
+            aquecer(db);
+        } catch (RuntimeException e) {
+            // Só uma otimização: o banco já está aberto e o provedor funciona sem ela.
+            Log.w(TAG, "Falha ao aquecer o banco de dados", e);
+        }
+        Log.i(TAG, String.format("Banco aberto em %d ms, aquecido em %d ms",
+                aberturaMs(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioAquecimento)));
+    }
+
+    /**
+     * Compila os comandos informados e lê as páginas usadas logo na abertura do aplicativo.
+     * @param db O banco de dados já aberto.
+     */
+    // Traz comandos e páginas para os caches antes da primeira chamada.
+    private void aquecer(SQLiteDatabase db) {
+        for (String comando : mComandos) {
+            // Compilar basta: o comando fica no cache da conexão principal, usada pelas escritas.
+            db.compileStatement(comando).close();
+        }
+
+        try (Cursor cursor = db.query(MensagemDbHelper.VISAO_MENSAGENS, null, null, null, null, null,
+                MensagemContract.MensagemEntry._ID, String.valueOf(LINHAS_PRIMEIRA_PAGINA))) {
+            // getCount() executa a consulta e lê as linhas.
+            cursor.getCount();
+        }
+        try (Cursor cursor = db.query(MensagemDbHelper.TABELA_ESTATISTICAS, null, null, null, null, null, null)) {
+            cursor.getCount();
+        }
+        for (String indice : new String[]{MensagemDbHelper.TABELA_SORTEIO, MensagemDbHelper.TABELA_SORTEIO_FAVORITAS}) {
+            DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + MensagemDbHelper.COLUNA_POSICAO + "), 0) FROM " + indice, null);
+        }
+    }
+}
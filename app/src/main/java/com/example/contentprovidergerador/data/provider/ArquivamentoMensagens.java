@@ -0,0 +1,175 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Arquivamento em segundo plano das mensagens antigas, da tabela de mensagens para a
+ * {@link MensagemDbHelper#TABELA_ARQUIVO}.
+ * <p>
+ * A política mantém na tabela de mensagens as {@link #MENSAGENS_QUENTES} mais recentes (pelo ID)
+ * e todas as favoritas; as demais são movidas para o arquivo, com o mesmo ID. Assim as páginas
+ * da tabela, os seus índices, a busca e o sorteio contêm apenas as linhas que a tela mostra, e as
+ * consultas sem filtro não percorrem o histórico. As lápides ficam para a
+ * {@link CompactacaoExclusoes}.
+ * <p>
+ * As linhas são movidas em lotes pequenos, cada um em sua própria transação curta, como na
+ * compactação: outras escritas esperam no máximo um lote e as leituras, em modo WAL, não esperam.
+ */
+final class ArquivamentoMensagens {
+
+    private static final String TAG = "ArquivamentoMensagens";
+
+    /** Mensagens não favoritas mantidas na tabela de mensagens. */
+    static final int MENSAGENS_QUENTES = 5_000;
+
+    /** Mensagens movidas em cada transação. */
+    static final int LINHAS_POR_LOTE = 500;
+
+    /** Espera após uma inserção antes de arquivar, para juntar as inserções seguidas em um arquivamento. */
+    private static final long ATRASO_MS = 30_000;
+
+    /** Linhas que podem ir para o arquivo: nem lápides, nem favoritas. */
+    private static final String FILTRO_FRIAS = MensagemDbHelper.COLUNA_EXCLUIDA + " = 0 AND " +
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA + " = 0";
+
+    /** Colunas copiadas da tabela de mensagens para o arquivo (e de volta). */
+    static final String COLUNAS = MensagemContract.MensagemEntry._ID + ", " +
+            MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " + MensagemDbHelper.COLUNA_AUTOR_ID + ", " +
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA + ", " + MensagemDbHelper.COLUNA_HASH_CONTEUDO;
+
+    /** Recebe os IDs de cada lote arquivado, depois da confirmação da transação. */
+    interface Ouvinte {
+        void arquivadas(List<Long> ids);
+    }
+
+    private final Supplier<SQLiteDatabase> mBanco;
+    private final Ouvinte mOuvinte;
+    private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            tarefa.run();
+        }, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Evita agendar mais de um arquivamento ao mesmo tempo. */
+    private final AtomicBoolean mAgendado = new AtomicBoolean();
+
+    /**
+     * @param banco Fornece o banco para escrita (espera a abertura, se preciso).
+     * @param ouvinte Avisado das linhas arquivadas, para o cache e as notificações do provedor.
+     */
+    ArquivamentoMensagens(Supplier<SQLiteDatabase> banco, Ouvinte ouvinte) {
+        mBanco = banco;
+        mOuvinte = ouvinte;
+    }
+
+    /**
+     * Agenda um arquivamento, se ainda não houver um agendado. Chamado após as inserções.
+     */
+    // Agenda o arquivamento com atraso, juntando pedidos seguidos.
+    void agendar() {
+        if (mAgendado.compareAndSet(false, true)) {
+            try {
+                mExecutor.schedule(() -> executar(MENSAGENS_QUENTES), ATRASO_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // O provedor já foi encerrado.
+                mAgendado.set(false);
+            }
+        }
+    }
+
+    /**
+     * Move para o arquivo as mensagens que não estão entre as {@code quentes} mais recentes
+     * nem são favoritas. Executado na thread do arquivamento, ou diretamente pelos testes.
+     * @param quentes Quantas mensagens não favoritas permanecem na tabela de mensagens.
+     * @return O número de mensagens arquivadas.
+     */
+    // Arquiva em lotes até restarem apenas as mensagens quentes.
+    int executar(int quentes) {
+        // Uma inserção feita durante o arquivamento agenda o próximo.
+        mAgendado.set(false);
+        int arquivadas = 0;
+        try {
+            SQLiteDatabase db = mBanco.get();
+            // A mais nova das que vão para o arquivo; as inseridas depois disto ficam para a próxima vez.
+            long limite = DatabaseUtils.longForQuery(db, "SELECT IFNULL((SELECT " + MensagemContract.MensagemEntry._ID +
+                    " FROM " + MensagemContract.MensagemEntry.TABLE_NAME + " WHERE " + FILTRO_FRIAS +
+                    " ORDER BY " + MensagemContract.MensagemEntry._ID + " DESC LIMIT 1 OFFSET " + quentes + "), 0)", null);
+            int lote;
+            while (limite > 0 && !Thread.currentThread().isInterrupted() && (lote = arquivarLote(db, limite)) > 0) {
+                arquivadas += lote;
+            }
+            if (arquivadas > 0) {
+                Log.i(TAG, "Arquivamento: " + arquivadas + " mensagens movidas para o arquivo");
+            }
+        } catch (RuntimeException e) {
+            // A próxima inserção agenda uma nova tentativa.
+            Log.w(TAG, "Arquivamento interrompido após " + arquivadas + " mensagens", e);
+        }
+        return arquivadas;
+    }
+
+    /**
+     * Encerra a thread do arquivamento. O arquivamento em andamento termina no lote atual.
+     */
+    // Para a thread e espera o lote em andamento.
+    void encerrar() {
+        mExecutor.shutdownNow();
+        try {
+            mExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Move as {@link #LINHAS_POR_LOTE} mensagens frias mais antigas, até o ID {@code limite}, em
+     * uma transação. Os triggers dos totais somam a cópia no arquivo e descontam a linha apagada,
+     * então os totais não mudam; os da busca e do sorteio retiram a linha dos seus índices.
+     * @return O número de mensagens movidas (0 quando não resta nenhuma).
+     */
+    // Copia o lote para o arquivo, apaga-o da tabela de mensagens e avisa o ouvinte.
+    private int arquivarLote(SQLiteDatabase db, long limite) {
+        String filtro = FILTRO_FRIAS + " AND " + MensagemContract.MensagemEntry._ID + " <= ?";
+        List<Long> ids = new ArrayList<>(LINHAS_POR_LOTE);
+        db.beginTransaction();
+        try {
+            try (Cursor cursor = db.query(MensagemContract.MensagemEntry.TABLE_NAME,
+                    new String[]{MensagemContract.MensagemEntry._ID}, filtro, new String[]{String.valueOf(limite)},
+                    null, null, MensagemContract.MensagemEntry._ID, String.valueOf(LINHAS_POR_LOTE))) {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getLong(0));
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            String[] ultimo = {String.valueOf(ids.get(ids.size() - 1))};
+            db.execSQL("INSERT INTO " + MensagemDbHelper.TABELA_ARQUIVO + " (" + COLUNAS + ") SELECT " + COLUNAS +
+                    " FROM " + MensagemContract.MensagemEntry.TABLE_NAME + " WHERE " + filtro, ultimo);
+            db.delete(MensagemContract.MensagemEntry.TABLE_NAME, filtro, ultimo);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        mOuvinte.arquivadas(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache dos resultados de consultas inteiras (tabela de mensagens e busca), indexado pelo
+ * formato normalizado da consulta: código da URI, parâmetros da URI, projeção, filtro,
+ * argumentos e ordenação.
+ * <p>
+ * Um acerto devolve uma cópia do resultado em um {@link MatrixCursor}, sem executar SQL nem
+ * preencher um novo CursorWindow a partir do banco. Cada resultado guarda a geração de escrita
+ * lida antes da consulta: qualquer escrita posterior avança a geração e o resultado deixa de
+ * ser servido, sem precisar de trava entre leitores e escritores.
+ * <p>
+ * O limite do cache é em bytes estimados, não em número de entradas, para que poucos resultados
+ * grandes não ocupem tanta memória quanto muitos pequenos.
+ * <p>
+ * Só são guardadas as consultas com um limite de linhas de até {@link #MAXIMO_LINHAS_POR_RESULTADO}
+ * (veja {@link #cabe}). O tamanho do resultado é decidido pelo formato da consulta, e não pelo
+ * {@link Cursor#getCount()}, que executaria a consulta inteira e contaria todas as linhas mesmo
+ * quando o resultado não vai ser guardado.
+ */
+final class CacheConsultas {
+
+    /** Memória máxima estimada ocupada pelos resultados guardados. */
+    static final int CAPACIDADE_BYTES = 1024 * 1024;
+
+    /** Resultados maiores que isto não são guardados, para não esvaziar o cache com uma única consulta. */
+    static final int MAXIMO_BYTES_POR_RESULTADO = CAPACIDADE_BYTES / 8;
+
+    /** Limite de linhas acima do qual (ou sem o qual) uma consulta não é guardada. */
+    static final int MAXIMO_LINHAS_POR_RESULTADO = 1000;
+
+    // Estimativas do tamanho dos objetos na memória (cabeçalho e referências), em bytes.
+    private static final int BYTES_OBJETO = 16;
+    private static final int BYTES_REFERENCIA = 4;
+    private static final int BYTES_NUMERO = 24;
+
+    /** Um resultado guardado: as colunas, as linhas e a geração de escrita em que foi lido. */
+    private static final class Resultado {
+        final String[] colunas;
+        final Object[][] linhas;
+        final long geracao;
+        final int bytes;
+
+        Resultado(String[] colunas, Object[][] linhas, long geracao, int bytes) {
+            this.colunas = colunas;
+            this.linhas = linhas;
+            this.geracao = geracao;
+            this.bytes = bytes;
+        }
+    }
+
+    private final AtomicLong mGeracaoEscrita;
+    private final LruCache<String, Resultado> mResultados = new LruCache<String, Resultado>(CAPACIDADE_BYTES) {
+        @Override
+        protected int sizeOf(String chave, Resultado resultado) {
+            return resultado.bytes;
+        }
+    };
+    // Contados aqui, e não pelo LruCache, porque um resultado de uma geração antiga é uma falha.
+    private final AtomicLong mAcertos = new AtomicLong();
+    private final AtomicLong mFalhas = new AtomicLong();
+
+    /**
+     * @param geracaoEscrita O contador de escritas do provedor, incrementado após cada escrita.
+     */
+    CacheConsultas(AtomicLong geracaoEscrita) {
+        mGeracaoEscrita = geracaoEscrita;
+    }
+
+    /**
+     * Monta a chave de uma consulta. Consultas que diferem apenas na ordem dos parâmetros da
+     * URI ou nos espaços do SQL (fora de literais) têm a mesma chave.
+     * @return A chave normalizada da consulta.
+     */
+    // Normaliza o formato da consulta em uma chave de texto.
+    static String chave(int codigo, Uri uri, String[] projecao, String filtro, String[] argumentos, String ordem) {
+        StringBuilder chave = new StringBuilder(128).append(codigo);
+
+        List<String> parametros = new ArrayList<>(uri.getQueryParameterNames());
+        Collections.sort(parametros);
+        for (String parametro : parametros) {
+            adicionar(chave.append('&'), parametro);
+            for (String valor : uri.getQueryParameters(parametro)) {
+                adicionar(chave.append('='), valor);
+            }
+        }
+
+        chave.append("|p");
+        if (projecao != null) {
+            for (String coluna : projecao) {
+                adicionar(chave.append(','), normalizarSql(coluna));
+            }
+        } else {
+            chave.append('*');
+        }
+        chave.append("|s");
+        if (filtro != null) {
+            adicionar(chave, normalizarSql(filtro));
+        }
+        chave.append("|a");
+        if (argumentos != null) {
+            for (String argumento : argumentos) {
+                adicionar(chave.append(','), argumento);
+            }
+        }
+        chave.append("|o");
+        if (ordem != null) {
+            adicionar(chave, normalizarSql(ordem));
+        }
+        return chave.toString();
+    }
+
+    /**
+     * Indica se o resultado de uma consulta pode ser guardado, pelo limite de linhas dela.
+     * @param limite O número máximo de linhas que a consulta pode trazer, ou -1 se ela não tiver limite.
+     * @return true se a consulta tem um limite de até {@link #MAXIMO_LINHAS_POR_RESULTADO} linhas.
+     */
+    // Decide pelo formato da consulta, sem executá-la.
+    static boolean cabe(long limite) {
+        return limite >= 0 && limite <= MAXIMO_LINHAS_POR_RESULTADO;
+    }
+
+    /**
+     * Procura o resultado de uma consulta no cache.
+     * @param chave A chave montada por {@link #chave}.
+     * @return Um Cursor novo com a cópia do resultado, ou null se ele não estiver no cache
+     *         ou tiver sido lido antes da última escrita.
+     */
+    // Devolve uma cópia do resultado guardado, se ainda for da geração de escrita atual.
+    Cursor obter(String chave) {
+        Resultado resultado = mResultados.get(chave);
+        if (resultado == null) {
+            mFalhas.incrementAndGet();
+            return null;
+        }
+        if (resultado.geracao != mGeracaoEscrita.get()) {
+            // Lido antes de uma escrita: libera o espaço logo, em vez de esperar o descarte pelo LRU.
+            mResultados.remove(chave);
+            mFalhas.incrementAndGet();
+            return null;
+        }
+        mAcertos.incrementAndGet();
+        return criarCursor(resultado);
+    }
+
+    /**
+     * Lê o resultado de uma consulta e o guarda no cache, se ele couber. Deve ser chamado apenas
+     * para consultas aceitas por {@link #cabe}: o número de linhas não é verificado aqui.
+     * @param chave A chave montada por {@link #chave}.
+     * @param geracao A geração de escrita lida antes de executar a consulta.
+     * @param cursor O Cursor da consulta. É fechado se o resultado for copiado.
+     * @return Um Cursor com o resultado: a cópia guardada ou, se o resultado passar de
+     *         {@link #MAXIMO_BYTES_POR_RESULTADO}, o próprio Cursor recebido, de volta à posição inicial.
+     */
+    // Copia o resultado para o cache, ou desiste e devolve o Cursor original se ele for grande.
+    Cursor guardar(String chave, long geracao, Cursor cursor) {
+        String[] colunas = cursor.getColumnNames();
+        int bytes = BYTES_OBJETO + 2 * chave.length() + 2 * BYTES_OBJETO + colunas.length * BYTES_REFERENCIA;
+        List<Object[]> linhas = new ArrayList<>();
+        // A leitura para assim que o resultado passa do tamanho máximo, sem ler o resto.
+        while (bytes <= MAXIMO_BYTES_POR_RESULTADO && cursor.moveToNext()) {
+            Object[] linha = new Object[colunas.length];
+            bytes += BYTES_OBJETO + colunas.length * BYTES_REFERENCIA;
+            for (int coluna = 0; coluna < colunas.length; coluna++) {
+                switch (cursor.getType(coluna)) {
+                    case Cursor.FIELD_TYPE_INTEGER:
+                        linha[coluna] = cursor.getLong(coluna);
+                        bytes += BYTES_NUMERO;
+                        break;
+                    case Cursor.FIELD_TYPE_FLOAT:
+                        linha[coluna] = cursor.getDouble(coluna);
+                        bytes += BYTES_NUMERO;
+                        break;
+                    case Cursor.FIELD_TYPE_STRING:
+                        String texto = cursor.getString(coluna);
+                        linha[coluna] = texto;
+                        bytes += 2 * BYTES_OBJETO + 2 * texto.length();
+                        break;
+                    case Cursor.FIELD_TYPE_BLOB:
+                        byte[] blob = cursor.getBlob(coluna);
+                        linha[coluna] = blob;
+                        bytes += BYTES_OBJETO + blob.length;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            linhas.add(linha);
+            bytes += BYTES_REFERENCIA;
+        }
+
+        if (bytes > MAXIMO_BYTES_POR_RESULTADO) {
+            cursor.moveToPosition(-1);
+            return cursor;
+        }
+        cursor.close();
+        Resultado resultado = new Resultado(colunas, linhas.toArray(new Object[0][]), geracao, bytes);
+        if (geracao == mGeracaoEscrita.get()) {
+            mResultados.put(chave, resultado);
+        }
+        return criarCursor(resultado);
+    }
+
+    /**
+     * Descarta todos os resultados guardados. As estatísticas não são zeradas.
+     */
+    // Esvazia o cache.
+    void limpar() {
+        mResultados.evictAll();
+    }
+
+    /** Número de consultas atendidas pelo cache. */
+    long acertos() {
+        return mAcertos.get();
+    }
+
+    /** Número de consultas que precisaram ir ao banco. */
+    long falhas() {
+        return mFalhas.get();
+    }
+
+    /** Memória estimada ocupada pelos resultados guardados, em bytes. */
+    int bytes() {
+        return mResultados.size();
+    }
+
+    // Cria um Cursor novo sobre as linhas guardadas; os textos são compartilhados, não copiados.
+    private static Cursor criarCursor(Resultado resultado) {
+        MatrixCursor cursor = new MatrixCursor(resultado.colunas, resultado.linhas.length);
+        for (Object[] linha : resultado.linhas) {
+            cursor.addRow(linha);
+        }
+        return cursor;
+    }
+
+    // Acrescenta um valor precedido do seu tamanho, para que nenhum valor se confunda com um separador.
+    private static void adicionar(StringBuilder chave, String valor) {
+        if (valor == null) {
+            chave.append('-');
+        } else {
+            chave.append(valor.length()).append(':').append(valor);
+        }
+    }
+
+    // Troca cada sequência de espaços fora de literais ('...' e "...") por um único espaço.
+    static String normalizarSql(String sql) {
+        StringBuilder normalizado = new StringBuilder(sql.length());
+        char aspas = 0;
+        boolean espaco = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (aspas == 0 && Character.isWhitespace(c)) {
+                espaco = true;
+                continue;
+            }
+            if (espaco && normalizado.length() > 0) {
+                normalizado.append(' ');
+            }
+            espaco = false;
+            if (aspas == 0 && (c == '\'' || c == '"')) {
+                aspas = c;
+            } else if (c == aspas) {
+                // Aspas duplicadas ('') dentro do literal fecham e reabrem, sem mudar o resultado.
+                aspas = 0;
+            }
+            normalizado.append(c);
+        }
+        return normalizado.toString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Process;
+import android.util.Log;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Compactação em segundo plano das mensagens excluídas por lápide
+ * ({@link MensagemDbHelper#COLUNA_EXCLUIDA}).
+ * <p>
+ * As lápides são apagadas em lotes pequenos, cada um em sua própria transação curta, de modo que
+ * outras escritas esperam no máximo um lote; as leituras, em modo WAL, nunca esperam. Depois, as
+ * páginas liberadas são devolvidas ao sistema com {@code PRAGMA incremental_vacuum}, também em
+ * passos pequenos, em vez de um VACUUM que reescreveria o banco inteiro.
+ * <p>
+ * Um banco criado antes do auto_vacuum incremental é convertido aqui, na primeira compactação,
+ * com o único VACUUM da vida do banco, em vez de na abertura. A conversão só é feita até
+ * {@link #TAMANHO_MAXIMO_CONVERSAO_BYTES}; um banco maior fica sem o modo incremental, e as
+ * páginas liberadas são reutilizadas pelo próprio SQLite em vez de devolvidas ao sistema.
+ */
+final class CompactacaoExclusoes {
+
+    private static final String TAG = "CompactacaoExclusoes";
+
+    /** Lápides apagadas em cada transação. */
+    static final int LINHAS_POR_LOTE = 500;
+
+    /** Páginas devolvidas ao sistema em cada passo do incremental_vacuum. */
+    static final int PAGINAS_POR_PASSO = 256;
+
+    /**
+     * Maior banco convertido para auto_vacuum incremental. O VACUUM da conversão reescreve o
+     * arquivo inteiro e bloqueia as escritas até o fim, então o seu tempo é limitado pelo tamanho.
+     */
+    static final long TAMANHO_MAXIMO_CONVERSAO_BYTES = 32L * 1024 * 1024;
+
+    /** Espera após uma exclusão antes de compactar, para juntar exclusões seguidas em uma compactação. */
+    private static final long ATRASO_MS = 2_000;
+
+    /** Apaga um lote de lápides, encontradas pelo índice parcial {@link MensagemDbHelper#INDICE_EXCLUIDAS}. */
+    private static final String FILTRO_LOTE = MensagemContract.MensagemEntry._ID + " IN (SELECT " +
+            MensagemContract.MensagemEntry._ID + " FROM " + MensagemContract.MensagemEntry.TABLE_NAME +
+            " WHERE " + MensagemDbHelper.COLUNA_EXCLUIDA + " = 1 LIMIT " + LINHAS_POR_LOTE + ")";
+
+    private final Supplier<SQLiteDatabase> mBanco;
+    private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            tarefa.run();
+        }, TAG);
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Evita agendar mais de uma compactação ao mesmo tempo. */
+    private final AtomicBoolean mAgendada = new AtomicBoolean();
+
+    /**
+     * @param banco Fornece o banco para escrita (espera a abertura, se preciso).
+     */
+    CompactacaoExclusoes(Supplier<SQLiteDatabase> banco) {
+        mBanco = banco;
+    }
+
+    /**
+     * Agenda uma compactação, se ainda não houver uma agendada. Chamado após cada exclusão.
+     */
+    // Agenda a compactação com um pequeno atraso, juntando pedidos seguidos.
+    void agendar() {
+        if (mAgendada.compareAndSet(false, true)) {
+            try {
+                mExecutor.schedule(this::executar, ATRASO_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // O provedor já foi encerrado.
+                mAgendada.set(false);
+            }
+        }
+    }
+
+    /**
+     * Apaga todas as lápides e devolve as páginas livres ao sistema, convertendo antes o banco
+     * para auto_vacuum incremental, se preciso. Executado na thread da compactação, ou
+     * diretamente pelos testes.
+     */
+    // Compacta em lotes até não restar nenhuma lápide.
+    void executar() {
+        // Uma exclusão feita durante a compactação agenda a próxima.
+        mAgendada.set(false);
+        try {
+            SQLiteDatabase db = mBanco.get();
+            converterSePreciso(db);
+            long apagadas = 0;
+            int lote;
+            while (!Thread.currentThread().isInterrupted() && (lote = apagarLote(db)) > 0) {
+                apagadas += lote;
+            }
+            long paginas = devolverPaginas(db);
+            if (apagadas > 0 || paginas > 0) {
+                Log.i(TAG, "Compactação: " + apagadas + " lápides apagadas, " + paginas + " páginas devolvidas");
+            }
+        } catch (RuntimeException e) {
+            // A próxima exclusão agenda uma nova tentativa.
+            Log.w(TAG, "Compactação interrompida", e);
+        }
+    }
+
+    /**
+     * Encerra a thread da compactação. A compactação em andamento termina no lote atual.
+     */
+    // Para a thread e espera o lote em andamento.
+    void encerrar() {
+        mExecutor.shutdownNow();
+        try {
+            mExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Converte o banco para auto_vacuum incremental, se ainda não estiver e for pequeno o bastante.
+    private static void converterSePreciso(SQLiteDatabase db) {
+        if (MensagemDbHelper.vacuoIncrementalAtivo(db)) return;
+        long tamanho = DatabaseUtils.longForQuery(db, "PRAGMA page_count", null) *
+                DatabaseUtils.longForQuery(db, "PRAGMA page_size", null);
+        if (tamanho > TAMANHO_MAXIMO_CONVERSAO_BYTES) {
+            Log.i(TAG, "Banco de " + tamanho + " bytes: mantido sem auto_vacuum incremental");
+            return;
+        }
+        long inicio = System.nanoTime();
+        MensagemDbHelper.ativarVacuoIncremental(db);
+        Log.i(TAG, "Banco de " + tamanho + " bytes convertido para auto_vacuum incremental em " +
+                (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
+    // Apaga um lote de lápides em uma única instrução (e transação).
+    private static int apagarLote(SQLiteDatabase db) {
+        return db.delete(MensagemContract.MensagemEntry.TABLE_NAME, FILTRO_LOTE, null);
+    }
+
+    // Executa incremental_vacuum em passos até a lista de páginas livres esvaziar.
+    private static long devolverPaginas(SQLiteDatabase db) {
+        long devolvidas = 0;
+        long livres = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        while (livres > 0 && !Thread.currentThread().isInterrupted()) {
+            // O pragma libera uma página a cada passo da instrução; ler o Cursor até o fim executa todos.
+            try (Cursor passo = db.rawQuery("PRAGMA incremental_vacuum(" + PAGINAS_POR_PASSO + ")", null)) {
+                passo.getCount();
+            }
+            long restantes = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+            if (restantes >= livres) {
+                // Sem auto_vacuum incremental, as páginas ficam para reuso pelo próprio banco.
+                break;
+            }
+            devolvidas += livres - restantes;
+            livres = restantes;
+        }
+        return devolvidas;
+    }
+}
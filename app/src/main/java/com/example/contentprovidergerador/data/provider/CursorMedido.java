@@ -0,0 +1,189 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.database.CharArrayBuffer;
+import android.database.CrossProcessCursorWrapper;
+import android.database.Cursor;
+import android.database.CursorWindow;
+
+/**
+ * Cursor que registra a consulta na série de métricas e soma nela os bytes de texto entregues ao
+ * cliente.
+ * <p>
+ * O Cursor do banco só executa a consulta quando o resultado é pedido pela primeira vez. Por
+ * isso a consulta é registrada (chamada, linhas e latência) no primeiro {@link #getCount()},
+ * {@link #fillWindow} ou movimento do Cursor, e não no fim de {@code query()}: a latência inclui a
+ * execução tanto nas consultas executadas na hora (as servidas pelo cache, por ID e o sorteio)
+ * quanto nas executadas sob demanda, e as séries das URIs podem ser comparadas. O Binder pede o
+ * total ao entregar o Cursor a outro processo, ainda dentro da chamada; um cliente do mesmo
+ * processo o lê logo depois. Um Cursor fechado sem ser lido é registrado com o tempo até a sua
+ * criação.
+ * <p>
+ * Para clientes de outros processos, o Binder preenche {@link CursorWindow}s pelo
+ * {@link #fillWindow}: o texto de cada janela é estimado por uma amostra de até
+ * {@link #AMOSTRA_POR_JANELA} linhas, em vez de copiar de novo todos os textos que acabaram de
+ * ser gravados nela. Para clientes do mesmo processo, que leem o Cursor diretamente, é medido o
+ * texto lido por {@link #getString} e {@link #copyStringToBuffer}. Os bytes são os da
+ * codificação UTF-8, a mesma usada pelo SQLite e pelo CursorWindow.
+ */
+final class CursorMedido extends CrossProcessCursorWrapper {
+
+    /** Linhas de cada janela cujo texto é medido; o das demais é estimado pela média delas. */
+    static final int AMOSTRA_POR_JANELA = 8;
+
+    private final MetricasProvedor.Serie serie;
+    /** Instante (System.nanoTime) do início da chamada de consulta. */
+    private final long inicio;
+    /** Duração da chamada até a criação deste Cursor, registrada se ele for fechado sem ser lido. */
+    private final long nanosAteOCursor;
+    /** Buffer reutilizado para medir o texto da janela sem criar Strings. */
+    private CharArrayBuffer buffer;
+    /** Indica que a consulta já foi registrada na série. */
+    private boolean registrada;
+
+    /**
+     * @param cursor O Cursor da consulta.
+     * @param serie A série da consulta.
+     * @param inicio O instante do início da chamada, obtido de {@link System#nanoTime()}.
+     */
+    CursorMedido(Cursor cursor, MetricasProvedor.Serie serie, long inicio) {
+        super(cursor);
+        this.serie = serie;
+        this.inicio = inicio;
+        this.nanosAteOCursor = System.nanoTime() - inicio;
+    }
+
+    // Registra a consulta na primeira vez que o resultado é pedido, com a execução na latência.
+    private void registrar() {
+        if (registrada) return;
+        registrada = true;
+        int total;
+        try {
+            total = super.getCount();
+        } catch (RuntimeException e) {
+            serie.registrar(System.nanoTime() - inicio, 0, true);
+            throw e;
+        }
+        serie.registrar(System.nanoTime() - inicio, total, false);
+    }
+
+    @Override
+    public int getCount() {
+        registrar();
+        return super.getCount();
+    }
+
+    @Override
+    public boolean move(int offset) {
+        registrar();
+        return super.move(offset);
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        registrar();
+        return super.moveToPosition(position);
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        registrar();
+        return super.moveToFirst();
+    }
+
+    @Override
+    public boolean moveToLast() {
+        registrar();
+        return super.moveToLast();
+    }
+
+    @Override
+    public boolean moveToNext() {
+        registrar();
+        return super.moveToNext();
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        registrar();
+        return super.moveToPrevious();
+    }
+
+    // Registra um Cursor que nunca foi lido com o tempo até a sua criação.
+    @Override
+    public void close() {
+        if (!registrada) {
+            registrada = true;
+            serie.registrar(nanosAteOCursor, 0, false);
+        }
+        super.close();
+    }
+
+    // Preenche a janela (caminho entre processos) e estima o texto que foi copiado para ela.
+    @Override
+    public void fillWindow(int position, CursorWindow window) {
+        registrar();
+        super.fillWindow(position, window);
+        int linhas = window.getNumRows();
+        if (linhas == 0) return;
+        if (buffer == null) {
+            buffer = new CharArrayBuffer(128);
+        }
+        int inicio = window.getStartPosition();
+        int colunas = window.getNumColumns();
+        // Linhas espalhadas pela janela, para que a amostra não seja só a do começo.
+        int passo = Math.max(1, linhas / AMOSTRA_POR_JANELA);
+        long bytes = 0;
+        int medidas = 0;
+        for (int linha = inicio; linha < inicio + linhas && medidas < AMOSTRA_POR_JANELA; linha += passo, medidas++) {
+            for (int coluna = 0; coluna < colunas; coluna++) {
+                if (window.getType(linha, coluna) == Cursor.FIELD_TYPE_STRING) {
+                    window.copyStringToBuffer(linha, coluna, buffer);
+                    bytes += bytesUtf8(buffer.data, buffer.sizeCopied);
+                }
+            }
+        }
+        serie.adicionarBytesTexto(bytes * linhas / medidas);
+    }
+
+    // Mede o texto lido diretamente por um cliente do mesmo processo.
+    @Override
+    public String getString(int columnIndex) {
+        String valor = super.getString(columnIndex);
+        if (valor != null) {
+            serie.adicionarBytesTexto(bytesUtf8(valor));
+        }
+        return valor;
+    }
+
+    // Mede o texto copiado diretamente para o buffer do cliente.
+    @Override
+    public void copyStringToBuffer(int columnIndex, CharArrayBuffer destino) {
+        super.copyStringToBuffer(columnIndex, destino);
+        serie.adicionarBytesTexto(bytesUtf8(destino.data, destino.sizeCopied));
+    }
+
+    // Conta os bytes UTF-8 de um texto sem codificá-lo.
+    private static long bytesUtf8(CharSequence texto) {
+        long bytes = 0;
+        for (int i = 0, n = texto.length(); i < n; i++) {
+            bytes += bytesUtf8(texto.charAt(i));
+        }
+        return bytes;
+    }
+
+    // Conta os bytes UTF-8 dos primeiros caracteres de um vetor.
+    private static long bytesUtf8(char[] caracteres, int tamanho) {
+        long bytes = 0;
+        for (int i = 0; i < tamanho; i++) {
+            bytes += bytesUtf8(caracteres[i]);
+        }
+        return bytes;
+    }
+
+    // Um par substituto (surrogate) ocupa 4 bytes: 2 para cada metade.
+    private static int bytesUtf8(char c) {
+        if (c < 0x80) return 1;
+        if (c < 0x800 || Character.isSurrogate(c)) return 2;
+        return 3;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.util.Log;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Fila de inserções com confirmação em grupo (group commit).
+ * <p>
+ * Cada inserção avulsa custaria uma transação própria, com a sua sincronização em disco. Aqui as
+ * inserções são entregues a uma única thread de escrita, que grava de uma vez, em uma só
+ * transação, todos os pedidos que se acumularam enquanto a transação anterior era gravada. Cada
+ * pedido recebe o seu próprio {@link CompletableFuture}, completado com a URI da nova linha
+ * depois da confirmação.
+ * <p>
+ * Quando há escritores concorrentes (o grupo anterior teve mais de um pedido, ou já há outro
+ * pedido na fila), a thread ainda espera uma janela curta ({@link #JANELA_NANOS}) pelos pedidos
+ * seguintes. Um escritor sozinho não espera a janela, e sua latência não muda.
+ * <p>
+ * Se o grupo falhar (um pedido com valores inválidos, por exemplo), a transação é desfeita e os
+ * pedidos são gravados um a um, para que só o pedido com problema receba o erro.
+ * <p>
+ * Um pedido cujo futuro foi cancelado (o chamador desistiu de esperar) antes de a thread de
+ * escrita começar o seu grupo é descartado sem ser gravado.
+ */
+final class FilaEscrita {
+
+    private static final String TAG = "FilaEscrita";
+
+    /** Quanto a thread de escrita espera por mais pedidos depois do primeiro de um grupo, havendo concorrência. */
+    static final long JANELA_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /** Número máximo de pedidos gravados em uma transação. */
+    static final int MAXIMO_POR_TRANSACAO = 256;
+
+    /**
+     * Grava as linhas de um grupo. Implementado pelo provedor, que conhece as colunas e os
+     * comandos compilados.
+     */
+    interface Gravador {
+        /**
+         * Grava as linhas, em ordem, dentro da transação aberta pela fila.
+         * @param db O banco de dados, já em transação.
+         * @param linhas Os valores de cada linha.
+         * @return O ID de cada nova linha, na mesma ordem.
+         */
+        long[] gravar(SQLiteDatabase db, List<ContentValues> linhas);
+
+        /**
+         * Chamado depois da confirmação de um grupo, fora da transação.
+         * @param uris As URIs das linhas gravadas.
+         */
+        void confirmado(List<Uri> uris);
+    }
+
+    /** Uma inserção à espera da thread de escrita. */
+    private static final class Pedido {
+        final ContentValues valores;
+        final CompletableFuture<Uri> resultado = new CompletableFuture<>();
+
+        Pedido(ContentValues valores) {
+            this.valores = valores;
+        }
+    }
+
+    /** Marca o fim da fila, colocada por {@link #encerrar()}. */
+    private static final Pedido FIM = new Pedido(null);
+
+    private final Supplier<SQLiteDatabase> mBanco;
+    private final Gravador mGravador;
+    private final BlockingQueue<Pedido> mPedidos = new LinkedBlockingQueue<>();
+    private final Thread mThread;
+    private volatile boolean mEncerrada;
+
+    /** Transações confirmadas desde a criação ou desde a última vez que as métricas foram zeradas. */
+    private final AtomicLong mTransacoes = new AtomicLong();
+    /** Linhas gravadas nessas transações. */
+    private final AtomicLong mLinhas = new AtomicLong();
+
+    /**
+     * Cria a fila e inicia a sua thread de escrita.
+     * @param banco Fornece o banco para escrita (espera a abertura, se preciso).
+     * @param gravador Grava as linhas e trata as confirmações.
+     */
+    FilaEscrita(Supplier<SQLiteDatabase> banco, Gravador gravador) {
+        mBanco = banco;
+        mGravador = gravador;
+        mThread = new Thread(this::executar, TAG);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    /**
+     * Enfileira uma inserção.
+     * @param valores Os valores da nova linha.
+     * @return Um futuro completado com a URI da nova linha, ou com o erro da inserção.
+     */
+    // Entrega o pedido à thread de escrita.
+    CompletableFuture<Uri> enfileirar(ContentValues valores) {
+        Pedido pedido = new Pedido(valores);
+        if (mEncerrada) {
+            pedido.resultado.completeExceptionally(new IllegalStateException("A fila de escrita foi encerrada"));
+            return pedido.resultado;
+        }
+        mPedidos.add(pedido);
+        return pedido.resultado;
+    }
+
+    /**
+     * Encerra a fila. Os pedidos já enfileirados são gravados antes de a thread terminar.
+     */
+    // Coloca a marca de fim e espera a thread de escrita.
+    void encerrar() {
+        mEncerrada = true;
+        mPedidos.add(FIM);
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retorna os contadores da fila.
+     * @param zerar Se true, os contadores são zerados depois de lidos.
+     * @return {transações confirmadas, linhas gravadas}.
+     */
+    long[] instantaneo(boolean zerar) {
+        if (zerar) {
+            return new long[]{mTransacoes.getAndSet(0), mLinhas.getAndSet(0)};
+        }
+        return new long[]{mTransacoes.get(), mLinhas.get()};
+    }
+
+    /**
+     * Laço da thread de escrita: espera o primeiro pedido, junta os que chegarem durante a
+     * janela e grava o grupo.
+     */
+    // Corpo da thread de escrita.
+    private void executar() {
+        List<Pedido> grupo = new ArrayList<>(MAXIMO_POR_TRANSACAO);
+        int tamanhoAnterior = 0;
+        boolean fim = false;
+        while (!fim) {
+            try {
+                Pedido primeiro = mPedidos.take();
+                if (primeiro == FIM) break;
+                grupo.add(primeiro);
+
+                // Sem sinal de concorrência, grava só o que já está na fila, sem esperar.
+                boolean concorrencia = tamanhoAnterior > 1 || !mPedidos.isEmpty();
+                long prazo = System.nanoTime() + (concorrencia ? JANELA_NANOS : 0);
+                while (grupo.size() < MAXIMO_POR_TRANSACAO) {
+                    Pedido proximo = mPedidos.poll(prazo - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (proximo == null) break;
+                    if (proximo == FIM) {
+                        fim = true;
+                        break;
+                    }
+                    grupo.add(proximo);
+                }
+            } catch (InterruptedException e) {
+                // Não é interrompida por ninguém; grava o que já tiver e continua.
+            }
+            tamanhoAnterior = grupo.size();
+            if (!grupo.isEmpty()) {
+                gravar(grupo);
+                grupo.clear();
+            }
+        }
+        // Pedidos que chegaram depois da marca de fim.
+        for (Pedido pedido; (pedido = mPedidos.poll()) != null; ) {
+            pedido.resultado.completeExceptionally(new IllegalStateException("A fila de escrita foi encerrada"));
+        }
+    }
+
+    /**
+     * Grava um grupo em uma transação; se ela falhar, grava cada pedido em sua própria transação.
+     * @param grupo Os pedidos do grupo.
+     */
+    // Tenta o grupo inteiro e, em caso de erro, separa os pedidos.
+    private void gravar(List<Pedido> grupo) {
+        // Os pedidos cujo chamador desistiu de esperar não são gravados.
+        grupo.removeIf(pedido -> pedido.resultado.isCancelled());
+        if (grupo.isEmpty()) {
+            return;
+        }
+        try {
+            gravarEmTransacao(grupo);
+        } catch (RuntimeException e) {
+            if (grupo.size() == 1) {
+                grupo.get(0).resultado.completeExceptionally(e);
+                return;
+            }
+            Log.w(TAG, "Falha ao gravar um grupo de " + grupo.size() + " inserções; gravando uma a uma", e);
+            for (Pedido pedido : grupo) {
+                try {
+                    gravarEmTransacao(Collections.singletonList(pedido));
+                } catch (RuntimeException erro) {
+                    pedido.resultado.completeExceptionally(erro);
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava os pedidos em uma única transação e completa os seus futuros depois da confirmação.
+     * @param pedidos Os pedidos a gravar.
+     * @throws RuntimeException se a gravação falhar; nesse caso nenhum pedido foi gravado.
+     */
+    // Abre a transação, grava, confirma e avisa os pedidos.
+    private void gravarEmTransacao(List<Pedido> pedidos) {
+        List<ContentValues> linhas = new ArrayList<>(pedidos.size());
+        for (Pedido pedido : pedidos) {
+            linhas.add(pedido.valores);
+        }
+
+        SQLiteDatabase db = mBanco.get();
+        long[] ids;
+        db.beginTransaction();
+        try {
+            ids = mGravador.gravar(db, linhas);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        mTransacoes.incrementAndGet();
+        mLinhas.addAndGet(ids.length);
+
+        List<Uri> uris = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            uris.add(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id));
+        }
+        try {
+            mGravador.confirmado(uris);
+        } catch (RuntimeException e) {
+            // As linhas já estão gravadas: o erro não pode fazer o grupo ser gravado de novo.
+            Log.w(TAG, "Falha ao notificar " + uris.size() + " inserções", e);
+        }
+        for (int i = 0; i < pedidos.size(); i++) {
+            pedidos.get(i).resultado.complete(uris.get(i));
+        }
+    }
+}
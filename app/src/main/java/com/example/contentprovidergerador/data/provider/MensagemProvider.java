@@ -1,17 +1,57 @@
 package com.example.contentprovidergerador.data.provider;
 
+import android.content.ClipDescription;
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
+import android.content.res.AssetFileDescriptor;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.MatrixCursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+import android.text.TextUtils;
+import android.util.Log;
+import android.util.LruCache;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
+import com.example.contentprovidergerador.data.db.HashConteudo;
 import com.example.contentprovidergerador.data.db.MensagemContract;
 import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+import com.example.contentprovidergerador.data.model.Mensagem;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * O Content Provider para a base de dados de mensagens.
@@ -24,12 +64,218 @@ public class MensagemProvider extends ContentProvider {
     /** Instância do helper do banco de dados para acessar o SQLite. */
     private MensagemDbHelper mDbHelper;
 
+    /** Apaga em segundo plano as mensagens marcadas como excluídas (lápides). */
+    private CompactacaoExclusoes mCompactacao;
+
+    /** Abre o banco de dados em segundo plano, fora da thread principal do {@link #onCreate()}. */
+    private AquecimentoBanco mAquecimento;
+
+    /** Junta as inserções avulsas que chegam ao mesmo tempo em uma única transação. */
+    private FilaEscrita mFilaEscrita;
+
+    /** Move em segundo plano as mensagens antigas para a tabela de arquivo. */
+    private ArquivamentoMensagens mArquivamento;
+
     /** Objeto UriMatcher para corresponder as URIs de conteúdo com os códigos de operação. */
     private static final UriMatcher sUriMatcher = buildUriMatcher();
 
     // Códigos de correspondência para o UriMatcher
     private static final int MENSAGENS = 100; // Para acessar a tabela inteira de mensagens
     private static final int MENSAGEM_COM_ID = 101; // Para acessar uma única mensagem por seu ID
+    private static final int BUSCA = 102; // Para a busca textual nas mensagens
+    private static final int ALEATORIA = 103; // Para sortear uma mensagem aleatória
+    private static final int EXPORTAR = 104; // Para exportar todas as mensagens como arquivo
+    private static final int IMPORTAR = 105; // Para importar mensagens de um arquivo
+    private static final int ESTATISTICAS = 106; // Para ler os totais de mensagens e de favoritas
+    private static final int ESTATISTICAS_AUTORES = 107; // Para ler os totais por autor
+
+    /** Tag usada nos registros (Logcat) do provedor. */
+    private static final String TAG = "MensagemProvider";
+
+    /** Número máximo de linhas gravadas em cada transação de uma importação. */
+    private static final int LOTE_IMPORTACAO = 1000;
+
+    /**
+     * Thread que lê os pipes de importação e grava as linhas no banco. Importações simultâneas
+     * esperam na fila, uma de cada vez, em vez de cada uma criar uma thread.
+     */
+    private static final ExecutorService EXECUTOR_IMPORTACAO = Executors.newSingleThreadExecutor(tarefa ->
+            new Thread(tarefa, "ImportacaoMensagens"));
+
+    /** Número de tentativas do sorteio quando a posição sorteada deixa de existir por uma exclusão concorrente. */
+    private static final int TENTATIVAS_SORTEIO = 3;
+
+    /** Número de resultados da busca textual quando o cliente não informa um limite. */
+    private static final int LIMITE_PADRAO_BUSCA = 50;
+
+    /** Tempo máximo que um {@code insert()} avulso espera a confirmação da {@link FilaEscrita}. */
+    static final long ESPERA_MAXIMA_INSERCAO_MS = 10_000;
+
+    /** Colunas disponíveis nos resultados da busca textual. */
+    private static final String[] COLUNAS_BUSCA = {
+            MensagemContract.MensagemEntry._ID,
+            MensagemContract.MensagemEntry.COLUMN_TEXTO,
+            MensagemContract.MensagemEntry.COLUMN_AUTOR,
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA,
+            MensagemContract.MensagemEntry.COLUMN_TRECHO
+    };
+
+    /**
+     * Consulta de busca textual. A subconsulta sobre a tabela FTS encontra as mensagens pelo
+     * índice de palavras e calcula o trecho destacado; a relevância é o número de ocorrências
+     * dos termos, contado a partir de offsets() (4 números por ocorrência).
+     */
+    private static final String SQL_BUSCA = "SELECT m." + MensagemContract.MensagemEntry._ID + " AS " + MensagemContract.MensagemEntry._ID + ", " +
+            "m." + MensagemContract.MensagemEntry.COLUMN_TEXTO + " AS " + MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " +
+            "m." + MensagemContract.MensagemEntry.COLUMN_AUTOR + " AS " + MensagemContract.MensagemEntry.COLUMN_AUTOR + ", " +
+            "m." + MensagemContract.MensagemEntry.COLUMN_FAVORITA + " AS " + MensagemContract.MensagemEntry.COLUMN_FAVORITA + ", " +
+            "b.trecho AS " + MensagemContract.MensagemEntry.COLUMN_TRECHO + ", " +
+            "(length(b.ocorrencias) - length(replace(b.ocorrencias, ' ', '')) + 1) / 4 AS relevancia " +
+            "FROM (SELECT docid, " +
+            "snippet(" + MensagemDbHelper.TABELA_BUSCA + ", '<b>', '</b>', '…', -1, 12) AS trecho, " +
+            "offsets(" + MensagemDbHelper.TABELA_BUSCA + ") AS ocorrencias " +
+            "FROM " + MensagemDbHelper.TABELA_BUSCA + " WHERE " + MensagemDbHelper.TABELA_BUSCA + " MATCH ?) b " +
+            "JOIN " + MensagemDbHelper.VISAO_MENSAGENS + " m ON m." + MensagemContract.MensagemEntry._ID + " = b.docid";
+
+    /**
+     * Expressão da coluna virtual {@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}.
+     * O corte é feito pelo SQLite, então apenas o trecho é copiado para a janela do Cursor.
+     */
+    private static final String SQL_TEXTO_PREVIEW = "CASE WHEN length(" + MensagemContract.MensagemEntry.COLUMN_TEXTO +
+            ") > " + MensagemContract.MensagemEntry.TAMANHO_TEXTO_PREVIEW +
+            " THEN substr(" + MensagemContract.MensagemEntry.COLUMN_TEXTO + ", 1, " +
+            MensagemContract.MensagemEntry.TAMANHO_TEXTO_PREVIEW + ") || '…' ELSE " +
+            MensagemContract.MensagemEntry.COLUMN_TEXTO + " END AS " + MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW;
+
+    /** Colunas retornadas pela URI dos totais quando a projeção não é informada. */
+    private static final String[] COLUNAS_ESTATISTICAS = {
+            MensagemContract.MensagemEntry.COLUMN_TOTAL,
+            MensagemContract.MensagemEntry.COLUMN_TOTAL_FAVORITAS
+    };
+
+    /** Número máximo de linhas mantidas no cache de consultas por ID. */
+    private static final int CAPACIDADE_CACHE_LINHAS = 512;
+
+    /** Todas as colunas da tabela de mensagens, na ordem usada pelo cache de linhas. */
+    private static final String[] COLUNAS_MENSAGEM = {
+            MensagemContract.MensagemEntry._ID,
+            MensagemContract.MensagemEntry.COLUMN_TEXTO,
+            MensagemContract.MensagemEntry.COLUMN_AUTOR,
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA
+    };
+
+    /**
+     * Cache LRU das linhas consultadas por ID (URI {@code mensagens/#}).
+     * O próprio {@link LruCache} contabiliza acertos, falhas e descartes, expostos por
+     * {@link MensagemContract#METODO_ESTATISTICAS_CACHE}.
+     */
+    private final LruCache<Long, Mensagem> mCacheLinhas = new LruCache<>(CAPACIDADE_CACHE_LINHAS);
+
+    /** Métricas de latência e volume por operação e URI, expostas por {@link MensagemContract#METODO_METRICAS}. */
+    private final MetricasProvedor mMetricas = new MetricasProvedor();
+
+    /**
+     * Mensagens recebidas em inserções e importações que não foram gravadas por repetirem uma
+     * que já existia, expostas por {@link MensagemContract#CHAVE_METRICAS_DUPLICADAS}.
+     */
+    private final AtomicLong mDuplicadas = new AtomicLong();
+
+    /**
+     * Contador incrementado após cada escrita. Uma consulta só guarda a linha lida no cache se
+     * nenhuma escrita terminou durante a leitura, o que evita repor no cache uma versão antiga
+     * de uma linha que acabou de ser invalidada.
+     */
+    private final AtomicLong mGeracaoEscrita = new AtomicLong();
+
+    /**
+     * Cache dos resultados das consultas à tabela e à busca, invalidado pela mesma geração de
+     * escrita. Os acertos são expostos por {@link MensagemContract#METODO_ESTATISTICAS_CACHE}.
+     */
+    private final CacheConsultas mCacheConsultas = new CacheConsultas(mGeracaoEscrita);
+
+    /**
+     * Número máximo de URIs de linha em uma única notificação. Acima disso, a notificação é
+     * enviada na URI da tabela, para não criar uma transação de Binder grande demais.
+     */
+    private static final int MAX_URIS_POR_NOTIFICACAO = 500;
+
+    /** Número máximo de IDs em cada comando de {@link MensagemContract#METODO_DEFINIR_FAVORITAS}, dentro do limite de parâmetros do SQLite. */
+    private static final int IDS_POR_COMANDO = 999;
+
+    /** Comando que cadastra um autor, se ele ainda não existir. */
+    private static final String SQL_INSERIR_AUTOR = "INSERT OR IGNORE INTO " + MensagemDbHelper.TABELA_AUTORES +
+            " (" + MensagemDbHelper.COLUNA_NOME + ") VALUES (?)";
+
+    /** Consulta o ID de um autor pelo nome (usa o índice único da coluna de nome). */
+    private static final String SQL_ID_AUTOR = "SELECT " + MensagemContract.MensagemEntry._ID + " FROM " +
+            MensagemDbHelper.TABELA_AUTORES + " WHERE " + MensagemDbHelper.COLUNA_NOME + " = ?";
+
+    /**
+     * Comando de inserção compilado uma única vez e reutilizado nas inserções em lote.
+     * O autor é informado pelo nome e convertido no seu ID pela subconsulta; ele precisa ter
+     * sido cadastrado antes por {@link #SQL_INSERIR_AUTOR}. Uma mensagem repetida (mesmo
+     * {@link HashConteudo}) é ignorada pelo índice único, sem uma consulta antes de cada
+     * inserção, e {@code executeInsert()} retorna -1.
+     */
+    private static final String SQL_INSERIR_MENSAGEM = "INSERT OR IGNORE INTO " + MensagemContract.MensagemEntry.TABLE_NAME + " (" +
+            MensagemContract.MensagemEntry.COLUMN_TEXTO + ", " +
+            MensagemDbHelper.COLUNA_AUTOR_ID + ", " +
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA + ", " +
+            MensagemDbHelper.COLUNA_HASH_CONTEUDO + ") VALUES (?, (" + SQL_ID_AUTOR + "), ?, ?)";
+
+    /**
+     * Consulta o ID da mensagem, recente ou arquivada, com um hash de conteúdo (usa os índices
+     * únicos do hash). Executada só depois de uma inserção ignorada, para devolver a URI da
+     * mensagem que já existia.
+     */
+    private static final String SQL_ID_POR_HASH = "SELECT " + MensagemContract.MensagemEntry._ID + " FROM " +
+            MensagemContract.MensagemEntry.TABLE_NAME + " WHERE " + MensagemDbHelper.COLUNA_HASH_CONTEUDO + " = ?1" +
+            " UNION ALL SELECT " + MensagemContract.MensagemEntry._ID + " FROM " + MensagemDbHelper.TABELA_ARQUIVO +
+            " WHERE " + MensagemDbHelper.COLUNA_HASH_CONTEUDO + " = ?1 LIMIT 1";
+
+    /**
+     * O lote (applyBatch) em execução na thread atual, se houver. Enquanto ele existe, as
+     * operações individuais reutilizam o comando de inserção compilado e adiam as notificações
+     * de mudança, que são enviadas uma única vez ao final do lote.
+     */
+    private final ThreadLocal<Lote> mLoteAtual = new ThreadLocal<>();
+
+    /**
+     * Estado de um lote de operações executado dentro de uma única transação.
+     */
+    private static final class Lote {
+        /** Comandos de inserção compilados, criados na primeira inserção do lote. */
+        InsercaoCompilada insercao;
+        /** As URIs das linhas alteradas pelo lote, agrupadas pelo tipo de mudança (flags NOTIFY_*). */
+        final Map<Integer, List<Uri>> mudancas = new HashMap<>();
+        /** Os IDs das linhas escritas pelo lote, removidos de novo do cache depois da confirmação. */
+        final Set<Long> ids = new HashSet<>();
+    }
+
+    /**
+     * Os comandos compilados de uma inserção: o cadastro do autor (ignorado se ele já existe),
+     * a inserção da mensagem com o ID desse autor e a busca da mensagem repetida.
+     */
+    private static final class InsercaoCompilada implements AutoCloseable {
+        final SQLiteStatement autor;
+        final SQLiteStatement mensagem;
+        final SQLiteStatement repetida;
+        /** O hash de conteúdo da última mensagem inserida (ou ignorada) por estes comandos. */
+        long hash;
+
+        InsercaoCompilada(SQLiteDatabase db) {
+            autor = db.compileStatement(SQL_INSERIR_AUTOR);
+            mensagem = db.compileStatement(SQL_INSERIR_MENSAGEM);
+            repetida = db.compileStatement(SQL_ID_POR_HASH);
+        }
+
+        @Override
+        public void close() {
+            autor.close();
+            mensagem.close();
+            repetida.close();
+        }
+    }
 
     /**
      * Constrói e retorna um UriMatcher que reconhece as URIs que este provedor pode manipular.
@@ -44,6 +290,17 @@ public class MensagemProvider extends ContentProvider {
         matcher.addURI(authority, MensagemContract.PATH_MENSAGENS, MENSAGENS);
         // URI para uma única mensagem (ex: content://.../mensagens/3)
         matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/#", MENSAGEM_COM_ID);
+        // URI para a busca textual (ex: content://.../mensagens/search?q=vida)
+        matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_BUSCA, BUSCA);
+        // URI para sortear uma mensagem (ex: content://.../mensagens/random?peso_favoritas=3)
+        matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_ALEATORIA, ALEATORIA);
+        // URIs de exportação e importação por arquivo (ex: content://.../mensagens/export?formato=csv)
+        matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_EXPORTAR, EXPORTAR);
+        matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_IMPORTAR, IMPORTAR);
+        // URIs dos totais (ex: content://.../mensagens/stats e content://.../mensagens/stats/autores)
+        matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_ESTATISTICAS, ESTATISTICAS);
+        matcher.addURI(authority, MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_ESTATISTICAS + "/" +
+                MensagemContract.PATH_AUTORES, ESTATISTICAS_AUTORES);
 
         return matcher;
     }
@@ -56,9 +313,41 @@ public class MensagemProvider extends ContentProvider {
     @Override
     public boolean onCreate() {
         mDbHelper = new MensagemDbHelper(getContext());
+        // Abre o banco fora da thread principal; as chamadas usam bancoParaLeitura()/bancoParaEscrita().
+        mAquecimento = new AquecimentoBanco(mDbHelper, SQL_INSERIR_AUTOR, SQL_INSERIR_MENSAGEM);
+        mAquecimento.iniciar();
+        mFilaEscrita = new FilaEscrita(this::bancoParaEscrita, new GravadorMensagens());
+        mCompactacao = new CompactacaoExclusoes(this::bancoParaEscrita);
+        // Apaga as lápides que tenham ficado de uma execução anterior do processo (e converte
+        // um banco antigo para auto_vacuum incremental, fora da abertura).
+        mCompactacao.agendar();
+        mArquivamento = new ArquivamentoMensagens(this::bancoParaEscrita, this::linhasArquivadas);
+        mArquivamento.agendar();
         return true;
     }
 
+    /**
+     * Retorna o banco de dados para leitura, esperando a abertura em segundo plano se ela ainda
+     * não terminou.
+     * @return O banco de dados aberto.
+     */
+    // Espera o AquecimentoBanco, se preciso, e abre o banco para leitura.
+    private SQLiteDatabase bancoParaLeitura() {
+        mAquecimento.aguardar();
+        return mDbHelper.getReadableDatabase();
+    }
+
+    /**
+     * Retorna o banco de dados para escrita, esperando a abertura em segundo plano se ela ainda
+     * não terminou.
+     * @return O banco de dados aberto.
+     */
+    // Espera o AquecimentoBanco, se preciso, e abre o banco para escrita.
+    private SQLiteDatabase bancoParaEscrita() {
+        mAquecimento.aguardar();
+        return mDbHelper.getWritableDatabase();
+    }
+
     /**
      * Realiza uma consulta ao banco de dados.
      * @param uri A URI a ser consultada.
@@ -72,26 +361,458 @@ public class MensagemProvider extends ContentProvider {
     @Nullable
     @Override
     public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection, @Nullable String[] selectionArgs, @Nullable String sortOrder) {
-        SQLiteDatabase database = mDbHelper.getReadableDatabase();
-        Cursor cursor;
+        return query(uri, projection, selection, selectionArgs, sortOrder, null);
+    }
+
+    /**
+     * Realiza uma consulta ao banco de dados que pode ser cancelada pelo cliente.
+     * Na URI de mensagens, aceita os parâmetros de paginação por chave
+     * {@link MensagemContract.MensagemEntry#PARAM_LIMITE}, {@link MensagemContract.MensagemEntry#PARAM_APOS_ID}
+     * e {@link MensagemContract.MensagemEntry#PARAM_ANTES_ID}.
+     * @param uri A URI a ser consultada.
+     * @param projection A lista de colunas a serem retornadas.
+     * @param selection Um filtro para as linhas a serem retornadas.
+     * @param selectionArgs Os valores para o filtro de seleção.
+     * @param sortOrder A ordem de classificação dos resultados.
+     * @param cancellationSignal Sinal para cancelar a consulta em andamento, ou null.
+     * @return Um Cursor contendo o resultado da consulta.
+     */
+    // Manipula as requisições de consulta (query) canceláveis dos clientes.
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection, @Nullable String[] selectionArgs, @Nullable String sortOrder, @Nullable CancellationSignal cancellationSignal) {
+        long inicio = System.nanoTime();
         int match = sUriMatcher.match(uri);
+        Cursor cursor;
+        try {
+            cursor = consultar(match, uri, projection, selection, selectionArgs, sortOrder, cancellationSignal);
+        } catch (RuntimeException e) {
+            mMetricas.registrarErro(MetricasProvedor.Operacao.CONSULTA, match, inicio);
+            throw e;
+        }
+        // A consulta é registrada pelo CursorMedido quando o resultado é pedido, para que a latência
+        // inclua a execução também nos Cursors do banco, que só executam a consulta nesse momento.
+        MetricasProvedor.Serie serie = mMetricas.serie(MetricasProvedor.Operacao.CONSULTA, match);
+
+        // Configura uma notificação na URI para que o cursor seja atualizado se os dados mudarem.
+        // Os totais mudam com qualquer escrita, notificada na URI da tabela ou nas URIs das linhas.
+        boolean totais = match == ESTATISTICAS || match == ESTATISTICAS_AUTORES;
+        cursor.setNotificationUri(getContext().getContentResolver(),
+                totais ? MensagemContract.MensagemEntry.CONTENT_URI : uri);
+        // As linhas e o texto entregues ao cliente são medidos à medida que o Cursor é lido.
+        return new CursorMedido(cursor, serie, inicio);
+    }
+
+    /**
+     * Executa a consulta correspondente ao código da URI.
+     * As consultas à tabela e à busca com um limite pequeno de linhas passam pelo
+     * {@link CacheConsultas}: uma consulta repetida sem escritas no meio é servida do cache, sem
+     * executar SQL. As demais devolvem o Cursor do banco, que só executa a consulta quando é lido.
+     * @return Um Cursor com o resultado, ainda sem URI de notificação.
+     * @throws UnsupportedOperationException se a URI não for conhecida.
+     */
+    // Escolhe a consulta pelo código do UriMatcher.
+    private Cursor consultar(int match, Uri uri, String[] projection, String selection, String[] selectionArgs,
+                             String sortOrder, CancellationSignal cancellationSignal) {
+        // O sorteio muda a cada chamada e a consulta por ID já tem o cache de linhas.
+        boolean usaCache = (match == MENSAGENS || match == BUSCA) && CacheConsultas.cabe(limiteDaConsulta(match, uri));
+        String chave = null;
+        long geracao = 0;
+        if (usaCache) {
+            chave = CacheConsultas.chave(match, uri, projection, selection, selectionArgs, sortOrder);
+            Cursor emCache = mCacheConsultas.obter(chave);
+            if (emCache != null) {
+                return emCache;
+            }
+            // Lida antes da consulta: uma escrita durante a leitura impede que o resultado seja servido.
+            geracao = mGeracaoEscrita.get();
+        }
+
+        SQLiteDatabase database = bancoParaLeitura();
+        Cursor cursor;
 
         switch (match) {
             case MENSAGENS:
-                // Se a URI corresponde a todas as mensagens, faz a query na tabela.
-                cursor = database.query(MensagemContract.MensagemEntry.TABLE_NAME, projection, selection, selectionArgs, null, null, sortOrder);
+                // Se a URI corresponde a todas as mensagens, faz a query na tabela (paginada, se pedido).
+                cursor = consultarMensagens(database, uri, projection, selection, selectionArgs, sortOrder, cancellationSignal);
+                break;
+            case MENSAGEM_COM_ID:
+                // Se a URI corresponde a uma única mensagem, busca pela chave primária (com cache).
+                cursor = consultarPorId(database, ContentUris.parseId(uri), incluiArquivo(uri), projection,
+                        selection, selectionArgs, cancellationSignal);
+                break;
+            case BUSCA:
+                // Se a URI corresponde à busca, usa o índice de texto completo (FTS).
+                cursor = buscar(database, uri, projection, cancellationSignal);
+                break;
+            case ALEATORIA:
+                // Se a URI corresponde ao sorteio, lê uma posição aleatória do índice denso.
+                cursor = sortear(database, uri, projection);
+                break;
+            case ESTATISTICAS:
+                // Se a URI corresponde aos totais, lê a única linha da tabela mantida pelos triggers.
+                cursor = database.query(MensagemDbHelper.TABELA_ESTATISTICAS,
+                        projection != null ? projection : COLUNAS_ESTATISTICAS,
+                        selection, selectionArgs, null, null, sortOrder);
+                break;
+            case ESTATISTICAS_AUTORES:
+                // Se a URI corresponde aos totais por autor, lê a tabela de totais junto com os nomes.
+                cursor = database.query(false, MensagemDbHelper.VISAO_ESTATISTICAS_AUTORES, projection,
+                        selection, selectionArgs, null, null,
+                        sortOrder != null ? sortOrder : MensagemContract.MensagemEntry.COLUMN_AUTOR, null, cancellationSignal);
                 break;
             default:
                 throw new UnsupportedOperationException("URI desconhecida: " + uri);
         }
+        return usaCache ? mCacheConsultas.guardar(chave, geracao, cursor) : cursor;
+    }
 
-        // Configura uma notificação na URI para que o cursor seja atualizado se os dados mudarem.
-        cursor.setNotificationUri(getContext().getContentResolver(), uri);
+    /**
+     * Lê o número máximo de linhas de uma consulta à tabela ou à busca, sem executá-la.
+     * @return O limite pedido na URI, o limite padrão da busca ou -1 se a consulta não tiver limite.
+     * @throws IllegalArgumentException se o limite for inválido.
+     */
+    // Lê o limite de linhas pedido na URI.
+    private static long limiteDaConsulta(int match, Uri uri) {
+        String limite = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE);
+        if (limite != null) {
+            return lerNumeroNaoNegativo(limite, MensagemContract.MensagemEntry.PARAM_LIMITE);
+        }
+        return match == BUSCA ? LIMITE_PADRAO_BUSCA : -1;
+    }
+
+    /**
+     * Consulta a tabela de mensagens aplicando a paginação por chave (keyset) pedida na URI.
+     * Diferente de OFFSET, o filtro por {@code _ID} usa a chave primária, então o custo de
+     * cada página não cresce com a posição dela na tabela. Com
+     * {@link MensagemContract.MensagemEntry#PARAM_INCLUIR_ARQUIVO}, consulta a visão que junta
+     * a tabela de mensagens e o arquivo.
+     * @return Um Cursor com a página pedida (ou a tabela inteira, se não houver parâmetros de paginação).
+     * @throws IllegalArgumentException se os parâmetros de paginação forem inválidos.
+     */
+    // Monta e executa a consulta paginada na tabela de mensagens.
+    private Cursor consultarMensagens(SQLiteDatabase database, Uri uri, String[] projection, String selection,
+                                      String[] selectionArgs, String sortOrder, CancellationSignal cancellationSignal) {
+        String limite = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE);
+        String aposId = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_APOS_ID);
+        String antesId = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_ANTES_ID);
+
+        if (limite != null && lerNumeroNaoNegativo(limite, MensagemContract.MensagemEntry.PARAM_LIMITE) == 0) {
+            throw new IllegalArgumentException("O limite deve ser maior que zero: " + uri);
+        }
+
+        if (aposId != null || antesId != null) {
+            if (aposId != null && antesId != null) {
+                throw new IllegalArgumentException("Use apenas um entre apos_id e antes_id: " + uri);
+            }
+            // A paginação por chave só é consistente se as linhas estiverem ordenadas pela própria chave.
+            if (sortOrder != null) {
+                throw new IllegalArgumentException("A paginação por chave não aceita sortOrder: " + uri);
+            }
+            boolean crescente = aposId != null;
+            String chave = crescente ? aposId : antesId;
+            lerNumeroNaoNegativo(chave, crescente ? MensagemContract.MensagemEntry.PARAM_APOS_ID : MensagemContract.MensagemEntry.PARAM_ANTES_ID);
+
+            selection = DatabaseUtils.concatenateWhere(selection,
+                    MensagemContract.MensagemEntry._ID + (crescente ? " > ?" : " < ?"));
+            selectionArgs = DatabaseUtils.appendSelectionArgs(selectionArgs, new String[]{chave});
+            sortOrder = MensagemContract.MensagemEntry._ID + (crescente ? " ASC" : " DESC");
+        } else if (limite != null && sortOrder == null) {
+            // Primeira página: ordena pela chave para que a próxima possa continuar de onde esta parou.
+            sortOrder = MensagemContract.MensagemEntry._ID + " ASC";
+        }
+
+        String visao = incluiArquivo(uri) ? MensagemDbHelper.VISAO_MENSAGENS_COM_ARQUIVO : MensagemDbHelper.VISAO_MENSAGENS;
+        return database.query(false, visao, traduzirProjecao(projection), selection, selectionArgs,
+                null, null, sortOrder, limite, cancellationSignal);
+    }
+
+    /**
+     * Executa a busca textual pelo termo do parâmetro {@link MensagemContract.MensagemEntry#PARAM_TERMO}.
+     * Cada palavra do termo é buscada como prefixo (ex: "motiv" encontra "motivação"), e todas
+     * precisam aparecer no texto ou no autor. O índice FTS evita a varredura da tabela inteira
+     * que um filtro {@code LIKE '%termo%'} exigiria.
+     * @return Um Cursor com as mensagens encontradas, da mais para a menos relevante.
+     * @throws IllegalArgumentException se a projeção pedir colunas que a busca não oferece.
+     */
+    // Busca mensagens pelo índice de texto completo.
+    private Cursor buscar(SQLiteDatabase database, Uri uri, String[] projection, CancellationSignal cancellationSignal) {
+        String[] colunas = projection != null ? projection : COLUNAS_BUSCA;
+        for (String coluna : colunas) {
+            if (!Arrays.asList(COLUNAS_BUSCA).contains(coluna)) {
+                throw new IllegalArgumentException("Coluna desconhecida na busca: " + coluna);
+            }
+        }
+
+        String consulta = montarConsultaFts(uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_TERMO));
+        if (consulta == null) {
+            // Termo vazio: não há o que buscar.
+            return new MatrixCursor(colunas, 0);
+        }
+        String limite = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE);
+        long maximo = limite != null
+                ? lerNumeroNaoNegativo(limite, MensagemContract.MensagemEntry.PARAM_LIMITE)
+                : LIMITE_PADRAO_BUSCA;
+
+        String sql = "SELECT " + String.join(", ", colunas) + " FROM (" + SQL_BUSCA + ") " +
+                "ORDER BY relevancia DESC, " + MensagemContract.MensagemEntry._ID + " DESC LIMIT " + maximo;
+        return database.rawQuery(sql, new String[]{consulta}, cancellationSignal);
+    }
+
+    /**
+     * Converte o termo digitado pelo usuário em uma consulta FTS segura.
+     * Os caracteres que não são letras nem dígitos são descartados (inclusive aspas e operadores
+     * da sintaxe MATCH), e cada palavra vira uma busca por prefixo entre aspas.
+     * @param termo O termo digitado, possivelmente null.
+     * @return A consulta FTS, ou null se o termo não tiver nenhuma palavra.
+     */
+    // Monta a expressão MATCH a partir do termo de busca.
+    @Nullable
+    private static String montarConsultaFts(@Nullable String termo) {
+        if (termo == null) return null;
+        StringBuilder consulta = new StringBuilder();
+        for (String palavra : termo.split("[^\\p{L}\\p{N}]+")) {
+            if (palavra.isEmpty()) continue;
+            if (consulta.length() > 0) consulta.append(' ');
+            consulta.append('"').append(palavra).append("\"*");
+        }
+        return consulta.length() > 0 ? consulta.toString() : null;
+    }
+
+    /**
+     * Sorteia uma mensagem usando os índices densos de sorteio do {@link MensagemDbHelper}.
+     * O custo não depende do tamanho da tabela: basta ler o tamanho de cada índice (a maior
+     * posição, obtida pela chave primária) e uma única linha na posição sorteada. Diferente de
+     * {@code ORDER BY RANDOM()}, nenhuma ordenação da tabela inteira é feita.
+     * <p>
+     * Com {@link MensagemContract.MensagemEntry#PARAM_PESO_FAVORITAS} igual a P, cada favorita
+     * recebe P "bilhetes" e as demais mensagens um: o número sorteado cai primeiro no índice geral
+     * (1 bilhete por mensagem) e, acima dele, nos P-1 bilhetes extras de cada favorita.
+     * @return Um Cursor com zero (tabela vazia) ou uma linha.
+     * @throws IllegalArgumentException se os parâmetros ou a projeção forem inválidos.
+     */
+    // Sorteia uma mensagem em tempo constante.
+    private Cursor sortear(SQLiteDatabase database, Uri uri, String[] projection) {
+        String[] colunas = projection != null ? projection : COLUNAS_MENSAGEM;
+        StringBuilder selecao = new StringBuilder();
+        for (String coluna : colunas) {
+            if (!Arrays.asList(COLUNAS_MENSAGEM).contains(coluna)) {
+                throw new IllegalArgumentException("Coluna desconhecida: " + coluna);
+            }
+            if (selecao.length() > 0) selecao.append(", ");
+            selecao.append("m.").append(coluna).append(" AS ").append(coluna);
+        }
+
+        boolean apenasFavoritas = uri.getBooleanQueryParameter(MensagemContract.MensagemEntry.PARAM_APENAS_FAVORITAS, false);
+        String pesoParametro = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_PESO_FAVORITAS);
+        long peso = pesoParametro != null
+                ? lerNumeroNaoNegativo(pesoParametro, MensagemContract.MensagemEntry.PARAM_PESO_FAVORITAS)
+                : 1;
+        // O limite mantém o número de bilhetes bem longe de estourar um long.
+        if (peso < 1 || peso > MensagemContract.MensagemEntry.PESO_MAXIMO_FAVORITAS) {
+            throw new IllegalArgumentException("O peso das favoritas deve estar entre 1 e "
+                    + MensagemContract.MensagemEntry.PESO_MAXIMO_FAVORITAS + ": " + uri);
+        }
+
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        for (int tentativa = 0; tentativa < TENTATIVAS_SORTEIO; tentativa++) {
+            long total = tamanhoDoSorteio(database, MensagemDbHelper.TABELA_SORTEIO);
+            long favoritas = tamanhoDoSorteio(database, MensagemDbHelper.TABELA_SORTEIO_FAVORITAS);
+
+            String indice;
+            long posicao;
+            if (apenasFavoritas || total == 0) {
+                if (favoritas == 0) break;
+                indice = MensagemDbHelper.TABELA_SORTEIO_FAVORITAS;
+                posicao = aleatorio.nextLong(favoritas);
+            } else {
+                long bilhete = aleatorio.nextLong(total + (peso - 1) * favoritas);
+                if (bilhete < total) {
+                    indice = MensagemDbHelper.TABELA_SORTEIO;
+                    posicao = bilhete;
+                } else {
+                    indice = MensagemDbHelper.TABELA_SORTEIO_FAVORITAS;
+                    posicao = (bilhete - total) % favoritas;
+                }
+            }
+
+            Cursor cursor = database.rawQuery("SELECT " + selecao + " FROM " + indice + " s " +
+                    "JOIN " + MensagemDbHelper.VISAO_MENSAGENS + " m " +
+                    "ON m." + MensagemContract.MensagemEntry._ID + " = s." + MensagemDbHelper.COLUNA_MENSAGEM_ID +
+                    " WHERE s." + MensagemDbHelper.COLUNA_POSICAO + " = ?", new String[]{String.valueOf(posicao)});
+            if (cursor.getCount() > 0) {
+                return cursor;
+            }
+            // A posição sorteada foi removida entre a contagem e a leitura: sorteia de novo.
+            cursor.close();
+        }
+        return new MatrixCursor(colunas, 0);
+    }
+
+    // Retorna o número de posições de um índice de sorteio (a maior posição + 1).
+    private static long tamanhoDoSorteio(SQLiteDatabase database, String indice) {
+        return DatabaseUtils.longForQuery(database,
+                "SELECT IFNULL(MAX(" + MensagemDbHelper.COLUNA_POSICAO + ") + 1, 0) FROM " + indice, null);
+    }
+
+    /**
+     * Consulta uma única mensagem pela chave primária.
+     * Sem filtro adicional (selection), a linha é servida pelo cache LRU e, em caso de falha,
+     * lida do banco e guardada no cache. Com filtro, a consulta vai sempre ao banco.
+     * As mensagens arquivadas não passam pelo cache: só são lidas se a URI incluir o arquivo.
+     * @param incluirArquivo Se true, procura a mensagem também no arquivo.
+     * @return Um Cursor com zero ou uma linha.
+     */
+    // Busca uma mensagem por ID, usando o cache de linhas.
+    private Cursor consultarPorId(SQLiteDatabase database, long id, boolean incluirArquivo, String[] projection,
+                                  String selection, String[] selectionArgs, CancellationSignal cancellationSignal) {
+        if (selection != null) {
+            String visao = incluirArquivo ? MensagemDbHelper.VISAO_MENSAGENS_COM_ARQUIVO : MensagemDbHelper.VISAO_MENSAGENS;
+            return database.query(false, visao, traduzirProjecao(projection),
+                    DatabaseUtils.concatenateWhere(MensagemContract.MensagemEntry._ID + " = " + id, selection),
+                    selectionArgs, null, null, null, null, cancellationSignal);
+        }
+
+        Mensagem mensagem = mCacheLinhas.get(id);
+        if (mensagem == null) {
+            long geracao = mGeracaoEscrita.get();
+            mensagem = lerLinha(database, id, cancellationSignal);
+            if (mensagem != null) {
+                synchronized (mCacheLinhas) {
+                    if (geracao == mGeracaoEscrita.get()) {
+                        mCacheLinhas.put(id, mensagem);
+                    }
+                }
+            } else if (incluirArquivo) {
+                return database.query(false, MensagemDbHelper.VISAO_ARQUIVO, traduzirProjecao(projection),
+                        MensagemContract.MensagemEntry._ID + " = " + id, null, null, null, null, null, cancellationSignal);
+            }
+        }
+        return criarCursor(projection, mensagem);
+    }
+
+    // Lê a linha completa de uma mensagem do banco, ou retorna null se ela não existir.
+    @Nullable
+    private static Mensagem lerLinha(SQLiteDatabase database, long id, CancellationSignal cancellationSignal) {
+        try (Cursor cursor = database.query(false, MensagemDbHelper.VISAO_MENSAGENS, COLUNAS_MENSAGEM,
+                MensagemContract.MensagemEntry._ID + " = ?", new String[]{String.valueOf(id)},
+                null, null, null, null, cancellationSignal)) {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new Mensagem(cursor.getLong(0), cursor.getString(1), cursor.getString(2), cursor.getInt(3) == 1);
+        }
+    }
+
+    /**
+     * Monta um Cursor em memória com as colunas pedidas de uma mensagem.
+     * @param projection As colunas pedidas, ou null para todas.
+     * @param mensagem A mensagem, ou null para um Cursor vazio.
+     * @throws IllegalArgumentException se alguma coluna pedida não existir.
+     */
+    // Converte uma mensagem do cache em um Cursor com a projeção pedida.
+    private static Cursor criarCursor(@Nullable String[] projection, @Nullable Mensagem mensagem) {
+        String[] colunas = projection != null ? projection : COLUNAS_MENSAGEM;
+        MatrixCursor cursor = new MatrixCursor(colunas, 1);
+        if (mensagem == null) {
+            return cursor;
+        }
+
+        Object[] linha = new Object[colunas.length];
+        for (int i = 0; i < colunas.length; i++) {
+            switch (colunas[i]) {
+                case MensagemContract.MensagemEntry._ID:
+                    linha[i] = mensagem.getId();
+                    break;
+                case MensagemContract.MensagemEntry.COLUMN_TEXTO:
+                    linha[i] = mensagem.getTexto();
+                    break;
+                case MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW:
+                    linha[i] = previa(mensagem.getTexto());
+                    break;
+                case MensagemContract.MensagemEntry.COLUMN_AUTOR:
+                    linha[i] = mensagem.getAutor();
+                    break;
+                case MensagemContract.MensagemEntry.COLUMN_FAVORITA:
+                    linha[i] = mensagem.isFavorita() ? 1 : 0;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Coluna desconhecida: " + colunas[i]);
+            }
+        }
+        cursor.addRow(linha);
         return cursor;
     }
 
+    /**
+     * Troca a coluna virtual {@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW} da
+     * projeção pela expressão que a calcula.
+     * @param projection As colunas pedidas, ou null para todas.
+     * @return A projeção a ser usada na consulta (a própria, se não pedir a coluna virtual).
+     */
+    // Traduz a coluna virtual do texto curto para SQL.
+    @Nullable
+    private static String[] traduzirProjecao(@Nullable String[] projection) {
+        if (projection == null) return null;
+        String[] traduzida = projection;
+        for (int i = 0; i < projection.length; i++) {
+            if (MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW.equals(projection[i])) {
+                if (traduzida == projection) {
+                    traduzida = projection.clone();
+                }
+                traduzida[i] = SQL_TEXTO_PREVIEW;
+            }
+        }
+        return traduzida;
+    }
+
+    // Corta o texto como SQL_TEXTO_PREVIEW, para as linhas servidas pelo cache.
+    private static String previa(String texto) {
+        int limite = MensagemContract.MensagemEntry.TAMANHO_TEXTO_PREVIEW;
+        // O SQLite conta caracteres (code points), não unidades UTF-16.
+        if (texto == null || texto.length() <= limite || texto.codePointCount(0, texto.length()) <= limite) {
+            return texto;
+        }
+        return texto.substring(0, texto.offsetByCodePoints(0, limite)) + "…";
+    }
+
+    // Indica se a URI pede também as mensagens arquivadas.
+    private static boolean incluiArquivo(Uri uri) {
+        return uri.getBooleanQueryParameter(MensagemContract.MensagemEntry.PARAM_INCLUIR_ARQUIVO, false);
+    }
+
+    /**
+     * Converte o valor de um parâmetro de consulta em um número não negativo.
+     * @param valor O valor do parâmetro.
+     * @param nome O nome do parâmetro, usado na mensagem de erro.
+     * @return O número lido.
+     * @throws IllegalArgumentException se o valor não for um número não negativo.
+     */
+    // Valida e converte um parâmetro numérico da URI.
+    private static long lerNumeroNaoNegativo(String valor, String nome) {
+        try {
+            long numero = Long.parseLong(valor);
+            if (numero >= 0) {
+                return numero;
+            }
+        } catch (NumberFormatException ignored) {
+            // Tratado abaixo, junto com os números negativos.
+        }
+        throw new IllegalArgumentException("Valor inválido para " + nome + ": " + valor);
+    }
+
     /**
      * Insere uma nova linha no provedor.
+     * As inserções avulsas na tabela de mensagens passam pela {@link FilaEscrita}: a chamada
+     * espera a confirmação de uma transação que pode incluir inserções de outros clientes.
+     * <p>
+     * A espera bloqueia a thread de Binder do chamador, como qualquer escrita síncrona de um
+     * ContentProvider; quem não pode bloquear deve chamar de uma thread de fundo (como faz o
+     * {@code ClienteMensagens}, que devolve um futuro). A espera é limitada a
+     * {@link #ESPERA_MAXIMA_INSERCAO_MS}: depois disso a inserção falha com
+     * {@link IllegalStateException}. Se ainda estava na fila, ela é descartada; se já estava sendo
+     * gravada, pode ter sido confirmada, e repeti-la é seguro, pois a mensagem repetida devolve a
+     * URI da que já existe.
      * @param uri A URI do conteúdo para a inserção.
      * @param values Os valores a serem inseridos.
      * @return A URI da nova linha inserida.
@@ -100,13 +821,54 @@ public class MensagemProvider extends ContentProvider {
     @Nullable
     @Override
     public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
-        final SQLiteDatabase db = mDbHelper.getWritableDatabase();
-        final int match = sUriMatcher.match(uri);
+        long inicio = System.nanoTime();
+        int match = sUriMatcher.match(uri);
+        try {
+            Uri returnUri = inserirLinha(match, uri, values);
+            mMetricas.registrar(MetricasProvedor.Operacao.INSERCAO, match, inicio, 1);
+            return returnUri;
+        } catch (RuntimeException e) {
+            mMetricas.registrarErro(MetricasProvedor.Operacao.INSERCAO, match, inicio);
+            throw e;
+        }
+    }
+
+    // Insere uma linha na tabela correspondente ao código da URI.
+    private Uri inserirLinha(int match, Uri uri, ContentValues values) {
+        Lote lote = mLoteAtual.get();
+        if (match == MENSAGENS && lote == null && podeUsarInsercaoCompilada(values)) {
+            // Inserção avulsa: vai para a fila, que a grava junto com as que chegarem ao mesmo tempo.
+            return aguardarInsercao(mFilaEscrita.enfileirar(values));
+        }
+
+        final SQLiteDatabase db = bancoParaEscrita();
         Uri returnUri;
 
         if (match == MENSAGENS) {
-            long id = db.insert(MensagemContract.MensagemEntry.TABLE_NAME, null, values);
+            long id;
+            if (lote != null && podeUsarInsercaoCompilada(values)) {
+                // Dentro de um lote, reutiliza o comando compilado em vez de montar o SQL a cada linha.
+                if (lote.insercao == null) {
+                    lote.insercao = new InsercaoCompilada(db);
+                }
+                id = inserirCompilado(lote.insercao, values);
+                if (id == -1) {
+                    return uriDaRepetida(idRepetida(lote.insercao));
+                }
+            } else {
+                Long hash = hashConteudo(values);
+                ContentValues colunas = paraColunasDaTabela(db, values);
+                if (hash != null) {
+                    colunas.put(MensagemDbHelper.COLUNA_HASH_CONTEUDO, hash);
+                }
+                id = db.insertWithOnConflict(MensagemContract.MensagemEntry.TABLE_NAME, null, colunas,
+                        SQLiteDatabase.CONFLICT_IGNORE);
+                if (id == -1 && hash != null) {
+                    return uriDaRepetida(idPorHash(db, hash));
+                }
+            }
             if (id > 0) {
+                invalidarLinha(id);
                 // Se a inserção for bem-sucedida, cria a URI específica para o novo registro.
                 returnUri = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
             } else {
@@ -116,11 +878,458 @@ public class MensagemProvider extends ContentProvider {
             throw new UnsupportedOperationException("URI desconhecida: " + uri);
         }
 
-        // Notifica todos os 'listeners' que os dados nesta URI mudaram.
-        getContext().getContentResolver().notifyChange(uri, null);
+        // Notifica todos os 'listeners' que a nova linha foi inserida.
+        notificarMudanca(returnUri, ContentResolver.NOTIFY_INSERT);
+        if (lote == null) {
+            // Dentro de um lote, o arquivamento é agendado no fim do applyBatch.
+            mArquivamento.agendar();
+        }
         return returnUri;
     }
 
+    /**
+     * Espera uma inserção da {@link FilaEscrita}, por no máximo {@link #ESPERA_MAXIMA_INSERCAO_MS}.
+     * A notificação e a invalidação do cache já foram feitas pelo {@link GravadorMensagens}.
+     * @param futuro O futuro devolvido pela fila.
+     * @return A URI da nova linha.
+     * @throws RuntimeException O mesmo erro que a inserção lançou na thread de escrita.
+     * @throws IllegalStateException se a confirmação não chegar a tempo ou a espera for interrompida.
+     */
+    // Bloqueia até a confirmação do grupo e repassa o erro da inserção, se houver.
+    private static Uri aguardarInsercao(CompletableFuture<Uri> futuro) {
+        try {
+            return futuro.get(ESPERA_MAXIMA_INSERCAO_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Um pedido cancelado que ainda está na fila não é gravado.
+            futuro.cancel(false);
+            throw new IllegalStateException("A inserção não foi confirmada em " + ESPERA_MAXIMA_INSERCAO_MS + " ms");
+        } catch (InterruptedException e) {
+            futuro.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("A espera pela inserção foi interrompida", e);
+        }
+    }
+
+    /**
+     * Grava os grupos de inserções da {@link FilaEscrita} com os comandos compilados e, depois
+     * da confirmação, avança a geração de escrita e envia uma única notificação pelo grupo.
+     * Uma mensagem repetida recebe a URI da que já existia e fica fora da notificação.
+     */
+    private final class GravadorMensagens implements FilaEscrita.Gravador {
+        /** As linhas novas do último grupo gravado (usado só pela thread de escrita). */
+        private final List<Uri> mNovas = new ArrayList<>();
+        /** As mensagens repetidas do último grupo gravado. */
+        private int mRepetidas;
+
+        // Insere as linhas do grupo com os comandos compilados.
+        @Override
+        public long[] gravar(SQLiteDatabase db, List<ContentValues> linhas) {
+            // Um grupo que falhou é gravado de novo, um pedido por vez: só vale o último.
+            mNovas.clear();
+            mRepetidas = 0;
+            long[] ids = new long[linhas.size()];
+            try (InsercaoCompilada insercao = new InsercaoCompilada(db)) {
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = inserirCompilado(insercao, linhas.get(i));
+                    if (ids[i] == -1) {
+                        ids[i] = idRepetida(insercao);
+                        mRepetidas++;
+                    } else {
+                        mNovas.add(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, ids[i]));
+                    }
+                }
+            }
+            return ids;
+        }
+
+        // Descarta leituras concorrentes e notifica as linhas novas.
+        @Override
+        public void confirmado(List<Uri> uris) {
+            mDuplicadas.addAndGet(mRepetidas);
+            if (mNovas.isEmpty()) {
+                return;
+            }
+            // IDs novos não estão no cache, mas a geração avança para descartar leituras concorrentes.
+            synchronized (mCacheLinhas) {
+                mGeracaoEscrita.incrementAndGet();
+            }
+            enviarNotificacao(mNovas, ContentResolver.NOTIFY_INSERT);
+            mArquivamento.agendar();
+        }
+    }
+
+    /**
+     * Insere várias linhas de uma só vez.
+     * Todas as linhas são gravadas em uma única transação, reutilizando o mesmo comando de
+     * inserção compilado, e os 'listeners' recebem uma única notificação ao final.
+     * Apenas as colunas de texto, autor e favorita são consideradas. As mensagens repetidas
+     * (já gravadas, ou repetidas no próprio lote) são ignoradas e contadas em
+     * {@link MensagemContract#CHAVE_METRICAS_DUPLICADAS}.
+     * @param uri A URI do conteúdo para a inserção.
+     * @param values Os valores de cada linha a ser inserida.
+     * @return O número de linhas inseridas, sem as repetidas.
+     */
+    // Manipula as requisições de inserção em lote.
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        long inicio = System.nanoTime();
+        int match = sUriMatcher.match(uri);
+        try {
+            int inseridas = inserirEmLote(match, uri, values);
+            mMetricas.registrar(MetricasProvedor.Operacao.INSERCAO, match, inicio, inseridas);
+            return inseridas;
+        } catch (RuntimeException e) {
+            mMetricas.registrarErro(MetricasProvedor.Operacao.INSERCAO, match, inicio);
+            throw e;
+        }
+    }
+
+    // Insere todas as linhas em uma única transação.
+    private int inserirEmLote(int match, Uri uri, ContentValues[] values) {
+        if (match != MENSAGENS) {
+            throw new UnsupportedOperationException("URI desconhecida: " + uri);
+        }
+
+        final SQLiteDatabase db = bancoParaEscrita();
+        List<Uri> inseridas = new ArrayList<>(values.length);
+        db.beginTransaction();
+        try (InsercaoCompilada insercao = new InsercaoCompilada(db)) {
+            for (ContentValues linha : values) {
+                long id = inserirCompilado(insercao, linha);
+                if (id == -1) {
+                    // Repetida: o índice único já a recusou, e ela só é contada.
+                    continue;
+                }
+                inseridas.add(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            // Sem setTransactionSuccessful(), a transação é desfeita e nenhuma linha é gravada.
+            db.endTransaction();
+            // IDs novos não estão no cache, mas a geração avança para descartar leituras concorrentes.
+            synchronized (mCacheLinhas) {
+                mGeracaoEscrita.incrementAndGet();
+            }
+        }
+
+        mDuplicadas.addAndGet(values.length - inseridas.size());
+        if (!inseridas.isEmpty()) {
+            enviarNotificacao(inseridas, ContentResolver.NOTIFY_INSERT);
+            mArquivamento.agendar();
+        }
+        return inseridas.size();
+    }
+
+    /**
+     * Aplica uma lista de operações de forma atômica.
+     * Todas as operações são executadas em uma única transação: se uma delas falhar, nenhuma
+     * é gravada. As notificações de mudança das operações individuais são agrupadas por tipo
+     * (inserção, atualização) e enviadas apenas se o lote for concluído com sucesso.
+     * @param operations As operações a serem aplicadas.
+     * @return Os resultados de cada operação.
+     * @throws OperationApplicationException se alguma operação falhar.
+     */
+    // Executa um lote de operações dentro de uma única transação.
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        if (mLoteAtual.get() != null) {
+            // Lote aninhado: já está dentro de uma transação.
+            return super.applyBatch(operations);
+        }
+
+        final SQLiteDatabase db = bancoParaEscrita();
+        Lote lote = new Lote();
+        ContentProviderResult[] resultados;
+        mLoteAtual.set(lote);
+        db.beginTransaction();
+        try {
+            resultados = super.applyBatch(operations);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mLoteAtual.remove();
+            if (lote.insercao != null) {
+                lote.insercao.close();
+            }
+            // As operações invalidaram as linhas antes da confirmação, e uma leitura concorrente pode
+            // ter reposto no cache a versão antiga, já com a nova geração: remove-as de novo.
+            invalidarLinhas(lote.ids);
+        }
+
+        for (Map.Entry<Integer, List<Uri>> mudanca : lote.mudancas.entrySet()) {
+            enviarNotificacao(mudanca.getValue(), mudanca.getKey());
+        }
+        if (lote.mudancas.containsKey(ContentResolver.NOTIFY_INSERT)) {
+            mArquivamento.agendar();
+        }
+        return resultados;
+    }
+
+    /**
+     * Verifica se os valores contêm apenas as colunas tratadas pelo comando de inserção compilado.
+     * @param values Os valores a serem inseridos.
+     * @return true se o comando compilado pode ser usado para esta linha.
+     */
+    // Decide se a linha pode usar o comando de inserção compilado.
+    private static boolean podeUsarInsercaoCompilada(@Nullable ContentValues values) {
+        if (values == null) return false;
+        for (String coluna : values.keySet()) {
+            if (!MensagemContract.MensagemEntry.COLUMN_TEXTO.equals(coluna)
+                    && !MensagemContract.MensagemEntry.COLUMN_AUTOR.equals(coluna)
+                    && !MensagemContract.MensagemEntry.COLUMN_FAVORITA.equals(coluna)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vincula os valores de uma linha aos comandos de inserção compilados e os executa.
+     * @param insercao Os comandos compilados do autor e da mensagem.
+     * @param values Os valores da linha.
+     * @return O ID da nova linha, ou -1 se a mensagem repete uma que já existe
+     *         ({@link #idRepetida(InsercaoCompilada)} retorna o ID dela).
+     * @throws IllegalArgumentException se o texto ou o autor estiverem ausentes.
+     */
+    // Insere uma linha usando o comando compilado.
+    private static long inserirCompilado(InsercaoCompilada insercao, ContentValues values) {
+        String texto = values.getAsString(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+        String autor = values.getAsString(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        if (texto == null || autor == null) {
+            throw new IllegalArgumentException("Texto e autor são obrigatórios");
+        }
+        Boolean favorita = values.getAsBoolean(MensagemContract.MensagemEntry.COLUMN_FAVORITA);
+        return inserirCompilado(insercao, texto, autor, favorita != null && favorita);
+    }
+
+    // Insere uma linha a partir dos valores de cada coluna usando os comandos compilados.
+    private static long inserirCompilado(InsercaoCompilada insercao, String texto, String autor, boolean favorita) {
+        insercao.autor.bindString(1, autor);
+        insercao.autor.executeInsert();
+
+        insercao.hash = HashConteudo.calcular(texto, autor);
+        insercao.mensagem.clearBindings();
+        insercao.mensagem.bindString(1, texto);
+        insercao.mensagem.bindString(2, autor);
+        insercao.mensagem.bindLong(3, favorita ? 1 : 0);
+        insercao.mensagem.bindLong(4, insercao.hash);
+        return insercao.mensagem.executeInsert();
+    }
+
+    /**
+     * Retorna o ID da mensagem que fez os comandos compilados ignorarem a última inserção.
+     * @param insercao Os comandos da inserção ignorada.
+     * @return O ID da mensagem existente, recente ou arquivada.
+     * @throws android.database.SQLException se ela não existir (a inserção falhou por outro motivo).
+     */
+    // Busca pelo hash a mensagem repetida, com o comando compilado.
+    private static long idRepetida(InsercaoCompilada insercao) {
+        insercao.repetida.bindLong(1, insercao.hash);
+        try {
+            return insercao.repetida.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            throw new android.database.SQLException("Falha ao inserir linha em " + MensagemContract.MensagemEntry.CONTENT_URI);
+        }
+    }
+
+    /**
+     * Retorna o ID da mensagem, recente ou arquivada, com o hash de conteúdo informado.
+     * @throws android.database.SQLException se ela não existir (a inserção falhou por outro motivo).
+     */
+    // Busca pelo hash a mensagem repetida, sem comando compilado.
+    private static long idPorHash(SQLiteDatabase db, long hash) {
+        try {
+            return DatabaseUtils.longForQuery(db, SQL_ID_POR_HASH, new String[]{String.valueOf(hash)});
+        } catch (SQLiteDoneException e) {
+            throw new android.database.SQLException("Falha ao inserir linha em " + MensagemContract.MensagemEntry.CONTENT_URI);
+        }
+    }
+
+    /**
+     * Conta uma inserção ignorada por repetir uma mensagem existente e retorna a URI dessa
+     * mensagem, como se ela tivesse acabado de ser inserida. Nada mudou: não há notificação.
+     * @param id O ID da mensagem existente.
+     */
+    // Trata a inserção de uma mensagem repetida.
+    private Uri uriDaRepetida(long id) {
+        mDuplicadas.incrementAndGet();
+        return ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
+    }
+
+    /**
+     * Calcula o {@link HashConteudo} dos valores de uma inserção.
+     * @param values Os valores do cliente.
+     * @return O hash, ou null se faltar o texto ou o autor (a inserção vai falhar).
+     */
+    // Calcula o hash de conteúdo, se houver texto e autor.
+    @Nullable
+    private static Long hashConteudo(@Nullable ContentValues values) {
+        if (values == null) return null;
+        String texto = values.getAsString(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+        String autor = values.getAsString(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        return texto == null || autor == null ? null : HashConteudo.calcular(texto, autor);
+    }
+
+    /**
+     * Converte os valores recebidos do cliente (com a coluna pública {@code autor}) para as
+     * colunas da tabela, que guarda apenas o ID do autor. O autor é cadastrado se ainda não existir.
+     * @param db O banco de dados, onde o autor é cadastrado.
+     * @param values Os valores do cliente.
+     * @return Os valores com {@link MensagemDbHelper#COLUNA_AUTOR_ID} no lugar de {@code autor}.
+     * @throws IllegalArgumentException se o autor informado for nulo.
+     */
+    // Troca o nome do autor pelo seu ID na tabela de autores.
+    @Nullable
+    private static ContentValues paraColunasDaTabela(SQLiteDatabase db, @Nullable ContentValues values) {
+        if (values == null || !values.containsKey(MensagemContract.MensagemEntry.COLUMN_AUTOR)) {
+            return values;
+        }
+        String autor = values.getAsString(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        if (autor == null) {
+            throw new IllegalArgumentException("O autor não pode ser nulo");
+        }
+        ContentValues convertidos = new ContentValues(values);
+        convertidos.remove(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        db.execSQL(SQL_INSERIR_AUTOR, new Object[]{autor});
+        convertidos.put(MensagemDbHelper.COLUNA_AUTOR_ID,
+                DatabaseUtils.longForQuery(db, SQL_ID_AUTOR, new String[]{autor}));
+        return convertidos;
+    }
+
+    /**
+     * Converte os valores de uma atualização para as colunas da tabela e, se o texto ou o autor
+     * mudarem, acrescenta o novo {@link HashConteudo}. O valor que não muda é lido da linha.
+     * @param db O banco de dados, em transação.
+     * @param id O ID da linha atualizada.
+     * @param values Os valores do cliente.
+     * @return Os valores para a tabela de mensagens.
+     */
+    // Recalcula o hash de conteúdo quando o texto ou o autor mudam.
+    @Nullable
+    private static ContentValues comHashConteudo(SQLiteDatabase db, long id, @Nullable ContentValues values) {
+        ContentValues colunas = paraColunasDaTabela(db, values);
+        if (values == null || (!values.containsKey(MensagemContract.MensagemEntry.COLUMN_TEXTO)
+                && !values.containsKey(MensagemContract.MensagemEntry.COLUMN_AUTOR))) {
+            return colunas;
+        }
+        String texto = values.getAsString(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+        String autor = values.getAsString(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        if (texto == null || autor == null) {
+            try (Cursor cursor = db.query(MensagemDbHelper.VISAO_MENSAGENS, new String[]{
+                            MensagemContract.MensagemEntry.COLUMN_TEXTO, MensagemContract.MensagemEntry.COLUMN_AUTOR},
+                    MensagemContract.MensagemEntry._ID + " = ?", new String[]{String.valueOf(id)}, null, null, null)) {
+                if (!cursor.moveToFirst()) {
+                    // A linha não existe (ou é uma lápide): a atualização não vai alterar nada.
+                    return colunas;
+                }
+                if (!values.containsKey(MensagemContract.MensagemEntry.COLUMN_TEXTO)) texto = cursor.getString(0);
+                if (!values.containsKey(MensagemContract.MensagemEntry.COLUMN_AUTOR)) autor = cursor.getString(1);
+            }
+        }
+        if (texto == null || autor == null) {
+            // Um texto nulo é recusado pela própria tabela.
+            return colunas;
+        }
+        ContentValues comHash = new ContentValues(colunas);
+        comHash.put(MensagemDbHelper.COLUNA_HASH_CONTEUDO, HashConteudo.calcular(texto, autor));
+        return comHash;
+    }
+
+    /**
+     * Remove uma linha do cache após uma escrita nela. Deve ser chamado depois que a escrita
+     * foi feita no banco. Dentro de um lote, o ID também é guardado para ser removido de novo
+     * quando a transação terminar.
+     * @param id O ID da linha escrita.
+     */
+    // Invalida a linha no cache e avança a geração de escrita.
+    private void invalidarLinha(long id) {
+        Lote lote = mLoteAtual.get();
+        if (lote != null) {
+            lote.ids.add(id);
+        }
+        // Sincronizado com a gravação no cache, para que uma leitura concorrente não reponha a versão antiga.
+        synchronized (mCacheLinhas) {
+            mGeracaoEscrita.incrementAndGet();
+            mCacheLinhas.remove(id);
+        }
+    }
+
+    // Remove várias linhas do cache e avança a geração de escrita uma única vez.
+    private void invalidarLinhas(Collection<Long> ids) {
+        Lote lote = mLoteAtual.get();
+        if (lote != null) {
+            lote.ids.addAll(ids);
+        }
+        synchronized (mCacheLinhas) {
+            mGeracaoEscrita.incrementAndGet();
+            for (long id : ids) {
+                mCacheLinhas.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Notifica a mudança de várias linhas. Dentro de um lote (applyBatch), as notificações são
+     * adiadas para o fim do lote; fora dele, é enviada uma única notificação agrupada.
+     * @param ids Os IDs das linhas que mudaram.
+     * @param flags O tipo da mudança.
+     */
+    // Notifica as linhas alteradas por uma operação sobre várias linhas.
+    private void notificarLinhas(List<Long> ids, int flags) {
+        if (ids.isEmpty()) return;
+        List<Uri> uris = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            uris.add(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id));
+        }
+        if (mLoteAtual.get() != null) {
+            for (Uri uri : uris) {
+                notificarMudanca(uri, flags);
+            }
+        } else {
+            enviarNotificacao(uris, flags);
+        }
+    }
+
+    /**
+     * Notifica os 'listeners' de que uma linha mudou. Dentro de um lote (applyBatch),
+     * a notificação é adiada para o final do lote.
+     * @param uri A URI da linha que mudou.
+     * @param flags O tipo da mudança ({@link ContentResolver#NOTIFY_INSERT}, {@link ContentResolver#NOTIFY_UPDATE}
+     *              ou {@link ContentResolver#NOTIFY_DELETE}).
+     */
+    // Envia (ou adia, dentro de um lote) a notificação de mudança de uma linha.
+    private void notificarMudanca(Uri uri, int flags) {
+        Lote lote = mLoteAtual.get();
+        if (lote != null) {
+            lote.mudancas.computeIfAbsent(flags, f -> new ArrayList<>()).add(uri);
+        } else {
+            getContext().getContentResolver().notifyChange(uri, null, flags);
+        }
+    }
+
+    /**
+     * Envia uma única notificação com as URIs de todas as linhas que mudaram, para que os
+     * observadores possam buscar apenas essas linhas. Se forem muitas, notifica a URI da tabela.
+     * @param uris As URIs das linhas que mudaram.
+     * @param flags O tipo da mudança (NOTIFY_INSERT, NOTIFY_UPDATE ou NOTIFY_DELETE).
+     */
+    // Envia uma notificação agrupada para várias linhas.
+    private void enviarNotificacao(Collection<Uri> uris, int flags) {
+        ContentResolver resolver = getContext().getContentResolver();
+        if (uris.size() > MAX_URIS_POR_NOTIFICACAO) {
+            resolver.notifyChange(MensagemContract.MensagemEntry.CONTENT_URI, null, flags);
+        } else {
+            resolver.notifyChange(uris, null, flags);
+        }
+    }
+
     /**
      * Atualiza dados existentes no provedor.
      * @param uri A URI a ser atualizada.
@@ -128,55 +1337,658 @@ public class MensagemProvider extends ContentProvider {
      * @param selection Um filtro opcional para aplicar à atualização.
      * @param selectionArgs Os valores para o filtro de seleção.
      * @return O número de linhas atualizadas.
+     * @throws android.database.sqlite.SQLiteConstraintException se o novo texto ou autor tornar a
+     *         mensagem igual a outra que já existe.
      */
     // Manipula as requisições de atualização de dados existentes.
     @Override
     public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection, @Nullable String[] selectionArgs) {
-        final SQLiteDatabase db = mDbHelper.getWritableDatabase();
-        final int match = sUriMatcher.match(uri);
+        long inicio = System.nanoTime();
+        int match = sUriMatcher.match(uri);
+        try {
+            int rowsUpdated = atualizar(match, uri, values);
+            mMetricas.registrar(MetricasProvedor.Operacao.ATUALIZACAO, match, inicio, rowsUpdated);
+            return rowsUpdated;
+        } catch (RuntimeException e) {
+            mMetricas.registrarErro(MetricasProvedor.Operacao.ATUALIZACAO, match, inicio);
+            throw e;
+        }
+    }
+
+    // Atualiza a linha indicada pela URI.
+    private int atualizar(int match, Uri uri, ContentValues values) {
+        final SQLiteDatabase db = bancoParaEscrita();
         int rowsUpdated;
+        long id;
 
         if (match == MENSAGEM_COM_ID) {
             // Extrai o ID da URI para atualizar a linha correta.
-            String id = uri.getLastPathSegment();
-            rowsUpdated = db.update(MensagemContract.MensagemEntry.TABLE_NAME, values, MensagemContract.MensagemEntry._ID + "=?", new String[]{id});
+            id = ContentUris.parseId(uri);
+            String[] args = {String.valueOf(id)};
+            db.beginTransaction();
+            try {
+                if (incluiArquivo(uri)) {
+                    // Uma mensagem arquivada volta para a tabela de mensagens antes de ser alterada.
+                    desarquivar(db, MensagemContract.MensagemEntry._ID + " = ?", args);
+                }
+                // Mensagens excluídas (lápides) não podem mais ser alteradas.
+                rowsUpdated = db.update(MensagemContract.MensagemEntry.TABLE_NAME, comHashConteudo(db, id, values),
+                        MensagemContract.MensagemEntry._ID + "=? AND " + MensagemDbHelper.COLUNA_EXCLUIDA + " = 0", args);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            // Remove a versão antiga da linha do cache.
+            invalidarLinha(id);
         } else {
             throw new UnsupportedOperationException("URI desconhecida para atualização: " + uri);
         }
 
-        // Se alguma linha foi atualizada, notifica os 'listeners'.
+        // Se alguma linha foi atualizada, notifica os 'listeners' com a URI da própria linha.
         if (rowsUpdated != 0) {
-            getContext().getContentResolver().notifyChange(uri, null);
+            notificarMudanca(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id), ContentResolver.NOTIFY_UPDATE);
         }
         return rowsUpdated;
     }
 
     /**
      * Exclui dados do provedor.
-     * (Não implementado neste exemplo)
-     * @param uri A URI a ser excluída.
-     * @param selection Um filtro opcional.
+     * A exclusão apenas marca as linhas como lápides ({@link MensagemDbHelper#COLUNA_EXCLUIDA}), o que
+     * custa uma atualização por linha: elas deixam de aparecer nas consultas, na busca e no sorteio
+     * imediatamente, e são apagadas de fato depois, em lotes, pela {@link CompactacaoExclusoes}.
+     * @param uri A URI da tabela ({@code mensagens}) ou de uma mensagem ({@code mensagens/#}).
+     * @param selection Um filtro opcional sobre as colunas do contrato.
      * @param selectionArgs Os valores para o filtro.
      * @return O número de linhas excluídas.
      */
     // Manipula as requisições de exclusão.
     @Override
     public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
-        // Lógica de exclusão vai ser implementada aqui. Não necessário neste exemplo.
-        return 0;
+        long inicio = System.nanoTime();
+        int match = sUriMatcher.match(uri);
+        try {
+            int excluidas = excluir(match, uri, selection, selectionArgs);
+            mMetricas.registrar(MetricasProvedor.Operacao.EXCLUSAO, match, inicio, excluidas);
+            return excluidas;
+        } catch (RuntimeException e) {
+            mMetricas.registrarErro(MetricasProvedor.Operacao.EXCLUSAO, match, inicio);
+            throw e;
+        }
+    }
+
+    // Marca como lápides as linhas escolhidas pela URI e pelo filtro, e agenda a compactação.
+    // Com o parâmetro de arquivo, apaga também as linhas arquivadas que atendem ao filtro.
+    private int excluir(int match, Uri uri, String selection, String[] selectionArgs) {
+        if (match == MENSAGEM_COM_ID) {
+            selection = DatabaseUtils.concatenateWhere(selection,
+                    MensagemContract.MensagemEntry._ID + " = " + ContentUris.parseId(uri));
+        } else if (match != MENSAGENS) {
+            throw new UnsupportedOperationException("URI desconhecida para exclusão: " + uri);
+        }
+
+        // O filtro do cliente usa as colunas do contrato (inclusive 'autor'), então as linhas
+        // são escolhidas pela visão, que já não contém as lápides.
+        String filtro = MensagemContract.MensagemEntry._ID + " IN (SELECT " + MensagemContract.MensagemEntry._ID +
+                " FROM " + MensagemDbHelper.VISAO_MENSAGENS + (TextUtils.isEmpty(selection) ? "" : " WHERE " + selection) + ")";
+        ContentValues lapide = new ContentValues();
+        lapide.put(MensagemDbHelper.COLUNA_EXCLUIDA, 1);
+        // Sem o hash, a lápide sai do índice único e a mesma mensagem pode ser inserida de novo.
+        lapide.putNull(MensagemDbHelper.COLUNA_HASH_CONTEUDO);
+
+        final SQLiteDatabase db = bancoParaEscrita();
+        List<Long> excluidas = new ArrayList<>();
+        db.beginTransaction();
+        try {
+            if (incluiArquivo(uri)) {
+                // O arquivo não tem índices de busca nem de sorteio: as linhas são apagadas de vez.
+                String filtroArquivo = MensagemContract.MensagemEntry._ID + " IN (SELECT " + MensagemContract.MensagemEntry._ID +
+                        " FROM " + MensagemDbHelper.VISAO_ARQUIVO + (TextUtils.isEmpty(selection) ? "" : " WHERE " + selection) + ")";
+                try (Cursor cursor = db.query(MensagemDbHelper.TABELA_ARQUIVO,
+                        new String[]{MensagemContract.MensagemEntry._ID}, filtroArquivo, selectionArgs, null, null, null)) {
+                    while (cursor.moveToNext()) {
+                        excluidas.add(cursor.getLong(0));
+                    }
+                }
+                if (!excluidas.isEmpty()) {
+                    db.delete(MensagemDbHelper.TABELA_ARQUIVO, filtroArquivo, selectionArgs);
+                }
+            }
+            int arquivadas = excluidas.size();
+            // Primeiro as linhas que vão ser excluídas, para invalidar o cache e notificar só essas.
+            try (Cursor cursor = db.query(MensagemContract.MensagemEntry.TABLE_NAME,
+                    new String[]{MensagemContract.MensagemEntry._ID}, filtro, selectionArgs, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    excluidas.add(cursor.getLong(0));
+                }
+            }
+            if (excluidas.size() > arquivadas) {
+                db.update(MensagemContract.MensagemEntry.TABLE_NAME, lapide, filtro, selectionArgs);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            invalidarLinhas(excluidas);
+        }
+
+        if (!excluidas.isEmpty()) {
+            notificarLinhas(excluidas, ContentResolver.NOTIFY_DELETE);
+            mCompactacao.agendar();
+        }
+        return excluidas.size();
+    }
+
+    /**
+     * Apaga imediatamente todas as lápides, sem esperar a compactação agendada.
+     * Usado pelos testes que verificam o resultado da compactação.
+     */
+    @VisibleForTesting
+    void compactarAgora() {
+        mCompactacao.executar();
+    }
+
+    /**
+     * Move de volta para a tabela de mensagens as linhas arquivadas que atendem ao filtro, com o
+     * mesmo ID. Os triggers devolvem as linhas à busca e ao sorteio; os totais não mudam.
+     * Deve ser chamado dentro de uma transação.
+     * @param db O banco de dados, em transação.
+     * @param filtro Um filtro sobre as colunas da {@link MensagemDbHelper#TABELA_ARQUIVO}.
+     * @param args Os valores para o filtro.
+     */
+    // Copia as linhas do arquivo para a tabela de mensagens e as apaga do arquivo.
+    private static void desarquivar(SQLiteDatabase db, String filtro, String[] args) {
+        db.execSQL("INSERT INTO " + MensagemContract.MensagemEntry.TABLE_NAME + " (" + ArquivamentoMensagens.COLUNAS +
+                ") SELECT " + ArquivamentoMensagens.COLUNAS + " FROM " + MensagemDbHelper.TABELA_ARQUIVO +
+                " WHERE " + filtro, args);
+        db.delete(MensagemDbHelper.TABELA_ARQUIVO, filtro, args);
+    }
+
+    /**
+     * Recebe os IDs de um lote movido pelo {@link ArquivamentoMensagens}: remove as linhas do
+     * cache (as consultas sem o parâmetro de arquivo não as veem mais) e notifica os observadores.
+     * A notificação é uma só por lote, na URI da tabela e sem tipo de mudança: as linhas não
+     * mudaram, só de tabela, e um observador que as consultasse uma a uma faria até
+     * {@link ArquivamentoMensagens#LINHAS_POR_LOTE} consultas para nada.
+     * @param ids Os IDs das linhas arquivadas.
+     */
+    // Invalida as linhas que foram para o arquivo e notifica a tabela uma única vez.
+    private void linhasArquivadas(List<Long> ids) {
+        invalidarLinhas(ids);
+        getContext().getContentResolver().notifyChange(MensagemContract.MensagemEntry.CONTENT_URI, null, 0);
+    }
+
+    /**
+     * Arquiva imediatamente as mensagens além das {@code quentes} mais recentes, sem esperar o
+     * arquivamento agendado. Usado pelos testes com tabelas pequenas e pelos testes do
+     * ViewModel, que alcançam o provedor instalado por outro pacote.
+     * @param quentes Quantas mensagens não favoritas permanecem na tabela de mensagens.
+     * @return O número de mensagens arquivadas.
+     */
+    @VisibleForTesting(otherwise = VisibleForTesting.PACKAGE_PRIVATE)
+    public int arquivarAgora(int quentes) {
+        return mArquivamento.executar(quentes);
+    }
+
+    /**
+     * Desliga o arquivamento agendado após as inserções; {@link #arquivarAgora(int)} continua
+     * funcionando. Usado pelos testes, para que as contagens não mudem no meio de uma medição.
+     */
+    @VisibleForTesting
+    void desligarArquivamentoAutomatico() {
+        mArquivamento.encerrar();
+    }
+
+    /**
+     * Esvazia o cache de resultados de consultas.
+     * Usado pelos benchmarks que medem o custo das consultas no banco de dados.
+     */
+    @VisibleForTesting
+    void descartarCacheConsultas() {
+        mCacheConsultas.limpar();
+    }
+
+    /**
+     * Executa um método específico do provedor, fora das operações CRUD.
+     * Suporta {@link MensagemContract#METODO_ESTATISTICAS_CACHE}, {@link MensagemContract#METODO_METRICAS}
+     * e {@link MensagemContract#METODO_DEFINIR_FAVORITAS}.
+     * @param method O nome do método.
+     * @param arg Um argumento opcional ({@link MensagemContract#ARG_ZERAR_METRICAS} para zerar as métricas).
+     * @param extras Argumentos adicionais (os IDs e o estado de {@link MensagemContract#METODO_DEFINIR_FAVORITAS}).
+     * @return Um Bundle com o resultado do método.
+     */
+    // Manipula as chamadas de métodos específicos do provedor.
+    @Nullable
+    @Override
+    public Bundle call(@NonNull String method, @Nullable String arg, @Nullable Bundle extras) {
+        if (MensagemContract.METODO_ESTATISTICAS_CACHE.equals(method)) {
+            Bundle resultado = new Bundle();
+            resultado.putLong(MensagemContract.CHAVE_CACHE_ACERTOS, mCacheLinhas.hitCount());
+            resultado.putLong(MensagemContract.CHAVE_CACHE_FALHAS, mCacheLinhas.missCount());
+            resultado.putLong(MensagemContract.CHAVE_CACHE_DESCARTES, mCacheLinhas.evictionCount());
+            resultado.putInt(MensagemContract.CHAVE_CACHE_TAMANHO, mCacheLinhas.size());
+            resultado.putInt(MensagemContract.CHAVE_CACHE_CAPACIDADE, mCacheLinhas.maxSize());
+            long acertos = mCacheConsultas.acertos();
+            long consultas = acertos + mCacheConsultas.falhas();
+            resultado.putLong(MensagemContract.CHAVE_CACHE_CONSULTAS_ACERTOS, acertos);
+            resultado.putLong(MensagemContract.CHAVE_CACHE_CONSULTAS_FALHAS, consultas - acertos);
+            resultado.putDouble(MensagemContract.CHAVE_CACHE_CONSULTAS_TAXA_ACERTOS,
+                    consultas == 0 ? 0 : (double) acertos / consultas);
+            resultado.putInt(MensagemContract.CHAVE_CACHE_CONSULTAS_BYTES, mCacheConsultas.bytes());
+            resultado.putInt(MensagemContract.CHAVE_CACHE_CONSULTAS_CAPACIDADE_BYTES, CacheConsultas.CAPACIDADE_BYTES);
+            return resultado;
+        }
+        if (MensagemContract.METODO_METRICAS.equals(method)) {
+            return metricasComoBundle(MensagemContract.ARG_ZERAR_METRICAS.equals(arg));
+        }
+        if (MensagemContract.METODO_DEFINIR_FAVORITAS.equals(method)) {
+            long inicio = System.nanoTime();
+            try {
+                int alteradas = definirFavoritas(extras);
+                mMetricas.registrar(MetricasProvedor.Operacao.ATUALIZACAO, MENSAGENS, inicio, alteradas);
+                Bundle resultado = new Bundle();
+                resultado.putInt(MensagemContract.CHAVE_LINHAS_ALTERADAS, alteradas);
+                return resultado;
+            } catch (RuntimeException e) {
+                mMetricas.registrarErro(MetricasProvedor.Operacao.ATUALIZACAO, MENSAGENS, inicio);
+                throw e;
+            }
+        }
+        return super.call(method, arg, extras);
+    }
+
+    /**
+     * Marca ou desmarca várias mensagens como favoritas em uma única transação.
+     * Os IDs são aplicados em comandos {@code UPDATE ... WHERE _id IN (...)} de até
+     * {@link #IDS_POR_COMANDO} IDs. Só as linhas que realmente mudam de estado são atualizadas
+     * (o que também poupa o trabalho dos gatilhos dos índices de sorteio), e os observadores
+     * recebem uma única notificação com essas linhas.
+     * @param extras Os extras com {@link MensagemContract#CHAVE_IDS} e {@link MensagemContract#CHAVE_FAVORITA}.
+     * @return O número de mensagens que mudaram de estado.
+     * @throws IllegalArgumentException se algum dos extras estiver ausente.
+     */
+    // Aplica o novo estado de favorita a todos os IDs e notifica uma única vez.
+    private int definirFavoritas(@Nullable Bundle extras) {
+        long[] ids = extras != null ? extras.getLongArray(MensagemContract.CHAVE_IDS) : null;
+        if (ids == null || !extras.containsKey(MensagemContract.CHAVE_FAVORITA)) {
+            throw new IllegalArgumentException("Informe os extras " + MensagemContract.CHAVE_IDS +
+                    " (long[]) e " + MensagemContract.CHAVE_FAVORITA + " (boolean)");
+        }
+        String estado = extras.getBoolean(MensagemContract.CHAVE_FAVORITA) ? "1" : "0";
+        ContentValues valores = new ContentValues();
+        valores.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, extras.getBoolean(MensagemContract.CHAVE_FAVORITA));
+
+        final SQLiteDatabase db = bancoParaEscrita();
+        List<Long> alteradas = new ArrayList<>();
+        db.beginTransaction();
+        try {
+            for (int de = 0; de < ids.length; de += IDS_POR_COMANDO) {
+                int ate = Math.min(ids.length, de + IDS_POR_COMANDO);
+                String[] args = new String[ate - de + 1];
+                StringBuilder filtro = new StringBuilder(MensagemDbHelper.COLUNA_EXCLUIDA).append(" = 0 AND ")
+                        .append(MensagemContract.MensagemEntry.COLUMN_FAVORITA)
+                        .append(" != ? AND ").append(MensagemContract.MensagemEntry._ID).append(" IN (");
+                args[0] = estado;
+                for (int i = de; i < ate; i++) {
+                    filtro.append(i > de ? ",?" : "?");
+                    args[i - de + 1] = Long.toString(ids[i]);
+                }
+                filtro.append(')');
+
+                // Primeiro as linhas que vão mudar, para invalidar o cache e notificar só essas.
+                try (Cursor cursor = db.query(MensagemContract.MensagemEntry.TABLE_NAME,
+                        new String[]{MensagemContract.MensagemEntry._ID}, filtro.toString(), args, null, null, null)) {
+                    while (cursor.moveToNext()) {
+                        alteradas.add(cursor.getLong(0));
+                    }
+                }
+                db.update(MensagemContract.MensagemEntry.TABLE_NAME, valores, filtro.toString(), args);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            invalidarLinhas(alteradas);
+        }
+
+        notificarLinhas(alteradas, ContentResolver.NOTIFY_UPDATE);
+        return alteradas.size();
+    }
+
+    /**
+     * Monta o Bundle de {@link MensagemContract#METODO_METRICAS}: a duração da janela, os tempos
+     * da abertura do banco, os contadores da fila de escrita, as mensagens repetidas ignoradas
+     * e um Bundle por série, na chave
+     * {@code "<operação>:<caminho>"} (ex: {@code "query:mensagens/#"}).
+     * @param zerar Se true, as métricas são zeradas depois de lidas.
+     * @return O instantâneo das métricas.
+     */
+    // Converte o instantâneo das métricas em um Bundle.
+    private Bundle metricasComoBundle(boolean zerar) {
+        Bundle resultado = new Bundle();
+        long janelaMs = mMetricas.duracaoJanelaMs();
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_JANELA_MS, janelaMs);
+        long[] fila = mFilaEscrita.instantaneo(zerar);
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_FILA_TRANSACOES, fila[0]);
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_FILA_LINHAS, fila[1]);
+        resultado.putDouble(MensagemContract.CHAVE_METRICAS_FILA_TRANSACOES_POR_SEGUNDO,
+                janelaMs > 0 ? fila[0] * 1000.0 / janelaMs : 0);
+        resultado.putDouble(MensagemContract.CHAVE_METRICAS_FILA_MEDIA_POR_TRANSACAO,
+                fila[0] > 0 ? (double) fila[1] / fila[0] : 0);
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_ABERTURA_BANCO_MS, mAquecimento.aberturaMs());
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_ESPERA_BANCO_MS, mAquecimento.esperaMs());
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_ESPERAS_BANCO, mAquecimento.esperas());
+        resultado.putLong(MensagemContract.CHAVE_METRICAS_DUPLICADAS, zerar ? mDuplicadas.getAndSet(0) : mDuplicadas.get());
+        for (MetricasProvedor.Instantaneo serie : mMetricas.instantaneo(zerar)) {
+            Bundle valores = new Bundle();
+            valores.putLong(MensagemContract.CHAVE_METRICA_CHAMADAS, serie.chamadas);
+            valores.putLong(MensagemContract.CHAVE_METRICA_ERROS, serie.erros);
+            valores.putLong(MensagemContract.CHAVE_METRICA_LINHAS, serie.linhas);
+            valores.putLong(MensagemContract.CHAVE_METRICA_BYTES_TEXTO, serie.bytesTexto);
+            valores.putLong(MensagemContract.CHAVE_METRICA_MEDIA_US, serie.mediaMicros());
+            valores.putLong(MensagemContract.CHAVE_METRICA_P50_US, serie.percentilMicros(0.50));
+            valores.putLong(MensagemContract.CHAVE_METRICA_P99_US, serie.percentilMicros(0.99));
+            valores.putLong(MensagemContract.CHAVE_METRICA_MAXIMO_US, serie.maximoMicros);
+            resultado.putBundle(serie.operacao.nome + ":" + caminhoDoCodigo(serie.codigo), valores);
+        }
+        return resultado;
+    }
+
+    // Retorna o caminho (relativo à autoridade) de um código do UriMatcher, para as chaves das métricas.
+    private static String caminhoDoCodigo(int codigo) {
+        switch (codigo) {
+            case MENSAGENS: return MensagemContract.PATH_MENSAGENS;
+            case MENSAGEM_COM_ID: return MensagemContract.PATH_MENSAGENS + "/#";
+            case BUSCA: return MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_BUSCA;
+            case ALEATORIA: return MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_ALEATORIA;
+            case EXPORTAR: return MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_EXPORTAR;
+            case IMPORTAR: return MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_IMPORTAR;
+            case ESTATISTICAS: return MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_ESTATISTICAS;
+            case ESTATISTICAS_AUTORES: return MensagemContract.PATH_MENSAGENS + "/" + MensagemContract.PATH_ESTATISTICAS +
+                    "/" + MensagemContract.PATH_AUTORES;
+            default: return "desconhecida";
+        }
+    }
+
+    /**
+     * Abre um fluxo de exportação ({@code mensagens/export}, modo "r") ou de importação
+     * ({@code mensagens/import}, modo "w") através de um pipe. Os dados não passam por Cursors
+     * nem por transações de Binder: uma thread do provedor escreve (ou lê) a outra ponta do pipe
+     * enquanto o cliente lê (ou escreve), sem manter o arquivo inteiro em memória.
+     * @param uri A URI de exportação ou de importação, com o parâmetro opcional de formato.
+     * @param mode O modo de abertura: "r" para exportar, "w" para importar.
+     * @return A ponta do pipe entregue ao cliente.
+     * @throws FileNotFoundException se a URI ou o modo não forem suportados.
+     */
+    // Abre os pipes de exportação e importação.
+    @Nullable
+    @Override
+    public ParcelFileDescriptor openFile(@NonNull Uri uri, @NonNull String mode) throws FileNotFoundException {
+        switch (sUriMatcher.match(uri)) {
+            case EXPORTAR:
+                if (!"r".equals(mode)) {
+                    throw new FileNotFoundException("A exportação só pode ser aberta para leitura: " + mode);
+                }
+                TransferenciaMensagens.Formato formato = TransferenciaMensagens.Formato.daUri(uri);
+                return openPipeHelper(uri, formato.tipoMime, null, formato, this::escreverExportacao);
+            case IMPORTAR:
+                if (!mode.startsWith("w")) {
+                    throw new FileNotFoundException("A importação só pode ser aberta para escrita: " + mode);
+                }
+                return abrirImportacao(TransferenciaMensagens.Formato.daUri(uri));
+            default:
+                throw new FileNotFoundException("URI desconhecida: " + uri);
+        }
+    }
+
+    /**
+     * Abre a exportação no tipo MIME pedido pelo cliente (ex: {@code "text/csv"} ou {@code "*}{@code /*"}).
+     * Se a URI informa o formato e ele atende ao filtro, esse formato é usado.
+     * @param uri A URI de exportação.
+     * @param mimeTypeFilter O filtro de tipo MIME aceito pelo cliente.
+     * @param opts Opções adicionais (não usadas).
+     * @return Um descritor com a ponta de leitura do pipe e tamanho desconhecido.
+     * @throws FileNotFoundException se nenhum formato atender ao filtro.
+     */
+    // Escolhe o formato da exportação pelo tipo MIME pedido.
+    @Nullable
+    @Override
+    public AssetFileDescriptor openTypedAssetFile(@NonNull Uri uri, @NonNull String mimeTypeFilter, @Nullable Bundle opts)
+            throws FileNotFoundException {
+        if (sUriMatcher.match(uri) != EXPORTAR) {
+            return super.openTypedAssetFile(uri, mimeTypeFilter, opts);
+        }
+        TransferenciaMensagens.Formato formato = TransferenciaMensagens.Formato.daUri(uri);
+        if (!ClipDescription.compareMimeTypes(formato.tipoMime, mimeTypeFilter)) {
+            formato = TransferenciaMensagens.Formato.doFiltroMime(mimeTypeFilter);
+        }
+        if (formato == null) {
+            throw new FileNotFoundException("Tipo não suportado pela exportação: " + mimeTypeFilter);
+        }
+        return new AssetFileDescriptor(openPipeHelper(uri, formato.tipoMime, opts, formato, this::escreverExportacao),
+                0, AssetFileDescriptor.UNKNOWN_LENGTH);
+    }
+
+    /**
+     * Retorna os tipos MIME em que a URI pode ser aberta por {@link #openTypedAssetFile}.
+     * @param uri A URI consultada.
+     * @param mimeTypeFilter O filtro de tipo MIME.
+     * @return Os tipos da exportação que atendem ao filtro, ou null para as demais URIs.
+     */
+    // Anuncia os formatos da exportação.
+    @Nullable
+    @Override
+    public String[] getStreamTypes(@NonNull Uri uri, @NonNull String mimeTypeFilter) {
+        if (sUriMatcher.match(uri) != EXPORTAR) {
+            return null;
+        }
+        List<String> tipos = new ArrayList<>();
+        for (TransferenciaMensagens.Formato formato : TransferenciaMensagens.Formato.values()) {
+            if (ClipDescription.compareMimeTypes(formato.tipoMime, mimeTypeFilter)) {
+                tipos.add(formato.tipoMime);
+            }
+        }
+        return tipos.isEmpty() ? null : tipos.toArray(new String[0]);
+    }
+
+    /**
+     * Escreve a exportação na ponta de escrita do pipe. Executado em uma thread de fundo
+     * pelo {@link #openPipeHelper}, que fecha o pipe ao final.
+     */
+    // Escreve todas as mensagens no pipe de exportação.
+    private void escreverExportacao(@NonNull ParcelFileDescriptor saida, @NonNull Uri uri, @NonNull String mimeType,
+                                    @Nullable Bundle opts, @NonNull TransferenciaMensagens.Formato formato) {
+        FileOutputStream fluxo = new FileOutputStream(saida.getFileDescriptor());
+        try {
+            TransferenciaMensagens.Estatisticas estatisticas =
+                    TransferenciaMensagens.exportar(bancoParaLeitura(), fluxo, formato);
+            Log.i(TAG, "Exportação " + formato.nome + ": " + estatisticas.descrever());
+        } catch (IOException e) {
+            // O cliente fechou a ponta de leitura antes do fim (ex: cancelou a cópia).
+            Log.w(TAG, "Exportação interrompida", e);
+        } finally {
+            try {
+                fluxo.close();
+            } catch (IOException ignored) {
+                // O pipe já foi fechado pelo outro lado.
+            }
+        }
+    }
+
+    /**
+     * Cria o pipe da importação e começa a consumi-lo em segundo plano.
+     * O pipe é "confiável": se a importação falhar, o cliente recebe o erro ao fechar a sua ponta.
+     * @return A ponta de escrita, entregue ao cliente.
+     */
+    // Abre o pipe de importação e agenda a sua leitura.
+    private ParcelFileDescriptor abrirImportacao(TransferenciaMensagens.Formato formato) throws FileNotFoundException {
+        ParcelFileDescriptor[] pipe;
+        try {
+            pipe = ParcelFileDescriptor.createReliablePipe();
+        } catch (IOException e) {
+            throw new FileNotFoundException("Não foi possível criar o pipe de importação: " + e.getMessage());
+        }
+        ParcelFileDescriptor leitura = pipe[0];
+        EXECUTOR_IMPORTACAO.execute(() -> consumirImportacao(leitura, formato));
+        return pipe[1];
+    }
+
+    /**
+     * Lê o pipe de importação até o fim e grava as mensagens em transações de até
+     * {@link #LOTE_IMPORTACAO} linhas. Os lotes já concluídos permanecem gravados se a importação
+     * falhar no meio; apenas o lote em andamento, ainda no buffer, é descartado.
+     */
+    // Consome o pipe de importação e grava as linhas em lotes.
+    private void consumirImportacao(ParcelFileDescriptor leitura, TransferenciaMensagens.Formato formato) {
+        ImportacaoEmLotes destino = new ImportacaoEmLotes(bancoParaEscrita());
+        InputStream entrada = new ParcelFileDescriptor.AutoCloseInputStream(leitura);
+        try {
+            TransferenciaMensagens.Estatisticas estatisticas = TransferenciaMensagens.importar(entrada, formato, destino);
+            destino.concluir();
+            Log.i(TAG, "Importação " + formato.nome + ": " + estatisticas.descrever() +
+                    ", " + destino.repetidas + " repetidas ignoradas");
+            entrada.close();
+        } catch (IOException | RuntimeException e) {
+            destino.descartar();
+            Log.e(TAG, "Importação interrompida após " + destino.gravadas + " linhas", e);
+            try {
+                // Avisa o cliente, que verá o erro ao fechar a sua ponta do pipe.
+                leitura.closeWithError("Importação interrompida: " + e.getMessage());
+            } catch (IOException ignored) {
+                // O cliente já fechou a sua ponta.
+            }
+        } finally {
+            if (destino.gravadas > 0) {
+                // Uma importação costuma ter muitas linhas: notifica a URI da tabela.
+                getContext().getContentResolver().notifyChange(
+                        MensagemContract.MensagemEntry.CONTENT_URI, null, ContentResolver.NOTIFY_INSERT);
+                mArquivamento.agendar();
+            }
+        }
+    }
+
+    /**
+     * Grava as mensagens de uma importação em transações de até {@link #LOTE_IMPORTACAO} linhas,
+     * reutilizando os comandos de inserção compilados. Usado por uma única thread.
+     * <p>
+     * As linhas de cada lote são lidas do pipe para um buffer em memória, e a transação só é aberta
+     * quando o buffer está completo (ou no fim da importação). Assim nenhuma transação fica aberta
+     * enquanto se espera o cliente: um importador lento não segura a conexão de escrita e não
+     * bloqueia a {@link FilaEscrita} nem as atualizações e exclusões.
+     */
+    private final class ImportacaoEmLotes implements TransferenciaMensagens.Destino {
+        private final SQLiteDatabase db;
+        private InsercaoCompilada insercao;
+        /** Lote lido do pipe e ainda não gravado. */
+        private final String[] textos = new String[LOTE_IMPORTACAO];
+        private final String[] autores = new String[LOTE_IMPORTACAO];
+        private final boolean[] favoritas = new boolean[LOTE_IMPORTACAO];
+        /** Linhas no buffer do lote. */
+        private int pendentes;
+        /** Linhas gravadas em transações já concluídas. */
+        long gravadas;
+        /** Linhas repetidas em transações já concluídas. */
+        long repetidas;
+
+        ImportacaoEmLotes(SQLiteDatabase db) {
+            this.db = db;
+        }
+
+        @Override
+        public void gravar(String texto, String autor, boolean favorita) {
+            textos[pendentes] = texto;
+            autores[pendentes] = autor;
+            favoritas[pendentes] = favorita;
+            if (++pendentes == LOTE_IMPORTACAO) {
+                gravarLote();
+            }
+        }
+
+        // Grava o buffer em uma única transação e avança a geração de escrita do cache.
+        private void gravarLote() {
+            if (insercao == null) {
+                insercao = new InsercaoCompilada(db);
+            }
+            int repetidasLote = 0;
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < pendentes; i++) {
+                    if (inserirCompilado(insercao, textos[i], autores[i], favoritas[i]) == -1) {
+                        // A mensagem já existe: conta para o tamanho do lote, mas não como gravada.
+                        repetidasLote++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            gravadas += pendentes - repetidasLote;
+            repetidas += repetidasLote;
+            mDuplicadas.addAndGet(repetidasLote);
+            limparBuffer();
+            synchronized (mCacheLinhas) {
+                mGeracaoEscrita.incrementAndGet();
+            }
+        }
+
+        // Grava o último lote e libera os comandos compilados.
+        void concluir() {
+            try {
+                if (pendentes > 0) {
+                    gravarLote();
+                }
+            } finally {
+                fechar();
+            }
+        }
+
+        // Descarta o lote em andamento, que ainda não foi gravado, e libera os comandos compilados.
+        void descartar() {
+            limparBuffer();
+            fechar();
+        }
+
+        // Esvazia o buffer, sem manter referências aos textos do lote anterior.
+        private void limparBuffer() {
+            Arrays.fill(textos, 0, pendentes, null);
+            Arrays.fill(autores, 0, pendentes, null);
+            pendentes = 0;
+        }
+
+        private void fechar() {
+            if (insercao != null) {
+                insercao.close();
+                insercao = null;
+            }
+        }
+    }
+
+    /**
+     * Encerra o provedor, parando a compactação e o arquivamento e fechando o banco de dados.
+     * Não é chamado pelo sistema em produção, apenas em testes que criam o provedor manualmente.
+     */
+    // Fecha o helper do banco de dados.
+    @Override
+    public void shutdown() {
+        // Não fecha o banco no meio da abertura.
+        mAquecimento.aguardar();
+        mFilaEscrita.encerrar();
+        mCompactacao.encerrar();
+        mArquivamento.encerrar();
+        mDbHelper.close();
     }
 
     /**
      * Retorna o tipo MIME dos dados na URI fornecida.
-     * (Não implementado neste exemplo)
+     * Apenas as URIs de exportação e importação têm tipo: o do formato pedido.
      * @param uri A URI para a qual consultar o tipo.
-     * @return Uma String com o tipo MIME.
+     * @return Uma String com o tipo MIME, ou null para as demais URIs.
      */
     // Retorna o tipo MIME da URI.
     @Nullable
     @Override
     public String getType(@NonNull Uri uri) {
-        // Não é necessário para este exemplo.
+        int match = sUriMatcher.match(uri);
+        if (match == EXPORTAR || match == IMPORTAR) {
+            return TransferenciaMensagens.Formato.daUri(uri).tipoMime;
+        }
         return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,248 @@
+package com.example.contentprovidergerador.data.provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uso do {@link MensagemProvider}, separadas por operação e por código do UriMatcher:
+ * número de chamadas e de erros, linhas afetadas ou retornadas, bytes de texto entregues e um
+ * histograma de latência.
+ * <p>
+ * Todos os contadores são livres de bloqueio ({@link LongAdder} e {@link AtomicLongArray}), então
+ * registrar uma chamada não disputa nenhum lock com as outras threads do Binder. Em troca, um
+ * instantâneo tirado durante chamadas em andamento pode não ser exatamente consistente entre os
+ * campos (ex: uma chamada já contada cuja latência ainda não entrou no histograma).
+ */
+final class MetricasProvedor {
+
+    /** As operações medidas, com o nome usado nas chaves do Bundle de métricas. */
+    enum Operacao {
+        CONSULTA("query"),
+        INSERCAO("insert"),
+        ATUALIZACAO("update"),
+        EXCLUSAO("delete");
+
+        final String nome;
+
+        Operacao(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Serie> series = new ConcurrentHashMap<>();
+    /** Instante (System.nanoTime) do início da janela atual, isto é, da última vez que as métricas foram zeradas. */
+    private volatile long inicioJanela = System.nanoTime();
+
+    /**
+     * Retorna a série de uma operação em uma URI, criando-a no primeiro uso.
+     * @param operacao A operação.
+     * @param codigo O código do UriMatcher (ou {@code UriMatcher.NO_MATCH}).
+     * @return A série correspondente.
+     */
+    // Busca (ou cria) a série da combinação operação + código.
+    Serie serie(Operacao operacao, int codigo) {
+        Integer chave = operacao.ordinal() << 16 | (codigo & 0xFFFF);
+        Serie serie = series.get(chave);
+        if (serie == null) {
+            serie = series.computeIfAbsent(chave, k -> new Serie(operacao, codigo));
+        }
+        return serie;
+    }
+
+    /**
+     * Registra uma chamada concluída.
+     * @param operacao A operação.
+     * @param codigo O código do UriMatcher.
+     * @param inicio O instante do início da chamada, obtido de {@link System#nanoTime()}.
+     * @param linhas As linhas afetadas ou retornadas.
+     * @return A série onde a chamada foi registrada.
+     */
+    // Conta a chamada, as linhas e a latência.
+    Serie registrar(Operacao operacao, int codigo, long inicio, long linhas) {
+        Serie serie = serie(operacao, codigo);
+        serie.registrar(System.nanoTime() - inicio, linhas, false);
+        return serie;
+    }
+
+    /**
+     * Registra uma chamada que terminou com exceção.
+     * @param operacao A operação.
+     * @param codigo O código do UriMatcher.
+     * @param inicio O instante do início da chamada, obtido de {@link System#nanoTime()}.
+     */
+    // Conta a chamada como erro, também no histograma de latência.
+    void registrarErro(Operacao operacao, int codigo, long inicio) {
+        serie(operacao, codigo).registrar(System.nanoTime() - inicio, 0, true);
+    }
+
+    /**
+     * Tira um instantâneo de todas as séries que já tiveram chamadas.
+     * @param zerar Se true, os contadores são zerados ao serem lidos e uma nova janela começa.
+     * @return O instantâneo de cada série.
+     */
+    // Lê (e opcionalmente zera) todas as séries.
+    List<Instantaneo> instantaneo(boolean zerar) {
+        List<Instantaneo> resultado = new ArrayList<>(series.size());
+        for (Serie serie : series.values()) {
+            resultado.add(serie.instantaneo(zerar));
+        }
+        if (zerar) {
+            inicioJanela = System.nanoTime();
+        }
+        return resultado;
+    }
+
+    /** @return O tempo desde o início da janela atual (criação ou última vez que as métricas foram zeradas), em ms. */
+    long duracaoJanelaMs() {
+        return (System.nanoTime() - inicioJanela) / 1_000_000;
+    }
+
+    /**
+     * Contadores de uma operação em um código do UriMatcher.
+     * <p>
+     * O histograma tem faixas exatas de 0 a 3 µs e, a partir daí, 4 faixas por potência de 2
+     * (ex: 8–9, 10–11, 12–13 e 14–15 µs). Os percentis são aproximados pelo limite superior da
+     * faixa, com erro de no máximo 25%.
+     */
+    static final class Serie {
+        /** Número de faixas do histograma; a última acumula tudo acima de ~35 minutos. */
+        static final int FAIXAS = 128;
+
+        final Operacao operacao;
+        final int codigo;
+        private final LongAdder chamadas = new LongAdder();
+        private final LongAdder erros = new LongAdder();
+        private final LongAdder linhas = new LongAdder();
+        private final LongAdder bytesTexto = new LongAdder();
+        private final LongAdder somaMicros = new LongAdder();
+        private final LongAccumulator maximoMicros = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray faixas = new AtomicLongArray(FAIXAS);
+
+        Serie(Operacao operacao, int codigo) {
+            this.operacao = operacao;
+            this.codigo = codigo;
+        }
+
+        // Conta uma chamada e a coloca na faixa de latência correspondente.
+        void registrar(long nanos, long linhasDaChamada, boolean erro) {
+            long micros = Math.max(0, nanos / 1000);
+            chamadas.increment();
+            if (erro) {
+                erros.increment();
+            }
+            linhas.add(linhasDaChamada);
+            somaMicros.add(micros);
+            maximoMicros.accumulate(micros);
+            faixas.incrementAndGet(faixa(micros));
+        }
+
+        /**
+         * Soma bytes de texto (UTF-8) entregues ao cliente. Chamado à medida que o Cursor é lido,
+         * depois do fim da chamada de consulta.
+         */
+        void adicionarBytesTexto(long bytes) {
+            bytesTexto.add(bytes);
+        }
+
+        // Lê os contadores, zerando cada um na mesma operação se pedido.
+        Instantaneo instantaneo(boolean zerar) {
+            long[] contagens = new long[FAIXAS];
+            for (int i = 0; i < FAIXAS; i++) {
+                contagens[i] = zerar ? faixas.getAndSet(i, 0) : faixas.get(i);
+            }
+            return new Instantaneo(operacao, codigo,
+                    zerar ? chamadas.sumThenReset() : chamadas.sum(),
+                    zerar ? erros.sumThenReset() : erros.sum(),
+                    zerar ? linhas.sumThenReset() : linhas.sum(),
+                    zerar ? bytesTexto.sumThenReset() : bytesTexto.sum(),
+                    zerar ? somaMicros.sumThenReset() : somaMicros.sum(),
+                    zerar ? maximoMicros.getThenReset() : maximoMicros.get(),
+                    contagens);
+        }
+
+        /**
+         * Retorna a faixa do histograma de uma latência.
+         * @param micros A latência em microssegundos (não negativa).
+         * @return O índice da faixa, de 0 a {@link #FAIXAS} - 1.
+         */
+        // Faixas exatas até 3 µs; depois, os 2 bits seguintes ao mais alto escolhem uma de 4 subfaixas.
+        static int faixa(long micros) {
+            if (micros < 4) return (int) micros;
+            int oitava = 63 - Long.numberOfLeadingZeros(micros);
+            int subfaixa = (int) (micros >>> (oitava - 2)) & 3;
+            return Math.min(FAIXAS - 1, (oitava - 1) * 4 + subfaixa);
+        }
+
+        /**
+         * Retorna o limite superior (exclusivo) de uma faixa do histograma.
+         * @param faixa O índice da faixa.
+         * @return O limite em microssegundos.
+         */
+        // Inverte o cálculo de faixa(): o menor valor da próxima subfaixa.
+        static long limiteSuperior(int faixa) {
+            if (faixa < 4) return faixa + 1;
+            int oitava = faixa / 4 + 1;
+            int subfaixa = faixa % 4;
+            return (4L + subfaixa + 1) << (oitava - 2);
+        }
+    }
+
+    /** Os valores de uma série em um instante. */
+    static final class Instantaneo {
+        final Operacao operacao;
+        final int codigo;
+        final long chamadas;
+        final long erros;
+        final long linhas;
+        final long bytesTexto;
+        final long somaMicros;
+        final long maximoMicros;
+        private final long[] faixas;
+
+        Instantaneo(Operacao operacao, int codigo, long chamadas, long erros, long linhas, long bytesTexto,
+                    long somaMicros, long maximoMicros, long[] faixas) {
+            this.operacao = operacao;
+            this.codigo = codigo;
+            this.chamadas = chamadas;
+            this.erros = erros;
+            this.linhas = linhas;
+            this.bytesTexto = bytesTexto;
+            this.somaMicros = somaMicros;
+            this.maximoMicros = maximoMicros;
+            this.faixas = faixas;
+        }
+
+        /**
+         * Retorna o percentil de latência, aproximado pelo limite superior da faixa em que ele cai.
+         * Nunca é maior que a latência máxima registrada.
+         * @param fracao O percentil, entre 0 e 1 (ex: 0.99).
+         * @return A latência em microssegundos, ou 0 se não houve chamadas.
+         */
+        // Percorre o histograma acumulando até alcançar a posição do percentil.
+        long percentilMicros(double fracao) {
+            long total = 0;
+            for (long contagem : faixas) {
+                total += contagem;
+            }
+            if (total == 0) return 0;
+            long posicao = Math.max(1, (long) Math.ceil(fracao * total));
+            long acumulado = 0;
+            for (int i = 0; i < faixas.length; i++) {
+                acumulado += faixas[i];
+                if (acumulado >= posicao) {
+                    return Math.min(Serie.limiteSuperior(i) - 1, maximoMicros);
+                }
+            }
+            return maximoMicros;
+        }
+
+        /** @return A latência média em microssegundos, ou 0 se não houve chamadas. */
+        long mediaMicros() {
+            return chamadas == 0 ? 0 : somaMicros / chamadas;
+        }
+    }
+}
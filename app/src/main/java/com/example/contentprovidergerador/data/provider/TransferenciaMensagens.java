@@ -0,0 +1,403 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ClipDescription;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exportação e importação de mensagens em fluxos de bytes (NDJSON ou CSV), usadas pelas URIs
+ * {@code mensagens/export} e {@code mensagens/import} do {@link MensagemProvider}.
+ * <p>
+ * Os dois sentidos usam memória constante: a exportação lê a tabela em páginas por chave
+ * ({@code _ID}) e escreve cada linha direto no fluxo, e a importação entrega cada linha lida ao
+ * {@link Destino} assim que ela é reconhecida, sem acumular o arquivo.
+ */
+final class TransferenciaMensagens {
+
+    /** Número de linhas lidas do banco por consulta durante a exportação. */
+    private static final int PAGINA_EXPORTACAO = 1000;
+
+    /** Tamanho dos buffers de leitura e escrita dos fluxos, em caracteres. */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    /** Colunas exportadas, na ordem do cabeçalho CSV. */
+    private static final String[] COLUNAS = {
+            MensagemContract.MensagemEntry._ID,
+            MensagemContract.MensagemEntry.COLUMN_TEXTO,
+            MensagemContract.MensagemEntry.COLUMN_AUTOR,
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA
+    };
+
+    private TransferenciaMensagens() {}
+
+    /** Os formatos de arquivo suportados. */
+    enum Formato {
+        NDJSON(MensagemContract.FORMATO_NDJSON, MensagemContract.TIPO_MIME_NDJSON),
+        CSV(MensagemContract.FORMATO_CSV, MensagemContract.TIPO_MIME_CSV);
+
+        /** O nome do formato no parâmetro {@link MensagemContract.MensagemEntry#PARAM_FORMATO}. */
+        final String nome;
+        /** O tipo MIME do formato. */
+        final String tipoMime;
+
+        Formato(String nome, String tipoMime) {
+            this.nome = nome;
+            this.tipoMime = tipoMime;
+        }
+
+        /**
+         * Lê o formato do parâmetro {@link MensagemContract.MensagemEntry#PARAM_FORMATO} da URI.
+         * @return O formato pedido, ou NDJSON se o parâmetro não foi informado.
+         * @throws IllegalArgumentException se o formato for desconhecido.
+         */
+        static Formato daUri(Uri uri) {
+            String nome = uri.getQueryParameter(MensagemContract.MensagemEntry.PARAM_FORMATO);
+            if (nome == null) return NDJSON;
+            for (Formato formato : values()) {
+                if (formato.nome.equalsIgnoreCase(nome)) return formato;
+            }
+            throw new IllegalArgumentException("Formato desconhecido: " + nome);
+        }
+
+        /**
+         * Escolhe o primeiro formato cujo tipo MIME atende ao filtro (ex: {@code "text/*"}).
+         * @return O formato, ou null se nenhum atender.
+         */
+        static Formato doFiltroMime(String filtro) {
+            for (Formato formato : values()) {
+                if (ClipDescription.compareMimeTypes(formato.tipoMime, filtro)) return formato;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Recebe as mensagens reconhecidas durante uma importação, uma de cada vez.
+     */
+    interface Destino {
+        /**
+         * Grava uma mensagem importada.
+         * @throws IOException se a gravação falhar e a importação deve ser interrompida.
+         */
+        void gravar(String texto, String autor, boolean favorita) throws IOException;
+    }
+
+    /**
+     * Resultado de uma transferência: linhas, bytes e tempo decorrido.
+     */
+    static final class Estatisticas {
+        final long linhas;
+        final long bytes;
+        final long nanos;
+
+        Estatisticas(long linhas, long bytes, long nanos) {
+            this.linhas = linhas;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        /** @return Um resumo legível com a vazão em MB/s e em linhas/s. */
+        String descrever() {
+            double segundos = Math.max(nanos, 1) / 1e9;
+            return String.format(Locale.ROOT, "%d linhas, %.2f MB em %.0f ms (%.1f MB/s, %.0f linhas/s)",
+                    linhas, bytes / 1e6, segundos * 1e3, bytes / 1e6 / segundos, linhas / segundos);
+        }
+    }
+
+    /**
+     * Escreve todas as mensagens no fluxo, em ordem de {@code _ID}, incluindo as arquivadas.
+     * O fluxo não é fechado aqui, apenas esvaziado (flush) ao final.
+     * @param db O banco de dados.
+     * @param saida O fluxo de destino.
+     * @param formato O formato do arquivo.
+     * @return As estatísticas da exportação.
+     * @throws IOException se a escrita falhar (ex: o leitor fechou o pipe).
+     */
+    // Lê a tabela em páginas por chave e escreve cada linha no formato pedido.
+    static Estatisticas exportar(SQLiteDatabase db, OutputStream saida, Formato formato) throws IOException {
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        ContadorSaida contador = new ContadorSaida(saida);
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(contador, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+
+        if (formato == Formato.CSV) {
+            escritor.write(String.join(",", COLUNAS));
+            escritor.write('\n');
+        }
+
+        long linhas = 0;
+        long ultimoId = 0;
+        int lidas;
+        do {
+            lidas = 0;
+            try (Cursor cursor = db.query(MensagemDbHelper.VISAO_MENSAGENS_COM_ARQUIVO, COLUNAS,
+                    MensagemContract.MensagemEntry._ID + " > ?", new String[]{String.valueOf(ultimoId)},
+                    null, null, MensagemContract.MensagemEntry._ID + " ASC", String.valueOf(PAGINA_EXPORTACAO))) {
+                while (cursor.moveToNext()) {
+                    ultimoId = cursor.getLong(0);
+                    escreverLinha(escritor, formato, ultimoId, cursor.getString(1), cursor.getString(2), cursor.getInt(3) == 1);
+                    lidas++;
+                }
+            }
+            linhas += lidas;
+        } while (lidas == PAGINA_EXPORTACAO);
+
+        escritor.flush();
+        return new Estatisticas(linhas, contador.bytes, SystemClock.elapsedRealtimeNanos() - inicio);
+    }
+
+    /**
+     * Lê as mensagens do fluxo e as entrega ao destino, uma a uma.
+     * @param entrada O fluxo de origem, em UTF-8.
+     * @param formato O formato do arquivo.
+     * @param destino Onde cada mensagem lida é gravada.
+     * @return As estatísticas da importação.
+     * @throws IOException se a leitura falhar ou o conteúdo for inválido.
+     */
+    // Reconhece as linhas do arquivo e as repassa ao destino.
+    static Estatisticas importar(InputStream entrada, Formato formato, Destino destino) throws IOException {
+        long inicio = SystemClock.elapsedRealtimeNanos();
+        ContadorEntrada contador = new ContadorEntrada(entrada);
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(contador, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+
+        long linhas = formato == Formato.CSV ? importarCsv(leitor, destino) : importarNdjson(leitor, destino);
+        return new Estatisticas(linhas, contador.bytes, SystemClock.elapsedRealtimeNanos() - inicio);
+    }
+
+    // Lê um objeto JSON por linha, ignorando linhas em branco.
+    private static long importarNdjson(BufferedReader leitor, Destino destino) throws IOException {
+        long linhas = 0;
+        long numeroLinha = 0;
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            if (linha.trim().isEmpty()) continue;
+            try {
+                JSONObject objeto = new JSONObject(linha);
+                destino.gravar(
+                        objeto.getString(MensagemContract.MensagemEntry.COLUMN_TEXTO),
+                        objeto.getString(MensagemContract.MensagemEntry.COLUMN_AUTOR),
+                        lerFavorita(objeto.opt(MensagemContract.MensagemEntry.COLUMN_FAVORITA)));
+            } catch (JSONException e) {
+                throw new IOException("Linha " + numeroLinha + " inválida: " + e.getMessage(), e);
+            }
+            linhas++;
+        }
+        return linhas;
+    }
+
+    // Lê o cabeçalho para localizar as colunas e depois uma mensagem por registro.
+    private static long importarCsv(BufferedReader leitor, Destino destino) throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        if (!lerRegistroCsv(leitor, campos, campo)) {
+            return 0; // Arquivo vazio.
+        }
+        int indiceTexto = campos.indexOf(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+        int indiceAutor = campos.indexOf(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+        int indiceFavorita = campos.indexOf(MensagemContract.MensagemEntry.COLUMN_FAVORITA);
+        if (indiceTexto < 0 || indiceAutor < 0) {
+            throw new IOException("O cabeçalho CSV precisa das colunas texto e autor: " + campos);
+        }
+
+        long linhas = 0;
+        while (lerRegistroCsv(leitor, campos, campo)) {
+            if (campos.size() == 1 && campos.get(0).isEmpty()) continue; // Linha em branco.
+            if (campos.size() <= Math.max(indiceTexto, Math.max(indiceAutor, indiceFavorita))) {
+                throw new IOException("Registro " + (linhas + 1) + " com colunas faltando: " + campos.size());
+            }
+            destino.gravar(campos.get(indiceTexto), campos.get(indiceAutor),
+                    indiceFavorita >= 0 && lerFavorita(campos.get(indiceFavorita)));
+            linhas++;
+        }
+        return linhas;
+    }
+
+    /**
+     * Lê um registro CSV (RFC 4180): campos separados por vírgula, entre aspas quando contêm
+     * vírgulas, aspas (duplicadas) ou quebras de linha.
+     * @param leitor O leitor do arquivo.
+     * @param campos Recebe os campos do registro (a lista é reutilizada entre as chamadas).
+     * @param campo Buffer reutilizado para montar cada campo.
+     * @return false se o arquivo terminou antes do registro.
+     */
+    // Lê um registro CSV, que pode ocupar várias linhas se tiver campos entre aspas.
+    private static boolean lerRegistroCsv(Reader leitor, List<String> campos, StringBuilder campo) throws IOException {
+        campos.clear();
+        campo.setLength(0);
+        boolean entreAspas = false;
+        boolean leuAlgo = false;
+        int c;
+        while ((c = leitor.read()) != -1) {
+            leuAlgo = true;
+            if (entreAspas) {
+                if (c == '"') {
+                    leitor.mark(1);
+                    if (leitor.read() == '"') {
+                        campo.append('"'); // Aspas duplicadas dentro do campo.
+                    } else {
+                        leitor.reset();
+                        entreAspas = false;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+        }
+        if (!leuAlgo) return false;
+        if (entreAspas) {
+            throw new IOException("Campo CSV entre aspas não foi fechado");
+        }
+        campos.add(campo.toString());
+        return true;
+    }
+
+    // Interpreta o valor da coluna favorita: true, "true" ou 1 (número ou texto).
+    private static boolean lerFavorita(Object valor) {
+        if (valor instanceof Boolean) return (Boolean) valor;
+        if (valor instanceof Number) return ((Number) valor).intValue() == 1;
+        if (valor == null || valor == JSONObject.NULL) return false;
+        String texto = valor.toString().trim();
+        return texto.equals("1") || texto.equalsIgnoreCase("true");
+    }
+
+    // Escreve uma mensagem no formato pedido, terminada por uma quebra de linha.
+    private static void escreverLinha(Writer escritor, Formato formato, long id, String texto, String autor,
+                                      boolean favorita) throws IOException {
+        if (formato == Formato.CSV) {
+            escritor.write(Long.toString(id));
+            escritor.write(',');
+            escreverCampoCsv(escritor, texto);
+            escritor.write(',');
+            escreverCampoCsv(escritor, autor);
+            escritor.write(favorita ? ",1\n" : ",0\n");
+        } else {
+            escritor.write("{\"" + MensagemContract.MensagemEntry._ID + "\":");
+            escritor.write(Long.toString(id));
+            escritor.write(",\"" + MensagemContract.MensagemEntry.COLUMN_TEXTO + "\":");
+            escreverTextoJson(escritor, texto);
+            escritor.write(",\"" + MensagemContract.MensagemEntry.COLUMN_AUTOR + "\":");
+            escreverTextoJson(escritor, autor);
+            escritor.write(",\"" + MensagemContract.MensagemEntry.COLUMN_FAVORITA + "\":");
+            escritor.write(favorita ? "true}\n" : "false}\n");
+        }
+    }
+
+    // Escreve um texto como string JSON, escapando aspas, barras e caracteres de controle.
+    private static void escreverTextoJson(Writer escritor, String texto) throws IOException {
+        escritor.write('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"': escritor.write("\\\""); break;
+                case '\\': escritor.write("\\\\"); break;
+                case '\n': escritor.write("\\n"); break;
+                case '\r': escritor.write("\\r"); break;
+                case '\t': escritor.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        escritor.write(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        escritor.write(c);
+                    }
+            }
+        }
+        escritor.write('"');
+    }
+
+    // Escreve um campo CSV, entre aspas apenas quando necessário.
+    private static void escreverCampoCsv(Writer escritor, String valor) throws IOException {
+        boolean precisaAspas = false;
+        for (int i = 0; i < valor.length() && !precisaAspas; i++) {
+            char c = valor.charAt(i);
+            precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!precisaAspas) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') escritor.write('"');
+            escritor.write(c);
+        }
+        escritor.write('"');
+    }
+
+    /** Fluxo de saída que conta os bytes escritos. */
+    private static final class ContadorSaida extends FilterOutputStream {
+        long bytes;
+
+        ContadorSaida(OutputStream saida) {
+            super(saida);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+
+    /** Fluxo de entrada que conta os bytes lidos. */
+    private static final class ContadorEntrada extends FilterInputStream {
+        long bytes;
+
+        ContadorEntrada(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int lidos = in.read(b, off, len);
+            if (lidos > 0) bytes += lidos;
+            return lidos;
+        }
+    }
+}
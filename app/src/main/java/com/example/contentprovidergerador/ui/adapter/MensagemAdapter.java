@@ -1,25 +1,200 @@
 package com.example.contentprovidergerador.ui.adapter;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.text.PrecomputedText;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.contentprovidergerador.R;
-import com.example.contentprovidergerador.data.model.Mensagem;
-import java.util.ArrayList;
-import java.util.List;
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Adapter para o RecyclerView que exibe a lista de mensagens.
- * Esta classe é responsável por pegar uma lista de objetos {@link Mensagem} e
- * mapear seus dados para as views individuais de cada item da lista.
+ * Esta classe é responsável por pegar uma {@link ListaMensagens} e mapear seus dados
+ * para as views individuais de cada item da lista, lendo as colunas diretamente pela posição.
+ * <p>
+ * A cada nova lista recebida por {@link #submeter(ListaMensagens)}, a diferença em relação à
+ * lista anterior é calculada em uma thread de fundo pelo {@link MensagemDiffCallback}, e o
+ * RecyclerView recebe apenas os eventos mínimos de inserção, alteração e remoção. Isso preserva
+ * as animações e a posição de rolagem, e só as linhas alteradas são redesenhadas.
+ * <p>
+ * O bind não concatena Strings: as aspas e o travessão são copiados junto com o texto para um
+ * buffer de caracteres do próprio ViewHolder, reutilizado entre os binds.
+ * <p>
+ * O texto das mensagens, que pode ser longo, é além disso formatado e medido em segundo plano
+ * com {@link PrecomputedText}, em uma janela de posições à frente do último bind. O bind de uma
+ * linha já preparada só entrega o texto medido ao TextView, sem medir os caracteres na thread
+ * principal; as demais usam o buffer, como antes.
+ * <p>
+ * A lista costuma trazer apenas o texto curto de cada mensagem
+ * ({@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}). O toque em uma mensagem com o
+ * texto cortado é repassado ao {@link OuvinteTextoCortado}, que busca e exibe o texto completo.
  */
 public class MensagemAdapter extends RecyclerView.Adapter<MensagemAdapter.MensagemViewHolder> {
 
-    /** A lista de mensagens que serve como fonte de dados para o adapter. */
-    private List<Mensagem> mensagens = new ArrayList<>();
+    /** Thread de fundo, compartilhada entre os adapters, onde as diferenças entre listas são calculadas. */
+    private static final Executor EXECUTOR_DIFERENCAS = Executors.newSingleThreadExecutor();
+
+    /** Thread de fundo, compartilhada entre os adapters, onde os textos são formatados e medidos. */
+    private static final Executor EXECUTOR_TEXTOS = Executors.newSingleThreadExecutor(tarefa ->
+            new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                tarefa.run();
+            }, "MensagemAdapter-textos"));
+
+    /** Número de posições preparadas a cada pedido: as próximas telas na direção da rolagem. */
+    private static final int JANELA_TEXTOS = 96;
+
+    /** Total de caracteres dos textos preparados mantidos em cache. */
+    private static final int CAPACIDADE_TEXTOS_CARACTERES = 256 * 1024;
+
+    /** Recebe o toque em uma mensagem cujo texto está cortado na lista. */
+    public interface OuvinteTextoCortado {
+        /**
+         * Chamado na thread principal.
+         * @param id O ID da mensagem tocada.
+         */
+        void aoTocar(long id);
+    }
+
+    /** Handler da thread principal, onde a nova lista é aplicada. */
+    private final Handler principal = new Handler(Looper.getMainLooper());
+    /** A lista exibida atualmente. Acessada apenas pela thread principal. */
+    private ListaMensagens lista = ListaMensagens.VAZIA;
+    /** Versão da última lista submetida; descarta diferenças calculadas para listas já substituídas. */
+    private int versao;
+
+    /** Se false, os textos não são preparados em segundo plano e todo bind usa o buffer. */
+    private final boolean prepararTextos;
+    /**
+     * Textos já formatados e medidos, pelo ID da mensagem. Cada entrada guarda o texto original,
+     * comparado no bind: uma mensagem editada não usa o texto preparado para a versão anterior.
+     */
+    private final LruCache<Long, TextoPreparado> textosPreparados =
+            new LruCache<Long, TextoPreparado>(CAPACIDADE_TEXTOS_CARACTERES) {
+                @Override
+                protected int sizeOf(Long id, TextoPreparado preparado) {
+                    return preparado.medido.length();
+                }
+            };
+    /**
+     * Parâmetros de medição do TextView do texto, lidos de um item inflado quando o adapter é
+     * ligado ao RecyclerView. Enquanto forem null, nada é preparado.
+     */
+    private PrecomputedText.Params parametros;
+    /** Faixa de posições [inicio, fim) da última preparação pedida. Acessadas pela thread principal. */
+    private int preparadasInicio, preparadasFim;
+    /** Incrementado a cada pedido; uma preparação em andamento para ao ver que foi substituída. */
+    private final AtomicInteger pedidoPreparacao = new AtomicInteger();
+    /** Quem exibe o texto completo de uma mensagem cortada, ou null. */
+    private OuvinteTextoCortado ouvinteTextoCortado;
+
+    /**
+     * Construtor do adapter.
+     * Os IDs estáveis (o {@code _ID} de cada mensagem) permitem ao RecyclerView reconhecer
+     * o mesmo item entre atualizações.
+     */
+    public MensagemAdapter() {
+        this(true);
+    }
+
+    /**
+     * Construtor usado pelos benchmarks para comparar o bind com e sem os textos preparados.
+     * @param prepararTextos Se true, os textos são preparados em segundo plano.
+     */
+    @VisibleForTesting
+    MensagemAdapter(boolean prepararTextos) {
+        this.prepararTextos = prepararTextos;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Chamado quando o adapter é ligado a um RecyclerView. Lê os parâmetros de medição de um
+     * item inflado no contexto da lista (tema, fonte, tamanho do texto), que os textos
+     * preparados precisam ter iguais aos do TextView que os exibe.
+     * @param recyclerView O RecyclerView que passou a usar o adapter.
+     */
+    // Obtém os parâmetros de medição e prepara as primeiras posições.
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        if (!prepararTextos || parametros != null) return;
+        View item = LayoutInflater.from(recyclerView.getContext()).inflate(R.layout.item_mensagem, recyclerView, false);
+        TextView texto = item.findViewById(R.id.tvTexto);
+        parametros = texto.getTextMetricsParams();
+        prepararTextos(0);
+    }
+
+    /**
+     * Define quem recebe o toque nas mensagens com o texto cortado.
+     * @param ouvinte O ouvinte, ou null para ignorar os toques.
+     */
+    public void setOuvinteTextoCortado(OuvinteTextoCortado ouvinte) {
+        ouvinteTextoCortado = ouvinte;
+    }
+
+    /**
+     * Indica se um texto lido de {@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW} foi
+     * cortado: só um texto cortado passa do limite, pelo "…" acrescentado no fim.
+     * @param texto O texto exibido na lista.
+     * @return true se o texto completo é mais longo.
+     */
+    // Compara o número de caracteres com o limite do texto curto.
+    static boolean isTextoCortado(String texto) {
+        int limite = MensagemContract.MensagemEntry.TAMANHO_TEXTO_PREVIEW;
+        return texto != null && texto.length() > limite && texto.codePointCount(0, texto.length()) > limite;
+    }
+
+    /**
+     * Substitui a lista exibida. Deve ser chamado na thread principal.
+     * A diferença entre as listas é calculada em segundo plano; se outra lista for submetida
+     * antes do fim do cálculo, o resultado antigo é descartado.
+     * @param nova A nova lista de mensagens.
+     */
+    // Calcula a diferença em segundo plano e aplica a nova lista na thread principal.
+    public void submeter(ListaMensagens nova) {
+        if (nova == lista) return;
+        int versaoSubmetida = ++versao;
+        ListaMensagens antigas = lista;
+
+        if (antigas.isVazia() || nova.isVazia()) {
+            // Sem itens em um dos lados não há o que comparar: basta um único evento.
+            lista = nova;
+            if (antigas.isVazia()) {
+                notifyItemRangeInserted(0, nova.tamanho());
+            } else {
+                notifyItemRangeRemoved(0, antigas.tamanho());
+            }
+            prepararTextos(0);
+            return;
+        }
+
+        EXECUTOR_DIFERENCAS.execute(() -> {
+            DiffUtil.DiffResult diferencas = DiffUtil.calculateDiff(new MensagemDiffCallback(antigas, nova));
+            principal.post(() -> {
+                if (versao == versaoSubmetida) {
+                    lista = nova;
+                    diferencas.dispatchUpdatesTo(this);
+                    // As posições mudaram: prepara de novo em volta da última posição exibida.
+                    prepararTextos(preparadasInicio);
+                }
+            });
+        });
+    }
 
     /**
      * Chamado quando o RecyclerView precisa de um novo {@link MensagemViewHolder} para representar um item.
@@ -34,7 +209,16 @@ public class MensagemAdapter extends RecyclerView.Adapter<MensagemAdapter.Mensag
     @Override
     public MensagemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_mensagem, parent, false);
-        return new MensagemViewHolder(view);
+        MensagemViewHolder holder = new MensagemViewHolder(view);
+        // Um único listener por ViewHolder; a mensagem é a da posição atual no momento do toque.
+        view.setOnClickListener(v -> {
+            int posicao = holder.getAdapterPosition();
+            if (ouvinteTextoCortado != null && posicao != RecyclerView.NO_POSITION
+                    && isTextoCortado(lista.getTexto(posicao))) {
+                ouvinteTextoCortado.aoTocar(lista.getId(posicao));
+            }
+        });
+        return holder;
     }
 
     /**
@@ -47,12 +231,11 @@ public class MensagemAdapter extends RecyclerView.Adapter<MensagemAdapter.Mensag
     // Substitui o conteúdo de uma view (invocado pelo layout manager).
     @Override
     public void onBindViewHolder(@NonNull MensagemViewHolder holder, int position) {
-        Mensagem msg = mensagens.get(position);
-        holder.tvTexto.setText("\"" + msg.getTexto() + "\"");
-        holder.tvAutor.setText("- " + msg.getAutor());
+        exibirTexto(holder, position);
+        holder.autor.exibir(holder.tvAutor, "- ", lista.getAutor(position), "");
 
         // Controla a visibilidade do indicador "Favorita" com base no valor booleano.
-        if (msg.isFavorita()) {
+        if (lista.isFavorita(position)) {
             holder.tvFavorita.setText("Favorita");
             holder.tvFavorita.setVisibility(View.VISIBLE);
         } else {
@@ -61,23 +244,95 @@ public class MensagemAdapter extends RecyclerView.Adapter<MensagemAdapter.Mensag
     }
 
     /**
-     * Retorna o número total de itens no conjunto de dados.
-     * @return O tamanho da lista de mensagens.
+     * Exibe o texto da mensagem, usando o texto preparado se ele existir e ainda corresponder à
+     * mensagem. Quando o bind se aproxima do fim (ou do início) da faixa preparada, pede a
+     * preparação da próxima janela, na direção da rolagem.
+     * @param holder O ViewHolder que está sendo atualizado.
+     * @param posicao A posição do item na lista.
+     */
+    // Entrega o texto preparado ao TextView ou monta o texto no buffer.
+    private void exibirTexto(MensagemViewHolder holder, int posicao) {
+        String texto = lista.getTexto(posicao);
+        if (parametros != null) {
+            // A nova janela deixa 3/4 das posições à frente e 1/4 atrás, na direção da rolagem.
+            int margem = JANELA_TEXTOS / 4;
+            if (posicao + margem >= preparadasFim && preparadasFim < lista.tamanho()) {
+                prepararTextos(posicao - margem);
+            } else if (posicao - margem < preparadasInicio && preparadasInicio > 0) {
+                prepararTextos(posicao - 3 * margem);
+            }
+            if (holder.parametros != parametros) {
+                // setText() rejeita um texto medido com parâmetros diferentes dos do TextView.
+                holder.parametros = parametros;
+                holder.aceitaPreparado = parametros.equals(holder.tvTexto.getTextMetricsParams());
+            }
+            TextoPreparado preparado = textosPreparados.get(lista.getId(posicao));
+            if (holder.aceitaPreparado && preparado != null && preparado.corresponde(texto)) {
+                holder.tvTexto.setText(preparado.medido);
+                return;
+            }
+        }
+        holder.texto.exibir(holder.tvTexto, "\"", texto, "\"");
+    }
+
+    /**
+     * Prepara em segundo plano os textos de {@link #JANELA_TEXTOS} posições a partir de
+     * {@code inicio}, pulando os que já estão em cache. Um novo pedido interrompe o anterior.
+     * @param inicio A primeira posição da janela.
      */
-    // Retorna o tamanho do seu conjunto de dados (invocado pelo layout manager).
+    // Formata e mede os textos da janela na thread de textos.
+    private void prepararTextos(int inicio) {
+        if (parametros == null) return;
+        ListaMensagens alvo = lista;
+        PrecomputedText.Params medida = parametros;
+        int de = Math.max(0, Math.min(inicio, alvo.tamanho() - JANELA_TEXTOS));
+        int ate = Math.min(alvo.tamanho(), de + JANELA_TEXTOS);
+        preparadasInicio = de;
+        preparadasFim = ate;
+        int pedido = pedidoPreparacao.incrementAndGet();
+
+        EXECUTOR_TEXTOS.execute(() -> {
+            for (int i = de; i < ate && pedidoPreparacao.get() == pedido; i++) {
+                String texto = alvo.getTexto(i);
+                if (texto == null) texto = "";
+                long id = alvo.getId(i);
+                TextoPreparado atual = textosPreparados.get(id);
+                if (atual == null || !atual.corresponde(texto)) {
+                    textosPreparados.put(id, new TextoPreparado(texto,
+                            PrecomputedText.create("\"" + texto + "\"", medida)));
+                }
+            }
+        });
+    }
+
+    /**
+     * Bloqueia até a thread de textos terminar as preparações já pedidas. Usado pelos benchmarks.
+     */
+    // Enfileira uma tarefa vazia e espera a sua vez.
+    @VisibleForTesting
+    void aguardarTextosPreparados() {
+        CompletableFuture.runAsync(() -> {}, EXECUTOR_TEXTOS).join();
+    }
+
+    /**
+     * Retorna o número de mensagens da lista exibida.
+     * @return O tamanho da lista.
+     */
+    // Informa ao RecyclerView quantos itens existem.
     @Override
     public int getItemCount() {
-        return mensagens.size();
+        return lista.tamanho();
     }
 
     /**
-     * Atualiza a lista de mensagens do adapter e notifica o RecyclerView para redesenhar a lista.
-     * @param mensagens A nova lista de mensagens a ser exibida.
+     * Retorna o ID estável do item na posição, que é o ID da mensagem no banco de dados.
+     * @param position A posição do item na lista.
+     * @return O ID da mensagem.
      */
-    // Método auxiliar para atualizar os dados do adapter.
-    public void setMensagens(List<Mensagem> mensagens) {
-        this.mensagens = mensagens;
-        notifyDataSetChanged(); // Notifica o RecyclerView que os dados mudaram.
+    // Usa o ID da mensagem como ID estável do item.
+    @Override
+    public long getItemId(int position) {
+        return lista.getId(position);
     }
 
     /**
@@ -86,6 +341,11 @@ public class MensagemAdapter extends RecyclerView.Adapter<MensagemAdapter.Mensag
      */
     static class MensagemViewHolder extends RecyclerView.ViewHolder {
         TextView tvTexto, tvAutor, tvFavorita;
+        /** Buffers reutilizados com o texto formatado de cada TextView. */
+        final TextoFormatado texto = new TextoFormatado(), autor = new TextoFormatado();
+        /** Os parâmetros do adapter já comparados com os de {@link #tvTexto}, e o resultado. */
+        PrecomputedText.Params parametros;
+        boolean aceitaPreparado;
 
         /**
          * Construtor do ViewHolder.
@@ -99,4 +359,49 @@ public class MensagemAdapter extends RecyclerView.Adapter<MensagemAdapter.Mensag
             tvFavorita = itemView.findViewById(R.id.tvFavorita);
         }
     }
+
+    /**
+     * O texto de uma mensagem já formatado (entre aspas) e medido, junto com o texto original
+     * que o gerou.
+     */
+    static final class TextoPreparado {
+        private final String original;
+        private final int hash;
+        final PrecomputedText medido;
+
+        TextoPreparado(String original, PrecomputedText medido) {
+            this.original = original;
+            this.hash = original.hashCode();
+            this.medido = medido;
+        }
+
+        // Compara pelo hash (cacheado na String) e, se igual, pelo conteúdo.
+        boolean corresponde(String texto) {
+            if (texto == null) texto = "";
+            return texto == original || (texto.hashCode() == hash && texto.equals(original));
+        }
+    }
+
+    /**
+     * Buffer de caracteres de um TextView, reutilizado a cada bind.
+     * Usa {@link TextView#setText(char[], int, int)}, que exibe o trecho do vetor sem copiá-lo
+     * para uma nova String. O vetor só é alterado imediatamente antes do próximo setText no
+     * mesmo TextView, como esse método exige.
+     */
+    static final class TextoFormatado {
+        private char[] caracteres = new char[128];
+
+        // Monta prefixo + valor + sufixo no buffer e o exibe no TextView.
+        void exibir(TextView view, String prefixo, String valor, String sufixo) {
+            if (valor == null) valor = "";
+            int tamanho = prefixo.length() + valor.length() + sufixo.length();
+            if (tamanho > caracteres.length) {
+                caracteres = new char[Math.max(tamanho, caracteres.length * 2)];
+            }
+            prefixo.getChars(0, prefixo.length(), caracteres, 0);
+            valor.getChars(0, valor.length(), caracteres, prefixo.length());
+            sufixo.getChars(0, sufixo.length(), caracteres, prefixo.length() + valor.length());
+            view.setText(caracteres, 0, tamanho);
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.contentprovidergerador.ui.adapter;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+
+import java.util.Objects;
+
+/**
+ * Define como o {@link DiffUtil} compara duas versões da lista de mensagens.
+ * Duas mensagens representam o mesmo item se têm o mesmo ID; o conteúdo exibido é
+ * considerado igual se o texto, o autor e o status de favorita forem iguais.
+ * <p>
+ * Compara as colunas das {@link ListaMensagens} diretamente pela posição, sem criar objetos.
+ */
+public class MensagemDiffCallback extends DiffUtil.Callback {
+
+    private final ListaMensagens antigas;
+    private final ListaMensagens novas;
+
+    /**
+     * Construtor do callback.
+     * @param antigas A lista exibida atualmente.
+     * @param novas A lista que vai substituí-la.
+     */
+    public MensagemDiffCallback(ListaMensagens antigas, ListaMensagens novas) {
+        this.antigas = antigas;
+        this.novas = novas;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return antigas.tamanho();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return novas.tamanho();
+    }
+
+    /**
+     * Verifica se as duas posições são o mesmo item (mesmo registro no banco de dados).
+     * @param posicaoAntiga A posição na lista antiga.
+     * @param posicaoNova A posição na lista nova.
+     * @return true se ambas têm o mesmo ID.
+     */
+    // Compara a identidade dos itens pelo ID.
+    @Override
+    public boolean areItemsTheSame(int posicaoAntiga, int posicaoNova) {
+        return antigas.getId(posicaoAntiga) == novas.getId(posicaoNova);
+    }
+
+    /**
+     * Verifica se o conteúdo exibido de um mesmo item mudou.
+     * @param posicaoAntiga A posição na lista antiga.
+     * @param posicaoNova A posição na lista nova.
+     * @return true se o texto, o autor e o status de favorita são iguais.
+     */
+    // Compara os campos exibidos na tela.
+    @Override
+    public boolean areContentsTheSame(int posicaoAntiga, int posicaoNova) {
+        return antigas.isFavorita(posicaoAntiga) == novas.isFavorita(posicaoNova)
+                && Objects.equals(antigas.getTexto(posicaoAntiga), novas.getTexto(posicaoNova))
+                && Objects.equals(antigas.getAutor(posicaoAntiga), novas.getAutor(posicaoNova));
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.contentprovidergerador.ui.fragments;
 
-import android.content.ContentValues;
+import android.content.Context;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,15 +9,17 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 
 //...
-import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.Mensagem;
 import com.example.contentprovidergerador.databinding.FragmentoCadastrarBinding;
+import com.example.contentprovidergerador.ui.viewmodel.MensagemViewModel;
 
 /**
  * Fragmento responsável por fornecer uma interface para o usuário cadastrar uma nova mensagem.
- * Ele coleta os dados dos campos de texto, os valida e utiliza o ContentResolver
- * para inserir a nova mensagem no ContentProvider.
+ * Ele coleta os dados dos campos de texto, os valida e utiliza o {@link MensagemViewModel}
+ * (compartilhado com a lista) para inserir a nova mensagem no ContentProvider em segundo plano.
  */
 public class FragmentoCadastrar extends Fragment {
 
@@ -73,18 +75,14 @@ public class FragmentoCadastrar extends Fragment {
         // Obtém o estado do switch de 'favorita'.
         boolean isFavorita = binding.switchFavorita.isChecked();
 
-        // Cria um objeto ContentValues para armazenar os dados a serem inseridos.
-        ContentValues values = new ContentValues();
-        values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, texto);
-        values.put(MensagemContract.MensagemEntry.COLUMN_AUTOR, autor);
-        // Converte o valor booleano para um inteiro (1 para true, 0 para false) para compatibilidade com o SQLite.
-        values.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, isFavorita ? 1 : 0);
-
-        // Usa o ContentResolver para chamar o método insert() do ContentProvider.
-        getContext().getContentResolver().insert(MensagemContract.MensagemEntry.CONTENT_URI, values);
-
-        // Exibe uma mensagem de confirmação para o usuário.
-        Toast.makeText(getContext(), "Mensagem salva!", Toast.LENGTH_SHORT).show();
+        // Grava a mensagem em segundo plano, pelo cliente do provedor mantido no ViewModel.
+        MensagemViewModel viewModel = new ViewModelProvider(requireActivity()).get(MensagemViewModel.class);
+        // O fragmento sai da tela antes da gravação terminar; o aviso usa o contexto da aplicação.
+        Context aplicacao = requireContext().getApplicationContext();
+        viewModel.salvar(new Mensagem(0, texto, autor, isFavorita)).whenCompleteAsync((id, erro) ->
+                // Exibe uma mensagem de confirmação (ou de falha) para o usuário.
+                Toast.makeText(aplicacao, erro == null ? "Mensagem salva!" : "Não foi possível salvar a mensagem",
+                        Toast.LENGTH_SHORT).show(), aplicacao.getMainExecutor());
 
         // Remove o fragmento atual da pilha de navegação, retornando à tela anterior.
         getParentFragmentManager().popBackStack();
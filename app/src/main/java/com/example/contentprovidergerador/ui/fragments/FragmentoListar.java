@@ -6,9 +6,12 @@ import android.view.View;
 import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.example.contentprovidergerador.databinding.FragmentoListarBinding;
 import com.example.contentprovidergerador.ui.adapter.MensagemAdapter;
 import com.example.contentprovidergerador.ui.viewmodel.MensagemViewModel;
@@ -20,6 +23,9 @@ import com.example.contentprovidergerador.ui.viewmodel.MensagemViewModel;
  */
 public class FragmentoListar extends Fragment {
 
+    /** Quantos itens antes de uma das pontas da lista a próxima página começa a ser carregada. */
+    private static final int MARGEM_PAGINACAO = 10;
+
     /** Instância do View Binding para acesso seguro às views do layout. */
     private FragmentoListarBinding binding;
     /** Instância do ViewModel, que serve como fonte de dados para este fragmento. */
@@ -65,13 +71,43 @@ public class FragmentoListar extends Fragment {
 
     /**
      * Configura o RecyclerView, incluindo seu LayoutManager e Adapter.
-     * Prepara a lista para receber e exibir os dados.
+     * Prepara a lista para receber e exibir os dados, e pede novas páginas ao ViewModel
+     * quando o usuário rola a lista para perto de uma das pontas.
      */
     // Inicializa e configura o RecyclerView.
     private void setupRecyclerView() {
         adapter = new MensagemAdapter();
-        binding.recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        adapter.setOuvinteTextoCortado(this::exibirTextoCompleto);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.recyclerView.setLayoutManager(layoutManager);
         binding.recyclerView.setAdapter(adapter);
+        binding.recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - MARGEM_PAGINACAO) {
+                    viewModel.carregarMais();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= MARGEM_PAGINACAO) {
+                    viewModel.carregarAnteriores();
+                }
+            }
+        });
+    }
+
+    /**
+     * Busca o texto completo de uma mensagem que a lista exibe cortada e o mostra em um diálogo.
+     * @param id O ID da mensagem tocada.
+     */
+    // Lê a mensagem completa em segundo plano e a exibe na thread principal.
+    private void exibirTextoCompleto(long id) {
+        viewModel.buscarTextoCompleto(id).thenAcceptAsync(mensagem -> {
+            // A view pode ter sido destruída enquanto a mensagem era lida.
+            if (mensagem == null || binding == null) return;
+            new AlertDialog.Builder(requireContext())
+                    .setTitle(mensagem.getAutor())
+                    .setMessage(mensagem.getTexto())
+                    .setPositiveButton(android.R.string.ok, null)
+                    .show();
+        }, ContextCompat.getMainExecutor(requireContext()));
     }
 
     /**
@@ -83,7 +119,7 @@ public class FragmentoListar extends Fragment {
     private void observeViewModel() {
         viewModel.getMensagens().observe(getViewLifecycleOwner(), mensagens -> {
             if (mensagens != null) {
-                adapter.setMensagens(mensagens);
+                adapter.submeter(mensagens);
             }
         });
     }
@@ -0,0 +1,176 @@
+package com.example.contentprovidergerador.ui.viewmodel;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Executa uma tarefa de carregamento em segundo plano, garantindo que haja no máximo
+ * uma carga em andamento por vez.
+ * Pedidos que chegam durante uma carga (ex: uma rajada de notificações do ContentObserver)
+ * são agrupados em uma única nova carga, executada após um pequeno intervalo de espera (debounce).
+ * Uma carga que ficou obsoleta por causa de um novo pedido é cancelada e seu resultado descartado.
+ *
+ * @param <T> O tipo do resultado produzido pela carga.
+ */
+public class CarregadorCoalescente<T> {
+
+    /**
+     * A operação de carregamento propriamente dita.
+     * @param <T> O tipo do resultado.
+     */
+    public interface Tarefa<T> {
+        /**
+         * Executa a carga. Deve consultar {@link Cancelamento#isCancelado()} periodicamente
+         * e pode retornar null se tiver sido cancelada.
+         * @param cancelamento O sinal de cancelamento desta carga.
+         * @return O resultado da carga, ou null se não houver nada a entregar.
+         */
+        T executar(Cancelamento cancelamento);
+    }
+
+    /**
+     * Sinal de cancelamento de uma carga. Permite registrar um ouvinte para propagar o
+     * cancelamento (ex: para um {@code android.os.CancellationSignal} da consulta em andamento).
+     */
+    public static final class Cancelamento {
+        private volatile boolean cancelado;
+        private Runnable ouvinte;
+
+        /** @return true se a carga foi cancelada por um pedido mais recente. */
+        public boolean isCancelado() {
+            return cancelado;
+        }
+
+        /**
+         * Define a ação executada no cancelamento. Se já estiver cancelado, executa imediatamente.
+         * @param ouvinte A ação a ser executada.
+         */
+        public void setOuvinte(Runnable ouvinte) {
+            boolean executarAgora;
+            synchronized (this) {
+                this.ouvinte = ouvinte;
+                executarAgora = cancelado;
+            }
+            if (executarAgora && ouvinte != null) {
+                ouvinte.run();
+            }
+        }
+
+        // Marca a carga como cancelada e avisa o ouvinte, se houver.
+        void cancelar() {
+            Runnable acao;
+            synchronized (this) {
+                if (cancelado) return;
+                cancelado = true;
+                acao = ouvinte;
+            }
+            if (acao != null) {
+                acao.run();
+            }
+        }
+    }
+
+    /** Executor onde as cargas são executadas. Deve ter uma única thread. */
+    private final ScheduledExecutorService executor;
+    /** A tarefa de carregamento. */
+    private final Tarefa<T> tarefa;
+    /** Destino dos resultados (ex: {@code MutableLiveData::postValue}). */
+    private final Consumer<T> entrega;
+    /** Intervalo de espera, em milissegundos, para agrupar pedidos próximos. */
+    private final long debounceMs;
+
+    /** Protege o estado abaixo. */
+    private final Object lock = new Object();
+    /** Indica se há uma carga agendada ou em execução. */
+    private boolean agendado;
+    /** Indica se chegou um pedido que ainda não foi atendido por nenhuma carga. */
+    private boolean pendente;
+    /** Indica que o carregador foi encerrado e não deve mais executar cargas. */
+    private boolean encerrado;
+    /** O sinal de cancelamento da carga em execução, se houver. */
+    private Cancelamento emCurso;
+
+    /**
+     * Construtor do carregador.
+     * @param executor Executor de thread única onde as cargas serão executadas.
+     * @param tarefa A tarefa de carregamento.
+     * @param entrega O destino dos resultados não cancelados.
+     * @param debounceMs O intervalo de espera para agrupar pedidos, em milissegundos.
+     */
+    public CarregadorCoalescente(ScheduledExecutorService executor, Tarefa<T> tarefa,
+                                 Consumer<T> entrega, long debounceMs) {
+        this.executor = executor;
+        this.tarefa = tarefa;
+        this.entrega = entrega;
+        this.debounceMs = debounceMs;
+    }
+
+    /**
+     * Pede uma nova carga. Pode ser chamado de qualquer thread e com qualquer frequência:
+     * pedidos próximos resultam em uma única carga, e a carga em andamento é cancelada.
+     */
+    // Registra um pedido de carga e agenda a execução, se necessário.
+    public void solicitar() {
+        synchronized (lock) {
+            if (encerrado) return;
+            pendente = true;
+            if (emCurso != null) {
+                emCurso.cancelar();
+            }
+            if (!agendado) {
+                agendado = true;
+                executor.schedule(this::executar, debounceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Encerra o carregador, cancelando a carga em andamento.
+     * O executor não é desligado aqui, pois pertence a quem o criou.
+     */
+    // Cancela a carga atual e ignora pedidos futuros.
+    public void encerrar() {
+        synchronized (lock) {
+            encerrado = true;
+            pendente = false;
+            if (emCurso != null) {
+                emCurso.cancelar();
+            }
+        }
+    }
+
+    // Executa uma carga na thread do executor e reagenda se novos pedidos chegaram nesse meio tempo.
+    private void executar() {
+        Cancelamento cancelamento;
+        synchronized (lock) {
+            if (encerrado || !pendente) {
+                agendado = false;
+                return;
+            }
+            pendente = false;
+            cancelamento = new Cancelamento();
+            emCurso = cancelamento;
+        }
+
+        T resultado = null;
+        try {
+            resultado = tarefa.executar(cancelamento);
+        } finally {
+            synchronized (lock) {
+                emCurso = null;
+                if (pendente && !encerrado) {
+                    // Chegaram pedidos durante a carga: agrupa-os em uma nova carga após o debounce.
+                    executor.schedule(this::executar, debounceMs, TimeUnit.MILLISECONDS);
+                } else {
+                    agendado = false;
+                }
+            }
+        }
+
+        // Só entrega resultados de cargas que não foram substituídas por um pedido mais recente.
+        if (resultado != null && !cancelamento.isCancelado()) {
+            entrega.accept(resultado);
+        }
+    }
+}
@@ -1,52 +1,202 @@
 package com.example.contentprovidergerador.ui.viewmodel;
 
 import android.app.Application;
+import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.RemoteException;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.example.contentprovidergerador.cliente.ClienteMensagens;
 import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+import com.example.contentprovidergerador.data.model.MapeadorCursor;
 import com.example.contentprovidergerador.data.model.Mensagem;
+import com.example.contentprovidergerador.data.model.PoolTextos;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ViewModel para a UI do gerador de mensagens.
- * Esta classe é responsável por buscar e manter a lista de mensagens,
+ * Esta classe é responsável por buscar e manter uma "janela" paginada de mensagens,
  * expondo-a através de um {@link LiveData}. Ele também usa um {@link ContentObserver}
  * para recarregar os dados automaticamente sempre que o ContentProvider for modificado.
+ * As cargas são feitas em segundo plano por um {@link CarregadorCoalescente}, que agrupa
+ * rajadas de notificações em uma única consulta e descarta cargas obsoletas.
+ * <p>
+ * As páginas são buscadas por chave (keyset, {@code _ID}) conforme o usuário rola a lista,
+ * e a janela mantém no máximo {@link #MAX_ITENS_JANELA} mensagens em memória: ao carregar
+ * uma página em uma ponta, as mensagens excedentes da outra ponta são descartadas.
+ * Todo o estado da janela é acessado apenas pela thread de fundo do {@link #executor}.
+ * <p>
+ * O provedor notifica as URIs das linhas inseridas, atualizadas ou excluídas. Nesses casos, o
+ * ViewModel busca apenas essas linhas (uma consulta por ID cada) e corrige a janela em memória;
+ * a janela inteira só é recarregada quando a notificação não identifica as linhas ou quando
+ * há mudanças demais.
+ * <p>
+ * A janela é uma {@link ListaMensagens} (IDs em {@code long[]}, favoritas em um bitset e autores
+ * compartilhados por um {@link PoolTextos}), montada por um {@link MapeadorCursor} que resolve os
+ * índices das colunas uma única vez por consulta.
+ * <p>
+ * A lista pede apenas o texto curto ({@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}),
+ * para que as páginas de mensagens longas caibam em uma janela do Cursor; o texto completo de uma
+ * mensagem é lido sob demanda por {@link #buscarTextoCompleto(long)}.
+ * <p>
+ * A lista lê apenas a tabela de mensagens (as recentes e as favoritas). O arquivo
+ * ({@link MensagemContract.MensagemEntry#PARAM_INCLUIR_ARQUIVO}) só é consultado quando a janela
+ * passa da mensagem mais antiga dessa tabela, ao rolar para o início, ou quando uma recarga
+ * mostra que linhas da janela foram para o arquivo (o provedor notifica cada lote arquivado uma
+ * única vez, sem identificar as linhas): assim elas continuam na janela em vez de sumir. A janela
+ * volta a ler só a tabela de mensagens quando deixa as arquivadas para trás.
+ * <p>
+ * As consultas e as gravações passam por um {@link ClienteMensagens}, que mantém o provedor
+ * adquirido em vez de resolvê-lo a cada chamada.
+ * <p>
  * Estende {@link AndroidViewModel} para obter acesso seguro ao Context da aplicação.
  */
 public class MensagemViewModel extends AndroidViewModel {
-    /** LiveData que armazena e expõe a lista atual de mensagens para a UI. */
-    private final MutableLiveData<ArrayList<Mensagem>> mensagens;
+    /** Intervalo, em milissegundos, para agrupar notificações de mudança próximas em uma única carga. */
+    private static final long DEBOUNCE_MS = 100;
+    /** Número de mensagens buscadas por página. */
+    private static final int TAMANHO_PAGINA = 50;
+    /** Número máximo de mensagens mantidas em memória na janela. */
+    private static final int MAX_ITENS_JANELA = TAMANHO_PAGINA * 4;
+    /** Acima deste número de linhas alteradas, é mais barato recarregar a janela inteira. */
+    private static final int MAX_LINHAS_DELTA = 50;
+    /** Colunas pedidas pela lista: o texto vem cortado, e o completo é lido sob demanda. */
+    private static final String[] PROJECAO_LISTA = {
+            MensagemContract.MensagemEntry._ID,
+            MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW,
+            MensagemContract.MensagemEntry.COLUMN_AUTOR,
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA
+    };
+    /** Base das URIs da janela que alcança as mensagens arquivadas, que continuam em ordem de {@code _ID}. */
+    private static final Uri URI_COM_ARQUIVO = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+            .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_INCLUIR_ARQUIVO, "true")
+            .build();
+
+    /** LiveData que armazena e expõe a janela atual de mensagens para a UI. */
+    private final MutableLiveData<ListaMensagens> mensagens;
+    /** Cliente do provedor, com o ContentProviderClient adquirido uma única vez. */
+    private final ClienteMensagens cliente;
     /** Observador que escuta por mudanças nos dados do ContentProvider. */
     private final ContentObserver contentObserver;
+    /** Thread única de fundo onde as consultas ao ContentProvider são executadas. */
+    private final ScheduledExecutorService executor;
+    /** Coordena as recargas da janela em segundo plano, garantindo uma única carga em andamento por vez. */
+    private final CarregadorCoalescente<Atualizacao> carregador;
+    /** Evita enfileirar mais de um pedido da próxima página ao mesmo tempo. */
+    private final AtomicBoolean proximaPaginaPedida = new AtomicBoolean();
+    /** Evita enfileirar mais de um pedido da página anterior ao mesmo tempo. */
+    private final AtomicBoolean paginaAnteriorPedida = new AtomicBoolean();
+
+    /**
+     * IDs das linhas alteradas que ainda não foram aplicadas à janela, cada um com o número de
+     * sequência da sua mudança mais recente. Uma entrada só é removida se não mudou de novo
+     * enquanto a carga que a aplicou estava em andamento.
+     */
+    private final ConcurrentHashMap<Long, Long> mudancasPendentes = new ConcurrentHashMap<>();
+    /** Gera os números de sequência das mudanças de linha. */
+    private final AtomicLong sequenciaMudancas = new AtomicLong();
+    /** Número de sequência do pedido de recarga completa mais recente. */
+    private final AtomicLong recargaPedida = new AtomicLong(1);
+    /** Número de sequência da última recarga completa aplicada. Acessado apenas pela thread do {@link #executor}. */
+    private long recargaAtendida;
+
+    /** Pool dos autores lidos do provedor. Acessado apenas pela thread do {@link #executor}. */
+    private final PoolTextos poolAutores = new PoolTextos();
+
+    /** A janela atual. Acessada apenas pela thread do {@link #executor}. */
+    private Janela janela = new Janela(ListaMensagens.VAZIA, true, false, false);
+
+    /**
+     * O {@code _ID} a partir do qual a janela lê apenas a tabela de mensagens: o da mensagem mais
+     * antiga dessa tabela, conhecido ao rolar até ela, ou o da primeira que restou nela depois de um
+     * arquivamento. Acessado apenas pela thread do {@link #executor}.
+     */
+    private long inicioQuente = Long.MAX_VALUE;
+
+    /**
+     * Uma fatia contígua (ordenada por {@code _ID}) das mensagens do provedor.
+     */
+    private static final class Janela {
+        /** As mensagens da janela, em ordem crescente de {@code _ID}. */
+        final ListaMensagens itens;
+        /** Indica que não há mensagens antes da primeira da janela. */
+        final boolean inicioAlcancado;
+        /** Indica que não há mensagens depois da última da janela. */
+        final boolean fimAlcancado;
+        /** Indica que a janela inclui mensagens arquivadas, e as suas consultas incluem o arquivo. */
+        final boolean comArquivo;
+
+        Janela(ListaMensagens itens, boolean inicioAlcancado, boolean fimAlcancado, boolean comArquivo) {
+            this.itens = itens;
+            this.inicioAlcancado = inicioAlcancado;
+            this.fimAlcancado = fimAlcancado;
+            this.comArquivo = comArquivo;
+        }
+    }
+
+    /**
+     * O resultado de uma carga do {@link CarregadorCoalescente}: a nova janela e as mudanças
+     * que ela já reflete.
+     */
+    private static final class Atualizacao {
+        /** A janela atualizada. */
+        final Janela janela;
+        /** As mudanças de linha (ID e sequência) aplicadas nesta carga. */
+        final Map<Long, Long> mudancasAplicadas;
+        /** A sequência do pedido de recarga completa atendido por esta carga. */
+        final long recarga;
+
+        Atualizacao(Janela janela, Map<Long, Long> mudancasAplicadas, long recarga) {
+            this.janela = janela;
+            this.mudancasAplicadas = mudancasAplicadas;
+            this.recarga = recarga;
+        }
+    }
 
     /**
      * Construtor do ViewModel.
-     * Inicializa o LiveData, cria e registra o ContentObserver, e carrega os dados iniciais.
+     * Inicializa o LiveData, cria e registra o ContentObserver, e carrega a primeira página.
      * @param application A instância da aplicação, fornecida pelo framework.
      */
     // Construtor do ViewModel.
     public MensagemViewModel(@NonNull Application application) {
         super(application);
         mensagens = new MutableLiveData<>();
+        cliente = new ClienteMensagens(application);
+        executor = Executors.newSingleThreadScheduledExecutor();
+        // O resultado de cada carga é publicado na própria thread de fundo, que é a dona da janela.
+        carregador = new CarregadorCoalescente<>(executor, this::atualizarJanela, this::aplicar, DEBOUNCE_MS);
 
         // Instancia um ContentObserver que será acionado sempre que os dados na URI monitorada mudarem.
-        contentObserver = new ContentObserver(new Handler(Looper.getMainLooper())) {
+        // Sem Handler, o onChange é chamado na própria thread de notificação, que apenas agenda a carga.
+        contentObserver = new ContentObserver(null) {
             @Override
-            public void onChange(boolean selfChange) {
-                super.onChange(selfChange);
-                // Quando uma mudança é detectada, a lista de mensagens é recarregada.
-                loadMensagens();
+            public void onChange(boolean selfChange, @NonNull Collection<Uri> uris, int flags) {
+                // Registra quais linhas mudaram e pede uma atualização da janela (agrupada com as demais).
+                registrarMudancas(uris, flags);
+                carregador.solicitar();
             }
         };
 
@@ -57,50 +207,405 @@ public class MensagemViewModel extends AndroidViewModel {
                 contentObserver
         );
 
-        loadMensagens(); // Carrega os dados pela primeira vez.
+        carregador.solicitar(); // Carrega a primeira página.
     }
 
     /**
-     * Retorna o LiveData que contém a lista de mensagens.
+     * Retorna o LiveData que contém a janela atual de mensagens.
      * A UI (Fragment) pode observar este LiveData para se atualizar automaticamente.
-     * @return um {@link LiveData} contendo a lista de {@link Mensagem}.
+     * @return um {@link LiveData} contendo a {@link ListaMensagens} imutável da janela.
      */
     // Expõe o LiveData para a UI.
-    public LiveData<ArrayList<Mensagem>> getMensagens() {
+    public LiveData<ListaMensagens> getMensagens() {
         return mensagens;
     }
 
     /**
-     * Carrega todas as mensagens do ContentProvider.
-     * Este método consulta o ContentResolver, itera sobre o Cursor resultante,
-     * converte cada linha em um objeto Mensagem e atualiza o LiveData.
+     * Grava uma nova mensagem em segundo plano. A janela é atualizada pela notificação do provedor.
+     * @param mensagem A mensagem a ser gravada (o ID é ignorado).
+     * @return O futuro com o ID da nova mensagem.
      */
-    // Busca os dados do ContentProvider e atualiza o LiveData.
-    private void loadMensagens() {
-        // Em um app de produção, esta operação de I/O deveria ser movida para uma thread de fundo.
-        ArrayList<Mensagem> lista = new ArrayList<>();
-        Cursor cursor = getApplication().getContentResolver().query(
-                MensagemContract.MensagemEntry.CONTENT_URI,
-                null, null, null, null
-        );
+    // Insere a mensagem pelo cliente do provedor.
+    public CompletableFuture<Long> salvar(@NonNull Mensagem mensagem) {
+        return cliente.inserir(mensagem);
+    }
+
+    /**
+     * Lê em segundo plano uma mensagem com o texto completo, para exibir uma mensagem cuja
+     * lista só tem o texto curto.
+     * @param id O ID da mensagem.
+     * @return O futuro com a mensagem, ou com null se ela não existir mais.
+     */
+    // Busca a mensagem completa pelo cliente do provedor.
+    public CompletableFuture<Mensagem> buscarTextoCompleto(long id) {
+        return cliente.buscarPorId(id);
+    }
+
+    /**
+     * Pede a próxima página de mensagens (após a última da janela).
+     * Deve ser chamado quando o usuário se aproxima do fim da lista. Chamadas repetidas
+     * enquanto a página ainda está sendo carregada são ignoradas.
+     */
+    // Agenda a carga da página seguinte em segundo plano.
+    public void carregarMais() {
+        if (proximaPaginaPedida.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                proximaPaginaPedida.set(false);
+                carregarProximaPagina();
+            });
+        }
+    }
+
+    /**
+     * Pede a página anterior de mensagens (antes da primeira da janela).
+     * Deve ser chamado quando o usuário se aproxima do início da lista e a janela já
+     * descartou as mensagens iniciais.
+     */
+    // Agenda a carga da página anterior em segundo plano.
+    public void carregarAnteriores() {
+        if (paginaAnteriorPedida.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                paginaAnteriorPedida.set(false);
+                carregarPaginaAnterior();
+            });
+        }
+    }
+
+    // Busca a página após a janela e descarta o excesso do início.
+    private void carregarProximaPagina() {
+        if (janela.fimAlcancado) return;
+
+        ListaMensagens itens = janela.itens;
+        Uri.Builder uri = uriPagina(janela.comArquivo, TAMANHO_PAGINA);
+        if (!itens.isVazia()) {
+            uri.appendQueryParameter(MensagemContract.MensagemEntry.PARAM_APOS_ID,
+                    String.valueOf(itens.getId(itens.tamanho() - 1)));
+        }
+        ListaMensagens pagina = consultar(uri.build(), null);
+        if (pagina == null) return;
+
+        ListaMensagens novos = itens.concatenar(pagina);
+        int excesso = Math.max(0, novos.tamanho() - MAX_ITENS_JANELA);
+        ListaMensagens recortados = novos.fatia(excesso, novos.tamanho());
+        // Depois de deixar as arquivadas para trás, a janela volta a ler só a tabela de mensagens.
+        boolean comArquivo = janela.comArquivo && !recortados.isVazia() && recortados.getId(0) < inicioQuente;
+
+        publicar(new Janela(recortados, janela.inicioAlcancado && excesso == 0, pagina.tamanho() < TAMANHO_PAGINA, comArquivo));
+    }
+
+    // Busca a página antes da janela e descarta o excesso do fim.
+    private void carregarPaginaAnterior() {
+        if (janela.inicioAlcancado || janela.itens.isVazia()) return;
+
+        ListaMensagens itens = janela.itens;
+        boolean comArquivo = janela.comArquivo;
+        ListaMensagens pagina = consultarAntes(comArquivo, itens.getId(0));
+        if (pagina == null) return;
+        if (!comArquivo && pagina.tamanho() < TAMANHO_PAGINA) {
+            // Chegou à mensagem mais antiga da tabela de mensagens: as anteriores, se houver, estão no arquivo.
+            inicioQuente = pagina.isVazia() ? itens.getId(0) : pagina.getId(pagina.tamanho() - 1);
+            ListaMensagens comArquivadas = consultarAntes(true, itens.getId(0));
+            if (comArquivadas == null) return;
+            comArquivo = comArquivadas.tamanho() > pagina.tamanho();
+            pagina = comArquivadas;
+        }
+        // A página "antes_id" vem em ordem decrescente de _ID.
+        pagina = pagina.invertida();
 
-        if (cursor != null) {
+        ListaMensagens novos = pagina.concatenar(itens);
+        int excesso = Math.max(0, novos.tamanho() - MAX_ITENS_JANELA);
+        ListaMensagens recortados = novos.fatia(0, novos.tamanho() - excesso);
+
+        publicar(new Janela(recortados, pagina.tamanho() < TAMANHO_PAGINA, janela.fimAlcancado && excesso == 0, comArquivo));
+    }
+
+    // Busca a página imediatamente antes do ID informado, em ordem decrescente de _ID.
+    private ListaMensagens consultarAntes(boolean comArquivo, long id) {
+        Uri uri = uriPagina(comArquivo, TAMANHO_PAGINA)
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_ANTES_ID, String.valueOf(id))
+                .build();
+        return consultar(uri, null);
+    }
+
+    /**
+     * Registra as linhas afetadas por uma notificação do provedor.
+     * Se a notificação traz o tipo da mudança e apenas URIs de linhas ({@code mensagens/#}),
+     * os IDs são guardados para uma atualização parcial; caso contrário, pede uma recarga completa.
+     * @param uris As URIs notificadas.
+     * @param flags O tipo da mudança (NOTIFY_INSERT, NOTIFY_UPDATE, NOTIFY_DELETE), ou 0 se desconhecido.
+     */
+    // Converte a notificação em mudanças pendentes de linha ou em um pedido de recarga.
+    private void registrarMudancas(Collection<Uri> uris, int flags) {
+        int tiposPorLinha = ContentResolver.NOTIFY_INSERT | ContentResolver.NOTIFY_UPDATE | ContentResolver.NOTIFY_DELETE;
+        if ((flags & tiposPorLinha) != 0) {
+            List<Long> ids = new ArrayList<>(uris.size());
+            for (Uri uri : uris) {
+                long id = idDaLinha(uri);
+                if (id < 0) {
+                    ids = null;
+                    break;
+                }
+                ids.add(id);
+            }
+            if (ids != null) {
+                for (long id : ids) {
+                    mudancasPendentes.put(id, sequenciaMudancas.incrementAndGet());
+                }
+                return;
+            }
+        }
+        recargaPedida.incrementAndGet();
+    }
+
+    // Retorna o ID de uma URI de linha (mensagens/#), ou -1 se a URI não for de uma linha.
+    private static long idDaLinha(Uri uri) {
+        List<String> segmentos = uri.getPathSegments();
+        if (segmentos.size() != 2 || !MensagemContract.PATH_MENSAGENS.equals(segmentos.get(0))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(segmentos.get(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Atualiza a janela com as mudanças pendentes. Executado na thread de fundo do
+     * {@link CarregadorCoalescente}: recarrega a janela inteira se uma recarga foi pedida ou se
+     * há mudanças demais, e busca apenas as linhas alteradas nos demais casos.
+     * @param cancelamento Sinal que indica que esta carga foi substituída por uma mais recente.
+     * @return A atualização a ser aplicada, ou null se não há nada a fazer ou a carga foi cancelada.
+     */
+    // Decide entre a atualização parcial e a recarga completa da janela.
+    private Atualizacao atualizarJanela(CarregadorCoalescente.Cancelamento cancelamento) {
+        long recarga = recargaPedida.get();
+        Map<Long, Long> mudancas = new HashMap<>(mudancasPendentes);
+
+        Janela nova;
+        if (recarga != recargaAtendida || mudancas.size() > MAX_LINHAS_DELTA) {
+            nova = recarregarJanela(cancelamento);
+        } else if (!mudancas.isEmpty()) {
+            nova = aplicarMudancas(mudancas.keySet(), cancelamento);
+        } else {
+            return null;
+        }
+        return nova != null ? new Atualizacao(nova, mudancas, recarga) : null;
+    }
+
+    // Publica o resultado de uma carga e descarta as mudanças que ele já reflete.
+    private void aplicar(Atualizacao atualizacao) {
+        recargaAtendida = Math.max(recargaAtendida, atualizacao.recarga);
+        for (Map.Entry<Long, Long> mudanca : atualizacao.mudancasAplicadas.entrySet()) {
+            // Só remove se a linha não mudou de novo depois que esta carga começou.
+            mudancasPendentes.remove(mudanca.getKey(), mudanca.getValue());
+        }
+        publicar(atualizacao.janela);
+    }
+
+    /**
+     * Busca cada linha alterada pelo seu ID e corrige a janela: substitui as linhas atualizadas,
+     * remove as excluídas e insere as novas que caem dentro da janela. Como a janela e os IDs
+     * alterados estão ordenados, a nova janela é montada em uma única passagem de intercalação.
+     * @param ids Os IDs das linhas alteradas.
+     * @param cancelamento Sinal que indica que esta carga foi substituída por uma mais recente.
+     * @return A janela corrigida, ou null se a carga foi cancelada.
+     */
+    // Aplica as mudanças de linha à janela em memória.
+    private Janela aplicarMudancas(Collection<Long> ids, CarregadorCoalescente.Cancelamento cancelamento) {
+        Janela atual = janela;
+        ListaMensagens itens = atual.itens;
+        long[] alterados = new long[ids.size()];
+        int k = 0;
+        for (long id : ids) {
+            alterados[k++] = id;
+        }
+        Arrays.sort(alterados);
+
+        // Estado atual das linhas alteradas que ainda existem, em ordem crescente de ID.
+        Uri base = atual.comArquivo ? URI_COM_ARQUIVO : MensagemContract.MensagemEntry.CONTENT_URI;
+        ListaMensagens.Construtor existentes = new ListaMensagens.Construtor(alterados.length);
+        for (long id : alterados) {
+            ListaMensagens linha = consultar(ContentUris.withAppendedId(base, id), cancelamento);
+            if (linha == null) return null;
+            if (!linha.isVazia()) {
+                existentes.adicionarDe(linha, 0);
+            }
+        }
+        ListaMensagens novas = existentes.construir();
+
+        ListaMensagens.Construtor resultado = new ListaMensagens.Construtor(itens.tamanho() + novas.tamanho());
+        int i = 0; // Posição na janela atual.
+        int j = 0; // Posição nas linhas alteradas que ainda existem.
+        for (long id : alterados) {
+            while (i < itens.tamanho() && itens.getId(i) < id) {
+                resultado.adicionarDe(itens, i++);
+            }
+            boolean naJanela = i < itens.tamanho() && itens.getId(i) == id;
+            // Linha nova: só entra se cair dentro do intervalo de IDs coberto pela janela.
+            boolean dentro = naJanela || ((i > 0 || atual.inicioAlcancado) && (i < itens.tamanho() || atual.fimAlcancado));
+            if (naJanela) {
+                i++; // A versão antiga é substituída pela nova ou, se a linha foi excluída, descartada.
+            }
+            if (j < novas.tamanho() && novas.getId(j) == id) {
+                if (dentro) {
+                    resultado.adicionarDe(novas, j);
+                }
+                j++;
+            }
+        }
+        while (i < itens.tamanho()) {
+            resultado.adicionarDe(itens, i++);
+        }
+
+        ListaMensagens corrigida = resultado.construir();
+        boolean inicioAlcancado = atual.inicioAlcancado;
+        if (corrigida.tamanho() > MAX_ITENS_JANELA) {
+            // Mantém o limite de memória descartando as mensagens mais antigas.
+            corrigida = corrigida.fatia(corrigida.tamanho() - MAX_ITENS_JANELA, corrigida.tamanho());
+            inicioAlcancado = false;
+        }
+        return new Janela(corrigida, inicioAlcancado, atual.fimAlcancado, atual.comArquivo);
+    }
+
+    /**
+     * Recarrega a janela atual a partir da sua primeira mensagem, mantendo o mesmo tamanho.
+     * Executado na thread de fundo do {@link CarregadorCoalescente}.
+     * <p>
+     * Se a janela lê só a tabela de mensagens e a recarga não traz de volta todas as suas linhas,
+     * elas podem ter ido para o arquivo: a janela é relida com o arquivo, e passa a incluí-lo se
+     * ele trouxer alguma linha a mais. A mensagem mais antiga que restou na tabela passa a ser o
+     * início das mensagens não arquivadas. Na primeira carga, como a janela começa pela mensagem
+     * mais antiga da tabela, o início da lista só é dado como alcançado depois de o arquivo ser
+     * consultado pela {@link #carregarAnteriores() página anterior}.
+     * @param cancelamento Sinal que indica que esta carga foi substituída por uma mais recente.
+     * @return A janela recarregada, ou null se a carga foi cancelada.
+     */
+    // Busca novamente as mensagens cobertas pela janela atual.
+    private Janela recarregarJanela(CarregadorCoalescente.Cancelamento cancelamento) {
+        Janela atual = janela;
+        int limite = Math.max(TAMANHO_PAGINA, atual.itens.tamanho());
+
+        ListaMensagens itens = consultarJanela(atual, atual.comArquivo, limite, cancelamento);
+        if (itens == null) return null;
+        boolean comArquivo = atual.comArquivo;
+        if (!comArquivo && perdeuLinhas(atual.itens, itens, limite)) {
+            ListaMensagens comArquivadas = consultarJanela(atual, true, limite, cancelamento);
+            if (comArquivadas == null) return null;
+            if (!mesmosIds(itens, comArquivadas)) {
+                inicioQuente = itens.isVazia() ? Long.MAX_VALUE : itens.getId(0);
+                itens = comArquivadas;
+                comArquivo = true;
+            }
+        }
+        boolean inicioAlcancado = atual.inicioAlcancado;
+        if (inicioAlcancado && !comArquivo && !itens.isVazia()) {
+            // A recarga começou pela mensagem mais antiga da tabela de mensagens.
+            inicioQuente = itens.getId(0);
+            // Na primeira carga, ainda não se sabe se há mensagens arquivadas antes dela.
+            inicioAlcancado = !atual.itens.isVazia();
+        }
+        return new Janela(itens, inicioAlcancado, itens.tamanho() < limite, comArquivo);
+    }
+
+    // Consulta as mensagens a partir da primeira da janela (ou do início), com ou sem o arquivo.
+    private ListaMensagens consultarJanela(Janela atual, boolean comArquivo, int limite,
+                                           CarregadorCoalescente.Cancelamento cancelamento) {
+        Uri.Builder uri = uriPagina(comArquivo, limite);
+        if (!atual.inicioAlcancado && !atual.itens.isVazia()) {
+            // Começa imediatamente antes da primeira mensagem, para incluí-la na recarga.
+            uri.appendQueryParameter(MensagemContract.MensagemEntry.PARAM_APOS_ID,
+                    String.valueOf(atual.itens.getId(0) - 1));
+        }
+        return consultar(uri.build(), cancelamento);
+    }
+
+    /**
+     * Indica se alguma linha da janela anterior, dentro do intervalo coberto pela recarga, não
+     * veio nela. As duas listas estão em ordem crescente de {@code _ID}.
+     */
+    // Compara as duas listas em uma única passagem de intercalação.
+    private static boolean perdeuLinhas(ListaMensagens antes, ListaMensagens depois, int limite) {
+        // Uma recarga incompleta chegou ao fim das mensagens: cobre todas as linhas da janela anterior.
+        long ultimo = depois.tamanho() < limite ? Long.MAX_VALUE : depois.getId(depois.tamanho() - 1);
+        int j = 0;
+        for (int i = 0; i < antes.tamanho() && antes.getId(i) <= ultimo; i++) {
+            long id = antes.getId(i);
+            while (j < depois.tamanho() && depois.getId(j) < id) {
+                j++;
+            }
+            if (j == depois.tamanho() || depois.getId(j) != id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Indica se as duas listas têm os mesmos IDs, na mesma ordem.
+    private static boolean mesmosIds(ListaMensagens a, ListaMensagens b) {
+        if (a.tamanho() != b.tamanho()) return false;
+        for (int i = 0; i < a.tamanho(); i++) {
+            if (a.getId(i) != b.getId(i)) return false;
+        }
+        return true;
+    }
+
+    // Substitui a janela atual e entrega a lista (imutável) para a UI.
+    private void publicar(Janela nova) {
+        janela = nova;
+        // O valor é entregue com postValue, pois é produzido fora da thread principal.
+        mensagens.postValue(nova.itens);
+    }
+
+    // Cria a URI de uma página de mensagens, com ou sem as arquivadas, com o limite informado.
+    private static Uri.Builder uriPagina(boolean comArquivo, int limite) {
+        return (comArquivo ? URI_COM_ARQUIVO : MensagemContract.MensagemEntry.CONTENT_URI).buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, String.valueOf(limite));
+    }
+
+    /**
+     * Consulta o ContentProvider e converte as linhas do Cursor em uma {@link ListaMensagens}.
+     * @param uri A URI da página a ser consultada.
+     * @param cancelamento Sinal de cancelamento da carga, ou null se ela não puder ser cancelada.
+     * @return A lista de mensagens, ou null se a carga foi cancelada.
+     */
+    // Busca uma página do ContentProvider em segundo plano.
+    private ListaMensagens consultar(Uri uri, CarregadorCoalescente.Cancelamento cancelamento) {
+        // Propaga o cancelamento para a consulta, interrompendo-a no SQLite se ainda estiver em execução.
+        CancellationSignal sinal = null;
+        if (cancelamento != null) {
+            sinal = new CancellationSignal();
+            cancelamento.setOuvinte(sinal::cancel);
+        }
+
+        try {
+            Cursor cursor = cliente.consultar(uri, PROJECAO_LISTA, null, null, null, sinal);
+
+            if (cursor == null) {
+                return ListaMensagens.VAZIA;
+            }
             try {
+                // Os índices das colunas são resolvidos uma única vez para todo o Cursor.
+                MapeadorCursor mapeador = new MapeadorCursor(cursor, poolAutores);
+                ListaMensagens.Construtor lista = new ListaMensagens.Construtor(cursor.getCount());
                 while (cursor.moveToNext()) {
-                    long id = cursor.getLong(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry._ID));
-                    String texto = cursor.getString(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO));
-                    String autor = cursor.getString(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR));
-                    int favoritaInt = cursor.getInt(cursor.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_FAVORITA));
-                    boolean favoritaBool = favoritaInt == 1;
-
-                    lista.add(new Mensagem(id, texto, autor, favoritaBool));
+                    // Interrompe a leitura se uma carga mais recente já foi pedida.
+                    if (cancelamento != null && cancelamento.isCancelado()) {
+                        return null;
+                    }
+                    mapeador.lerLinha(lista);
                 }
+                return lista.construir();
             } finally {
                 cursor.close(); // Garante que o cursor seja sempre fechado.
             }
+        } catch (OperationCanceledException e) {
+            // A consulta foi interrompida por uma carga mais recente; o resultado seria descartado.
+            return null;
+        } catch (RemoteException e) {
+            // O provedor não pôde ser alcançado nem após reconectar: mantém a janela atual.
+            return null;
         }
-        // Define o novo valor no LiveData, notificando todos os seus observadores.
-        mensagens.setValue(lista);
     }
 
     /**
@@ -113,5 +618,9 @@ public class MensagemViewModel extends AndroidViewModel {
         super.onCleared();
         // Remove o registro do observador para que ele não continue ativo desnecessariamente.
         getApplication().getContentResolver().unregisterContentObserver(contentObserver);
+        // Cancela a carga em andamento e libera a thread de fundo.
+        carregador.encerrar();
+        executor.shutdownNow();
+        cliente.close();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package com.example.contentprovidergerador.data.db;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais da normalização e do hash usados pelo índice único de {@link HashConteudo}.
+ */
+public class HashConteudoTest {
+
+    @Test
+    public void espacosEMaiusculas_naoMudamOHash() {
+        assertEquals(HashConteudo.calcular("A vida é bela.", "Autor"),
+                HashConteudo.calcular("  a VIDA\té\n bela. ", "autor "));
+    }
+
+    @Test
+    public void formasUnicodeDiferentes_temOMesmoHash() {
+        // "é" pré-composto e "e" seguido do acento combinante.
+        assertEquals(HashConteudo.calcular("caf\u00e9", "Autor"), HashConteudo.calcular("cafe\u0301", "Autor"));
+    }
+
+    @Test
+    public void textoEAutor_naoSeMisturam() {
+        assertNotEquals(HashConteudo.calcular("a b", "c"), HashConteudo.calcular("a", "b c"));
+        assertNotEquals(HashConteudo.calcular("Persista", "Autor 1"), HashConteudo.calcular("Persista", "Autor 2"));
+    }
+
+    @Test
+    public void normalizar_reduzEspacosEMinusculas() {
+        assertEquals("a vida é bela", HashConteudo.normalizar("  A  Vida\r\nÉ bela "));
+    }
+}
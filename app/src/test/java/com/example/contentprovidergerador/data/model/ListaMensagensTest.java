@@ -0,0 +1,140 @@
+package com.example.contentprovidergerador.data.model;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais da {@link ListaMensagens} e do {@link PoolTextos}, incluindo a comparação do
+ * número de bytes alocados por linha com o mapeamento anterior para {@code List<Mensagem>}.
+ */
+public class ListaMensagensTest {
+
+    private static final int LINHAS = 10_000;
+    private static final int AUTORES = 50;
+
+    @Test
+    public void poolTextos_devolveMesmaInstanciaParaMesmoConteudo() {
+        PoolTextos pool = new PoolTextos();
+        char[] buffer = "Clarice Lispector...".toCharArray();
+
+        String primeiro = pool.obter(buffer, 17);
+        String segundo = pool.obter("Clarice Lispector".toCharArray(), 17);
+
+        assertEquals("Clarice Lispector", primeiro);
+        assertSame(primeiro, segundo);
+        assertEquals(1, pool.tamanho());
+    }
+
+    @Test
+    public void poolTextos_esvaziaQuandoAtingeOLimite() {
+        PoolTextos pool = new PoolTextos();
+        for (int i = 0; i <= PoolTextos.MAX_TEXTOS; i++) {
+            char[] texto = ("Autor " + i).toCharArray();
+            pool.obter(texto, texto.length);
+        }
+        assertEquals(1, pool.tamanho());
+    }
+
+    @Test
+    public void fatiaConcatenacaoEInversao_preservamAsColunas() {
+        ListaMensagens lista = new ListaMensagens.Construtor(1)
+                .adicionar(1, "Um", "A", false)
+                .adicionar(2, "Dois", "B", true)
+                .adicionar(3, "Três", "C", false)
+                .construir();
+
+        ListaMensagens fatia = lista.fatia(1, 3);
+        assertEquals(2, fatia.tamanho());
+        assertEquals(2, fatia.getId(0));
+        assertTrue(fatia.isFavorita(0));
+        assertFalse(fatia.isFavorita(1));
+
+        ListaMensagens invertida = fatia.invertida().concatenar(lista.fatia(0, 1));
+        assertEquals(3, invertida.getId(0));
+        assertEquals("Dois", invertida.getTexto(1));
+        assertTrue(invertida.isFavorita(1));
+        assertEquals("A", invertida.getAutor(2));
+
+        assertEquals(1, lista.buscarPosicao(2));
+        assertEquals(-4, lista.buscarPosicao(10));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void posicaoForaDaLista_lancaExcecao() {
+        // O vetor interno tem folga, mas a posição 1 não pertence à lista.
+        new ListaMensagens.Construtor(8).adicionar(1, "Um", "A", false).construir().getId(1);
+    }
+
+    @Test
+    public void mapeamentoColunar_alocaMenosPorLinha() {
+        // A contagem de bytes alocados por thread é uma extensão da HotSpot; sem ela, o teste é ignorado.
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("A JVM não mede as alocações por thread", bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported());
+        com.sun.management.ThreadMXBean alocacoes = (com.sun.management.ThreadMXBean) bean;
+
+        // Simula o conteúdo do Cursor: o texto de cada linha e o autor copiado para um buffer.
+        char[][] autores = new char[AUTORES][];
+        for (int i = 0; i < AUTORES; i++) {
+            autores[i] = ("Autor motivacional " + i).toCharArray();
+        }
+        String[] textos = new String[LINHAS];
+        for (int i = 0; i < LINHAS; i++) {
+            textos[i] = "Mensagem " + i;
+        }
+
+        // Aquece o JIT nos dois caminhos antes de medir.
+        for (int i = 0; i < 5; i++) {
+            mapearComObjetos(textos, autores);
+            mapearEmColunas(textos, autores, new PoolTextos());
+        }
+
+        long antes = bytesAlocados(alocacoes);
+        List<Mensagem> objetos = mapearComObjetos(textos, autores);
+        double porLinhaObjetos = (bytesAlocados(alocacoes) - antes) / (double) LINHAS;
+
+        PoolTextos pool = new PoolTextos();
+        antes = bytesAlocados(alocacoes);
+        ListaMensagens colunas = mapearEmColunas(textos, autores, pool);
+        double porLinhaColunas = (bytesAlocados(alocacoes) - antes) / (double) LINHAS;
+
+        assertEquals(objetos.size(), colunas.tamanho());
+        assertEquals(AUTORES, pool.tamanho());
+        assertSame(colunas.getAutor(0), colunas.getAutor(AUTORES));
+        assertTrue(String.format("O mapeamento em colunas deveria alocar menos por linha " +
+                        "(List<Mensagem>: %.1f bytes, ListaMensagens: %.1f bytes)", porLinhaObjetos, porLinhaColunas),
+                porLinhaColunas < porLinhaObjetos * 0.7);
+    }
+
+    // Mapeamento anterior: uma String de autor, uma Mensagem e uma entrada da lista por linha.
+    private static List<Mensagem> mapearComObjetos(String[] textos, char[][] autores) {
+        List<Mensagem> lista = new ArrayList<>();
+        for (int i = 0; i < textos.length; i++) {
+            char[] autor = autores[i % AUTORES];
+            lista.add(new Mensagem(i, textos[i], new String(autor, 0, autor.length), i % 3 == 0));
+        }
+        return lista;
+    }
+
+    // Mapeamento em colunas: o autor vem do pool e a linha vai direto para os vetores.
+    private static ListaMensagens mapearEmColunas(String[] textos, char[][] autores, PoolTextos pool) {
+        ListaMensagens.Construtor lista = new ListaMensagens.Construtor(textos.length);
+        for (int i = 0; i < textos.length; i++) {
+            char[] autor = autores[i % AUTORES];
+            lista.adicionar(i, textos[i], pool.obter(autor, autor.length), i % 3 == 0);
+        }
+        return lista.construir();
+    }
+
+    // Retorna o total de bytes já alocados pela thread atual.
+    private static long bytesAlocados(com.sun.management.ThreadMXBean bean) {
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.contentprovidergerador.data.provider;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais da normalização do SQL usada nas chaves do {@link CacheConsultas}.
+ */
+public class CacheConsultasTest {
+
+    @Test
+    public void espacosForaDeLiterais_saoUnificados() {
+        assertEquals("favorita = 1 AND autor = ?",
+                CacheConsultas.normalizarSql("  favorita =\t1\n AND   autor = ?  "));
+    }
+
+    @Test
+    public void espacosDentroDeLiterais_saoMantidos() {
+        assertEquals("texto = 'a  b' AND \"x  y\" = 1",
+                CacheConsultas.normalizarSql("texto  =  'a  b'  AND  \"x  y\" = 1"));
+        assertNotEquals(CacheConsultas.normalizarSql("texto = 'a b'"), CacheConsultas.normalizarSql("texto = 'a  b'"));
+    }
+
+    @Test
+    public void aspasDuplicadas_naoEncerramOLiteral() {
+        assertEquals("texto = 'it''s  ok' AND x = 1",
+                CacheConsultas.normalizarSql("texto = 'it''s  ok'   AND x = 1"));
+    }
+}
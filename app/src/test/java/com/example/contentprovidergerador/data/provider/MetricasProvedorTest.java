@@ -0,0 +1,117 @@
+package com.example.contentprovidergerador.data.provider;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais das {@link MetricasProvedor}: faixas do histograma, percentis, contagem
+ * concorrente e o efeito de zerar as métricas.
+ */
+public class MetricasProvedorTest {
+
+    private static final int MENSAGENS = 100;
+    private static final int MENSAGEM_COM_ID = 101;
+
+    @Test
+    public void faixas_cobremCadaLatenciaSemLacunas() {
+        for (long micros = 0; micros < 1_000_000; micros++) {
+            int faixa = MetricasProvedor.Serie.faixa(micros);
+            long limite = MetricasProvedor.Serie.limiteSuperior(faixa);
+            assertTrue(micros + " deveria ser menor que o limite " + limite, micros < limite);
+            if (faixa > 0) {
+                assertTrue(micros + " deveria estar acima da faixa anterior",
+                        micros >= MetricasProvedor.Serie.limiteSuperior(faixa - 1));
+            }
+        }
+        assertEquals(MetricasProvedor.Serie.FAIXAS - 1, MetricasProvedor.Serie.faixa(Long.MAX_VALUE / 1000));
+    }
+
+    @Test
+    public void percentis_ficamDentroDoErroDaFaixa() {
+        MetricasProvedor.Serie serie = new MetricasProvedor.Serie(MetricasProvedor.Operacao.CONSULTA, MENSAGENS);
+        // 1 a 1000 µs, uma chamada de cada: p50 = 500 µs e p99 = 990 µs.
+        for (long micros = 1; micros <= 1000; micros++) {
+            serie.registrar(micros * 1000, 1, false);
+        }
+        MetricasProvedor.Instantaneo instantaneo = serie.instantaneo(false);
+
+        assertEquals(1000, instantaneo.chamadas);
+        assertEquals(1000, instantaneo.linhas);
+        assertEquals(1000, instantaneo.maximoMicros);
+        assertEquals(500, instantaneo.mediaMicros());
+        assertEntre(500, 500 * 1.25, instantaneo.percentilMicros(0.50));
+        assertEntre(990, 1000, instantaneo.percentilMicros(0.99));
+    }
+
+    @Test
+    public void seriesSeparamOperacaoECodigo_eZerarComecaNovaJanela() {
+        MetricasProvedor metricas = new MetricasProvedor();
+        long inicio = System.nanoTime();
+        metricas.registrar(MetricasProvedor.Operacao.CONSULTA, MENSAGENS, inicio, 10);
+        metricas.registrar(MetricasProvedor.Operacao.CONSULTA, MENSAGEM_COM_ID, inicio, 1);
+        metricas.registrar(MetricasProvedor.Operacao.INSERCAO, MENSAGENS, inicio, 5);
+        metricas.registrarErro(MetricasProvedor.Operacao.INSERCAO, MENSAGENS, inicio);
+        metricas.serie(MetricasProvedor.Operacao.CONSULTA, MENSAGENS).adicionarBytesTexto(42);
+
+        List<MetricasProvedor.Instantaneo> series = metricas.instantaneo(true);
+        assertEquals(3, series.size());
+        for (MetricasProvedor.Instantaneo serie : series) {
+            if (serie.operacao == MetricasProvedor.Operacao.INSERCAO) {
+                assertEquals(2, serie.chamadas);
+                assertEquals(1, serie.erros);
+                assertEquals(5, serie.linhas);
+            } else if (serie.codigo == MENSAGENS) {
+                assertEquals(10, serie.linhas);
+                assertEquals(42, serie.bytesTexto);
+            } else {
+                assertEquals(1, serie.linhas);
+            }
+        }
+
+        for (MetricasProvedor.Instantaneo serie : metricas.instantaneo(false)) {
+            assertEquals(0, serie.chamadas);
+            assertEquals(0, serie.bytesTexto);
+            assertEquals(0, serie.percentilMicros(0.99));
+        }
+    }
+
+    @Test
+    public void registrosConcorrentes_naoPerdemContagens() throws Exception {
+        MetricasProvedor metricas = new MetricasProvedor();
+        int threads = 8;
+        int porThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < porThread; i++) {
+                    metricas.registrar(MetricasProvedor.Operacao.ATUALIZACAO, MENSAGEM_COM_ID, System.nanoTime(), 1);
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        MetricasProvedor.Instantaneo serie = metricas.instantaneo(false).get(0);
+        assertEquals((long) threads * porThread, serie.chamadas);
+        assertEquals((long) threads * porThread, serie.linhas);
+    }
+
+    // Verifica que o valor está no intervalo [minimo, maximo].
+    private static void assertEntre(double minimo, double maximo, long valor) {
+        assertTrue(valor + " fora de [" + minimo + ", " + maximo + "]", valor >= minimo && valor <= maximo);
+    }
+}
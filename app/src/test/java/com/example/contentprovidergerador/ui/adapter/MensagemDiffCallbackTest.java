@@ -0,0 +1,89 @@
+package com.example.contentprovidergerador.ui.adapter;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais do {@link MensagemDiffCallback}: verificam os eventos que o RecyclerView
+ * recebe ao comparar duas versões da lista de mensagens.
+ */
+public class MensagemDiffCallbackTest {
+
+    @Test
+    public void alternarUmaFavorita_geraExatamenteUmEventoDeAlteracao() {
+        ListaMensagens antigas = criarMensagens(100, -1);
+        ListaMensagens novas = criarMensagens(100, 42);
+
+        Eventos eventos = calcular(antigas, novas);
+
+        assertEquals(1, eventos.alteracoes);
+        assertEquals(42, eventos.ultimaPosicaoAlterada);
+        assertEquals(0, eventos.insercoes);
+        assertEquals(0, eventos.remocoes);
+        assertEquals(0, eventos.movimentos);
+    }
+
+    @Test
+    public void novaPaginaNoFim_geraApenasUmaInsercao() {
+        ListaMensagens antigas = criarMensagens(50, -1);
+        ListaMensagens novas = criarMensagens(100, -1);
+
+        Eventos eventos = calcular(antigas, novas);
+
+        assertEquals(1, eventos.insercoes);
+        assertEquals(0, eventos.alteracoes);
+        assertEquals(0, eventos.remocoes);
+    }
+
+    // Calcula a diferença entre as listas e conta os eventos gerados.
+    private static Eventos calcular(ListaMensagens antigas, ListaMensagens novas) {
+        DiffUtil.DiffResult resultado = DiffUtil.calculateDiff(new MensagemDiffCallback(antigas, novas));
+        Eventos eventos = new Eventos();
+        resultado.dispatchUpdatesTo(eventos);
+        return eventos;
+    }
+
+    // Cria mensagens com IDs de 1 a quantidade, invertendo o status de favorita da posição informada.
+    private static ListaMensagens criarMensagens(int quantidade, int posicaoAlternada) {
+        ListaMensagens.Construtor mensagens = new ListaMensagens.Construtor(quantidade);
+        for (int i = 1; i <= quantidade; i++) {
+            boolean favorita = i % 5 == 0;
+            mensagens.adicionar(i, "Texto " + i, "Autor " + (i % 7), i - 1 == posicaoAlternada ? !favorita : favorita);
+        }
+        return mensagens.construir();
+    }
+
+    /** Conta os eventos despachados para o RecyclerView. */
+    private static final class Eventos implements ListUpdateCallback {
+        int insercoes, remocoes, movimentos, alteracoes;
+        int ultimaPosicaoAlterada = -1;
+
+        @Override
+        public void onInserted(int position, int count) {
+            insercoes++;
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            remocoes++;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            movimentos++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            alteracoes += count;
+            ultimaPosicaoAlterada = position;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.contentprovidergerador.ui.viewmodel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Testes locais do {@link CarregadorCoalescente}, que executam na máquina de desenvolvimento.
+ */
+public class CarregadorCoalescenteTest {
+
+    private ScheduledExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void rajadaDeNotificacoes_executaNumeroLimitadoDeConsultas() throws Exception {
+        AtomicInteger consultas = new AtomicInteger();
+        AtomicInteger entregas = new AtomicInteger();
+        AtomicInteger emParalelo = new AtomicInteger();
+        AtomicInteger maximoEmParalelo = new AtomicInteger();
+
+        CarregadorCoalescente<Integer> carregador = new CarregadorCoalescente<>(executor, cancelamento -> {
+            int atuais = emParalelo.incrementAndGet();
+            maximoEmParalelo.accumulateAndGet(atuais, Math::max);
+            // Simula uma consulta de ~5 ms que verifica o cancelamento a cada "linha".
+            for (int i = 0; i < 5 && !cancelamento.isCancelado(); i++) {
+                dormir(1);
+            }
+            emParalelo.decrementAndGet();
+            return consultas.incrementAndGet();
+        }, resultado -> entregas.incrementAndGet(), 20);
+
+        for (int i = 0; i < 1000; i++) {
+            carregador.solicitar();
+        }
+        aguardarOciosidade();
+
+        assertTrue("Nenhuma consulta foi executada", consultas.get() >= 1);
+        assertTrue("Consultas demais: " + consultas.get(), consultas.get() <= 5);
+        assertTrue(entregas.get() >= 1);
+        assertEquals(1, maximoEmParalelo.get());
+    }
+
+    @Test
+    public void pedidoDuranteCarga_cancelaCargaAtualEDescartaResultado() throws Exception {
+        CountDownLatch cargaIniciada = new CountDownLatch(1);
+        AtomicInteger consultas = new AtomicInteger();
+        AtomicInteger ultimaEntrega = new AtomicInteger();
+
+        CarregadorCoalescente<Integer> carregador = new CarregadorCoalescente<>(executor, cancelamento -> {
+            int numero = consultas.incrementAndGet();
+            if (numero == 1) {
+                cargaIniciada.countDown();
+                while (!cancelamento.isCancelado()) {
+                    dormir(1);
+                }
+            }
+            return numero;
+        }, ultimaEntrega::set, 0);
+
+        carregador.solicitar();
+        assertTrue(cargaIniciada.await(1, TimeUnit.SECONDS));
+        carregador.solicitar();
+        aguardarOciosidade();
+
+        assertEquals(2, consultas.get());
+        // Apenas o resultado da segunda carga, que não foi cancelada, é entregue.
+        assertEquals(2, ultimaEntrega.get());
+    }
+
+    // Espera até que as cargas agendadas tenham terminado.
+    private void aguardarOciosidade() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            CountDownLatch latch = new CountDownLatch(1);
+            executor.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(2, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+plugins {
+    alias(libs.plugins.android.library)
+}
+
+// Módulo de benchmarks executados na JVM (Robolectric), sem emulador ou aparelho.
+// Compila as mesmas fontes e recursos do :app, já que um módulo de aplicativo não pode ser
+// usado como dependência. O namespace é o mesmo do :app para que a classe R gerada tenha
+// o mesmo pacote importado pelas fontes compartilhadas. O contrato e o modelo vêm do :cliente,
+// como no :app.
+//
+// Execução: ./gradlew :benchmark:testDebugUnitTest
+// Resultados: benchmark/build/benchmark/<grupo>.json, um arquivo por grupo de benchmarks
+// (provider.json, viewmodel.json e adapter.json).
+android {
+    namespace = "com.example.contentprovidergerador"
+    compileSdk = 36
+
+    defaultConfig {
+        minSdk = 34
+    }
+
+    sourceSets {
+        getByName("main") {
+            java.srcDir("../app/src/main/java")
+            res.srcDir("../app/src/main/res")
+        }
+    }
+
+    buildFeatures {
+        viewBinding = true
+    }
+
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            all {
+                it.maxHeapSize = "2g"
+                it.systemProperty(
+                    "benchmark.saida",
+                    layout.buildDirectory.dir("benchmark").get().asFile.absolutePath
+                )
+                // Os benchmarks devem rodar a cada execução, mesmo sem mudanças nas fontes.
+                it.outputs.upToDateWhen { false }
+            }
+        }
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+}
+
+dependencies {
+
+    implementation(project(":cliente"))
+    implementation(libs.appcompat)
+    implementation(libs.material)
+    implementation(libs.activity)
+    implementation(libs.constraintlayout)
+    implementation("androidx.lifecycle:lifecycle-viewmodel:2.7.0")
+    implementation("androidx.lifecycle:lifecycle-livedata:2.7.0")
+    implementation("androidx.navigation:navigation-fragment:2.7.7")
+    implementation("androidx.navigation:navigation-ui:2.7.7")
+    testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+}
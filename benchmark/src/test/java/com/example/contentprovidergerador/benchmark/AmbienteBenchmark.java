@@ -0,0 +1,83 @@
+package com.example.contentprovidergerador.benchmark;
+
+import android.content.ContentValues;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.db.MensagemDbHelper;
+import com.example.contentprovidergerador.data.provider.MensagemProvider;
+
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Configuração comum dos benchmarks: os tamanhos medidos, os dados de exemplo e a criação
+ * de um {@link MensagemProvider} registrado no ContentResolver do Robolectric.
+ */
+public final class AmbienteBenchmark {
+
+    /** Os tamanhos de tabela (e de lista) medidos em todos os caminhos. */
+    public static final int[] TAMANHOS = {1_000, 10_000, 100_000};
+    /** Execuções descartadas antes de medir. */
+    public static final int AQUECIMENTO = 2;
+    /** Execuções medidas em cada caso. */
+    public static final int REPETICOES = 5;
+    /** Número de autores distintos nos dados de exemplo. */
+    private static final int AUTORES = 300;
+    /** Linhas inseridas por chamada de bulkInsert ao popular a tabela. */
+    private static final int LOTE = 10_000;
+
+    private AmbienteBenchmark() {}
+
+    /**
+     * Cria um provedor com um banco de dados vazio, registrado na autoridade do contrato.
+     * @return O provedor já inicializado.
+     */
+    // Apaga o banco anterior e cria um provedor novo.
+    public static MensagemProvider criarProvedor() {
+        RuntimeEnvironment.getApplication().deleteDatabase(MensagemDbHelper.DATABASE_NAME);
+        return Robolectric.buildContentProvider(MensagemProvider.class).create(MensagemContract.AUTHORITY).get();
+    }
+
+    /**
+     * Encerra o provedor e apaga o seu banco de dados.
+     * @param provider O provedor criado por {@link #criarProvedor()}, ou null.
+     */
+    // Libera o provedor e remove o arquivo do banco.
+    public static void destruirProvedor(MensagemProvider provider) {
+        if (provider != null) {
+            provider.shutdown();
+        }
+        RuntimeEnvironment.getApplication().deleteDatabase(MensagemDbHelper.DATABASE_NAME);
+    }
+
+    /**
+     * Insere mensagens de exemplo até a tabela ter o número de linhas informado.
+     * @param provider O provedor vazio.
+     * @param linhas O número de linhas desejado.
+     */
+    // Popula a tabela em lotes.
+    public static void popular(MensagemProvider provider, int linhas) {
+        for (int inicio = 0; inicio < linhas; inicio += LOTE) {
+            provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, gerar(inicio, Math.min(LOTE, linhas - inicio)));
+        }
+    }
+
+    /**
+     * Gera mensagens de exemplo, com 300 autores e uma favorita a cada dez.
+     * @param inicio O número da primeira mensagem.
+     * @param quantidade O número de mensagens.
+     * @return Os valores de cada linha.
+     */
+    // Gera as linhas de exemplo usadas em todos os benchmarks.
+    public static ContentValues[] gerar(int inicio, int quantidade) {
+        ContentValues[] linhas = new ContentValues[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            ContentValues values = new ContentValues();
+            values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, "Acredite no seu potencial, mensagem " + (inicio + i));
+            values.put(MensagemContract.MensagemEntry.COLUMN_AUTOR, "Autor " + ((inicio + i) % AUTORES));
+            values.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, (inicio + i) % 10 == 0);
+            linhas[i] = values;
+        }
+        return linhas;
+    }
+}
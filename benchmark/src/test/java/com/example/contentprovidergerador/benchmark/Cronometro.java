@@ -0,0 +1,103 @@
+package com.example.contentprovidergerador.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Mede o tempo de uma operação repetida, descartando as primeiras execuções (aquecimento do JIT
+ * e dos caches do SQLite). A preparação de cada repetição fica fora da medição.
+ */
+public final class Cronometro {
+
+    private Cronometro() {}
+
+    /** Trecho de código medido ou executado antes de cada medição. */
+    public interface Operacao {
+        void executar() throws Exception;
+    }
+
+    /**
+     * Executa a operação {@code aquecimento + repeticoes} vezes e mede apenas as últimas.
+     * @param caso O nome do caminho medido (ex: {@code "provider.query"}).
+     * @param linhas O número de linhas da tabela ou da lista durante a medição.
+     * @param operacoes Quantas unidades (linhas, binds, atualizações) cada execução processa.
+     * @param aquecimento O número de execuções descartadas.
+     * @param repeticoes O número de execuções medidas.
+     * @param preparar Executado antes de cada execução, fora da medição (pode ser null).
+     * @param operacao A operação medida.
+     * @return O resultado com o tempo de cada repetição.
+     */
+    // Aquece, mede cada repetição e devolve as amostras ordenadas.
+    public static Resultado medir(String caso, int linhas, int operacoes, int aquecimento, int repeticoes,
+                                  Operacao preparar, Operacao operacao) throws Exception {
+        long[] amostras = new long[repeticoes];
+        for (int i = 0; i < aquecimento + repeticoes; i++) {
+            if (preparar != null) {
+                preparar.executar();
+            }
+            long inicio = System.nanoTime();
+            operacao.executar();
+            long duracao = System.nanoTime() - inicio;
+            if (i >= aquecimento) {
+                amostras[i - aquecimento] = duracao;
+            }
+        }
+        Arrays.sort(amostras);
+        return new Resultado(caso, linhas, operacoes, amostras);
+    }
+
+    /**
+     * Monta um resultado a partir de amostras medidas pelo próprio benchmark, como a duração de
+     * cada quadro de uma rolagem.
+     * @param caso O nome do caminho medido.
+     * @param linhas O número de linhas da lista durante a medição.
+     * @param operacoes Quantas unidades cada amostra processa.
+     * @param amostras As durações, em nanossegundos, em qualquer ordem.
+     * @return O resultado com as amostras ordenadas.
+     */
+    // Ordena uma cópia das amostras e devolve o resultado.
+    public static Resultado deAmostras(String caso, int linhas, int operacoes, long[] amostras) {
+        long[] ordenadas = amostras.clone();
+        Arrays.sort(ordenadas);
+        return new Resultado(caso, linhas, operacoes, ordenadas);
+    }
+
+    /** O tempo das repetições de um caso, em nanossegundos e em ordem crescente. */
+    public static final class Resultado {
+        public final String caso;
+        public final int linhas;
+        public final int operacoes;
+        private final long[] amostras;
+
+        Resultado(String caso, int linhas, int operacoes, long[] amostras) {
+            this.caso = caso;
+            this.linhas = linhas;
+            this.operacoes = operacoes;
+            this.amostras = amostras;
+        }
+
+        /** @return A mediana das repetições, em nanossegundos. */
+        public long mediana() {
+            return amostras[amostras.length / 2];
+        }
+
+        /** @return O percentil 90 das repetições, em nanossegundos. */
+        public long p90() {
+            return amostras[Math.min(amostras.length - 1, (int) Math.ceil(amostras.length * 0.9) - 1)];
+        }
+
+        /** @return A repetição mais rápida, em nanossegundos. */
+        public long minimo() {
+            return amostras[0];
+        }
+
+        /** @return A mediana dividida pelo número de operações de cada execução. */
+        public double nanosPorOperacao() {
+            return mediana() / (double) operacoes;
+        }
+
+        /** @return O número de repetições medidas. */
+        public int repeticoes() {
+            return amostras.length;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.contentprovidergerador.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reúne os resultados de uma classe de benchmark e os grava em JSON, um resultado por linha e
+ * em ordem de caso e de tamanho, para que dois commits possam ser comparados com um simples diff.
+ * <p>
+ * O arquivo é gravado em {@code <benchmark.saida>/<nome>.json}; a propriedade de sistema
+ * {@code benchmark.saida} é definida pelo build.gradle.kts do módulo.
+ */
+public final class RelatorioBenchmark {
+
+    private final String nome;
+    private final List<Cronometro.Resultado> resultados = new ArrayList<>();
+
+    /**
+     * Construtor do relatório.
+     * @param nome O nome do arquivo de resultados, sem extensão.
+     */
+    public RelatorioBenchmark(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Registra um resultado e o imprime na saída do teste.
+     * @param resultado O resultado de um caso.
+     */
+    // Guarda o resultado para a gravação no fim da classe.
+    public synchronized void adicionar(Cronometro.Resultado resultado) {
+        resultados.add(resultado);
+        System.out.printf(Locale.ROOT, "%-28s %7d linhas | mediana %10.3f ms | %10.1f ns/op%n",
+                resultado.caso, resultado.linhas, resultado.mediana() / 1e6, resultado.nanosPorOperacao());
+    }
+
+    /**
+     * Grava todos os resultados registrados no arquivo JSON do relatório.
+     * @throws IOException se o arquivo não puder ser gravado.
+     */
+    // Escreve o JSON ordenado por caso e tamanho.
+    public synchronized void gravar() throws IOException {
+        File diretorio = new File(System.getProperty("benchmark.saida", "build/benchmark"));
+        if (!diretorio.isDirectory() && !diretorio.mkdirs()) {
+            throw new IOException("Não foi possível criar " + diretorio);
+        }
+        List<Cronometro.Resultado> ordenados = new ArrayList<>(resultados);
+        ordenados.sort(Comparator.<Cronometro.Resultado, String>comparing(r -> r.caso).thenComparingInt(r -> r.linhas));
+
+        try (Writer saida = new OutputStreamWriter(new FileOutputStream(new File(diretorio, nome + ".json")),
+                StandardCharsets.UTF_8)) {
+            saida.write("{\"resultados\": [\n");
+            for (int i = 0; i < ordenados.size(); i++) {
+                Cronometro.Resultado r = ordenados.get(i);
+                saida.write(String.format(Locale.ROOT,
+                        "  {\"caso\": \"%s\", \"linhas\": %d, \"operacoes\": %d, \"repeticoes\": %d, " +
+                        "\"mediana_ns\": %d, \"p90_ns\": %d, \"minimo_ns\": %d, \"ns_por_operacao\": %.1f}%s%n",
+                        r.caso, r.linhas, r.operacoes, r.repeticoes(), r.mediana(), r.p90(), r.minimo(),
+                        r.nanosPorOperacao(), i < ordenados.size() - 1 ? "," : ""));
+            }
+            saida.write("]}\n");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.contentprovidergerador.data.provider;
+
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import com.example.contentprovidergerador.benchmark.AmbienteBenchmark;
+import com.example.contentprovidergerador.benchmark.Cronometro;
+import com.example.contentprovidergerador.benchmark.RelatorioBenchmark;
+import com.example.contentprovidergerador.data.db.MensagemContract;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mede inserção em lote, consulta completa e atualização por ID do {@link MensagemProvider}
+ * com 1 mil, 10 mil e 100 mil mensagens. As chamadas são feitas diretamente no provedor, sobre
+ * o SQLite nativo do Robolectric. Resultados em {@code build/benchmark/provider.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MensagemProviderBenchmarkTest {
+
+    /** Atualizações medidas em cada repetição, em IDs sorteados com semente fixa. */
+    private static final int ATUALIZACOES = 1_000;
+
+    private static final RelatorioBenchmark relatorio = new RelatorioBenchmark("provider");
+
+    private MensagemProvider provider;
+
+    @After
+    public void tearDown() {
+        AmbienteBenchmark.destruirProvedor(provider);
+        provider = null;
+    }
+
+    @AfterClass
+    public static void gravarResultados() throws Exception {
+        relatorio.gravar();
+    }
+
+    @Test
+    public void insercaoEmLote() throws Exception {
+        for (int linhas : AmbienteBenchmark.TAMANHOS) {
+            ContentValues[] valores = AmbienteBenchmark.gerar(0, linhas);
+            relatorio.adicionar(Cronometro.medir("provider.bulkInsert", linhas, linhas,
+                    AmbienteBenchmark.AQUECIMENTO, AmbienteBenchmark.REPETICOES,
+                    () -> {
+                        // Cada repetição parte de uma tabela vazia.
+                        AmbienteBenchmark.destruirProvedor(provider);
+                        provider = AmbienteBenchmark.criarProvedor();
+                    },
+                    () -> assertEquals(linhas, provider.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, valores))));
+        }
+    }
+
+    @Test
+    public void consultaCompleta() throws Exception {
+        for (int linhas : AmbienteBenchmark.TAMANHOS) {
+            recriarComLinhas(linhas);
+            // Com o limite, a consulta pode ser guardada pelo cache de resultados (se couber nele).
+            Uri tabela = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+                    .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, String.valueOf(linhas)).build();
+            // Sem o cache de resultados, cada repetição executa a consulta no banco.
+            relatorio.adicionar(Cronometro.medir("provider.query", linhas, linhas,
+                    AmbienteBenchmark.AQUECIMENTO, AmbienteBenchmark.REPETICOES, provider::descartarCacheConsultas,
+                    () -> assertEquals(linhas, lerTudo(tabela))));
+            // A mesma consulta repetida sem escritas no meio: servida pelo cache, se o resultado couber nele.
+            relatorio.adicionar(Cronometro.medir("provider.query (cache)", linhas, linhas,
+                    AmbienteBenchmark.AQUECIMENTO, AmbienteBenchmark.REPETICOES, null,
+                    () -> assertEquals(linhas, lerTudo(tabela))));
+        }
+    }
+
+    @Test
+    public void atualizacaoPorId() throws Exception {
+        for (int linhas : AmbienteBenchmark.TAMANHOS) {
+            recriarComLinhas(linhas);
+            Random aleatorio = new Random(42);
+            ContentValues favorita = new ContentValues();
+            relatorio.adicionar(Cronometro.medir("provider.update", linhas, ATUALIZACOES,
+                    AmbienteBenchmark.AQUECIMENTO, AmbienteBenchmark.REPETICOES, null,
+                    () -> {
+                        for (int i = 0; i < ATUALIZACOES; i++) {
+                            long id = 1 + aleatorio.nextInt(linhas);
+                            favorita.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, (i & 1) == 0);
+                            provider.update(ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id),
+                                    favorita, null, null);
+                        }
+                    }));
+        }
+    }
+
+    // Cria um provedor novo com o número de linhas informado.
+    private void recriarComLinhas(int linhas) {
+        AmbienteBenchmark.destruirProvedor(provider);
+        provider = AmbienteBenchmark.criarProvedor();
+        AmbienteBenchmark.popular(provider, linhas);
+    }
+
+    // Lê todas as colunas de todas as linhas da URI e retorna o número de linhas.
+    private int lerTudo(Uri uri) {
+        int lidas = 0;
+        try (Cursor c = provider.query(uri, null, null, null, null)) {
+            int id = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry._ID);
+            int texto = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_TEXTO);
+            int autor = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+            int favorita = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_FAVORITA);
+            while (c.moveToNext()) {
+                c.getLong(id);
+                c.getString(texto);
+                c.getString(autor);
+                c.getInt(favorita);
+                lidas++;
+            }
+        }
+        return lidas;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.contentprovidergerador.ui.adapter;
+
+import android.os.SystemClock;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.contentprovidergerador.R;
+import com.example.contentprovidergerador.benchmark.AmbienteBenchmark;
+import com.example.contentprovidergerador.benchmark.Cronometro;
+import com.example.contentprovidergerador.benchmark.RelatorioBenchmark;
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+import com.example.contentprovidergerador.data.model.PoolTextos;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mede o bind do {@link MensagemAdapter}: cada posição da lista é exibida em um dos poucos
+ * ViewHolders que cabem em uma tela, como acontece ao rolar a lista inteira.
+ * Mede também a duração de cada quadro de uma rolagem rápida por uma lista de textos longos,
+ * com e sem os textos preparados em segundo plano.
+ * Resultados em {@code build/benchmark/adapter.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MensagemAdapterBenchmarkTest {
+
+    /** ViewHolders reciclados durante a rolagem (aproximadamente os itens visíveis em uma tela). */
+    private static final int VIEW_HOLDERS = 12;
+
+    /** Tamanho da lista percorrida na rolagem rápida. */
+    private static final int LINHAS_ROLAGEM = 10_000;
+    /** Linhas percorridas em cada quadro da rolagem rápida. */
+    private static final int LINHAS_POR_QUADRO = 8;
+    /** Duração de um quadro a 60 Hz; o que sobra do quadro fica livre para a thread de textos. */
+    private static final long QUADRO_MS = 16;
+    /** Tamanho da tela simulada, em pixels. */
+    private static final int LARGURA = 1080, ALTURA = 1920;
+
+    private static final RelatorioBenchmark relatorio = new RelatorioBenchmark("adapter");
+
+    @AfterClass
+    public static void gravarResultados() throws Exception {
+        relatorio.gravar();
+    }
+
+    @Test
+    public void bindDeTodasAsPosicoes() throws Exception {
+        RecyclerView pai = new RecyclerView(new ContextThemeWrapper(RuntimeEnvironment.getApplication(),
+                R.style.Theme_Contentprovidergerador));
+        pai.setLayoutManager(new LinearLayoutManager(pai.getContext()));
+
+        for (int linhas : AmbienteBenchmark.TAMANHOS) {
+            MensagemAdapter adapter = new MensagemAdapter();
+            // A partir de uma lista vazia, a nova lista é aplicada imediatamente, sem diff.
+            adapter.submeter(gerarLista(linhas));
+            assertEquals(linhas, adapter.getItemCount());
+
+            MensagemAdapter.MensagemViewHolder[] holders = new MensagemAdapter.MensagemViewHolder[VIEW_HOLDERS];
+            for (int i = 0; i < VIEW_HOLDERS; i++) {
+                holders[i] = adapter.onCreateViewHolder(pai, 0);
+            }
+            relatorio.adicionar(Cronometro.medir("adapter.bind", linhas, linhas,
+                    AmbienteBenchmark.AQUECIMENTO, AmbienteBenchmark.REPETICOES, null,
+                    () -> {
+                        for (int posicao = 0; posicao < linhas; posicao++) {
+                            adapter.onBindViewHolder(holders[posicao % VIEW_HOLDERS], posicao);
+                        }
+                    }));
+        }
+    }
+
+    @Test
+    public void rolagemRapida_comESemTextosPreparados() throws Exception {
+        ListaMensagens lista = gerarListaLonga(LINHAS_ROLAGEM);
+        relatorio.adicionar(rolar(lista, false, "adapter.rolagem.quadro (buffer)"));
+        relatorio.adicionar(rolar(lista, true, "adapter.rolagem.quadro (preparado)"));
+    }
+
+    /**
+     * Rola a lista do início ao fim, {@link #LINHAS_POR_QUADRO} linhas por quadro, e mede a
+     * duração de cada quadro (o scroll, com os binds e o layout das linhas que entram na tela).
+     * @param lista A lista exibida.
+     * @param prepararTextos Se o adapter prepara os textos em segundo plano.
+     * @param caso O nome do caso no relatório.
+     * @return Um resultado com uma amostra por quadro.
+     */
+    // Monta um RecyclerView do tamanho de uma tela e o rola quadro a quadro.
+    private static Cronometro.Resultado rolar(ListaMensagens lista, boolean prepararTextos, String caso) {
+        RecyclerView pai = new RecyclerView(new ContextThemeWrapper(RuntimeEnvironment.getApplication(),
+                R.style.Theme_Contentprovidergerador));
+        pai.setLayoutManager(new LinearLayoutManager(pai.getContext()));
+        MensagemAdapter adapter = new MensagemAdapter(prepararTextos);
+        pai.setAdapter(adapter);
+        adapter.submeter(lista);
+        pai.measure(View.MeasureSpec.makeMeasureSpec(LARGURA, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(ALTURA, View.MeasureSpec.EXACTLY));
+        pai.layout(0, 0, LARGURA, ALTURA);
+        // Como no aparelho, a primeira janela é preparada enquanto a primeira tela é exibida.
+        adapter.aguardarTextosPreparados();
+
+        int passo = Math.max(1, pai.getChildAt(0).getHeight()) * LINHAS_POR_QUADRO;
+        long[] amostras = new long[LINHAS_ROLAGEM / LINHAS_POR_QUADRO + 1];
+        int quadros = 0;
+        while (quadros < amostras.length && pai.canScrollVertically(1)) {
+            long inicio = System.nanoTime();
+            pai.scrollBy(0, passo);
+            long duracao = System.nanoTime() - inicio;
+            amostras[quadros++] = duracao;
+            // O resto do quadro fica livre, como entre dois vsyncs.
+            SystemClock.sleep(Math.max(0, QUADRO_MS - duracao / 1_000_000));
+        }
+        assertTrue("A rolagem deveria percorrer a lista", quadros > 1);
+        return Cronometro.deAmostras(caso, lista.tamanho(), LINHAS_POR_QUADRO, Arrays.copyOf(amostras, quadros));
+    }
+
+    // Monta uma lista de citações longas, várias linhas por item.
+    private static ListaMensagens gerarListaLonga(int linhas) {
+        ListaMensagens.Construtor lista = new ListaMensagens.Construtor(linhas);
+        for (int i = 0; i < linhas; i++) {
+            StringBuilder texto = new StringBuilder();
+            for (int frase = 0; frase < 4 + i % 4; frase++) {
+                texto.append("Acredite no seu potencial e siga em frente, mensagem ").append(i).append(". ");
+            }
+            lista.adicionar(i + 1, texto.toString().trim(), "Autor " + (i % 300), i % 10 == 0);
+        }
+        return lista.construir();
+    }
+
+    // Monta a lista com os mesmos dados de exemplo usados nos demais benchmarks.
+    private static ListaMensagens gerarLista(int linhas) {
+        PoolTextos pool = new PoolTextos();
+        ListaMensagens.Construtor lista = new ListaMensagens.Construtor(linhas);
+        for (int i = 0; i < linhas; i++) {
+            char[] autor = ("Autor " + (i % 300)).toCharArray();
+            lista.adicionar(i + 1, "Acredite no seu potencial, mensagem " + i, pool.obter(autor, autor.length), i % 10 == 0);
+        }
+        return lista.construir();
+    }
+}
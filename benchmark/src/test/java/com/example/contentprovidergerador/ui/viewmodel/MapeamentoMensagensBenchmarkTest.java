@@ -0,0 +1,74 @@
+package com.example.contentprovidergerador.ui.viewmodel;
+
+import android.database.Cursor;
+
+import com.example.contentprovidergerador.benchmark.AmbienteBenchmark;
+import com.example.contentprovidergerador.benchmark.Cronometro;
+import com.example.contentprovidergerador.benchmark.RelatorioBenchmark;
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.ListaMensagens;
+import com.example.contentprovidergerador.data.model.MapeadorCursor;
+import com.example.contentprovidergerador.data.model.PoolTextos;
+import com.example.contentprovidergerador.data.provider.MensagemProvider;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mede o mapeamento feito pelo {@link MensagemViewModel} ao carregar mensagens: a consulta pelo
+ * ContentResolver e a conversão do Cursor em {@link ListaMensagens} pelo {@link MapeadorCursor},
+ * com o mesmo laço do ViewModel, mas sobre a tabela inteira em vez de uma página.
+ * Resultados em {@code build/benchmark/viewmodel.json}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MapeamentoMensagensBenchmarkTest {
+
+    private static final RelatorioBenchmark relatorio = new RelatorioBenchmark("viewmodel");
+
+    private MensagemProvider provider;
+
+    @After
+    public void tearDown() {
+        AmbienteBenchmark.destruirProvedor(provider);
+    }
+
+    @AfterClass
+    public static void gravarResultados() throws Exception {
+        relatorio.gravar();
+    }
+
+    @Test
+    public void mapeamentoDoCursor() throws Exception {
+        for (int linhas : AmbienteBenchmark.TAMANHOS) {
+            AmbienteBenchmark.destruirProvedor(provider);
+            provider = AmbienteBenchmark.criarProvedor();
+            AmbienteBenchmark.popular(provider, linhas);
+            // O pool vive enquanto o ViewModel existir, então é compartilhado entre as cargas.
+            PoolTextos pool = new PoolTextos();
+            relatorio.adicionar(Cronometro.medir("viewmodel.mapeamento", linhas, linhas,
+                    AmbienteBenchmark.AQUECIMENTO, AmbienteBenchmark.REPETICOES, null,
+                    () -> assertEquals(linhas, carregar(pool).tamanho())));
+        }
+    }
+
+    // Consulta todas as mensagens e as mapeia como o ViewModel faz com cada página.
+    private static ListaMensagens carregar(PoolTextos pool) {
+        try (Cursor cursor = RuntimeEnvironment.getApplication().getContentResolver()
+                .query(MensagemContract.MensagemEntry.CONTENT_URI, null, null, null, null)) {
+            MapeadorCursor mapeador = new MapeadorCursor(cursor, pool);
+            ListaMensagens.Construtor lista = new ListaMensagens.Construtor(cursor.getCount());
+            while (cursor.moveToNext()) {
+                mapeador.lerLinha(lista);
+            }
+            return lista.construir();
+        }
+    }
+}
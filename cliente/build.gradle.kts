@@ -0,0 +1,28 @@
+plugins {
+    alias(libs.plugins.android.library)
+}
+
+// Biblioteca cliente do provedor de mensagens: o contrato (URIs, colunas e métodos), o modelo
+// Mensagem e o ClienteMensagens, com a API assíncrona tipada usada pelo :app e disponível para
+// outros aplicativos que consomem o provedor exportado.
+android {
+    namespace = "com.example.contentprovidergerador.cliente"
+    compileSdk = 36
+
+    defaultConfig {
+        minSdk = 34
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+}
+
+dependencies {
+
+    implementation(libs.annotation)
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,355 @@
+package com.example.contentprovidergerador.cliente;
+
+import android.content.ContentProviderClient;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.DeadObjectException;
+import android.os.RemoteException;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.contentprovidergerador.data.db.MensagemContract;
+import com.example.contentprovidergerador.data.model.Mensagem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cliente do provedor de mensagens.
+ * <p>
+ * Mantém um único {@link ContentProviderClient} adquirido, em vez de resolver o provedor pelo
+ * {@link ContentResolver} a cada chamada. O cliente é "instável"
+ * ({@link ContentResolver#acquireUnstableContentProviderClient(String)}): se o processo do
+ * provedor morrer, o processo do cliente não é encerrado junto; a chamada em andamento recebe um
+ * {@link DeadObjectException}, o cliente é descartado e a chamada é repetida uma vez com um
+ * cliente novo, o que reinicia o provedor.
+ * <p>
+ * Os métodos assíncronos retornam um {@link CompletableFuture} e são executados em um pool de
+ * tamanho fixo com uma fila limitada: se a fila estiver cheia, o futuro falha com
+ * {@link RejectedExecutionException} em vez de acumular trabalho sem limite. Os Cursors são lidos
+ * por inteiro na thread do pool e convertidos em {@link Mensagem}s, resolvendo os índices das
+ * colunas uma única vez por consulta.
+ * <p>
+ * Uma instância pode ser compartilhada por todo o processo e deve ser encerrada com
+ * {@link #close()} quando não for mais usada.
+ */
+public final class ClienteMensagens implements AutoCloseable {
+
+    /** Número de threads que executam as chamadas assíncronas. */
+    private static final int THREADS = 2;
+
+    /** Número máximo de chamadas assíncronas esperando por uma thread. */
+    private static final int CAPACIDADE_FILA = 64;
+
+    /** Número de vezes que uma chamada é repetida após a morte do processo do provedor. */
+    private static final int TENTATIVAS_RECONEXAO = 1;
+
+    /** Colunas das páginas: o texto vem cortado, e o completo é lido por {@link #buscarPorId(long)}. */
+    private static final String[] PROJECAO_PAGINA = {
+            MensagemContract.MensagemEntry._ID,
+            MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW,
+            MensagemContract.MensagemEntry.COLUMN_AUTOR,
+            MensagemContract.MensagemEntry.COLUMN_FAVORITA
+    };
+
+    /** Uma chamada ao provedor feita através do cliente adquirido. */
+    private interface Chamada<T> {
+        T executar(ContentProviderClient provedor) throws RemoteException;
+    }
+
+    private final ContentResolver mResolver;
+    private final ThreadPoolExecutor mExecutor;
+
+    /** O cliente adquirido, ou null se ainda não foi adquirido ou foi descartado. Protegido por {@code this}. */
+    private ContentProviderClient mProvedor;
+    /** Indica que o cliente foi encerrado. Protegido por {@code this}. */
+    private boolean mEncerrado;
+
+    /**
+     * Cria o cliente. O provedor só é resolvido na primeira chamada.
+     * @param contexto Qualquer contexto; apenas o contexto da aplicação é mantido.
+     */
+    public ClienteMensagens(@NonNull Context contexto) {
+        mResolver = contexto.getApplicationContext().getContentResolver();
+        AtomicInteger numero = new AtomicInteger();
+        mExecutor = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(CAPACIDADE_FILA),
+                tarefa -> new Thread(tarefa, "ClienteMensagens-" + numero.incrementAndGet()));
+        // As threads ociosas são liberadas, para que um cliente pouco usado não as mantenha vivas.
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Lê uma página de mensagens por chave (keyset), em ordem crescente de ID.
+     * O texto de cada mensagem é o texto curto
+     * ({@link MensagemContract.MensagemEntry#COLUMN_TEXTO_PREVIEW}), para que as páginas de
+     * mensagens longas continuem pequenas; o texto completo é lido por {@link #buscarPorId(long)}.
+     * @param aposId Lê as mensagens com ID maior que este (0 para a primeira página).
+     * @param limite O número máximo de mensagens da página.
+     * @return O futuro com a página.
+     */
+    // Lê uma página após o ID informado.
+    @NonNull
+    public CompletableFuture<Pagina> listarPagina(long aposId, int limite) {
+        if (aposId < 0 || limite <= 0) {
+            throw new IllegalArgumentException("aposId deve ser 0 ou mais e limite, maior que zero");
+        }
+        Uri uri = MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_APOS_ID, String.valueOf(aposId))
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_LIMITE, String.valueOf(limite))
+                .build();
+        return agendar(provedor -> {
+            List<Mensagem> mensagens = lerMensagens(provedor.query(uri, PROJECAO_PAGINA, null, null, null),
+                    MensagemContract.MensagemEntry.COLUMN_TEXTO_PREVIEW);
+            return new Pagina(mensagens, mensagens.size() == limite);
+        });
+    }
+
+    /**
+     * Lê uma mensagem pelo ID, procurando também entre as arquivadas.
+     * @param id O ID da mensagem.
+     * @return O futuro com a mensagem, ou com null se ela não existir.
+     */
+    // Lê uma única mensagem.
+    @NonNull
+    public CompletableFuture<Mensagem> buscarPorId(long id) {
+        Uri uri = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_INCLUIR_ARQUIVO, "true").build(), id);
+        return agendar(provedor -> primeira(lerMensagens(provedor.query(uri, null, null, null, null),
+                MensagemContract.MensagemEntry.COLUMN_TEXTO)));
+    }
+
+    /**
+     * Sorteia uma mensagem.
+     * @param apenasFavoritas Se true, sorteia apenas entre as favoritas.
+     * @return O futuro com a mensagem sorteada, ou com null se não houver mensagens.
+     */
+    // Sorteia uma mensagem no provedor.
+    @NonNull
+    public CompletableFuture<Mensagem> sortear(boolean apenasFavoritas) {
+        Uri uri = MensagemContract.MensagemEntry.CONTENT_URI_ALEATORIA.buildUpon()
+                .appendQueryParameter(MensagemContract.MensagemEntry.PARAM_APENAS_FAVORITAS, String.valueOf(apenasFavoritas))
+                .build();
+        return agendar(provedor -> primeira(lerMensagens(provedor.query(uri, null, null, null, null),
+                MensagemContract.MensagemEntry.COLUMN_TEXTO)));
+    }
+
+    /**
+     * Insere uma mensagem. O ID da mensagem informada é ignorado. Se já existir uma mensagem
+     * com o mesmo texto e autor, nada é gravado e o ID dela é retornado.
+     * @param mensagem A mensagem a ser inserida.
+     * @return O futuro com o ID da nova mensagem (ou da que já existia).
+     */
+    // Insere uma única mensagem.
+    @NonNull
+    public CompletableFuture<Long> inserir(@NonNull Mensagem mensagem) {
+        ContentValues values = paraValores(mensagem);
+        return agendar(provedor -> {
+            Uri uri = provedor.insert(MensagemContract.MensagemEntry.CONTENT_URI, values);
+            if (uri == null) {
+                throw new IllegalStateException("O provedor não inseriu a mensagem");
+            }
+            return ContentUris.parseId(uri);
+        });
+    }
+
+    /**
+     * Insere várias mensagens em uma única chamada ({@code bulkInsert}), gravadas pelo provedor
+     * em uma única transação. Os IDs das mensagens informadas são ignorados, assim como as
+     * mensagens que repetem uma já existente.
+     * @param mensagens As mensagens a serem inseridas.
+     * @return O futuro com o número de mensagens inseridas, sem as repetidas.
+     */
+    // Insere as mensagens em lote.
+    @NonNull
+    public CompletableFuture<Integer> inserirLote(@NonNull List<Mensagem> mensagens) {
+        ContentValues[] valores = new ContentValues[mensagens.size()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = paraValores(mensagens.get(i));
+        }
+        return agendar(provedor -> provedor.bulkInsert(MensagemContract.MensagemEntry.CONTENT_URI, valores));
+    }
+
+    /**
+     * Define o estado de favorita de uma mensagem.
+     * @param id O ID da mensagem.
+     * @param favorita O novo estado.
+     * @return O futuro com true se a mensagem existia e foi atualizada.
+     */
+    // Marca ou desmarca uma mensagem como favorita.
+    @NonNull
+    public CompletableFuture<Boolean> definirFavorita(long id, boolean favorita) {
+        Uri uri = ContentUris.withAppendedId(MensagemContract.MensagemEntry.CONTENT_URI, id);
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, favorita);
+        return agendar(provedor -> provedor.update(uri, values, null, null) > 0);
+    }
+
+    /**
+     * Define o estado de favorita de várias mensagens em uma única chamada
+     * ({@link MensagemContract#METODO_DEFINIR_FAVORITAS}), em vez de uma atualização por
+     * mensagem: o provedor grava todas em uma única transação e envia uma única notificação.
+     * @param ids Os IDs das mensagens.
+     * @param favorita O novo estado.
+     * @return O futuro com o número de mensagens que mudaram de estado (as que já estavam no
+     *         estado pedido, ou que não existem, não são contadas).
+     */
+    // Marca ou desmarca as mensagens como favoritas em lote.
+    @NonNull
+    public CompletableFuture<Integer> definirFavoritas(@NonNull long[] ids, boolean favorita) {
+        Bundle extras = new Bundle();
+        // Copiado, para que o chamador possa reutilizar o vetor enquanto a chamada espera na fila.
+        extras.putLongArray(MensagemContract.CHAVE_IDS, ids.clone());
+        extras.putBoolean(MensagemContract.CHAVE_FAVORITA, favorita);
+        return agendar(provedor -> {
+            Bundle resultado = provedor.call(MensagemContract.METODO_DEFINIR_FAVORITAS, null, extras);
+            return resultado != null ? resultado.getInt(MensagemContract.CHAVE_LINHAS_ALTERADAS) : 0;
+        });
+    }
+
+    /**
+     * Inverte o estado de favorita de uma mensagem, a partir do estado informado.
+     * @param mensagem A mensagem, com o estado de favorita conhecido pelo chamador.
+     * @return O futuro com true se a mensagem existia e foi atualizada.
+     */
+    // Inverte o estado de favorita de uma mensagem.
+    @NonNull
+    public CompletableFuture<Boolean> alternarFavorita(@NonNull Mensagem mensagem) {
+        return definirFavorita(mensagem.getId(), !mensagem.isFavorita());
+    }
+
+    /**
+     * Consulta o provedor de forma síncrona, através do cliente adquirido. Para quem precisa ler
+     * o Cursor diretamente (ex: para montar uma estrutura própria) em uma thread de fundo.
+     * Se o processo do provedor morrer durante a consulta, ela é repetida com um cliente novo;
+     * se morrer depois, enquanto o Cursor é lido, a leitura falha e a consulta deve ser refeita.
+     * @return O Cursor do resultado, ou null se o provedor não retornou nenhum.
+     * @throws RemoteException se o provedor não puder ser alcançado.
+     */
+    // Consulta o provedor na thread atual.
+    @WorkerThread
+    @Nullable
+    public Cursor consultar(@NonNull Uri uri, @Nullable String[] projecao, @Nullable String filtro,
+                            @Nullable String[] argumentos, @Nullable String ordem,
+                            @Nullable CancellationSignal cancelamento) throws RemoteException {
+        return executar(provedor -> provedor.query(uri, projecao, filtro, argumentos, ordem, cancelamento));
+    }
+
+    /**
+     * Encerra o cliente: as chamadas já agendadas terminam, novas chamadas falham e o
+     * {@link ContentProviderClient} é liberado.
+     */
+    // Libera o pool de threads e o cliente adquirido.
+    @Override
+    public void close() {
+        mExecutor.shutdown();
+        synchronized (this) {
+            mEncerrado = true;
+            if (mProvedor != null) {
+                mProvedor.close();
+                mProvedor = null;
+            }
+        }
+    }
+
+    // Agenda a chamada no pool; o futuro falha se a fila estiver cheia ou o cliente, encerrado.
+    private <T> CompletableFuture<T> agendar(Chamada<T> chamada) {
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        try {
+            mExecutor.execute(() -> {
+                if (futuro.isCancelled()) return;
+                try {
+                    futuro.complete(executar(chamada));
+                } catch (RemoteException | RuntimeException e) {
+                    futuro.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            futuro.completeExceptionally(e);
+        }
+        return futuro;
+    }
+
+    // Executa a chamada e, se o processo do provedor morreu, a repete com um cliente novo.
+    private <T> T executar(Chamada<T> chamada) throws RemoteException {
+        for (int tentativa = 0; ; tentativa++) {
+            ContentProviderClient provedor = adquirir();
+            try {
+                return chamada.executar(provedor);
+            } catch (DeadObjectException e) {
+                descartar(provedor);
+                if (tentativa >= TENTATIVAS_RECONEXAO) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Retorna o cliente adquirido, adquirindo um novo se necessário.
+    private synchronized ContentProviderClient adquirir() {
+        if (mEncerrado) {
+            throw new IllegalStateException("O cliente de mensagens foi encerrado");
+        }
+        if (mProvedor == null) {
+            mProvedor = mResolver.acquireUnstableContentProviderClient(MensagemContract.AUTHORITY);
+            if (mProvedor == null) {
+                throw new IllegalStateException("Provedor de mensagens não encontrado: " + MensagemContract.AUTHORITY);
+            }
+        }
+        return mProvedor;
+    }
+
+    // Libera um cliente cujo provedor morreu, se outra thread ainda não o trocou por um novo.
+    private synchronized void descartar(ContentProviderClient provedor) {
+        if (mProvedor == provedor) {
+            mProvedor.close();
+            mProvedor = null;
+        }
+    }
+
+    // Lê todas as linhas do Cursor como mensagens, com o texto da coluna informada, e o fecha.
+    private static List<Mensagem> lerMensagens(@Nullable Cursor cursor, String colunaTexto) {
+        if (cursor == null) {
+            return new ArrayList<>();
+        }
+        try (Cursor c = cursor) {
+            int id = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry._ID);
+            int texto = c.getColumnIndexOrThrow(colunaTexto);
+            int autor = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_AUTOR);
+            int favorita = c.getColumnIndexOrThrow(MensagemContract.MensagemEntry.COLUMN_FAVORITA);
+            List<Mensagem> mensagens = new ArrayList<>(c.getCount());
+            while (c.moveToNext()) {
+                mensagens.add(new Mensagem(c.getLong(id), c.getString(texto), c.getString(autor), c.getInt(favorita) != 0));
+            }
+            return mensagens;
+        }
+    }
+
+    // Retorna a primeira mensagem da lista, ou null se ela estiver vazia.
+    private static Mensagem primeira(List<Mensagem> mensagens) {
+        return mensagens.isEmpty() ? null : mensagens.get(0);
+    }
+
+    // Converte uma mensagem nos valores de inserção do provedor (sem o ID).
+    private static ContentValues paraValores(Mensagem mensagem) {
+        ContentValues values = new ContentValues();
+        values.put(MensagemContract.MensagemEntry.COLUMN_TEXTO, mensagem.getTexto());
+        values.put(MensagemContract.MensagemEntry.COLUMN_AUTOR, mensagem.getAutor());
+        values.put(MensagemContract.MensagemEntry.COLUMN_FAVORITA, mensagem.isFavorita());
+        return values;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.contentprovidergerador.cliente;
+
+import androidx.annotation.NonNull;
+
+import com.example.contentprovidergerador.data.model.Mensagem;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uma página de mensagens lida por {@link ClienteMensagens#listarPagina(long, int)}, em ordem
+ * crescente de ID. A próxima página começa após {@link #getUltimoId()}.
+ */
+public final class Pagina {
+
+    private final List<Mensagem> mensagens;
+    private final boolean temMais;
+
+    Pagina(List<Mensagem> mensagens, boolean temMais) {
+        this.mensagens = Collections.unmodifiableList(mensagens);
+        this.temMais = temMais;
+    }
+
+    /**
+     * Retorna as mensagens da página.
+     * @return A lista (imutável) de mensagens, em ordem crescente de ID.
+     */
+    @NonNull
+    public List<Mensagem> getMensagens() { return mensagens; }
+
+    /**
+     * Indica se pode haver mensagens depois desta página (a página veio cheia).
+     * @return true se vale a pena pedir a próxima página.
+     */
+    public boolean temMais() { return temMais; }
+
+    /**
+     * Retorna o ID da última mensagem da página, a ser passado como {@code aposId} para a próxima.
+     * @return O ID da última mensagem, ou -1 se a página estiver vazia.
+     */
+    public long getUltimoId() {
+        return mensagens.isEmpty() ? -1 : mensagens.get(mensagens.size() - 1).getId();
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.contentprovidergerador.data.db;
+
+import android.net.Uri;
+import android.provider.BaseColumns;
+
+/**
+ * Define o "contrato" para o Content Provider de mensagens.
+ * Uma classe de contrato é um contêiner para constantes que definem nomes para URIs,
+ * tabelas e colunas. Isso garante que o código que acessa o provedor use as mesmas
+ * constantes, evitando erros de digitação.
+ */
+public final class MensagemContract {
+
+    /**
+     * O construtor é privado para impedir que a classe seja instanciada acidentalmente.
+     * Esta classe deve ser usada apenas para acessar suas constantes estáticas.
+     */
+    private MensagemContract() {}
+
+    /**
+     * A autoridade do Content Provider, uma string única que o identifica no sistema Android.
+     */
+    public static final String AUTHORITY = "com.example.contentprovidergerador.provider";
+
+    /**
+     * A URI base (content://) para interagir com o Content Provider.
+     */
+    public static final Uri BASE_CONTENT_URI = Uri.parse("content://" + AUTHORITY);
+
+    /**
+     * O "caminho" (path) para a tabela de mensagens, que será anexado à URI base.
+     */
+    public static final String PATH_MENSAGENS = "mensagens";
+
+    /**
+     * O "caminho" (path) da busca textual, anexado ao caminho de mensagens
+     * (ex: {@code content://.../mensagens/search?q=amor}).
+     */
+    public static final String PATH_BUSCA = "search";
+
+    /**
+     * O "caminho" (path) do sorteio de uma mensagem aleatória, anexado ao caminho de mensagens
+     * (ex: {@code content://.../mensagens/random}).
+     */
+    public static final String PATH_ALEATORIA = "random";
+
+    /**
+     * O "caminho" (path) da exportação de todas as mensagens como um arquivo (NDJSON ou CSV),
+     * lido com {@code ContentResolver.openInputStream()} (ex: {@code content://.../mensagens/export?formato=csv}).
+     */
+    public static final String PATH_EXPORTAR = "export";
+
+    /**
+     * O "caminho" (path) da importação de mensagens a partir de um arquivo (NDJSON ou CSV),
+     * gravado com {@code ContentResolver.openOutputStream()}.
+     */
+    public static final String PATH_IMPORTAR = "import";
+
+    /**
+     * O "caminho" (path) dos totais de mensagens, anexado ao caminho de mensagens
+     * (ex: {@code content://.../mensagens/stats}).
+     */
+    public static final String PATH_ESTATISTICAS = "stats";
+
+    /**
+     * O "caminho" (path) dos totais por autor, anexado ao caminho dos totais
+     * (ex: {@code content://.../mensagens/stats/autores}).
+     */
+    public static final String PATH_AUTORES = "autores";
+
+    /** Formato de transferência NDJSON: um objeto JSON por linha, com as colunas da mensagem. */
+    public static final String FORMATO_NDJSON = "ndjson";
+
+    /** Formato de transferência CSV: uma linha de cabeçalho com os nomes das colunas e uma linha por mensagem. */
+    public static final String FORMATO_CSV = "csv";
+
+    /** Tipo MIME do formato {@link #FORMATO_NDJSON}. */
+    public static final String TIPO_MIME_NDJSON = "application/x-ndjson";
+
+    /** Tipo MIME do formato {@link #FORMATO_CSV}. */
+    public static final String TIPO_MIME_CSV = "text/csv";
+
+    /**
+     * Nome do método de {@code ContentResolver.call()} que retorna as estatísticas dos caches do
+     * provedor (o de linhas, para consultas por ID, e o de resultados de consultas), usadas para
+     * dimensioná-los. O Bundle retornado contém as chaves {@code CHAVE_CACHE_*} abaixo.
+     */
+    public static final String METODO_ESTATISTICAS_CACHE = "estatisticas_cache";
+
+    /** Chave do Bundle de estatísticas: número de consultas por ID atendidas pelo cache. Tipo: long */
+    public static final String CHAVE_CACHE_ACERTOS = "acertos";
+
+    /** Chave do Bundle de estatísticas: número de consultas por ID que precisaram ir ao banco. Tipo: long */
+    public static final String CHAVE_CACHE_FALHAS = "falhas";
+
+    /** Chave do Bundle de estatísticas: número de linhas descartadas do cache por falta de espaço. Tipo: long */
+    public static final String CHAVE_CACHE_DESCARTES = "descartes";
+
+    /** Chave do Bundle de estatísticas: número de linhas atualmente no cache. Tipo: int */
+    public static final String CHAVE_CACHE_TAMANHO = "tamanho";
+
+    /** Chave do Bundle de estatísticas: número máximo de linhas no cache. Tipo: int */
+    public static final String CHAVE_CACHE_CAPACIDADE = "capacidade";
+
+    /** Chave do Bundle de estatísticas: consultas à tabela ou à busca atendidas pelo cache de resultados. Tipo: long */
+    public static final String CHAVE_CACHE_CONSULTAS_ACERTOS = "consultas_acertos";
+
+    /**
+     * Chave do Bundle de estatísticas: consultas à tabela ou à busca que precisaram ir ao banco.
+     * As consultas sem {@link MensagemEntry#PARAM_LIMITE} (ou com um limite grande) não passam
+     * pelo cache e não são contadas. Tipo: long
+     */
+    public static final String CHAVE_CACHE_CONSULTAS_FALHAS = "consultas_falhas";
+
+    /** Chave do Bundle de estatísticas: fração das consultas atendidas pelo cache de resultados, de 0 a 1. Tipo: double */
+    public static final String CHAVE_CACHE_CONSULTAS_TAXA_ACERTOS = "consultas_taxa_acertos";
+
+    /** Chave do Bundle de estatísticas: memória estimada ocupada pelo cache de resultados, em bytes. Tipo: int */
+    public static final String CHAVE_CACHE_CONSULTAS_BYTES = "consultas_bytes";
+
+    /** Chave do Bundle de estatísticas: memória máxima do cache de resultados, em bytes. Tipo: int */
+    public static final String CHAVE_CACHE_CONSULTAS_CAPACIDADE_BYTES = "consultas_capacidade_bytes";
+
+    /**
+     * Nome do método de {@code ContentResolver.call()} que retorna as métricas de uso do provedor
+     * desde a criação ou desde a última vez que foram zeradas.
+     * O Bundle retornado contém {@link #CHAVE_METRICAS_JANELA_MS}, as chaves {@code CHAVE_METRICAS_*}
+     * da abertura do banco, das mensagens repetidas e da fila de inserções e um Bundle por operação e URI,
+     * na chave {@code "<operação>:<caminho>"} (ex: {@code "query:mensagens/#"}, {@code "insert:mensagens"}),
+     * com as chaves {@code CHAVE_METRICA_*} abaixo.
+     * Com o argumento {@link #ARG_ZERAR_METRICAS}, as métricas são zeradas depois de lidas.
+     */
+    public static final String METODO_METRICAS = "metrics";
+
+    /** Argumento de {@link #METODO_METRICAS} que zera as métricas depois de retorná-las. */
+    public static final String ARG_ZERAR_METRICAS = "reset";
+
+    /** Chave do Bundle de métricas: duração da janela medida, em milissegundos. Tipo: long */
+    public static final String CHAVE_METRICAS_JANELA_MS = "janela_ms";
+
+    /** Chave do Bundle de métricas: duração da abertura do banco em segundo plano, em milissegundos, ou -1 se ela ainda não terminou. Tipo: long */
+    public static final String CHAVE_METRICAS_ABERTURA_BANCO_MS = "abertura_banco_ms";
+
+    /** Chave do Bundle de métricas: tempo total que as chamadas esperaram a abertura do banco, em milissegundos. Tipo: long */
+    public static final String CHAVE_METRICAS_ESPERA_BANCO_MS = "espera_banco_ms";
+
+    /** Chave do Bundle de métricas: número de chamadas que chegaram antes do fim da abertura do banco. Tipo: long */
+    public static final String CHAVE_METRICAS_ESPERAS_BANCO = "esperas_banco";
+
+    /**
+     * Chave do Bundle de métricas: mensagens recebidas por {@code insert}, {@code bulkInsert},
+     * {@code applyBatch} ou importação que não foram gravadas por repetirem uma já existente
+     * (mesmo texto e autor, sem diferença de maiúsculas, espaços ou forma Unicode). Tipo: long
+     */
+    public static final String CHAVE_METRICAS_DUPLICADAS = "duplicadas";
+
+    /** Chave do Bundle de métricas: transações confirmadas pela fila de inserções avulsas. Tipo: long */
+    public static final String CHAVE_METRICAS_FILA_TRANSACOES = "fila_transacoes";
+
+    /** Chave do Bundle de métricas: linhas gravadas pela fila de inserções avulsas. Tipo: long */
+    public static final String CHAVE_METRICAS_FILA_LINHAS = "fila_linhas";
+
+    /** Chave do Bundle de métricas: transações da fila de inserções por segundo, na janela medida. Tipo: double */
+    public static final String CHAVE_METRICAS_FILA_TRANSACOES_POR_SEGUNDO = "fila_transacoes_por_segundo";
+
+    /** Chave do Bundle de métricas: número médio de inserções gravadas em cada transação da fila. Tipo: double */
+    public static final String CHAVE_METRICAS_FILA_MEDIA_POR_TRANSACAO = "fila_media_por_transacao";
+
+    /** Chave de uma série de métricas: número de chamadas, inclusive as que falharam. Tipo: long */
+    public static final String CHAVE_METRICA_CHAMADAS = "chamadas";
+
+    /** Chave de uma série de métricas: número de chamadas que terminaram com exceção. Tipo: long */
+    public static final String CHAVE_METRICA_ERROS = "erros";
+
+    /**
+     * Chave de uma série de métricas: linhas retornadas (consultas) ou afetadas (escritas).
+     * As linhas de uma consulta são contadas quando o resultado é pedido pela primeira vez. Tipo: long
+     */
+    public static final String CHAVE_METRICA_LINHAS = "linhas";
+
+    /**
+     * Chave de uma série de métricas: bytes de texto (UTF-8) entregues nos Cursors das consultas.
+     * Para clientes de outros processos, é uma estimativa feita por amostragem de cada janela. Tipo: long
+     */
+    public static final String CHAVE_METRICA_BYTES_TEXTO = "bytes_texto";
+
+    /**
+     * Chave de uma série de métricas: latência média, em microssegundos. A de uma consulta vai do
+     * início da chamada até o resultado estar pronto (a execução da consulta incluída), mesmo
+     * quando ela só é executada na primeira leitura do Cursor. Tipo: long
+     */
+    public static final String CHAVE_METRICA_MEDIA_US = "media_us";
+
+    /** Chave de uma série de métricas: mediana aproximada da latência, em microssegundos. Tipo: long */
+    public static final String CHAVE_METRICA_P50_US = "p50_us";
+
+    /** Chave de uma série de métricas: percentil 99 aproximado da latência, em microssegundos. Tipo: long */
+    public static final String CHAVE_METRICA_P99_US = "p99_us";
+
+    /** Chave de uma série de métricas: maior latência registrada, em microssegundos. Tipo: long */
+    public static final String CHAVE_METRICA_MAXIMO_US = "maximo_us";
+
+    /**
+     * Nome do método de {@code ContentResolver.call()} que marca ou desmarca várias mensagens como
+     * favoritas em uma única chamada e transação, com uma única notificação de mudança.
+     * Os extras devem conter {@link #CHAVE_IDS} e {@link #CHAVE_FAVORITA}; o Bundle retornado
+     * contém {@link #CHAVE_LINHAS_ALTERADAS}.
+     */
+    public static final String METODO_DEFINIR_FAVORITAS = "definir_favoritas";
+
+    /** Extra de {@link #METODO_DEFINIR_FAVORITAS}: os {@code _ID}s das mensagens. Tipo: long[] */
+    public static final String CHAVE_IDS = "ids";
+
+    /** Extra de {@link #METODO_DEFINIR_FAVORITAS}: o novo estado de favorita. Tipo: boolean */
+    public static final String CHAVE_FAVORITA = "favorita";
+
+    /**
+     * Resultado de {@link #METODO_DEFINIR_FAVORITAS}: o número de mensagens que mudaram de estado
+     * (as que já estavam no estado pedido, ou que não existem, não são contadas). Tipo: int
+     */
+    public static final String CHAVE_LINHAS_ALTERADAS = "alteradas";
+
+    /**
+     * Classe interna que define as constantes para a tabela de mensagens do banco de dados.
+     * Implementar a interface {@link BaseColumns} adiciona automaticamente as colunas
+     * padrão {@code _ID} e {@code _COUNT}.
+     */
+    public static final class MensagemEntry implements BaseColumns {
+
+        /**
+         * A URI de conteúdo completa para acessar os dados da tabela de mensagens.
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_MENSAGENS).build();
+
+        /**
+         * A URI de busca textual sobre o texto e o autor das mensagens. O termo buscado vai no
+         * parâmetro {@link #PARAM_TERMO} e o número máximo de resultados em {@link #PARAM_LIMITE}.
+         * Os resultados vêm ordenados por relevância e incluem a coluna {@link #COLUMN_TRECHO}.
+         */
+        public static final Uri CONTENT_URI_BUSCA = CONTENT_URI.buildUpon().appendPath(PATH_BUSCA).build();
+
+        /**
+         * A URI que retorna uma única mensagem sorteada. O sorteio tem custo constante em relação
+         * ao tamanho da tabela e aceita os parâmetros {@link #PARAM_APENAS_FAVORITAS} e
+         * {@link #PARAM_PESO_FAVORITAS}.
+         */
+        public static final Uri CONTENT_URI_ALEATORIA = CONTENT_URI.buildUpon().appendPath(PATH_ALEATORIA).build();
+
+        /**
+         * A URI de exportação: abrir esta URI para leitura devolve um fluxo com todas as mensagens,
+         * em ordem de {@code _ID}, no formato do parâmetro {@link #PARAM_FORMATO}.
+         */
+        public static final Uri CONTENT_URI_EXPORTAR = CONTENT_URI.buildUpon().appendPath(PATH_EXPORTAR).build();
+
+        /**
+         * A URI de importação: abrir esta URI para escrita devolve um fluxo onde o cliente grava
+         * as mensagens no formato do parâmetro {@link #PARAM_FORMATO}. O {@code _ID} informado
+         * é ignorado: cada mensagem importada recebe um ID novo. As linhas são gravadas em
+         * transações de até mil linhas, à medida que chegam.
+         */
+        public static final Uri CONTENT_URI_IMPORTAR = CONTENT_URI.buildUpon().appendPath(PATH_IMPORTAR).build();
+
+        /**
+         * A URI dos totais: retorna uma única linha com as colunas {@link #COLUMN_TOTAL} e
+         * {@link #COLUMN_TOTAL_FAVORITAS}. Os totais são mantidos a cada escrita, então a leitura
+         * tem custo constante, qualquer que seja o número de mensagens.
+         */
+        public static final Uri CONTENT_URI_ESTATISTICAS = CONTENT_URI.buildUpon().appendPath(PATH_ESTATISTICAS).build();
+
+        /**
+         * A URI dos totais por autor: uma linha por autor com ao menos uma mensagem, com as colunas
+         * {@link #COLUMN_AUTOR}, {@link #COLUMN_TOTAL} e {@link #COLUMN_TOTAL_FAVORITAS}, em ordem
+         * de autor (se o sortOrder não for informado). Aceita projeção, filtro e ordenação.
+         */
+        public static final Uri CONTENT_URI_ESTATISTICAS_AUTORES =
+                CONTENT_URI_ESTATISTICAS.buildUpon().appendPath(PATH_AUTORES).build();
+
+        /** O nome da tabela no banco de dados. */
+        public static final String TABLE_NAME = "mensagens";
+
+        /** O nome da coluna para o texto da mensagem. Tipo: TEXT */
+        public static final String COLUMN_TEXTO = "texto";
+
+        /**
+         * O nome da coluna para o autor da mensagem. Tipo: TEXT
+         * No banco, o nome fica na tabela de autores e cada mensagem guarda apenas o ID do autor;
+         * o provedor junta as duas tabelas, de modo que os clientes continuam vendo o nome.
+         */
+        public static final String COLUMN_AUTOR = "autor";
+
+        /** O nome da coluna que indica se uma mensagem é favorita. Tipo: INTEGER (0 para falso, 1 para verdadeiro) */
+        public static final String COLUMN_FAVORITA = "favorita";
+
+        /**
+         * Coluna disponível apenas nos resultados da busca: um trecho do texto ou do autor com os
+         * termos encontrados destacados entre {@code <b>} e {@code </b>}. Tipo: TEXT
+         */
+        public static final String COLUMN_TRECHO = "trecho";
+
+        /**
+         * Coluna virtual das URIs de mensagens e de uma mensagem: o texto limitado a
+         * {@link #TAMANHO_TEXTO_PREVIEW} caracteres. Um texto mais longo é cortado e recebe "…"
+         * no fim, ficando com um caractere a mais que o limite; o texto completo é lido depois,
+         * pela URI da mensagem com {@link #COLUMN_TEXTO}. Pedir esta coluna no lugar do texto
+         * mantém pequenas as linhas de uma listagem, que cabem em menos janelas do Cursor. Tipo: TEXT
+         */
+        public static final String COLUMN_TEXTO_PREVIEW = "texto_preview";
+
+        /** Número máximo de caracteres do texto em {@link #COLUMN_TEXTO_PREVIEW}, sem contar o "…". */
+        public static final int TAMANHO_TEXTO_PREVIEW = 280;
+
+        /** Coluna disponível apenas nos totais: o número de mensagens. Tipo: INTEGER */
+        public static final String COLUMN_TOTAL = "total";
+
+        /** Coluna disponível apenas nos totais: o número de mensagens favoritas. Tipo: INTEGER */
+        public static final String COLUMN_TOTAL_FAVORITAS = "favoritas";
+
+        /**
+         * Parâmetro da exportação e da importação com o formato do arquivo:
+         * {@link MensagemContract#FORMATO_NDJSON} (padrão) ou {@link MensagemContract#FORMATO_CSV}.
+         */
+        public static final String PARAM_FORMATO = "formato";
+
+        /** Parâmetro de consulta da busca textual com o termo buscado. Ex: {@code ?q=vida} */
+        public static final String PARAM_TERMO = "q";
+
+        /** Parâmetro do sorteio: se "true", sorteia apenas entre as mensagens favoritas. */
+        public static final String PARAM_APENAS_FAVORITAS = "apenas_favoritas";
+
+        /**
+         * Parâmetro do sorteio: peso (inteiro, de 1 a {@link #PESO_MAXIMO_FAVORITAS}) de cada
+         * favorita em relação às demais mensagens. Com peso 3, uma favorita tem 3 vezes mais
+         * chance de ser sorteada. O padrão é 1.
+         */
+        public static final String PARAM_PESO_FAVORITAS = "peso_favoritas";
+
+        /** Maior valor aceito em {@link #PARAM_PESO_FAVORITAS}. */
+        public static final long PESO_MAXIMO_FAVORITAS = 1_000_000;
+
+        /**
+         * Parâmetro de consulta (query parameter) com o número máximo de linhas a retornar,
+         * ou seja, o tamanho da página. Ex: {@code content://.../mensagens?limite=50}
+         */
+        public static final String PARAM_LIMITE = "limite";
+
+        /**
+         * Parâmetro de consulta para paginação por chave (keyset): retorna apenas as mensagens
+         * com {@code _ID} maior que o valor informado, em ordem crescente de {@code _ID}.
+         * Ex: {@code content://.../mensagens?apos_id=120&limite=50}
+         */
+        public static final String PARAM_APOS_ID = "apos_id";
+
+        /**
+         * Parâmetro de consulta para paginação por chave (keyset) no sentido inverso: retorna apenas
+         * as mensagens com {@code _ID} menor que o valor informado, em ordem DECRESCENTE de {@code _ID}
+         * (as mais próximas do valor primeiro).
+         */
+        public static final String PARAM_ANTES_ID = "antes_id";
+
+        /**
+         * Parâmetro da URI de mensagens e da URI de uma mensagem: se "true", inclui também as
+         * mensagens antigas, que o provedor move em segundo plano para o arquivo. Sem ele, as
+         * consultas retornam apenas as mensagens recentes e as favoritas. Numa atualização ou
+         * exclusão, permite alcançar as mensagens arquivadas (uma mensagem atualizada volta a ser
+         * recente). A busca textual e o sorteio consideram apenas as mensagens não arquivadas.
+         * Cada lote movido para o arquivo é notificado uma única vez, na URI de mensagens e sem
+         * tipo de mudança (flags 0).
+         * Ex: {@code content://.../mensagens?arquivo=true&limite=50}
+         */
+        public static final String PARAM_INCLUIR_ARQUIVO = "arquivo";
+    }
+}
\ No newline at end of file
@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "contentprovidergerador"
 include(":app")
+include(":benchmark")
+include(":cliente")
  
\ No newline at end of file